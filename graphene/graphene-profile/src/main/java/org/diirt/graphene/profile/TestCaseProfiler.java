@@ -600,6 +600,39 @@ public final class TestCaseProfiler {
         }
     }
 
+    /**
+     * Profiles the intensity graph on a detector image: 2000x2000 cells
+     * with 16 bit integer values, drawn on a 2000x2000 image.
+     * The data image is drawn in parallel row bands, and the integer values
+     * are converted to colors with a lookup table.
+     */
+    @NoRequires
+    public static void intensityGraphDetectorImage(){
+        ProfileIntensityGraph2D graph = new ProfileIntensityGraph2D(){
+
+            @Override
+            protected Cell2DDataset getDataset() {
+                return DatasetFactory.makeCell2DIntegerRandomData(getNumXDataPoints(), getNumYDataPoints(), 65536);
+            }
+        };
+
+        //Apply SaveSettings
+        graph.setNumXDataPoints( 2000 );
+        graph.setNumYDataPoints( 2000 );
+
+        graph.getResolution().setWidth(2000);
+        graph.getResolution().setHeight(2000);
+
+        graph.getSaveSettings().setDatasetMessage("2000x2000 integers");
+        graph.getSaveSettings().setSaveMessage("Detector Image Test");
+
+        graph.getProfileSettings().setTestTime(20);
+
+        //Run
+        graph.profile();
+        graph.saveStatistics();
+    }
+
     /**
      * Tests the different types of rendering methods to write data
      * to a buffered image.
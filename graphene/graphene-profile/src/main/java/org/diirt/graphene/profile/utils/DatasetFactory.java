@@ -18,6 +18,7 @@ import org.diirt.graphene.Point3DWithLabelDataset;
 import org.diirt.graphene.Point3DWithLabelDatasets;
 import org.diirt.util.stats.StatisticsUtil;
 import org.diirt.util.array.ArrayDouble;
+import org.diirt.util.array.ArrayInt;
 import org.diirt.util.stats.Ranges;
 
 /**
@@ -209,5 +210,33 @@ public final class DatasetFactory {
         return Cell2DDatasets.linearRange(new ArrayDouble(waveform), Ranges.range(0, xSamples), xSamples, Ranges.range(0, ySamples), ySamples);
     }
 
+    /**
+     * Generates Cell2D data with integer values, like the counts
+     * of a detector image.
+     * The data set has the following properties:
+     * <ol>
+     *      <li>Size of data is xSamples * ySamples<li>
+     *      <li>Random cell data</li>
+     *      <li>Uniform distribution of integers from 0 to maxCount - 1</li>
+     * </ol>
+     * @param xSamples number of x-cells in data
+     * @param ySamples number of y-cells in data
+     * @param maxCount the number of possible values
+     * @return a set of data to be drawn
+     */
+    public static Cell2DDataset makeCell2DIntegerRandomData(int xSamples, int ySamples, int maxCount){
+        int nSamples = xSamples * ySamples;
+        int[] counts = new int[nSamples];
+        int seed = 1;
+
+        //Creates data
+        Random rand = new Random(seed);
+        for (int i = 0; i < nSamples; i++){
+            counts[i] = rand.nextInt(maxCount);
+        }
+
+        return Cell2DDatasets.linearRange(new ArrayInt(counts), Ranges.range(0, xSamples), xSamples, Ranges.range(0, ySamples), ySamples);
+    }
+
     //--------------------------------------------------------------------------
 }
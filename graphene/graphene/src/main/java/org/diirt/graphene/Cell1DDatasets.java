@@ -7,6 +7,7 @@ package org.diirt.graphene;
 import org.diirt.util.stats.StatisticsUtil;
 import org.diirt.util.stats.Statistics;
 import org.diirt.util.stats.Range;
+import org.diirt.util.stats.HistogramAccumulator;
 import org.diirt.util.array.ListNumber;
 import org.diirt.util.array.ListNumbers;
 import org.diirt.util.stats.Ranges;
@@ -155,4 +156,16 @@ public class Cell1DDatasets {
         Cell1DHistogramDataset histogram = new Cell1DHistogramDataset(dataset);
         return histogram;
     }
+
+    /**
+     * A dataset with the current counts of the given histogram. The dataset
+     * is a copy: it does not change when values are added to or removed
+     * from the histogram.
+     *
+     * @param histogram the histogram; can't be null
+     * @return a new dataset
+     */
+    public static Cell1DDataset createHistogram(HistogramAccumulator histogram) {
+        return new Cell1DHistogramDataset(histogram);
+    }
 }
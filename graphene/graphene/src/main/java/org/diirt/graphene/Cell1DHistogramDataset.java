@@ -7,10 +7,10 @@ package org.diirt.graphene;
 import org.diirt.util.stats.StatisticsUtil;
 import org.diirt.util.stats.Statistics;
 import org.diirt.util.stats.Range;
-import org.diirt.util.array.ArrayDouble;
-import org.diirt.util.array.IteratorNumber;
+import org.diirt.util.array.ListInt;
 import org.diirt.util.array.ListNumber;
 import org.diirt.util.array.ListNumbers;
+import org.diirt.util.stats.HistogramAccumulator;
 import org.diirt.util.stats.Ranges;
 
 /**
@@ -29,7 +29,7 @@ class Cell1DHistogramDataset implements Cell1DDataset {
     private int maxCountRange;
 
 
-    private double[] values;
+    private ListInt values;
     private boolean autoValueRange = true;
     private int nBins = 100;
 
@@ -37,43 +37,35 @@ class Cell1DHistogramDataset implements Cell1DDataset {
         calculateFrom(dataset);
     }
 
+    public Cell1DHistogramDataset(HistogramAccumulator histogram) {
+        // Snapshot of the current counts: the accumulator can keep changing
+        xBoundaries = histogram.getBoundaries();
+        xRange = histogram.getRange();
+        values = histogram.getCounts();
+        statistics = StatisticsUtil.statisticsOf(values);
+    }
+
     private void calculateFrom(Point1DDataset dataset) {
         if (dataset.getStatistics() == null) {
             throw new NullPointerException("dataset is null");
         }
 
-        IteratorNumber newValues = dataset.getValues().iterator();
         if (autoValueRange) {
             this.minValueRange = dataset.getStatistics().getRange().getMinimum();
             this.maxValueRange = dataset.getStatistics().getRange().getMaximum();
             xBoundaries = ListNumbers.linearListFromRange(minValueRange, maxValueRange, nBins);
             xRange = Ranges.range(xBoundaries.getDouble(0), xBoundaries.getDouble(nBins));
         }
-        values = new double[nBins];
-        while (newValues.hasNext()) {
-            addValueToBin(newValues.nextDouble());
-        }
-
-        statistics = StatisticsUtil.statisticsOf(new ArrayDouble(values));
-    }
-
-    private void addValueToBin(double value) {
-        // Discard value outsie the binning area
-        if (!xRange.contains(value)) {
-            return;
-        }
-
-        int bin = (int) Math.floor(MathUtil.scale(value, xRange.getMinimum(), xRange.getMaximum(), nBins));
-        if (bin == nBins) {
-            bin--;
-        }
+        HistogramAccumulator histogram = HistogramAccumulator.linear(xRange, nBins);
+        histogram.add(dataset.getValues());
+        values = histogram.getCounts();
 
-        values[bin]++;
+        statistics = StatisticsUtil.statisticsOf(values);
     }
 
     @Override
     public double getValue(int x) {
-        return values[x];
+        return values.getInt(x);
     }
 
     @Override
@@ -98,7 +90,7 @@ class Cell1DHistogramDataset implements Cell1DDataset {
 
     @Override
     public int getXCount() {
-        return values.length;
+        return values.size();
     }
 
 }
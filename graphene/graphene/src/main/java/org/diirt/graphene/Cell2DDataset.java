@@ -27,6 +27,28 @@ public interface Cell2DDataset {
      */
     public double getValue(int x, int y);
 
+    /**
+     * Copies the values of some cells of a row. The value of the cell at
+     * x = xIndexes[i] is stored in values[i], as {@link #getValue(int, int) }
+     * would return it. Renderers use this to read a whole row at once
+     * instead of one cell at a time.
+     * <p>
+     * The default implementation calls {@link #getValue(int, int) } for
+     * each cell; implementations can override it to read the row more
+     * efficiently. The rows are read from a single thread, unless the
+     * dataset is a {@link ConcurrentCell2DDataset}.
+     *
+     * @throws ArrayIndexOutOfBoundsException if any coordinate is &lt; 0 or &gt;= its count
+     * @param y the y coordinate of the row
+     * @param xIndexes the x coordinates of the cells
+     * @param values the array where the values are copied; at least as long as xIndexes
+     */
+    public default void getRowValues(int y, int[] xIndexes, double[] values) {
+        for (int i = 0; i < xIndexes.length; i++) {
+            values[i] = getValue(xIndexes[i], y);
+        }
+    }
+
     /**
      * Returns the statistics of all values at all cells.
      * <p>
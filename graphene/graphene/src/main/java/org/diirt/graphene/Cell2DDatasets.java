@@ -17,6 +17,13 @@ import org.diirt.util.stats.Ranges;
  */
 public class Cell2DDatasets {
 
+    /**
+     * A function of two variables used to compute the value of each cell.
+     * <p>
+     * The datasets created from a function may call it each time a value
+     * is read. They are read only by the thread that draws, so the function
+     * does not need to be thread-safe.
+     */
     public static interface Function2D {
 
         public double getValue(double x, double y);
@@ -55,12 +62,20 @@ public class Cell2DDatasets {
         final ListNumber yBoundaries = ListNumbers.linearListFromRange(yRange.getMinimum(), yRange.getMaximum(), yCount + 1);
 
         final Statistics stats = StatisticsUtil.statisticsOf(data);
-        return new Cell2DDataset() {
+        return new ConcurrentCell2DDataset() {
             @Override
             public double getValue(int x, int y) {
                 return data.getDouble(y * xCount + x);
             }
 
+            @Override
+            public void getRowValues(int y, int[] xIndexes, double[] values) {
+                int rowStart = y * xCount;
+                for (int i = 0; i < xIndexes.length; i++) {
+                    values[i] = data.getDouble(rowStart + xIndexes[i]);
+                }
+            }
+
             @Override
             public Statistics getStatistics() {
                 return stats;
@@ -103,6 +118,20 @@ public class Cell2DDatasets {
         };
     }
 
+    /**
+     * Returns a Cell2DDataset that computes the value of each cell from
+     * the function at the center of the cell.
+     * <p>
+     * The function is called every time a value is read, and not only when
+     * the dataset is created.
+     *
+     * @param function the function of the cell centers
+     * @param xRange the range of the x
+     * @param xCount the number of x cells
+     * @param yRange the range of the y
+     * @param yCount the number of y cells
+     * @return the new dataset
+     */
     public static Cell2DDataset linearRange(final Function2D function, final Range xRange, final int xCount, final Range yRange, final int yCount) {
 
         final ListNumber xBoundaries = ListNumbers.linearListFromRange(xRange.getMinimum(), xRange.getMaximum(), xCount + 1);
@@ -147,6 +176,14 @@ public class Cell2DDatasets {
                 return function.getValue(xBoundaries.getDouble(x) + xHalfStep, yBoundaries.getDouble(y) + yHalfStep);
             }
 
+            @Override
+            public void getRowValues(int y, int[] xIndexes, double[] values) {
+                double yCenter = yBoundaries.getDouble(y) + yHalfStep;
+                for (int i = 0; i < xIndexes.length; i++) {
+                    values[i] = function.getValue(xBoundaries.getDouble(xIndexes[i]) + xHalfStep, yCenter);
+                }
+            }
+
             @Override
             public Statistics getStatistics() {
                 return stats;
@@ -215,13 +252,21 @@ public class Cell2DDatasets {
         if (values.size() != xCount * yCount) {
             throw new IllegalArgumentException("Number of boundaries do not match number of cells (" + xCount + " * " + yCount + " !+ " + values.size() + ")");
         }
-        return new Cell2DDataset() {
+        return new ConcurrentCell2DDataset() {
 
             @Override
             public double getValue(int x, int y) {
                 return values.getDouble(y * xCount + x);
             }
 
+            @Override
+            public void getRowValues(int y, int[] xIndexes, double[] rowValues) {
+                int rowStart = y * xCount;
+                for (int i = 0; i < xIndexes.length; i++) {
+                    rowValues[i] = values.getDouble(rowStart + xIndexes[i]);
+                }
+            }
+
             @Override
             public Statistics getStatistics() {
                 return statistics;
@@ -0,0 +1,20 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.graphene;
+
+/**
+ * A {@link Cell2DDataset} that can be read from multiple threads at the
+ * same time, typically because its values are held in memory and never
+ * change.
+ * <p>
+ * Renderers draw the large images of these datasets in parallel, calling
+ * {@link #getRowValues(int, int[], double[]) } for different rows
+ * concurrently. Any other dataset is only read by the thread that draws.
+ *
+ * @author carcassi
+ */
+public interface ConcurrentCell2DDataset extends Cell2DDataset {
+
+}
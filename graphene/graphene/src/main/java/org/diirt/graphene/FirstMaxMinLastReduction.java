@@ -0,0 +1,222 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.graphene;
+
+import java.util.Arrays;
+import org.diirt.util.array.ListNumber;
+
+/**
+ * Selects the points of a line that need to be drawn so that the result
+ * looks the same as drawing all of them. For each pixel column, only
+ * the first, the minimum, the maximum and the last point are kept
+ * (M4 aggregation): a line through them covers the same pixels as the
+ * full data.
+ * <p>
+ * The data is read in one pass over the window, comparing the x values
+ * with the value at the boundary of the current pixel column: the x scale
+ * is called once per column, not once per point, and the y values are
+ * compared without being scaled. The result is a list of indexes in
+ * increasing order, at most four per column, which the renderer scales and
+ * draws. The buffer for the indexes is reused from one reduction to the
+ * next.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author carcassi
+ */
+class FirstMaxMinLastReduction {
+
+    private int[] indexes = new int[256];
+    private int size;
+
+    /**
+     * Whether reducing the given number of points is worth it.
+     * The reduction generates up to 4 points per pixel column:
+     * with fewer points than that, all points are drawn.
+     *
+     * @param nPoints the number of points to draw
+     * @param plotWidth the width of the plot in pixels
+     * @return true if the reduction should be used
+     */
+    static boolean isWorthReducing(int nPoints, double plotWidth) {
+        return nPoints >= plotWidth * 4;
+    }
+
+    /**
+     * Reduces the points between start and end. The x values must be
+     * sorted; the y values can contain NaN, which are never selected
+     * as minimum or maximum.
+     *
+     * @param xValues the sorted x values
+     * @param yValues the y values
+     * @param start the first index (inclusive)
+     * @param end the last index (exclusive)
+     * @param xScale the scale used for the x axis
+     * @param xValueStart the value at the start of the plot
+     * @param xValueEnd the value at the end of the plot
+     * @param xPixelStart the pixel at the start of the plot
+     * @param xPixelEnd the pixel at the end of the plot
+     */
+    void reduce(ListNumber xValues, ListNumber yValues, int start, int end,
+            ValueScale xScale, double xValueStart, double xValueEnd, double xPixelStart, double xPixelEnd) {
+        size = 0;
+        if (start >= end) {
+            return;
+        }
+
+        int column = 0;
+        double nextColumnValue = Double.NaN;
+        int first = -1;
+        int last = -1;
+        int min = -1;
+        int max = -1;
+        double minValue = Double.NaN;
+        double maxValue = Double.NaN;
+        for (int i = start; i < end; i++) {
+            double x = xValues.getDouble(i);
+            if (x >= nextColumnValue || first == -1) {
+                int newColumn = (int) Math.floor(xScale.scaleValue(x, xValueStart, xValueEnd, xPixelStart, xPixelEnd));
+                if (first == -1 || newColumn != column) {
+                    if (first != -1) {
+                        addColumn(first, min, max, last);
+                    }
+                    column = newColumn;
+                    first = i;
+                    min = -1;
+                    max = -1;
+                    minValue = Double.NaN;
+                    maxValue = Double.NaN;
+                }
+                nextColumnValue = xScale.invScaleValue(column + 1, xValueStart, xValueEnd, xPixelStart, xPixelEnd);
+                if (!(nextColumnValue > x)) {
+                    // Rounding at the boundary: check the column of the next point
+                    nextColumnValue = x;
+                }
+            }
+
+            double y = yValues.getDouble(i);
+            if (!Double.isNaN(y)) {
+                if (min == -1 || y < minValue) {
+                    min = i;
+                    minValue = y;
+                }
+                if (max == -1 || y > maxValue) {
+                    max = i;
+                    maxValue = y;
+                }
+            }
+            last = i;
+        }
+        addColumn(first, min, max, last);
+    }
+
+    /**
+     * Reduces the points between start and end using a pyramid of the
+     * y values. Instead of reading every point, the boundary of each column
+     * is found with a binary search on the x values, and its minimum and
+     * maximum are taken from the pyramid: the cost depends on the number
+     * of columns, not on the number of points. The pyramid may cover only
+     * the first part of the y values: the points after it are read one by one.
+     *
+     * @param xValues the sorted x values
+     * @param yValues the y values
+     * @param yPyramid the pyramid of the y values
+     * @param start the first index (inclusive)
+     * @param end the last index (exclusive)
+     * @param xScale the scale used for the x axis
+     * @param xValueStart the value at the start of the plot
+     * @param xValueEnd the value at the end of the plot
+     * @param xPixelStart the pixel at the start of the plot
+     * @param xPixelEnd the pixel at the end of the plot
+     */
+    void reduce(ListNumber xValues, ListNumber yValues, MinMaxPyramid yPyramid, int start, int end,
+            ValueScale xScale, double xValueStart, double xValueEnd, double xPixelStart, double xPixelEnd) {
+        size = 0;
+        int first = start;
+        while (first < end) {
+            double x = xValues.getDouble(first);
+            int column = (int) Math.floor(xScale.scaleValue(x, xValueStart, xValueEnd, xPixelStart, xPixelEnd));
+            double nextColumnValue = xScale.invScaleValue(column + 1, xValueStart, xValueEnd, xPixelStart, xPixelEnd);
+            int next = firstIndexAtLeast(xValues, nextColumnValue, first + 1, end);
+
+            int min = -1;
+            int max = -1;
+            int pyramidEnd = Math.min(next, yPyramid.size());
+            if (first < pyramidEnd) {
+                min = yPyramid.getMinIndex(first, pyramidEnd);
+                max = yPyramid.getMaxIndex(first, pyramidEnd);
+            }
+            for (int i = Math.max(first, pyramidEnd); i < next; i++) {
+                double y = yValues.getDouble(i);
+                if (!Double.isNaN(y)) {
+                    if (min == -1 || y < yValues.getDouble(min)) {
+                        min = i;
+                    }
+                    if (max == -1 || y > yValues.getDouble(max)) {
+                        max = i;
+                    }
+                }
+            }
+            addColumn(first, min, max, next - 1);
+            first = next;
+        }
+    }
+
+    // The first index between from and to with a value greater or equal
+    // to the given one, or to if there is none
+    private static int firstIndexAtLeast(ListNumber values, double value, int from, int to) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values.getDouble(mid) < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void addColumn(int first, int min, int max, int last) {
+        if (size + 4 > indexes.length) {
+            indexes = Arrays.copyOf(indexes, indexes.length * 2);
+        }
+        add(first);
+        if (min != -1) {
+            // Minimum and maximum in the order they appear
+            add(Math.min(min, max));
+            add(Math.max(min, max));
+        }
+        add(last);
+    }
+
+    private void add(int index) {
+        // Skip the index if it was already added (e.g. first is the minimum)
+        if (size == 0 || indexes[size - 1] != index) {
+            indexes[size] = index;
+            size++;
+        }
+    }
+
+    /**
+     * The number of points selected by the last reduction.
+     *
+     * @return the number of points
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * The index, in the original data, of the i-th selected point.
+     *
+     * @param i the position in the reduced data
+     * @return the index in the original data
+     */
+    int getIndex(int i) {
+        return indexes[i];
+    }
+}
@@ -68,6 +68,8 @@ public abstract class Graph2DRenderer<T extends Graph2DRendererUpdate> {
     protected double yPlotCoordHeight;
     protected double xPlotCoordWidth;
 
+    private final FirstMaxMinLastReduction firstMaxMinLast = new FirstMaxMinLastReduction();
+
     /**
      * Creates a graph renderer.
      *
@@ -476,66 +478,39 @@ public abstract class Graph2DRenderer<T extends Graph2DRendererUpdate> {
         return scaledData;
     }
 
-    private ScaledData scaleFirstMaxMinLastReduction(ListNumber xValues, ListNumber yValues, int dataStart) {
+    private ScaledData scaleFirstMaxMinLastReduction(ListNumber xValues, ListNumber yValues, MinMaxPyramid yPyramid, int start, int end) {
         // The number of points generated by this is about 4 times the
         // number of points on the x axis. If the number of points is less
         // than that, it's not worth it. Don't do the data reduction.
-        if (xValues.size() < xPlotCoordWidth * 4) {
-            return scaleNoReduction(xValues, yValues, dataStart);
+        if (!FirstMaxMinLastReduction.isWorthReducing(end - start, xPlotCoordWidth)) {
+            return scaleNoReduction(ListMath.limit(xValues, start, end), ListMath.limit(yValues, start, end), start);
         }
 
-        ScaledData scaledData = new ScaledData();
-        scaledData.scaledX = new double[((int) xPlotCoordWidth + 1)*4 ];
-        scaledData.scaledY = new double[((int) xPlotCoordWidth + 1)*4];
-        int cursor = 0;
-        int previousPixel = (int) scaledX(xValues.getDouble(0));
-        double last = scaledY(yValues.getDouble(0));
-        double min = last;
-        double max = last;
-        scaledData.scaledX[0] = previousPixel;
-        scaledData.scaledY[0] = min;
-        processScaledValue(dataStart, xValues.getDouble(0), yValues.getDouble(0), scaledX(xValues.getDouble(0)), last);
-        cursor++;
-        for (int i = 1; i < xValues.size(); i++) {
-            double currentScaledX = scaledX(xValues.getDouble(i));
-            int currentPixel = (int) currentScaledX;
-            if (currentPixel == previousPixel) {
-                last = scaledY(yValues.getDouble(i));
-                min = MathIgnoreNaN.min(min, last);
-                max = MathIgnoreNaN.max(max, last);
-                processScaledValue(dataStart + i, xValues.getDouble(i), yValues.getDouble(i), currentScaledX, last);
-            } else {
-                scaledData.scaledX[cursor] = previousPixel;
-                scaledData.scaledY[cursor] = max;
-                cursor++;
-                scaledData.scaledX[cursor] = previousPixel;
-                scaledData.scaledY[cursor] = min;
-                cursor++;
-                scaledData.scaledX[cursor] = previousPixel;
-                scaledData.scaledY[cursor] = last;
-                cursor++;
-                previousPixel = currentPixel;
-                last = scaledY(yValues.getDouble(i));
-                min = last;
-                max = last;
-                scaledData.scaledX[cursor] = currentPixel;
-                scaledData.scaledY[cursor] = last;
-                cursor++;
-            }
+        if (yPyramid != null) {
+            firstMaxMinLast.reduce(xValues, yValues, yPyramid, start, end, xValueScale, xPlotValueStart, xPlotValueEnd, xPlotCoordStart, xPlotCoordEnd);
+        } else {
+            firstMaxMinLast.reduce(xValues, yValues, start, end, xValueScale, xPlotValueStart, xPlotValueEnd, xPlotCoordStart, xPlotCoordEnd);
         }
-        scaledData.scaledX[cursor] = previousPixel;
-        scaledData.scaledY[cursor] = max;
-        cursor++;
-        scaledData.scaledX[cursor] = previousPixel;
-        scaledData.scaledY[cursor] = min;
-        cursor++;
-        scaledData.end = cursor;
+        ScaledData scaledData = new ScaledData();
+        scaledData.scaledX = new double[firstMaxMinLast.size()];
+        scaledData.scaledY = new double[firstMaxMinLast.size()];
+        for (int i = 0; i < scaledData.scaledY.length; i++) {
+            int index = firstMaxMinLast.getIndex(i);
+            double valueX = xValues.getDouble(index);
+            double valueY = yValues.getDouble(index);
+            scaledData.scaledX[i] = scaledX(valueX);
+            scaledData.scaledY[i] = scaledY(valueY);
+            processScaledValue(index, valueX, valueY, scaledData.scaledX[i], scaledData.scaledY[i]);
+        }
+        scaledData.end = scaledData.scaledY.length;
         return scaledData;
     }
 
     /**
      *Empty function, designed to be implemented in sub-classes.
-     * <p>Used on every value in a dataset.</p>
+     * <p>Used on every value in a dataset that is drawn. When the data
+     * is reduced, it is used only on the values that were kept
+     * (i.e. the first, minimum, maximum and last value of each pixel column).</p>
      *
      * @param index the index of the value
      * @param valueX the x value
@@ -606,6 +581,22 @@ public abstract class Graph2DRenderer<T extends Graph2DRendererUpdate> {
      * @param reduction the reduction
      */
     protected void drawValueExplicitLine(ListNumber xValues, ListNumber yValues, InterpolationScheme interpolation, ReductionScheme reduction) {
+        drawValueExplicitLine(xValues, yValues, null, interpolation, reduction);
+    }
+
+    /**
+     * Draws an explicit line give the interpolation and reduction schemes,
+     * the x values and the y values. The function will scale the values.
+     * If a pyramid of the y values is given, the reduction uses it instead
+     * of reading all the points.
+     *
+     * @param xValues the x values
+     * @param yValues the y values
+     * @param yPyramid the pyramid of the y values; can be null
+     * @param interpolation the interpolation
+     * @param reduction the reduction
+     */
+    protected void drawValueExplicitLine(ListNumber xValues, ListNumber yValues, MinMaxPyramid yPyramid, InterpolationScheme interpolation, ReductionScheme reduction) {
         ScaledData scaledData;
 
         g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
@@ -615,17 +606,14 @@ public abstract class Graph2DRenderer<T extends Graph2DRendererUpdate> {
         int start = org.diirt.util.array.ListNumbers.binarySearchValueOrLower(xValues, xPlotValueStart);
         int end = org.diirt.util.array.ListNumbers.binarySearchValueOrHigher(xValues, xPlotValueEnd);
 
-        xValues = ListMath.limit(xValues, start, end + 1);
-        yValues = ListMath.limit(yValues, start, end + 1);
-
         switch (reduction) {
             default:
                 throw new IllegalArgumentException("Reduction scheme " + reduction + " not supported");
             case NONE:
-                scaledData = scaleNoReduction(xValues, yValues, start);
+                scaledData = scaleNoReduction(ListMath.limit(xValues, start, end + 1), ListMath.limit(yValues, start, end + 1), start);
                 break;
             case FIRST_MAX_MIN_LAST:
-                scaledData = scaleFirstMaxMinLastReduction(xValues, yValues, start);
+                scaledData = scaleFirstMaxMinLastReduction(xValues, yValues, yPyramid, start, end + 1);
                 break;
         }
 
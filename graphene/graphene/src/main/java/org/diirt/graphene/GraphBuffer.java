@@ -13,6 +13,8 @@ import java.awt.geom.Path2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import org.diirt.util.array.ListInt;
 import org.diirt.util.array.ListMath;
 import org.diirt.util.array.ListNumber;
@@ -50,10 +52,13 @@ public class GraphBuffer {
 
     /**
      * Creates a GraphBuffer with the given image on which to draw a graph.
+     * The image must be backed by a byte raster (e.g. TYPE_3BYTE_BGR);
+     * it can be an image reused from a previous graph, since the
+     * renderers draw the whole background.
      *
      * @param image an image on which we can draw a graph
      */
-    private GraphBuffer(BufferedImage image){
+    public GraphBuffer(BufferedImage image){
         this.image = image;
         width = image.getWidth();
         height = image.getHeight();
@@ -124,8 +129,19 @@ public class GraphBuffer {
         return g;
     }
 
+    // Images with fewer pixels are drawn on the calling thread
+    private static final int PARALLEL_THRESHOLD = 256 * 1024;
+    // Number of pixels drawn by each task
+    private static final int BAND_PIXELS = 64 * 1024;
+
     /**
      * Plots a two dimensional array of values encoded by color.
+     * <p>
+     * Each row of data is read with {@link Cell2DDataset#getRowValues(int, int[], double[]) }
+     * and its colors are written directly in the raster. For big images of
+     * a {@link ConcurrentCell2DDataset}, the rows are divided in bands drawn
+     * in parallel in the common fork-join pool; any other dataset is read
+     * only by the calling thread.
      *
      * @param xStartPoint the horizontal coordinate for the first pixel of the image
      * @param yStartPoint the vertical coordinate for the first pixel of the image
@@ -137,33 +153,98 @@ public class GraphBuffer {
     public void drawDataImage(int xStartPoint, int yStartPoint,
                         int[] xPointToDataMap, int[] yPointToDataMap,
                         Cell2DDataset data, NumberColorMapInstance colorMap) {
-        int previousYData = -1;
-
-        // Loop through the points to be plotted. The length of the image is
-        // given by the point to data map, since it tells how many points are mapped.
-        for (int yOffset = 0; yOffset < yPointToDataMap.length; yOffset++) {
-            int yData = yPointToDataMap[yOffset];
-            if (yData != previousYData) {
-                for (int xOffset = 0; xOffset < xPointToDataMap.length; xOffset++) {
-                    int xData = xPointToDataMap[xOffset];
-
-                    // Get the value, convert to color and plot
-                    int rgb = colorMap.colorFor(data.getValue(xData, yData));
-                    setPixel( xStartPoint + xOffset  , yStartPoint + yOffset , rgb );
-                }
+        DataImageTask task = new DataImageTask(xStartPoint, yStartPoint, xPointToDataMap, yPointToDataMap,
+                data, colorMap, 0, yPointToDataMap.length);
+        if (!(data instanceof ConcurrentCell2DDataset)
+                || (long) xPointToDataMap.length * yPointToDataMap.length < PARALLEL_THRESHOLD) {
+            task.drawRows();
+        } else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+    }
 
-            // If the current line is the same as the previous, it's
-            // faster to make a copy
+    /**
+     * Draws a band of rows of a data image. Each task writes only the
+     * pixels of its rows, so tasks can run in parallel on the same raster.
+     */
+    private class DataImageTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int xStartPoint;
+        private final int yStartPoint;
+        private final int[] xPointToDataMap;
+        private final int[] yPointToDataMap;
+        private final Cell2DDataset data;
+        private final NumberColorMapInstance colorMap;
+        private final int yOffsetStart;
+        private final int yOffsetEnd;
+
+        DataImageTask(int xStartPoint, int yStartPoint, int[] xPointToDataMap, int[] yPointToDataMap,
+                Cell2DDataset data, NumberColorMapInstance colorMap, int yOffsetStart, int yOffsetEnd) {
+            this.xStartPoint = xStartPoint;
+            this.yStartPoint = yStartPoint;
+            this.xPointToDataMap = xPointToDataMap;
+            this.yPointToDataMap = yPointToDataMap;
+            this.data = data;
+            this.colorMap = colorMap;
+            this.yOffsetStart = yOffsetStart;
+            this.yOffsetEnd = yOffsetEnd;
+        }
+
+        @Override
+        protected void compute() {
+            int nRows = yOffsetEnd - yOffsetStart;
+            if (nRows < 2 || (long) nRows * xPointToDataMap.length <= BAND_PIXELS) {
+                drawRows();
             } else {
-                if (hasAlphaChannel) {
-                    System.arraycopy(pixels, (yStartPoint + yOffset - 1)*width*4 + 4*xStartPoint,
-                            pixels, (yStartPoint + yOffset)*width*4 + 4*xStartPoint, xPointToDataMap.length*4);
+                int middle = yOffsetStart + nRows / 2;
+                invokeAll(new DataImageTask(xStartPoint, yStartPoint, xPointToDataMap, yPointToDataMap, data, colorMap, yOffsetStart, middle),
+                        new DataImageTask(xStartPoint, yStartPoint, xPointToDataMap, yPointToDataMap, data, colorMap, middle, yOffsetEnd));
+            }
+        }
+
+        void drawRows() {
+            int pixelSize = hasAlphaChannel ? 4 : 3;
+            int rowLength = xPointToDataMap.length;
+            double[] values = new double[rowLength];
+            int[] rgbs = new int[rowLength];
+            int previousYData = -1;
+
+            // Loop through the points to be plotted. The length of the image is
+            // given by the point to data map, since it tells how many points are mapped.
+            for (int yOffset = yOffsetStart; yOffset < yOffsetEnd; yOffset++) {
+                int yData = yPointToDataMap[yOffset];
+                int rowStart = ((yStartPoint + yOffset) * width + xStartPoint) * pixelSize;
+                if (yData != previousYData) {
+                    // Get the values, convert to color and plot
+                    data.getRowValues(yData, xPointToDataMap, values);
+                    if (colorMap instanceof NumberColorMapInstanceOptimized) {
+                        ((NumberColorMapInstanceOptimized) colorMap).colorsFor(values, rgbs, rowLength);
+                    } else {
+                        for (int i = 0; i < rowLength; i++) {
+                            rgbs[i] = colorMap.colorFor(values[i]);
+                        }
+                    }
+                    int offset = rowStart;
+                    for (int i = 0; i < rowLength; i++) {
+                        int rgb = rgbs[i];
+                        pixels[offset] = (byte)(rgb & 0xFF);
+                        pixels[offset + 1] = (byte)(rgb >> 8 & 0xFF);
+                        pixels[offset + 2] = (byte)(rgb >> 16 & 0xFF);
+                        if (hasAlphaChannel) {
+                            pixels[offset + 3] = (byte)(rgb >> 24 & 0xFF);
+                        }
+                        offset += pixelSize;
+                    }
+
+                // If the current line is the same as the previous, it's
+                // faster to make a copy
                 } else {
-                    System.arraycopy(pixels, (yStartPoint + yOffset - 1)*width*3 + 3*xStartPoint,
-                            pixels, (yStartPoint + yOffset)*width*3 + 3*xStartPoint, xPointToDataMap.length*3);
+                    System.arraycopy(pixels, rowStart - width * pixelSize, pixels, rowStart, rowLength * pixelSize);
                 }
+                previousYData = yData;
             }
-            previousYData = yData;
         }
     }
 
@@ -172,6 +253,7 @@ public class GraphBuffer {
     private double xLeftPixel;
     private double xRightPixel;
     private ValueScale xValueScale;
+    private final FirstMaxMinLastReduction firstMaxMinLast = new FirstMaxMinLastReduction();
 
     /**
      * Sets the scaling data for the x axis assuming values are going
@@ -567,17 +649,14 @@ public class GraphBuffer {
         int start = ListNumbers.binarySearchValueOrLower(xValues, xLeftValue);
         int end = ListNumbers.binarySearchValueOrHigher(xValues, xRightValue);
 
-        xValues = ListMath.limit(xValues, start, end + 1);
-        yValues = ListMath.limit(yValues, start, end + 1);
-
         switch (reduction) {
             default:
                 throw new IllegalArgumentException("Reduction scheme " + reduction + " not supported");
             case NONE:
-                scaledData = scaleNoReduction(xValues, yValues, start,pv);
+                scaledData = scaleNoReduction(ListMath.limit(xValues, start, end + 1), ListMath.limit(yValues, start, end + 1), start,pv);
                 break;
             case FIRST_MAX_MIN_LAST:
-                scaledData = scaleFirstMaxMinLastReduction(xValues, yValues, start,pv);
+                scaledData = scaleFirstMaxMinLastReduction(xValues, yValues, start, end + 1, pv);
                 break;
         }
 
@@ -618,61 +697,27 @@ public class GraphBuffer {
         return scaledData;
     }
 
-    private ScaledData scaleFirstMaxMinLastReduction(ListNumber xValues, ListNumber yValues, int dataStart, ProcessValue pv) {
+    private ScaledData scaleFirstMaxMinLastReduction(ListNumber xValues, ListNumber yValues, int start, int end, ProcessValue pv) {
         // The number of points generated by this is about 4 times the
         // number of points on the x axis. If the number of points is less
         // than that, it's not worth it. Don't do the data reduction.
-        int xPlotCoordWidth=300;
-        if (xValues.size() < xPlotCoordWidth * 4) {
-            return scaleNoReduction(xValues, yValues, dataStart,pv);
+        if (!FirstMaxMinLastReduction.isWorthReducing(end - start, xRightPixel - xLeftPixel)) {
+            return scaleNoReduction(ListMath.limit(xValues, start, end), ListMath.limit(yValues, start, end), start, pv);
         }
 
+        firstMaxMinLast.reduce(xValues, yValues, start, end, xValueScale, xLeftValue, xRightValue, xLeftPixel, xRightPixel);
         ScaledData scaledData = new ScaledData();
-        scaledData.scaledX = new double[((int) xPlotCoordWidth + 1)*4 ];
-        scaledData.scaledY = new double[((int) xPlotCoordWidth + 1)*4];
-        int cursor = 0;
-        int previousPixel = xValueToPixel(xValues.getDouble(0));
-        double last = yValueToPixel(yValues.getDouble(0));
-        double min = last;
-        double max = last;
-        scaledData.scaledX[0] = previousPixel;
-        scaledData.scaledY[0] = min;
-        pv.processScaledValue(dataStart, xValues.getDouble(0), yValues.getDouble(0), xValueToPixel(xValues.getDouble(0)), last);
-        cursor++;
-        for (int i = 1; i < xValues.size(); i++) {
-            double currentScaledX = xValueToPixel(xValues.getDouble(i));
-            int currentPixel = (int) currentScaledX;
-            if (currentPixel == previousPixel) {
-                last = yValueToPixel(yValues.getDouble(i));
-                min = MathIgnoreNaN.min(min, last);
-                max = MathIgnoreNaN.max(max, last);
-                pv.processScaledValue(dataStart + i, xValues.getDouble(i), yValues.getDouble(i), currentScaledX, last);
-            } else {
-                scaledData.scaledX[cursor] = previousPixel;
-                scaledData.scaledY[cursor] = max;
-                cursor++;
-                scaledData.scaledX[cursor] = previousPixel;
-                scaledData.scaledY[cursor] = min;
-                cursor++;
-                scaledData.scaledX[cursor] = previousPixel;
-                scaledData.scaledY[cursor] = last;
-                cursor++;
-                previousPixel = currentPixel;
-                last = yValueToPixel(yValues.getDouble(i));
-                min = last;
-                max = last;
-                scaledData.scaledX[cursor] = currentPixel;
-                scaledData.scaledY[cursor] = last;
-                cursor++;
-            }
+        scaledData.scaledX = new double[firstMaxMinLast.size()];
+        scaledData.scaledY = new double[firstMaxMinLast.size()];
+        for (int i = 0; i < scaledData.scaledY.length; i++) {
+            int index = firstMaxMinLast.getIndex(i);
+            double valueX = xValues.getDouble(index);
+            double valueY = yValues.getDouble(index);
+            scaledData.scaledX[i] = xValueToPixel(valueX);
+            scaledData.scaledY[i] = yValueToPixel(valueY);
+            pv.processScaledValue(index, valueX, valueY, scaledData.scaledX[i], scaledData.scaledY[i]);
         }
-        scaledData.scaledX[cursor] = previousPixel;
-        scaledData.scaledY[cursor] = max;
-        cursor++;
-        scaledData.scaledX[cursor] = previousPixel;
-        scaledData.scaledY[cursor] = min;
-        cursor++;
-        scaledData.end = cursor;
+        scaledData.end = scaledData.scaledY.length;
         return scaledData;
     }
 
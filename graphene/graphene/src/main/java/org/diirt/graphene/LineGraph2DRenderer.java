@@ -126,7 +126,7 @@ public class LineGraph2DRenderer extends Graph2DRenderer<LineGraph2DRendererUpda
         drawBackground();
         drawGraphArea();
 
-        SortedListView xValues = org.diirt.util.array.ListNumbers.sortedView(data.getXValues());
+        SortedListView xValues = sortedXValuesOf(data);
         ListNumber yValues = org.diirt.util.array.ListNumbers.sortedView(data.getYValues(), xValues.getIndexes());
 
         setClip(g);
@@ -134,7 +134,7 @@ public class LineGraph2DRenderer extends Graph2DRenderer<LineGraph2DRendererUpda
 
         currentIndex = 0;
         currentScaledDiff = getImageWidth();
-        drawValueExplicitLine(xValues, yValues, interpolation, reduction);
+        drawValueExplicitLine(xValues, yValues, yPyramidOf(data, xValues), interpolation, reduction);
         if (focusPixelX != null) {
             focusValueIndex = xValues.getIndexes().getInt(currentIndex);
             if (highlightFocusValue) {
@@ -212,14 +212,32 @@ public class LineGraph2DRenderer extends Graph2DRenderer<LineGraph2DRendererUpda
         }
         //Draw a line for each set of data in the data array.
         for(int datasetNumber = 0; datasetNumber < data.size(); datasetNumber++){
-            SortedListView xValues = org.diirt.util.array.ListNumbers.sortedView(data.get(datasetNumber).getXValues());
+            SortedListView xValues = sortedXValuesOf(data.get(datasetNumber));
             ListNumber yValues = org.diirt.util.array.ListNumbers.sortedView(data.get(datasetNumber).getYValues(), xValues.getIndexes());
             setClip(g);
             g.setColor(new Color(valueColorSchemeInstance.colorFor((double)datasetNumber)));
-            drawValueExplicitLine(xValues, yValues, interpolation, reduction);
+            drawValueExplicitLine(xValues, yValues, yPyramidOf(data.get(datasetNumber), xValues), interpolation, reduction);
         }
     }
 
+    // The pyramid dataset already checks that x is sorted on append,
+    // so there is no need to scan it again at every draw
+    private static SortedListView sortedXValuesOf(Point2DDataset data) {
+        if (data instanceof PyramidPoint2DDataset) {
+            return org.diirt.util.array.ListNumbers.sortedViewOfSorted(data.getXValues());
+        }
+        return org.diirt.util.array.ListNumbers.sortedView(data.getXValues());
+    }
+
+    // The pyramid can be used only if the data was already sorted,
+    // so that the sorted view has the same indexes
+    private static MinMaxPyramid yPyramidOf(Point2DDataset data, SortedListView xValues) {
+        if (data instanceof PyramidPoint2DDataset && xValues.isIdentity()) {
+            return ((PyramidPoint2DDataset) data).getYPyramid();
+        }
+        return null;
+    }
+
     @Override
     protected void processScaledValue(int index, double valueX, double valueY, double scaledX, double scaledY) {
         if (focusPixelX != null) {
@@ -88,6 +88,10 @@ public class LineTimeGraph2DRenderer extends TemporalGraph2DRenderer<LineTimeGra
 
         setClip(g);
         g.setColor(Color.BLACK);
-        drawValueLine(xValues, yValues, interpolation);
+        if (data instanceof PyramidTimeSeriesDataset) {
+            drawValueLine(xValues, yValues, ((PyramidTimeSeriesDataset) data).getPyramid(), interpolation);
+        } else {
+            drawValueLine(xValues, yValues, interpolation);
+        }
     }
 }
@@ -0,0 +1,177 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.graphene;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.diirt.util.array.ListNumber;
+
+/**
+ * Precomputed minimum and maximum of a list of values, so that the
+ * minimum and the maximum of any range can be found without reading all
+ * the values in the range.
+ * <p>
+ * Level k of the pyramid stores, for each block of 2<sup>k</sup>
+ * consecutive values aligned to a multiple of 2<sup>k</sup>, the index of
+ * the minimum and of the maximum. A range is covered by at most two blocks
+ * per level, so a query reads O(log n) entries. Only complete blocks are
+ * stored: when values are appended, {@link #update(org.diirt.util.array.ListNumber) }
+ * computes only the blocks that were completed by the new values.
+ * NaN values are never selected as minimum or maximum.
+ * <p>
+ * The pyramid uses two integers per value. This class is not thread-safe.
+ *
+ * @author carcassi
+ */
+public class MinMaxPyramid {
+
+    private ListNumber values;
+    private int size;
+    // levels.get(k - 1) is level k: the indexes of the min and of the max
+    // of each block, interleaved; -1 if the block contains only NaN
+    private final List<int[]> levels = new ArrayList<>();
+
+    /**
+     * Creates the pyramid for the given values.
+     *
+     * @param values the values; can't be null
+     */
+    public MinMaxPyramid(ListNumber values) {
+        update(values);
+    }
+
+    /**
+     * Updates the pyramid with the new content of the list. The first
+     * values of the list must be the same as the ones already in the
+     * pyramid: only the values added at the end are processed.
+     *
+     * @param values the values with the new ones appended; can't be null
+     */
+    public void update(ListNumber values) {
+        if (values.size() < size) {
+            throw new IllegalArgumentException("Values can only be appended (size was " + size + ", now " + values.size() + ")");
+        }
+        this.values = values;
+        int oldSize = size;
+        size = values.size();
+
+        int level = 1;
+        while ((size >> level) > 0) {
+            int oldBlocks = oldSize >> level;
+            int newBlocks = size >> level;
+            int[] blocks;
+            if (level - 1 < levels.size()) {
+                blocks = levels.get(level - 1);
+                if (blocks.length < newBlocks * 2) {
+                    blocks = Arrays.copyOf(blocks, Math.max(newBlocks * 2, blocks.length * 2));
+                    levels.set(level - 1, blocks);
+                }
+            } else {
+                blocks = new int[newBlocks * 2];
+                levels.add(blocks);
+            }
+
+            for (int block = oldBlocks; block < newBlocks; block++) {
+                int min;
+                int max;
+                if (level == 1) {
+                    int first = valid(2 * block);
+                    int second = valid(2 * block + 1);
+                    min = minOf(first, second);
+                    max = maxOf(first, second);
+                } else {
+                    int[] children = levels.get(level - 2);
+                    min = minOf(children[4 * block], children[4 * block + 2]);
+                    max = maxOf(children[4 * block + 1], children[4 * block + 3]);
+                }
+                blocks[2 * block] = min;
+                blocks[2 * block + 1] = max;
+            }
+            level++;
+        }
+    }
+
+    /**
+     * The number of values in the pyramid.
+     *
+     * @return the number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The index of the minimum value in the given range.
+     *
+     * @param from the first index (inclusive)
+     * @param to the last index (exclusive)
+     * @return the index of the minimum, or -1 if the range contains only NaN
+     */
+    public int getMinIndex(int from, int to) {
+        return query(from, to, 0);
+    }
+
+    /**
+     * The index of the maximum value in the given range.
+     *
+     * @param from the first index (inclusive)
+     * @param to the last index (exclusive)
+     * @return the index of the maximum, or -1 if the range contains only NaN
+     */
+    public int getMaxIndex(int from, int to) {
+        return query(from, to, 1);
+    }
+
+    private int query(int from, int to, int offset) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range " + from + "-" + to + " outside of 0-" + size);
+        }
+        int result = -1;
+        int i = from;
+        while (i < to) {
+            // The biggest aligned block that starts at i and fits in the range
+            int level = Math.min(i == 0 ? levels.size() : Integer.numberOfTrailingZeros(i),
+                    31 - Integer.numberOfLeadingZeros(to - i));
+            level = Math.min(level, levels.size());
+            int candidate;
+            if (level == 0) {
+                candidate = valid(i);
+            } else {
+                candidate = levels.get(level - 1)[2 * (i >> level) + offset];
+            }
+            result = offset == 0 ? minOf(result, candidate) : maxOf(result, candidate);
+            i += 1 << level;
+        }
+        return result;
+    }
+
+    private int valid(int index) {
+        if (Double.isNaN(values.getDouble(index))) {
+            return -1;
+        }
+        return index;
+    }
+
+    private int minOf(int index1, int index2) {
+        if (index1 == -1) {
+            return index2;
+        }
+        if (index2 == -1) {
+            return index1;
+        }
+        return values.getDouble(index2) < values.getDouble(index1) ? index2 : index1;
+    }
+
+    private int maxOf(int index1, int index2) {
+        if (index1 == -1) {
+            return index2;
+        }
+        if (index2 == -1) {
+            return index1;
+        }
+        return values.getDouble(index2) > values.getDouble(index1) ? index2 : index1;
+    }
+}
@@ -77,6 +77,7 @@ public class MultiAxisLineGraph2DRenderer extends Graph2DRenderer<MultiAxisLineG
     private List<AxisRangeInstance> yAxisRanges;
     private ValueScale xValueScale = ValueScales.linearScale();
     private ValueScale yValueScale = ValueScales.linearScale();
+    private final FirstMaxMinLastReduction firstMaxMinLast = new FirstMaxMinLastReduction();
     private Range xAggregatedRange;
     private List<Range> yAggregatedRange;
     private Range xPlotRange;
@@ -981,17 +982,14 @@ public class MultiAxisLineGraph2DRenderer extends Graph2DRenderer<MultiAxisLineG
         int start = org.diirt.util.array.ListNumbers.binarySearchValueOrLower(xValues, xPlotValueStart);
         int end = org.diirt.util.array.ListNumbers.binarySearchValueOrHigher(xValues, xPlotValueEnd);
 
-        xValues = ListMath.limit(xValues, start, end + 1);
-        yValues = ListMath.limit(yValues, start, end + 1);
-
         switch (reduction) {
             default:
                 throw new IllegalArgumentException("Reduction scheme " + reduction + " not supported");
             case NONE:
-                scaledData = scaleNoReduction(xValues, yValues, start,index);
+                scaledData = scaleNoReduction(ListMath.limit(xValues, start, end + 1), ListMath.limit(yValues, start, end + 1), start,index);
                 break;
             case FIRST_MAX_MIN_LAST:
-                scaledData = scaleFirstMaxMinLastReduction(xValues, yValues, start, index);
+                scaledData = scaleFirstMaxMinLastReduction(xValues, yValues, start, end + 1, index);
                 break;
         }
 
@@ -1039,73 +1037,31 @@ public class MultiAxisLineGraph2DRenderer extends Graph2DRenderer<MultiAxisLineG
         return scaledData;
     }
 
-    private MultiAxisLineGraph2DRenderer.ScaledData scaleFirstMaxMinLastReduction(ListNumber xValues, ListNumber yValues, int dataStart, int index) {
+    private MultiAxisLineGraph2DRenderer.ScaledData scaleFirstMaxMinLastReduction(ListNumber xValues, ListNumber yValues, int start, int end, int index) {
         // The number of points generated by this is about 4 times the
         // number of points on the x axis. If the number of points is less
         // than that, it's not worth it. Don't do the data reduction.
-        if (xValues.size() < xPlotCoordWidth * 4) {
-            return scaleNoReduction(xValues, yValues, dataStart, index);
+        if (!FirstMaxMinLastReduction.isWorthReducing(end - start, xPlotCoordWidth)) {
+            return scaleNoReduction(ListMath.limit(xValues, start, end), ListMath.limit(yValues, start, end), start, index);
         }
 
+        firstMaxMinLast.reduce(xValues, yValues, start, end, xValueScale, xPlotValueStart, xPlotValueEnd, xPlotCoordStart, xPlotCoordEnd);
         MultiAxisLineGraph2DRenderer.ScaledData scaledData = new MultiAxisLineGraph2DRenderer.ScaledData();
-        scaledData.scaledX = new double[((int) xPlotCoordWidth + 1)*4 ];
-        scaledData.scaledY = new double[((int) xPlotCoordWidth + 1)*4];
-        int cursor = 0;
-        int previousPixel = (int) scaledX1(xValues.getDouble(0));
-        double last;
-        if(separateAreas){
-            last = scaledYSplit(yValues.getDouble(0),index);
-        }else{
-            last = scaledY(yValues.getDouble(0),index);
-        }
-        double min = last;
-        double max = last;
-        scaledData.scaledX[0] = previousPixel;
-        scaledData.scaledY[0] = min;
-        processScaledValue(dataStart, xValues.getDouble(0), yValues.getDouble(0), scaledX1(xValues.getDouble(0)), last);
-        cursor++;
-        for (int i = 1; i < xValues.size(); i++) {
-            double currentScaledX = scaledX1(xValues.getDouble(i));
-            int currentPixel = (int) currentScaledX;
-            if (currentPixel == previousPixel) {
-                if(separateAreas){
-                    last = scaledYSplit(yValues.getDouble(i),index);
-                }else{
-                    last = scaledY(yValues.getDouble(i),index);
-                }
-                min = MathIgnoreNaN.min(min, last);
-                max = MathIgnoreNaN.max(max, last);
-                processScaledValue(dataStart + i, xValues.getDouble(i), yValues.getDouble(i), currentScaledX, last);
-            } else {
-                scaledData.scaledX[cursor] = previousPixel;
-                scaledData.scaledY[cursor] = max;
-                cursor++;
-                scaledData.scaledX[cursor] = previousPixel;
-                scaledData.scaledY[cursor] = min;
-                cursor++;
-                scaledData.scaledX[cursor] = previousPixel;
-                scaledData.scaledY[cursor] = last;
-                cursor++;
-                previousPixel = currentPixel;
-                if(separateAreas){
-                    last = scaledYSplit(yValues.getDouble(i),index);
-                }else{
-                    last = scaledY(yValues.getDouble(i),index);
-                }
-                min = last;
-                max = last;
-                scaledData.scaledX[cursor] = currentPixel;
-                scaledData.scaledY[cursor] = last;
-                cursor++;
+        scaledData.scaledX = new double[firstMaxMinLast.size()];
+        scaledData.scaledY = new double[firstMaxMinLast.size()];
+        for (int i = 0; i < scaledData.scaledY.length; i++) {
+            int dataIndex = firstMaxMinLast.getIndex(i);
+            double valueX = xValues.getDouble(dataIndex);
+            double valueY = yValues.getDouble(dataIndex);
+            scaledData.scaledX[i] = scaledX1(valueX);
+            if(separateAreas){
+                scaledData.scaledY[i] = scaledYSplit(valueY, index);
+            }else{
+                scaledData.scaledY[i] = scaledY(valueY, index);
             }
+            processScaledValue(dataIndex, valueX, valueY, scaledData.scaledX[i], scaledData.scaledY[i]);
         }
-        scaledData.scaledX[cursor] = previousPixel;
-        scaledData.scaledY[cursor] = max;
-        cursor++;
-        scaledData.scaledX[cursor] = previousPixel;
-        scaledData.scaledY[cursor] = min;
-        cursor++;
-        scaledData.end = cursor;
+        scaledData.end = scaledData.scaledY.length;
         return scaledData;
     }
 
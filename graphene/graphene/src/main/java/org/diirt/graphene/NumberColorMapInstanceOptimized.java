@@ -9,6 +9,11 @@ import org.diirt.util.stats.Range;
 /**
  * An optimized instance of a color map, where colors are pre-calculated.
  * <p>
+ * If the range contains at most {@value #MAX_INTEGER_COLORS} integers,
+ * the color of each integer is also pre-calculated, so that integer
+ * values (e.g. the counts of a detector image) are converted with a single
+ * lookup by {@link #colorsFor(double[], int[], int) }.
+ * <p>
  * TODO: allow choice of number of colors
  *
  * @author sjdallst
@@ -22,6 +27,11 @@ class NumberColorMapInstanceOptimized implements NumberColorMapInstance {
     private final double max, min, total;
     private final String name;
 
+    private static final int MAX_INTEGER_COLORS = 65536;
+    // Colors of the integers from integerMin; null if the range is too big
+    private final int[] integerColors;
+    private final int integerMin;
+
     NumberColorMapInstanceOptimized(NumberColorMapInstance instance, Range range) {
         min = range.getMinimum();
         max = range.getMaximum();
@@ -37,6 +47,8 @@ class NumberColorMapInstanceOptimized implements NumberColorMapInstance {
         this.range = range;
         this.name = instance.toString() + " opt(" + arrayLength + ")";
         this.nanColor = instance.colorFor(Double.NaN);
+        this.integerMin = integerMin(min);
+        this.integerColors = integerColors();
     }
 
     // TODO: what is this doing?
@@ -58,6 +70,27 @@ class NumberColorMapInstanceOptimized implements NumberColorMapInstance {
         this.range = newRange;
         this.name = instance.toString() + " opt2(" + arrayLength + ")";
         this.nanColor = instance.colorFor(Double.NaN);
+        this.integerMin = integerMin(min);
+        this.integerColors = integerColors();
+    }
+
+    private static int integerMin(double min) {
+        if (min < Integer.MIN_VALUE || min > Integer.MAX_VALUE) {
+            return 0;
+        }
+        return (int) Math.floor(min);
+    }
+
+    private int[] integerColors() {
+        double nIntegers = Math.ceil(max) - integerMin + 1;
+        if (!(nIntegers > 0 && nIntegers <= MAX_INTEGER_COLORS && min >= Integer.MIN_VALUE)) {
+            return null;
+        }
+        int[] result = new int[(int) nIntegers];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = colorFor(integerMin + i);
+        }
+        return result;
     }
 
     @Override
@@ -75,6 +108,34 @@ class NumberColorMapInstanceOptimized implements NumberColorMapInstance {
         return colors[index];
     }
 
+    /**
+     * Converts the given values to colors, as {@link #colorFor(double) }
+     * would.
+     *
+     * @param values the values
+     * @param rgbs the array where the colors are stored
+     * @param count the number of values to convert
+     */
+    void colorsFor(double[] values, int[] rgbs, int count) {
+        if (integerColors == null) {
+            for (int i = 0; i < count; i++) {
+                rgbs[i] = colorFor(values[i]);
+            }
+            return;
+        }
+
+        for (int i = 0; i < count; i++) {
+            double value = values[i];
+            int intValue = (int) value;
+            long lutIndex = (long) intValue - integerMin;
+            if (intValue == value && lutIndex >= 0 && lutIndex < integerColors.length) {
+                rgbs[i] = integerColors[(int) lutIndex];
+            } else {
+                rgbs[i] = colorFor(value);
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return name;
@@ -86,4 +86,20 @@ public class Point2DDatasets {
         };
     }
 
+    /**
+     * A line dataset that keeps a precomputed pyramid of the minimum and
+     * maximum of the y values, and to which points can be appended. The line
+     * renderer uses the pyramid to reduce the data without reading all the
+     * points at every redraw.
+     * <p>
+     * The x values must be sorted. The values are copied.
+     *
+     * @param x the sorted x values
+     * @param y the y values
+     * @return a new dataset
+     */
+    public static PyramidPoint2DDataset pyramidLineData(final ListNumber x, final ListNumber y) {
+        return new PyramidPoint2DDataset(x, y);
+    }
+
 }
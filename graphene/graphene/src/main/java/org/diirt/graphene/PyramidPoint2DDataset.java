@@ -0,0 +1,215 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.graphene;
+
+import java.util.Arrays;
+import org.diirt.util.array.ListDouble;
+import org.diirt.util.array.ListNumber;
+import org.diirt.util.array.ListNumbers;
+import org.diirt.util.stats.Range;
+import org.diirt.util.stats.Ranges;
+import org.diirt.util.stats.Statistics;
+
+/**
+ * A line dataset with sorted x values, which keeps a {@link MinMaxPyramid}
+ * of the y values. The {@link LineGraph2DRenderer} uses the pyramid
+ * to reduce the data at every zoom or pan without reading all the points.
+ * <p>
+ * Points can be appended: the values are copied into the dataset, and the
+ * statistics and the pyramid are updated only with the new points.
+ * The lists returned by {@link #getXValues() } and {@link #getYValues() }
+ * do not change when points are appended, so a renderer can keep drawing
+ * them, but appending and drawing must happen on the same thread.
+ *
+ * @author carcassi
+ */
+public class PyramidPoint2DDataset implements Point2DDataset {
+
+    private double[] xArray;
+    private double[] yArray;
+    private int count;
+    private ListNumber xValues;
+    private ListNumber yValues;
+    private final RunningStatistics xRunning = new RunningStatistics();
+    private final RunningStatistics yRunning = new RunningStatistics();
+    private Statistics xStatistics;
+    private Statistics yStatistics;
+    private final MinMaxPyramid yPyramid;
+
+    PyramidPoint2DDataset(ListNumber x, ListNumber y) {
+        xArray = new double[Math.max(16, x.size())];
+        yArray = new double[Math.max(16, y.size())];
+        xValues = view(xArray, 0);
+        yValues = view(yArray, 0);
+        yPyramid = new MinMaxPyramid(yValues);
+        append(x, y);
+    }
+
+    /**
+     * Appends the given points to the dataset. The x values must be sorted,
+     * and not smaller than the last x value already in the dataset.
+     *
+     * @param x the new x values
+     * @param y the new y values
+     */
+    public void append(ListNumber x, ListNumber y) {
+        if (x.size() != y.size()) {
+            throw new IllegalArgumentException("Arrays length don't match: " + x.size() + " - " + y.size());
+        }
+        if (!ListNumbers.isSorted(x) || (count > 0 && x.size() > 0 && x.getDouble(0) < xArray[count - 1])) {
+            throw new IllegalArgumentException("X values must be sorted");
+        }
+
+        int newCount = count + x.size();
+        if (newCount > xArray.length) {
+            // The old arrays are still used by the previous views
+            int capacity = Math.max(newCount, xArray.length * 2);
+            xArray = Arrays.copyOf(xArray, capacity);
+            yArray = Arrays.copyOf(yArray, capacity);
+        }
+        for (int i = 0; i < x.size(); i++) {
+            double xValue = x.getDouble(i);
+            double yValue = y.getDouble(i);
+            xArray[count + i] = xValue;
+            yArray[count + i] = yValue;
+            xRunning.add(xValue);
+            yRunning.add(yValue);
+        }
+        count = newCount;
+
+        xValues = view(xArray, count);
+        yValues = view(yArray, count);
+        xStatistics = xRunning.toStatistics();
+        yStatistics = yRunning.toStatistics();
+        yPyramid.update(yValues);
+    }
+
+    /**
+     * Statistics of values that are only ever added: since nothing is
+     * removed, the minimum, the maximum and the Welford sums are enough,
+     * and the values themselves need not be kept.
+     */
+    private static class RunningStatistics {
+        private int count;
+        private double min;
+        private double max;
+        private double mean;
+        private double m2;
+
+        void add(double value) {
+            if (Double.isNaN(value)) {
+                return;
+            }
+            if (count == 0) {
+                min = value;
+                max = value;
+            } else {
+                if (value < min)
+                    min = value;
+                if (value > max)
+                    max = value;
+            }
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+        }
+
+        Statistics toStatistics() {
+            if (count == 0) {
+                return null;
+            }
+            final Range range = Ranges.range(min, max);
+            final int statsCount = count;
+            final double average = mean;
+            // Rounding may make m2 slightly negative
+            final double stdDev = Math.sqrt(Math.max(0.0, m2 / count));
+            return new Statistics() {
+
+                @Override
+                public Range getRange() {
+                    return range;
+                }
+
+                @Override
+                public int getCount() {
+                    return statsCount;
+                }
+
+                @Override
+                public double getAverage() {
+                    return average;
+                }
+
+                @Override
+                public double getStdDev() {
+                    return stdDev;
+                }
+            };
+        }
+    }
+
+    private static ListNumber view(final double[] array, final int size) {
+        return new ListDouble() {
+
+            @Override
+            public double getDouble(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+                }
+                return array[index];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * The pyramid of the y values.
+     *
+     * @return the pyramid
+     */
+    MinMaxPyramid getYPyramid() {
+        return yPyramid;
+    }
+
+    @Override
+    public ListNumber getXValues() {
+        return xValues;
+    }
+
+    @Override
+    public ListNumber getYValues() {
+        return yValues;
+    }
+
+    @Override
+    public Statistics getXStatistics() {
+        return xStatistics;
+    }
+
+    @Override
+    public Statistics getYStatistics() {
+        return yStatistics;
+    }
+
+    @Override
+    public Range getXDisplayRange() {
+        return null;
+    }
+
+    @Override
+    public Range getYDisplayRange() {
+        return null;
+    }
+
+    @Override
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.graphene;
+
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import org.diirt.util.array.ListDouble;
+import org.diirt.util.array.ListNumber;
+import org.diirt.util.stats.Statistics;
+import org.diirt.util.stats.StatisticsAccumulator;
+import org.diirt.util.time.TimeInterval;
+
+/**
+ * A time series which keeps a {@link MinMaxPyramid} of the values.
+ * The {@link LineTimeGraph2DRenderer} uses the pyramid to reduce the data
+ * at every zoom or pan without reading all the points.
+ * <p>
+ * Points can be appended: the values are copied into the dataset, and the
+ * statistics and the pyramid are updated only with the new points.
+ * The lists returned by the dataset do not change when points are appended,
+ * so a renderer can keep drawing them, but appending and drawing must happen
+ * on the same thread.
+ *
+ * @author carcassi
+ */
+public class PyramidTimeSeriesDataset implements TimeSeriesDataset {
+
+    private double[] valueArray;
+    private Instant[] timestampArray;
+    private int count;
+    private ListNumber values;
+    private List<Instant> timestamps;
+    private final StatisticsAccumulator accumulator = new StatisticsAccumulator();
+    private Statistics statistics;
+    private TimeInterval timeInterval;
+    private final MinMaxPyramid pyramid;
+
+    PyramidTimeSeriesDataset(ListNumber values, List<Instant> timestamps) {
+        valueArray = new double[Math.max(16, values.size())];
+        timestampArray = new Instant[Math.max(16, timestamps.size())];
+        this.values = view(valueArray, 0);
+        this.timestamps = view(timestampArray, 0);
+        pyramid = new MinMaxPyramid(this.values);
+        append(values, timestamps);
+    }
+
+    /**
+     * Appends the given points to the dataset. The timestamps must be
+     * in order, and not before the last timestamp already in the dataset.
+     *
+     * @param values the new values
+     * @param timestamps the new timestamps
+     */
+    public void append(ListNumber values, List<Instant> timestamps) {
+        if (values.size() != timestamps.size()) {
+            throw new IllegalArgumentException("Arrays length don't match: " + values.size() + " - " + timestamps.size());
+        }
+        Instant previous = count > 0 ? timestampArray[count - 1] : null;
+        for (Instant timestamp : timestamps) {
+            if (previous != null && timestamp.compareTo(previous) < 0) {
+                throw new IllegalArgumentException("Timestamps must be in order");
+            }
+            previous = timestamp;
+        }
+
+        int newCount = count + values.size();
+        if (newCount > valueArray.length) {
+            // The old arrays are still used by the previous views
+            int capacity = Math.max(newCount, valueArray.length * 2);
+            valueArray = Arrays.copyOf(valueArray, capacity);
+            timestampArray = Arrays.copyOf(timestampArray, capacity);
+        }
+        for (int i = 0; i < values.size(); i++) {
+            valueArray[count + i] = values.getDouble(i);
+            timestampArray[count + i] = timestamps.get(i);
+        }
+        accumulator.add(values);
+        count = newCount;
+
+        this.values = view(valueArray, count);
+        this.timestamps = view(timestampArray, count);
+        statistics = accumulator.getStatistics();
+        if (count > 0) {
+            timeInterval = TimeInterval.between(timestampArray[0], timestampArray[count - 1]);
+        }
+        pyramid.update(this.values);
+    }
+
+    private static ListNumber view(final double[] array, final int size) {
+        return new ListDouble() {
+
+            @Override
+            public double getDouble(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+                }
+                return array[index];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static List<Instant> view(final Instant[] array, final int size) {
+        return new AbstractList<Instant>() {
+
+            @Override
+            public Instant get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+                }
+                return array[index];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * The pyramid of the values.
+     *
+     * @return the pyramid
+     */
+    MinMaxPyramid getPyramid() {
+        return pyramid;
+    }
+
+    @Override
+    public ListNumber getValues() {
+        return values;
+    }
+
+    @Override
+    public List<Instant> getTimestamps() {
+        return timestamps;
+    }
+
+    @Override
+    public ListNumber getNormalizedTime(final TimeInterval normalizationRange) {
+        final List<Instant> times = timestamps;
+        return new ListDouble() {
+
+            @Override
+            public double getDouble(int index) {
+                return TimeScales.normalize(times.get(index), normalizationRange);
+            }
+
+            @Override
+            public int size() {
+                return times.size();
+            }
+        };
+    }
+
+    @Override
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public TimeInterval getTimeInterval() {
+        return timeInterval;
+    }
+
+    @Override
+    public int getCount() {
+        return count;
+    }
+}
@@ -5,9 +5,21 @@
 package org.diirt.graphene;
 
 /**
+ * The scheme used to reduce the number of points drawn for a line.
  *
  * @author carcassi
  */
 public enum ReductionScheme {
-    NONE, FIRST_MAX_MIN_LAST;
+    /**
+     * All the points are drawn.
+     */
+    NONE,
+
+    /**
+     * For each pixel column, only the first, the maximum, the minimum and
+     * the last point are drawn (M4 aggregation). The line covers the same
+     * pixels, while the number of points drawn is proportional to the
+     * width of the plot.
+     */
+    FIRST_MAX_MIN_LAST;
 }
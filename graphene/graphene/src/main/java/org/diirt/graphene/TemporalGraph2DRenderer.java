@@ -19,6 +19,7 @@ import static org.diirt.graphene.InterpolationScheme.NEAREST_NEIGHBOR;
 import org.diirt.util.array.ArrayDouble;
 import org.diirt.util.array.ListDouble;
 import org.diirt.util.array.ListNumber;
+import org.diirt.util.array.ListNumbers;
 import org.diirt.util.time.TimeInterval;
 import java.time.Instant;
 
@@ -89,6 +90,7 @@ public abstract class TemporalGraph2DRenderer<T extends TemporalGraph2DRendererU
     private AxisRangeInstance axisRange = AxisRanges.auto(0.0).createInstance();
     // Strategy for generating labels and scaling value of the axis
     private TimeScale timeScale = TimeScales.linearAbsoluteScale();
+    private final FirstMaxMinLastReduction firstMaxMinLast = new FirstMaxMinLastReduction();
     private ValueScale valueScale = ValueScales.linearScale();
     // Colors and fonts
     protected Color backgroundColor = Color.WHITE;
@@ -350,14 +352,52 @@ public abstract class TemporalGraph2DRenderer<T extends TemporalGraph2DRendererU
     }
 
     protected void drawValueLine(ListNumber xValues, ListNumber yValues, InterpolationScheme interpolation) {
-        // Scale data and sort data
-        int dataCount = xValues.size();
-        double[] scaledX = new double[dataCount];
-        double[] scaledY = new double[dataCount];
-
-        for (int i = 0; i < scaledY.length; i++) {
-            scaledX[i] = scaledX(xValues.getDouble(i));
-            scaledY[i] = scaledY(yValues.getDouble(i));
+        drawValueLine(xValues, yValues, null, interpolation);
+    }
+
+    /**
+     * Draws the line for the given normalized time and values. If a pyramid
+     * of the values is given, the reduction uses it instead of reading
+     * all the points.
+     *
+     * @param xValues the normalized time
+     * @param yValues the values
+     * @param yPyramid the pyramid of the values; can be null
+     * @param interpolation the interpolation
+     */
+    protected void drawValueLine(ListNumber xValues, ListNumber yValues, MinMaxPyramid yPyramid, InterpolationScheme interpolation) {
+        double[] scaledX;
+        double[] scaledY;
+        if (FirstMaxMinLastReduction.isWorthReducing(xValues.size(), xPlotCoordWidth)) {
+            // Narrow the data to the visible window, and keep only
+            // the first, min, max and last value for each pixel column.
+            // The normalized time is mapped linearly on the plot.
+            int start = ListNumbers.binarySearchValueOrLower(xValues, xPlotValueStart);
+            int end = ListNumbers.binarySearchValueOrHigher(xValues, xPlotValueEnd) + 1;
+            if (yPyramid != null) {
+                firstMaxMinLast.reduce(xValues, yValues, yPyramid, start, end, ValueScales.linearScale(),
+                        xPlotValueStart, xPlotValueEnd, xPlotCoordStart, xPlotCoordEnd);
+            } else {
+                firstMaxMinLast.reduce(xValues, yValues, start, end, ValueScales.linearScale(),
+                        xPlotValueStart, xPlotValueEnd, xPlotCoordStart, xPlotCoordEnd);
+            }
+            scaledX = new double[firstMaxMinLast.size()];
+            scaledY = new double[firstMaxMinLast.size()];
+            for (int i = 0; i < scaledY.length; i++) {
+                int index = firstMaxMinLast.getIndex(i);
+                scaledX[i] = scaledX(xValues.getDouble(index));
+                scaledY[i] = scaledY(yValues.getDouble(index));
+            }
+        } else {
+            // Scale data
+            int dataCount = xValues.size();
+            scaledX = new double[dataCount];
+            scaledY = new double[dataCount];
+
+            for (int i = 0; i < scaledY.length; i++) {
+                scaledX[i] = scaledX(xValues.getDouble(i));
+                scaledY[i] = scaledY(yValues.getDouble(i));
+            }
         }
 
         Path2D path;
@@ -74,4 +74,20 @@ public class TimeSeriesDatasets {
             }
         };
     }
+
+    /**
+     * A time series that keeps a precomputed pyramid of the minimum and
+     * maximum of the values, and to which points can be appended. The line
+     * renderer uses the pyramid to reduce the data without reading all the
+     * points at every redraw.
+     * <p>
+     * The timestamps must be in order. The values are copied.
+     *
+     * @param values list of values associated with timestamps
+     * @param timestamps list of timestamps, in order
+     * @return a new dataset
+     */
+    public static PyramidTimeSeriesDataset pyramidTimeSeriesOf(final ListNumber values, final List<Instant> timestamps) {
+        return new PyramidTimeSeriesDataset(values, timestamps);
+    }
 }
@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.graphene;
+
+import org.diirt.util.array.ArrayDouble;
+import org.diirt.util.array.ListNumber;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class FirstMaxMinLastReductionTest {
+
+    public FirstMaxMinLastReductionTest() {
+    }
+
+    private static int[] indexes(FirstMaxMinLastReduction reduction) {
+        int[] result = new int[reduction.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = reduction.getIndex(i);
+        }
+        return result;
+    }
+
+    @Test
+    public void reduce1() {
+        // Two pixel columns with 5 points each
+        ListNumber x = new ArrayDouble(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        ListNumber y = new ArrayDouble(5, 9, 1, 3, 4, 2, 2, 0, 8, 6);
+        FirstMaxMinLastReduction reduction = new FirstMaxMinLastReduction();
+        reduction.reduce(x, y, 0, 10, ValueScales.linearScale(), 0, 10, 0, 2);
+        assertThat(indexes(reduction), equalTo(new int[] {0, 1, 2, 4, 5, 7, 8, 9}));
+    }
+
+    @Test
+    public void reduce2() {
+        // Minimum before maximum, first is the maximum, last is the minimum
+        ListNumber x = new ArrayDouble(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        ListNumber y = new ArrayDouble(9, 5, 1, 3, 4, 0, 2, 3, 9, 10);
+        FirstMaxMinLastReduction reduction = new FirstMaxMinLastReduction();
+        reduction.reduce(x, y, 0, 10, ValueScales.linearScale(), 0, 10, 0, 2);
+        assertThat(indexes(reduction), equalTo(new int[] {0, 2, 4, 5, 9}));
+    }
+
+    @Test
+    public void reduceWindow() {
+        // Only the points between start and end are considered
+        ListNumber x = new ArrayDouble(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        ListNumber y = new ArrayDouble(5, 9, 1, 3, 4, 2, 2, 0, 8, 6);
+        FirstMaxMinLastReduction reduction = new FirstMaxMinLastReduction();
+        reduction.reduce(x, y, 3, 8, ValueScales.linearScale(), 0, 10, 0, 2);
+        assertThat(indexes(reduction), equalTo(new int[] {3, 4, 5, 7}));
+    }
+
+    @Test
+    public void reduceNaN() {
+        // NaN are never min or max, but are kept as first and last
+        ListNumber x = new ArrayDouble(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        ListNumber y = new ArrayDouble(Double.NaN, 3, 1, 2, Double.NaN,
+                Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+        FirstMaxMinLastReduction reduction = new FirstMaxMinLastReduction();
+        reduction.reduce(x, y, 0, 10, ValueScales.linearScale(), 0, 10, 0, 2);
+        assertThat(indexes(reduction), equalTo(new int[] {0, 1, 2, 4, 5, 9}));
+    }
+
+    @Test
+    public void reduceManyColumns() {
+        // Sine wave: each column keeps at most four points, including
+        // the overall minimum and maximum
+        int nPoints = 100000;
+        double[] xArray = new double[nPoints];
+        double[] yArray = new double[nPoints];
+        for (int i = 0; i < nPoints; i++) {
+            xArray[i] = i;
+            yArray[i] = Math.sin(i / 100.0);
+        }
+        yArray[12345] = 2.0;
+        yArray[54321] = -2.0;
+        FirstMaxMinLastReduction reduction = new FirstMaxMinLastReduction();
+        reduction.reduce(new ArrayDouble(xArray), new ArrayDouble(yArray), 0, nPoints, ValueScales.linearScale(), 0, nPoints, 0.5, 300.5);
+        assertThat(reduction.size() <= 301 * 4, equalTo(true));
+        boolean foundMax = false;
+        boolean foundMin = false;
+        for (int i = 0; i < reduction.size(); i++) {
+            if (i > 0) {
+                assertThat(reduction.getIndex(i) > reduction.getIndex(i - 1), equalTo(true));
+            }
+            foundMax = foundMax || reduction.getIndex(i) == 12345;
+            foundMin = foundMin || reduction.getIndex(i) == 54321;
+        }
+        assertThat(foundMax, equalTo(true));
+        assertThat(foundMin, equalTo(true));
+        assertThat(reduction.getIndex(0), equalTo(0));
+        assertThat(reduction.getIndex(reduction.size() - 1), equalTo(nPoints - 1));
+    }
+
+    @Test
+    public void reduceLogScale() {
+        // Columns are computed with the given scale
+        ListNumber x = new ArrayDouble(1, 2, 5, 10, 20, 50, 100);
+        ListNumber y = new ArrayDouble(0, 1, 2, 3, 4, 5, 6);
+        FirstMaxMinLastReduction reduction = new FirstMaxMinLastReduction();
+        reduction.reduce(x, y, 0, 7, ValueScales.logScale(), 1, 100, 0, 2);
+        assertThat(indexes(reduction), equalTo(new int[] {0, 2, 3, 5, 6}));
+    }
+
+    @Test
+    public void isWorthReducing() {
+        assertThat(FirstMaxMinLastReduction.isWorthReducing(1000, 300), equalTo(false));
+        assertThat(FirstMaxMinLastReduction.isWorthReducing(1200, 300), equalTo(true));
+    }
+}
@@ -5,9 +5,11 @@
 package org.diirt.graphene;
 
 import java.awt.Color;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import org.diirt.util.array.ArrayInt;
+import org.diirt.util.stats.Range;
 import org.diirt.util.stats.Ranges;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
@@ -20,6 +22,66 @@ import org.diirt.util.array.ArrayDouble;
 public class GraphBufferTest {
     //TODO:Throw Exception when using logScale and having range containing zero
     //TestLogScale
+    @Test
+    public void drawDataImageParallel() throws Exception {
+        // Big enough to be drawn in parallel: every pixel has the color
+        // of its cell, including the rows copied from the previous one
+        int xCount = 300;
+        int yCount = 300;
+        double[] values = new double[xCount * yCount];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (i * 7919) % 1000;
+        }
+        Cell2DDataset data = Cell2DDatasets.linearRange(new ArrayDouble(values), Ranges.range(0, 1), xCount, Ranges.range(0, 1), yCount);
+        Range range = Ranges.range(0, 999);
+        NumberColorMapInstance colorMap = NumberColorMaps.optimize(NumberColorMaps.JET.createInstance(range), range);
+        int[] xPointToDataMap = new int[600];
+        int[] yPointToDataMap = new int[600];
+        for (int i = 0; i < 600; i++) {
+            xPointToDataMap[i] = i / 2;
+            yPointToDataMap[i] = i / 2;
+        }
+        GraphBuffer graph = new GraphBuffer(610, 620);
+        graph.drawDataImage(5, 10, xPointToDataMap, yPointToDataMap, data, colorMap);
+        for (int y = 0; y < 600; y++) {
+            for (int x = 0; x < 600; x++) {
+                int expected = colorMap.colorFor(data.getValue(x / 2, y / 2)) & 0xFFFFFF;
+                assertThat(graph.getImage().getRGB(x + 5, y + 10) & 0xFFFFFF, equalTo(expected));
+            }
+        }
+    }
+
+    @Test
+    public void drawDataImageFunction() throws Exception {
+        // A dataset that is not known to be thread-safe is read only
+        // by the caller, however big the image
+        final Thread caller = Thread.currentThread();
+        final List<Thread> otherThreads = new ArrayList<>();
+        Cell2DDataset data = Cell2DDatasets.linearRange(new Cell2DDatasets.Function2D() {
+
+            @Override
+            public double getValue(double x, double y) {
+                if (Thread.currentThread() != caller) {
+                    synchronized (otherThreads) {
+                        otherThreads.add(Thread.currentThread());
+                    }
+                }
+                return x * y;
+            }
+        }, Ranges.range(0, 1), 600, Ranges.range(0, 1), 600);
+        assertThat(data, not(instanceOf(ConcurrentCell2DDataset.class)));
+        Range range = Ranges.range(0, 1);
+        NumberColorMapInstance colorMap = NumberColorMaps.optimize(NumberColorMaps.JET.createInstance(range), range);
+        int[] pointToDataMap = new int[600];
+        for (int i = 0; i < 600; i++) {
+            pointToDataMap[i] = i;
+        }
+        GraphBuffer graph = new GraphBuffer(600, 600);
+        graph.drawDataImage(0, 0, pointToDataMap, pointToDataMap, data, colorMap);
+        assertThat(otherThreads, empty());
+        assertThat(graph.getImage().getRGB(599, 599) & 0xFFFFFF, equalTo(colorMap.colorFor(data.getValue(599, 599)) & 0xFFFFFF));
+    }
+
     @Test
     public void xScalingAsCell() throws Exception {
         GraphBuffer graph = new GraphBuffer(300, 200);
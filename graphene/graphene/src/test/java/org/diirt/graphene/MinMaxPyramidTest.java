@@ -0,0 +1,139 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.graphene;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.diirt.util.array.ArrayDouble;
+import org.diirt.util.array.ListNumber;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class MinMaxPyramidTest {
+
+    public MinMaxPyramidTest() {
+    }
+
+    private static int minIndex(ListNumber values, int from, int to) {
+        int result = -1;
+        for (int i = from; i < to; i++) {
+            double value = values.getDouble(i);
+            if (!Double.isNaN(value) && (result == -1 || value < values.getDouble(result))) {
+                result = i;
+            }
+        }
+        return result;
+    }
+
+    private static int maxIndex(ListNumber values, int from, int to) {
+        int result = -1;
+        for (int i = from; i < to; i++) {
+            double value = values.getDouble(i);
+            if (!Double.isNaN(value) && (result == -1 || value > values.getDouble(result))) {
+                result = i;
+            }
+        }
+        return result;
+    }
+
+    private static ListNumber randomValues(Random random, int size) {
+        double[] array = new double[size];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = random.nextInt(10) == 0 ? Double.NaN : random.nextInt(100);
+        }
+        return new ArrayDouble(array);
+    }
+
+    @Test
+    public void minMax1() {
+        ListNumber values = new ArrayDouble(5, 9, 1, 3, 4, 2, 2, 0, 8, 6);
+        MinMaxPyramid pyramid = new MinMaxPyramid(values);
+        assertThat(pyramid.size(), equalTo(10));
+        assertThat(pyramid.getMinIndex(0, 10), equalTo(7));
+        assertThat(pyramid.getMaxIndex(0, 10), equalTo(1));
+        assertThat(pyramid.getMinIndex(3, 7), equalTo(5));
+        assertThat(pyramid.getMaxIndex(3, 7), equalTo(4));
+        assertThat(pyramid.getMinIndex(4, 4), equalTo(-1));
+    }
+
+    @Test
+    public void minMaxNaN() {
+        ListNumber values = new ArrayDouble(Double.NaN, Double.NaN, Double.NaN, 1);
+        MinMaxPyramid pyramid = new MinMaxPyramid(values);
+        assertThat(pyramid.getMinIndex(0, 3), equalTo(-1));
+        assertThat(pyramid.getMaxIndex(0, 4), equalTo(3));
+    }
+
+    @Test
+    public void minMaxRandom() {
+        // All ranges give the same result as a full scan
+        Random random = new Random(1);
+        ListNumber values = randomValues(random, 200);
+        MinMaxPyramid pyramid = new MinMaxPyramid(values);
+        for (int from = 0; from < values.size(); from++) {
+            for (int to = from; to <= values.size(); to++) {
+                assertThat(pyramid.getMinIndex(from, to), equalTo(minIndex(values, from, to)));
+                assertThat(pyramid.getMaxIndex(from, to), equalTo(maxIndex(values, from, to)));
+            }
+        }
+    }
+
+    @Test
+    public void update() {
+        // Appending values gives the same result as building from scratch
+        Random random = new Random(2);
+        double[] array = new double[1000];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = random.nextInt(100);
+        }
+        MinMaxPyramid pyramid = new MinMaxPyramid(new ArrayDouble());
+        int size = 0;
+        while (size < array.length) {
+            size = Math.min(array.length, size + 1 + random.nextInt(50));
+            ListNumber values = new ArrayDouble(Arrays.copyOf(array, size));
+            pyramid.update(values);
+            assertThat(pyramid.size(), equalTo(size));
+            for (int i = 0; i < 50; i++) {
+                int from = random.nextInt(size);
+                int to = from + random.nextInt(size - from + 1);
+                assertThat(pyramid.getMinIndex(from, to), equalTo(minIndex(values, from, to)));
+                assertThat(pyramid.getMaxIndex(from, to), equalTo(maxIndex(values, from, to)));
+            }
+        }
+    }
+
+    @Test
+    public void reduceWithPyramid() {
+        // The reduction with the pyramid selects the same points
+        Random random = new Random(3);
+        int nPoints = 100000;
+        double[] xArray = new double[nPoints];
+        double x = 0;
+        for (int i = 0; i < nPoints; i++) {
+            x += random.nextDouble();
+            xArray[i] = x;
+        }
+        ListNumber xValues = new ArrayDouble(xArray);
+        ListNumber yValues = randomValues(random, nPoints);
+        MinMaxPyramid pyramid = new MinMaxPyramid(yValues);
+        FirstMaxMinLastReduction reduction = new FirstMaxMinLastReduction();
+        reduction.reduce(xValues, yValues, 1000, 90000, ValueScales.linearScale(), 700, 40000, 0.5, 300.5);
+        int[] expected = new int[reduction.size()];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = reduction.getIndex(i);
+        }
+        reduction.reduce(xValues, yValues, pyramid, 1000, 90000, ValueScales.linearScale(), 700, 40000, 0.5, 300.5);
+        int[] actual = new int[reduction.size()];
+        for (int i = 0; i < actual.length; i++) {
+            actual[i] = reduction.getIndex(i);
+        }
+        assertThat(actual, equalTo(expected));
+    }
+}
@@ -65,6 +65,19 @@ public class NumberColorMapTest {
         assertThat(colorScheme.colorFor(1.1), equalTo(getRGB(Color.rgb(138,0,0))));
     }
 
+    @Test
+    public void optimizedSchemeIntegerColors() {
+        // The colors of integers are looked up, and match the ones of colorFor
+        Range range = Ranges.range(-10.0, 1000.0);
+        NumberColorMapInstanceOptimized colorScheme = (NumberColorMapInstanceOptimized) NumberColorMaps.optimize(NumberColorMaps.JET.createInstance(range), range);
+        double[] values = new double[] {-20, -10, -9.5, 0, 1, 333, 333.3, 999, 1000, 1001, 1e12, Double.NaN};
+        int[] rgbs = new int[values.length];
+        colorScheme.colorsFor(values, rgbs, values.length);
+        for (int i = 0; i < values.length; i++) {
+            assertThat(rgbs[i], equalTo(colorScheme.colorFor(values[i])));
+        }
+    }
+
     @Test
     public void customizedColorMapDraw() throws Exception{
         //0% = dark red 25% = red 50% =light lilac 75% = blue 100% =dark blue
@@ -57,6 +57,38 @@ public class Point2DDatasetsTest {
     public void lineDataFromFirstLastListNum(){
 
     }
+    @Test
+    public void pyramidLineDataAppend() {
+        PyramidPoint2DDataset dataset = Point2DDatasets.pyramidLineData(new ArrayDouble(1, 2, 3), new ArrayDouble(5, 1, 3));
+        ListNumber oldYValues = dataset.getYValues();
+        dataset.append(new ArrayDouble(4, 5), new ArrayDouble(0, 7));
+        assertEquals(5, dataset.getCount());
+        assertEquals(3, oldYValues.size());
+        assertEquals(7.0, dataset.getYValues().getDouble(4), 0.001);
+        assertEquals(1.0, dataset.getXStatistics().getRange().getMinimum(), 0.001);
+        assertEquals(5.0, dataset.getXStatistics().getRange().getMaximum(), 0.001);
+        assertEquals(0.0, dataset.getYStatistics().getRange().getMinimum(), 0.001);
+        assertEquals(7.0, dataset.getYStatistics().getRange().getMaximum(), 0.001);
+        assertEquals(3, dataset.getYPyramid().getMinIndex(0, 5));
+        assertEquals(4, dataset.getYPyramid().getMaxIndex(0, 5));
+        assertEquals(3.0, dataset.getXStatistics().getAverage(), 0.001);
+        assertEquals(Math.sqrt(2.0), dataset.getXStatistics().getStdDev(), 0.001);
+        assertEquals(3.2, dataset.getYStatistics().getAverage(), 0.001);
+
+        // NaNs are kept in the data, but not counted in the statistics
+        dataset.append(new ArrayDouble(6), new ArrayDouble(Double.NaN));
+        assertEquals(6, dataset.getCount());
+        assertEquals(6, dataset.getXStatistics().getCount());
+        assertEquals(5, dataset.getYStatistics().getCount());
+        assertEquals(3.2, dataset.getYStatistics().getAverage(), 0.001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pyramidLineDataUnsorted() {
+        PyramidPoint2DDataset dataset = Point2DDatasets.pyramidLineData(new ArrayDouble(1, 2, 3), new ArrayDouble(5, 1, 3));
+        dataset.append(new ArrayDouble(2.5), new ArrayDouble(0));
+    }
+
 // TODO: Are these supposed to be tested as well (methods that use arrays)?
 //    @Test
 //    public void testArrayLineData() {
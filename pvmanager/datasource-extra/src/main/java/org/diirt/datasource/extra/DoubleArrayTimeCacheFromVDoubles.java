@@ -16,6 +16,7 @@ import java.util.SortedMap;
 import java.util.TreeMap;
 
 import org.diirt.datasource.ReadFunction;
+import org.diirt.datasource.vtype.VDoubleSamples;
 import org.diirt.vtype.Display;
 import org.diirt.vtype.VNumber;
 import org.diirt.util.array.ArrayDouble;
@@ -124,20 +125,9 @@ public class DoubleArrayTimeCacheFromVDoubles implements DoubleArrayTimeCache {
     public DoubleArrayTimeCache.Data getData(Instant begin, Instant end) {
         // Let's do it in a crappy way first...
         for (int n = 0; n < functions.size(); n++) {
-            List<? extends VNumber> vDoubles = functions.get(n).readValue();
-            for (VNumber vNumber : vDoubles) {
-                if (display == null)
-                    display = vNumber;
-                ArrayDouble array = arrayFor(vNumber.getTimestamp());
-                double oldValue = array.getDouble(n);
-                array.setDouble(n, vNumber.getValue().doubleValue());
-
-                // Fix the following values
-                for (Map.Entry<Instant, ArrayDouble> en : cache.tailMap(vNumber.getTimestamp().plus(tolerance)).entrySet()) {
-                    // If no value or same value as before, replace it
-                    if (Double.isNaN(en.getValue().getDouble(n)) || en.getValue().getDouble(n) == oldValue)
-                        en.getValue().setDouble(n, vNumber.getValue().doubleValue());
-                }
+            List<? extends VNumber> vNumbers = functions.get(n).readValue();
+            for (int i = 0; i < vNumbers.size(); i++) {
+                add(n, vNumbers, i);
             }
         }
 
@@ -159,27 +149,16 @@ public class DoubleArrayTimeCacheFromVDoubles implements DoubleArrayTimeCache {
         Instant lastChange = null;
         for (int n = 0; n < functions.size(); n++) {
             List<? extends VNumber> vNumbers = functions.get(n).readValue();
-            for (VNumber vNumber : vNumbers) {
-                if (display == null)
-                    display = vNumber;
-                ArrayDouble array = arrayFor(vNumber.getTimestamp());
-                double oldValue = array.getDouble(n);
-                array.setDouble(n, vNumber.getValue().doubleValue());
+            for (int i = 0; i < vNumbers.size(); i++) {
+                Instant timestamp = add(n, vNumbers, i);
                 if (firstChange == null) {
-                    firstChange = vNumber.getTimestamp();
+                    firstChange = timestamp;
                 }
                 if (lastChange == null) {
-                    lastChange = vNumber.getTimestamp();
-                }
-                firstChange = min(firstChange, vNumber.getTimestamp());
-                lastChange = max(lastChange, vNumber.getTimestamp());
-
-                // Fix the following values
-                for (Map.Entry<Instant, ArrayDouble> en : cache.tailMap(vNumber.getTimestamp().plus(tolerance)).entrySet()) {
-                    // If no value or same value as before, replace it
-                    if (Double.isNaN(en.getValue().getDouble(n)) || en.getValue().getDouble(n) == oldValue)
-                        en.getValue().setDouble(n, vNumber.getValue().doubleValue());
+                    lastChange = timestamp;
                 }
+                firstChange = min(firstChange, timestamp);
+                lastChange = max(lastChange, timestamp);
             }
         }
 
@@ -190,6 +169,47 @@ public class DoubleArrayTimeCacheFromVDoubles implements DoubleArrayTimeCache {
         return Collections.singletonList(TimeInterval.between(firstChange.minus(tolerance), lastChange));
     }
 
+    /**
+     * Adds the i-th sample of the list to the n-th element of the arrays.
+     * Samples collected by a
+     * {@link org.diirt.datasource.vtype.VDoubleQueueCollector} are read
+     * without creating a VNumber.
+     *
+     * @param n the index of the function that produced the sample
+     * @param vNumbers the samples
+     * @param i the index of the sample
+     * @return the timestamp of the sample
+     */
+    private Instant add(int n, List<? extends VNumber> vNumbers, int i) {
+        Instant timestamp;
+        double value;
+        if (vNumbers instanceof VDoubleSamples) {
+            VDoubleSamples samples = (VDoubleSamples) vNumbers;
+            if (display == null)
+                display = samples.getDisplay();
+            timestamp = samples.getTimestamp(i);
+            value = samples.getValues().getDouble(i);
+        } else {
+            VNumber vNumber = vNumbers.get(i);
+            if (display == null)
+                display = vNumber;
+            timestamp = vNumber.getTimestamp();
+            value = vNumber.getValue().doubleValue();
+        }
+
+        ArrayDouble array = arrayFor(timestamp);
+        double oldValue = array.getDouble(n);
+        array.setDouble(n, value);
+
+        // Fix the following values
+        for (Map.Entry<Instant, ArrayDouble> en : cache.tailMap(timestamp.plus(tolerance)).entrySet()) {
+            // If no value or same value as before, replace it
+            if (Double.isNaN(en.getValue().getDouble(n)) || en.getValue().getDouble(n) == oldValue)
+                en.getValue().setDouble(n, value);
+        }
+        return timestamp;
+    }
+
     private void deleteBefore(Instant Instant) {
         if (cache.isEmpty())
             return;
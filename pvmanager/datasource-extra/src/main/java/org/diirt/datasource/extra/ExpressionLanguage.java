@@ -5,15 +5,18 @@
 package org.diirt.datasource.extra;
 
 import org.diirt.vtype.VNumberArray;
+import org.diirt.vtype.VDouble;
 import org.diirt.vtype.VNumber;
 import org.diirt.datasource.vtype.DataTypeSupport;
 import java.util.List;
 import org.diirt.datasource.BasicTypeSupport;
 import org.diirt.datasource.expression.DesiredRateExpression;
 import org.diirt.datasource.expression.DesiredRateExpressionList;
+import org.diirt.datasource.expression.DesiredRateExpressionListImpl;
 import org.diirt.datasource.expression.SourceRateExpression;
 import org.diirt.datasource.expression.SourceRateExpressionList;
 import static org.diirt.datasource.ExpressionLanguage.*;
+import static org.diirt.datasource.vtype.ExpressionLanguage.newVDoublesOf;
 
 /**
  * PVManager expression language support for additional operations.
@@ -48,7 +51,10 @@ public class ExpressionLanguage {
      * @return an expression representing the average of the expression
      */
     public static <T extends VNumber> WaterfallPlot waterfallPlotOf(SourceRateExpressionList<T> vDoubles) {
-        DesiredRateExpressionList<List<T>> queue = newValuesOf(vDoubles);
+        DesiredRateExpressionList<List<VDouble>> queue = new DesiredRateExpressionListImpl<List<VDouble>>();
+        for (SourceRateExpression<T> expression : vDoubles.getSourceRateExpressions()) {
+            queue.and(newVDoublesOf(expression));
+        }
         return new WaterfallPlot(queue, "waterfallOf");
     }
 
@@ -11,6 +11,7 @@ import java.io.OutputStreamWriter;
 import java.util.Collections;
 import java.util.Set;
 
+import org.diirt.util.text.CsvParser;
 import org.diirt.vtype.VTable;
 import org.diirt.vtype.io.CSVIO;
 
@@ -26,7 +27,8 @@ public class CSVFileFormat implements FileFormat {
 
     @Override
     public Object readValue(InputStream in) {
-        VTable value = io.importVTable(new InputStreamReader(in));
+        // Files can be large: parse in a single pass
+        VTable value = io.importVTable(new InputStreamReader(in), CsvParser.AUTOMATIC.withStreaming(true));
         return value;
     }
 
@@ -0,0 +1,593 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.diirt.util.array.ArrayInt;
+import org.diirt.util.array.ListByte;
+import org.diirt.util.array.ListDouble;
+import org.diirt.util.array.ListFloat;
+import org.diirt.util.array.ListInt;
+import org.diirt.util.array.ListLong;
+import org.diirt.util.array.ListNumber;
+import org.diirt.util.array.ListShort;
+import org.diirt.vtype.VNumberArray;
+import org.diirt.vtype.VTable;
+import org.diirt.vtype.ValueFactory;
+import org.diirt.vtype.ValueUtil;
+
+/**
+ * A binary file format that stores a VTable or a VNumberArray column by
+ * column, for files too large to be parsed at each change.
+ * <p>
+ * When read from a file, the file is mapped in memory and the data of the
+ * returned value is backed directly by the mapping: nothing is copied until
+ * the data is accessed. Writes go to a temporary file that then replaces
+ * the original, so that values already read are not affected. On Windows,
+ * a file can't be replaced while it's mapped, and Java 8 can only release
+ * a mapping through garbage collection: there the file is instead read in
+ * a single transfer into a heap buffer, which backs the data in the
+ * same way.
+ * <p>
+ * Only the data is stored: for a VNumberArray, the values and the sizes.
+ * As with the other file formats, the array read back has no alarm, the
+ * time of the read, no display and the default dimension display.
+ * <p>
+ * The layout, in little endian, is:
+ * <ul>
+ * <li>a header with the magic number "VCOL", the version, the kind of value
+ * (array or table), the number of columns and rows, and the array sizes;</li>
+ * <li>for each column, its type and UTF-8 name;</li>
+ * <li>for each column, aligned to 8 bytes, the data: the values for numbers;
+ * the offsets, then the UTF-8 bytes, for strings; the seconds, then the
+ * nanoseconds, for timestamps.</li>
+ * </ul>
+ *
+ * @author carcassi
+ */
+public class ColumnarFileFormat implements MappedFileFormat {
+
+    private static final int MAGIC = 0x4C4F4356; // "VCOL" in little endian
+    private static final int VERSION = 1;
+
+    private static final int KIND_ARRAY = 0;
+    private static final int KIND_TABLE = 1;
+
+    private static final byte TYPE_DOUBLE = 0;
+    private static final byte TYPE_FLOAT = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_INT = 3;
+    private static final byte TYPE_SHORT = 4;
+    private static final byte TYPE_BYTE = 5;
+    private static final byte TYPE_STRING = 6;
+    private static final byte TYPE_TIMESTAMP = 7;
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Whether a mapped file can be replaced while the mapping is alive.
+     */
+    private static final boolean MAP_FILES = !System.getProperty("os.name", "").startsWith("Windows");
+
+    @Override
+    public Object readValue(File file) throws Exception {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Columnar file too large (" + size + " bytes)");
+            }
+            if (MAP_FILES) {
+                // The mapping stays valid after the channel is closed
+                return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                // Keep reading
+            }
+            buffer.flip();
+            return decode(buffer);
+        }
+    }
+
+    @Override
+    public void writeValue(Object value, File file) throws Exception {
+        Path target = file.toPath();
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), "." + file.getName(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                encode(value, channel);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Object readValue(InputStream in) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[WRITE_BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return decode(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    @Override
+    public void writeValue(Object value, OutputStream out) throws Exception {
+        encode(value, Channels.newChannel(out));
+    }
+
+    @Override
+    public boolean isWriteSupported() {
+        return true;
+    }
+
+    @Override
+    public Collection<String> getFileExtensions() {
+        return Arrays.asList("vcol");
+    }
+
+    private static Object decode(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < 24 || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a columnar file");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported columnar file version " + version);
+        }
+        int kind = buffer.getInt();
+        int nColumns = buffer.getInt();
+        int nRows = buffer.getInt();
+        if (nColumns < 0 || nRows < 0) {
+            throw new IllegalArgumentException("Columnar file is corrupted");
+        }
+        int[] sizes = new int[buffer.getInt()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = buffer.getInt();
+        }
+        byte[] types = new byte[nColumns];
+        List<String> names = new ArrayList<>(nColumns);
+        for (int i = 0; i < nColumns; i++) {
+            types[i] = buffer.get();
+            byte[] name = new byte[buffer.getInt()];
+            buffer.get(name);
+            names.add(new String(name, StandardCharsets.UTF_8));
+        }
+        List<Class<?>> columnTypes = new ArrayList<>(nColumns);
+        List<Object> columnData = new ArrayList<>(nColumns);
+        for (int i = 0; i < nColumns; i++) {
+            align(buffer);
+            columnTypes.add(columnType(types[i]));
+            columnData.add(decodeColumn(buffer, types[i], nRows));
+        }
+
+        if (kind == KIND_ARRAY) {
+            if (nColumns != 1 || !(columnData.get(0) instanceof ListNumber)) {
+                throw new IllegalArgumentException("Array must have one numeric column");
+            }
+            ListInt arraySizes = new ArrayInt(sizes);
+            return ValueFactory.newVNumberArray((ListNumber) columnData.get(0), arraySizes, ValueUtil.defaultArrayDisplay(arraySizes),
+                    ValueFactory.alarmNone(), ValueFactory.timeNow(), ValueFactory.displayNone());
+        } else if (kind == KIND_TABLE) {
+            return ValueFactory.newVTable(columnTypes, names, columnData);
+        } else {
+            throw new IllegalArgumentException("Unsupported columnar file content " + kind);
+        }
+    }
+
+    private static Object decodeColumn(ByteBuffer buffer, byte type, final int nRows) {
+        switch (type) {
+            case TYPE_DOUBLE: {
+                final DoubleBuffer data = section(buffer, nRows * 8L).asDoubleBuffer();
+                return new ListDouble() {
+
+                    @Override
+                    public double getDouble(int index) {
+                        return data.get(index);
+                    }
+
+                    @Override
+                    public int size() {
+                        return nRows;
+                    }
+                };
+            }
+            case TYPE_FLOAT: {
+                final FloatBuffer data = section(buffer, nRows * 4L).asFloatBuffer();
+                return new ListFloat() {
+
+                    @Override
+                    public float getFloat(int index) {
+                        return data.get(index);
+                    }
+
+                    @Override
+                    public int size() {
+                        return nRows;
+                    }
+                };
+            }
+            case TYPE_LONG: {
+                final LongBuffer data = section(buffer, nRows * 8L).asLongBuffer();
+                return new ListLong() {
+
+                    @Override
+                    public long getLong(int index) {
+                        return data.get(index);
+                    }
+
+                    @Override
+                    public int size() {
+                        return nRows;
+                    }
+                };
+            }
+            case TYPE_INT: {
+                final IntBuffer data = section(buffer, nRows * 4L).asIntBuffer();
+                return new ListInt() {
+
+                    @Override
+                    public int getInt(int index) {
+                        return data.get(index);
+                    }
+
+                    @Override
+                    public int size() {
+                        return nRows;
+                    }
+                };
+            }
+            case TYPE_SHORT: {
+                final ShortBuffer data = section(buffer, nRows * 2L).asShortBuffer();
+                return new ListShort() {
+
+                    @Override
+                    public short getShort(int index) {
+                        return data.get(index);
+                    }
+
+                    @Override
+                    public int size() {
+                        return nRows;
+                    }
+                };
+            }
+            case TYPE_BYTE: {
+                final ByteBuffer data = section(buffer, nRows);
+                return new ListByte() {
+
+                    @Override
+                    public byte getByte(int index) {
+                        return data.get(index);
+                    }
+
+                    @Override
+                    public int size() {
+                        return nRows;
+                    }
+                };
+            }
+            case TYPE_STRING: {
+                final IntBuffer offsets = section(buffer, (nRows + 1) * 4L).asIntBuffer();
+                final ByteBuffer bytes = section(buffer, offsets.get(nRows));
+                for (int i = 0; i < nRows; i++) {
+                    if (offsets.get(i) < 0 || offsets.get(i + 1) < offsets.get(i)) {
+                        throw new IllegalArgumentException("Corrupted string column");
+                    }
+                }
+                return new AbstractList<String>() {
+
+                    @Override
+                    public String get(int index) {
+                        ByteBuffer string = bytes.duplicate();
+                        string.limit(offsets.get(index + 1)).position(offsets.get(index));
+                        return StandardCharsets.UTF_8.decode(string).toString();
+                    }
+
+                    @Override
+                    public int size() {
+                        return nRows;
+                    }
+                };
+            }
+            case TYPE_TIMESTAMP: {
+                final LongBuffer seconds = section(buffer, nRows * 8L).asLongBuffer();
+                final IntBuffer nanos = section(buffer, nRows * 4L).asIntBuffer();
+                return new AbstractList<Instant>() {
+
+                    @Override
+                    public Instant get(int index) {
+                        return Instant.ofEpochSecond(seconds.get(index), nanos.get(index));
+                    }
+
+                    @Override
+                    public int size() {
+                        return nRows;
+                    }
+                };
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported column type " + type);
+        }
+    }
+
+    // Returns the next length bytes as a separate buffer, and skips them
+    private static ByteBuffer section(ByteBuffer buffer, long length) {
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Columnar file is truncated");
+        }
+        ByteBuffer section = buffer.slice();
+        section.limit((int) length);
+        section.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(buffer.position() + (int) length);
+        align(buffer);
+        return section;
+    }
+
+    private static void align(ByteBuffer buffer) {
+        int padding = (8 - buffer.position() % 8) % 8;
+        buffer.position(Math.min(buffer.limit(), buffer.position() + padding));
+    }
+
+    private static Class<?> columnType(byte type) {
+        switch (type) {
+            case TYPE_DOUBLE: return double.class;
+            case TYPE_FLOAT: return float.class;
+            case TYPE_LONG: return long.class;
+            case TYPE_INT: return int.class;
+            case TYPE_SHORT: return short.class;
+            case TYPE_BYTE: return byte.class;
+            case TYPE_STRING: return String.class;
+            case TYPE_TIMESTAMP: return Instant.class;
+            default: throw new IllegalArgumentException("Unsupported column type " + type);
+        }
+    }
+
+    private static byte columnType(Class<?> type) {
+        if (type.equals(double.class)) {
+            return TYPE_DOUBLE;
+        } else if (type.equals(float.class)) {
+            return TYPE_FLOAT;
+        } else if (type.equals(long.class)) {
+            return TYPE_LONG;
+        } else if (type.equals(int.class)) {
+            return TYPE_INT;
+        } else if (type.equals(short.class)) {
+            return TYPE_SHORT;
+        } else if (type.equals(byte.class)) {
+            return TYPE_BYTE;
+        } else if (type.equals(String.class)) {
+            return TYPE_STRING;
+        } else if (type.equals(Instant.class)) {
+            return TYPE_TIMESTAMP;
+        }
+        throw new IllegalArgumentException("Column type " + type.getSimpleName() + " not supported");
+    }
+
+    private static byte columnType(ListNumber data) {
+        if (data instanceof ListDouble) {
+            return TYPE_DOUBLE;
+        } else if (data instanceof ListFloat) {
+            return TYPE_FLOAT;
+        } else if (data instanceof ListLong) {
+            return TYPE_LONG;
+        } else if (data instanceof ListInt) {
+            return TYPE_INT;
+        } else if (data instanceof ListShort) {
+            return TYPE_SHORT;
+        } else if (data instanceof ListByte) {
+            return TYPE_BYTE;
+        }
+        throw new IllegalArgumentException("Array type " + data.getClass().getSimpleName() + " not supported");
+    }
+
+    private static void encode(Object value, WritableByteChannel channel) throws IOException {
+        int kind;
+        int nRows;
+        ListInt sizes = null;
+        List<String> names = new ArrayList<>();
+        List<Byte> types = new ArrayList<>();
+        List<Object> data = new ArrayList<>();
+        if (value instanceof VNumberArray) {
+            VNumberArray array = (VNumberArray) value;
+            kind = KIND_ARRAY;
+            nRows = array.getData().size();
+            sizes = array.getSizes();
+            names.add("value");
+            types.add(columnType(array.getData()));
+            data.add(array.getData());
+        } else if (value instanceof VTable) {
+            VTable table = (VTable) value;
+            kind = KIND_TABLE;
+            nRows = table.getRowCount();
+            for (int i = 0; i < table.getColumnCount(); i++) {
+                names.add(table.getColumnName(i));
+                types.add(columnType(table.getColumnType(i)));
+                data.add(table.getColumnData(i));
+            }
+        } else {
+            throw new IllegalArgumentException("Columnar format only supports VTable and VNumberArray (was " + (value == null ? null : value.getClass().getSimpleName()) + ")");
+        }
+
+        Output out = new Output(channel);
+        out.buffer.putInt(MAGIC).putInt(VERSION).putInt(kind).putInt(names.size()).putInt(nRows);
+        int nDims = sizes == null ? 0 : sizes.size();
+        out.buffer.putInt(nDims);
+        for (int i = 0; i < nDims; i++) {
+            out.ensure(4).putInt(sizes.getInt(i));
+        }
+        for (int i = 0; i < names.size(); i++) {
+            byte[] name = names.get(i).getBytes(StandardCharsets.UTF_8);
+            out.ensure(5).put(types.get(i)).putInt(name.length);
+            out.put(name);
+        }
+        for (int i = 0; i < names.size(); i++) {
+            out.align();
+            encodeColumn(out, types.get(i), data.get(i), nRows);
+        }
+        out.flush();
+    }
+
+    private static void encodeColumn(Output out, byte type, Object data, int nRows) throws IOException {
+        switch (type) {
+            case TYPE_DOUBLE: {
+                ListNumber list = (ListNumber) data;
+                for (int i = 0; i < nRows; i++) {
+                    out.ensure(8).putDouble(list.getDouble(i));
+                }
+                break;
+            }
+            case TYPE_FLOAT: {
+                ListNumber list = (ListNumber) data;
+                for (int i = 0; i < nRows; i++) {
+                    out.ensure(4).putFloat(list.getFloat(i));
+                }
+                break;
+            }
+            case TYPE_LONG: {
+                ListNumber list = (ListNumber) data;
+                for (int i = 0; i < nRows; i++) {
+                    out.ensure(8).putLong(list.getLong(i));
+                }
+                break;
+            }
+            case TYPE_INT: {
+                ListNumber list = (ListNumber) data;
+                for (int i = 0; i < nRows; i++) {
+                    out.ensure(4).putInt(list.getInt(i));
+                }
+                break;
+            }
+            case TYPE_SHORT: {
+                ListNumber list = (ListNumber) data;
+                for (int i = 0; i < nRows; i++) {
+                    out.ensure(2).putShort(list.getShort(i));
+                }
+                break;
+            }
+            case TYPE_BYTE: {
+                ListNumber list = (ListNumber) data;
+                for (int i = 0; i < nRows; i++) {
+                    out.ensure(1).put(list.getByte(i));
+                }
+                break;
+            }
+            case TYPE_STRING: {
+                List<?> list = (List<?>) data;
+                byte[][] strings = new byte[nRows][];
+                long offset = 0;
+                out.ensure(4).putInt(0);
+                for (int i = 0; i < nRows; i++) {
+                    Object string = list.get(i);
+                    strings[i] = string == null ? new byte[0] : string.toString().getBytes(StandardCharsets.UTF_8);
+                    offset += strings[i].length;
+                    if (offset > Integer.MAX_VALUE) {
+                        throw new IllegalArgumentException("String column too large for columnar format");
+                    }
+                    out.ensure(4).putInt((int) offset);
+                }
+                out.align();
+                for (int i = 0; i < nRows; i++) {
+                    out.put(strings[i]);
+                }
+                break;
+            }
+            case TYPE_TIMESTAMP: {
+                List<?> list = (List<?>) data;
+                for (int i = 0; i < nRows; i++) {
+                    out.ensure(8).putLong(((Instant) list.get(i)).getEpochSecond());
+                }
+                out.align();
+                for (int i = 0; i < nRows; i++) {
+                    out.ensure(4).putInt(((Instant) list.get(i)).getNano());
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported column type " + type);
+        }
+        out.align();
+    }
+
+    /**
+     * Buffered output to a channel that keeps track of the position for
+     * the alignment.
+     */
+    private static class Output {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long written = 0;
+
+        Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        ByteBuffer ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+            return buffer;
+        }
+
+        void put(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                int length = Math.min(bytes.length - offset, ensure(1).remaining());
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        void align() throws IOException {
+            long position = written + buffer.position();
+            int padding = (int) ((8 - position % 8) % 8);
+            for (int i = 0; i < padding; i++) {
+                ensure(1).put((byte) 0);
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+}
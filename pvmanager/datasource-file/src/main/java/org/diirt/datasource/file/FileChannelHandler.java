@@ -57,6 +57,14 @@ class FileChannelHandler extends MultiplexedChannelHandler<File, Object> {
     }
 
     protected Object readValueFromFile(File file) {
+        if (format instanceof MappedFileFormat) {
+            try {
+                return ((MappedFileFormat) format).readValue(file);
+            } catch (Exception e) {
+                reportExceptionToAllReadersAndWriters(e);
+            }
+            return null;
+        }
         try (FileInputStream in = new FileInputStream(file)) {
             return format.readValue(in);
         } catch (Exception e) {
@@ -100,6 +108,16 @@ class FileChannelHandler extends MultiplexedChannelHandler<File, Object> {
             }
         }
 
+        if (format instanceof MappedFileFormat) {
+            try {
+                ((MappedFileFormat) format).writeValue(newValue, file);
+                callback.channelWritten(null);
+            } catch (Exception ex) {
+                callback.channelWritten(ex);
+            }
+            return;
+        }
+
         try (OutputStream out = new FileOutputStream(file)) {
             format.writeValue(newValue, out);
             callback.channelWritten(null);
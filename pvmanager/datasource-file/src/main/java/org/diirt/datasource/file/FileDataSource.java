@@ -64,6 +64,7 @@ public final class FileDataSource extends DataSource {
 
     @Override
     public void close() {
+        fileWatchService.close();
         exec.shutdownNow();
         super.close();
     }
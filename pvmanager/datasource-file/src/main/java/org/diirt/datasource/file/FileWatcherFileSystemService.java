@@ -6,20 +6,38 @@ package org.diirt.datasource.file;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystem;
 import java.nio.file.Path;
 import static java.nio.file.StandardWatchEventKinds.*;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
+ * File watcher based on the native notifications of the file system.
+ * <p>
+ * A single {@link WatchKey} is registered for each directory, and the events
+ * are dispatched to the files through a map on the file name, so that the
+ * cost of a scan depends on the number of events and not on the number
+ * of watched files. Events for the same file that arrive within the debounce
+ * period of each other are coalesced into a single notification, which
+ * is sent once the file has been quiet for the debounce period.
+ * <p>
+ * Files on file systems that do not support native notifications (i.e. where
+ * the JDK would itself poll) are handed to a {@link FileWatcherPollingService}.
  *
  * @author carcassi
  */
@@ -27,7 +45,10 @@ class FileWatcherFileSystemService implements FileWatcherService {
 
     private static final Logger log = Logger.getLogger(FileWatcherService.class.getName());
 
+    private final Object lock = new Object();
     private final ScheduledExecutorService exec;
+    private final Duration scanRate;
+    private final long debounceNanos;
     private final Runnable scanTask = new Runnable() {
 
         @Override
@@ -35,85 +56,308 @@ class FileWatcherFileSystemService implements FileWatcherService {
             scan();
         }
     };
-    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+    private final ScheduledFuture<?> scanFuture;
 
+    // Guarded by lock
+    private final Map<FileSystem, WatchService> watchServices = new HashMap<>();
+    private final Map<Path, WatchedDirectory> directories = new HashMap<>();
+    private final Map<WatchKey, WatchedDirectory> directoriesByKey = new HashMap<>();
+    private FileWatcherPollingService pollingService;
+    private boolean closed;
+
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong coalescedReloads = new AtomicLong();
+
+    /**
+     * Creates a new service that checks for events at the given rate
+     * and debounces changes for 100 ms.
+     *
+     * @param exec the executor for the scans and the notifications
+     * @param scanRate the rate at which events are processed
+     */
     public FileWatcherFileSystemService(ScheduledExecutorService exec, Duration scanRate) {
+        this(exec, scanRate, Duration.ofMillis(100));
+    }
+
+    /**
+     * Creates a new service that checks for events at the given rate
+     * and debounces changes for the given period.
+     *
+     * @param exec the executor for the scans and the notifications
+     * @param scanRate the rate at which events are processed
+     * @param debounce how long a file needs to be quiet before notifying
+     */
+    public FileWatcherFileSystemService(ScheduledExecutorService exec, Duration scanRate, Duration debounce) {
         this.exec = exec;
-        exec.scheduleWithFixedDelay(scanTask, 0, scanRate.toNanos(), TimeUnit.NANOSECONDS);
+        this.scanRate = scanRate;
+        this.debounceNanos = debounce.toNanos();
+        scanFuture = exec.scheduleWithFixedDelay(scanTask, 0, scanRate.toNanos(), TimeUnit.NANOSECONDS);
     }
 
     @Override
     public void addWatcher(File file, Runnable callback) {
-        try {
-            registrations.add(new Registration(file, callback));
-        } catch (IOException ex) {
-            log.log(Level.WARNING, "Notifications won't be enable for file " + file, ex);
+        Path path = file.toPath().toAbsolutePath();
+        Path directoryPath = path.getParent();
+        synchronized(lock) {
+            if (closed) {
+                throw new IllegalStateException("File watcher was closed");
+            }
+            WatchedDirectory directory = directories.get(directoryPath);
+            if (directory == null) {
+                try {
+                    WatchService watchService = nativeWatchService(path.getFileSystem());
+                    if (watchService == null) {
+                        pollingService().addWatcher(file, callback);
+                        return;
+                    }
+                    WatchKey key = directoryPath.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                    directory = new WatchedDirectory(directoryPath, key);
+                    directories.put(directoryPath, directory);
+                    directoriesByKey.put(key, directory);
+                } catch (IOException | UnsupportedOperationException ex) {
+                    log.log(Level.WARNING, "Notifications not available for directory " + directoryPath + ": polling file " + file, ex);
+                    pollingService().addWatcher(file, callback);
+                    return;
+                }
+            }
+            directory.add(path.getFileName(), callback);
         }
     }
 
     @Override
     public void removeWatcher(File file, Runnable callback) {
-        Registration toClose = null;
-        for (Registration registration : registrations) {
-            if (registration.file.equals(file) && registration.callback.equals(callback)) {
-                toClose = registration;
+        Path path = file.toPath().toAbsolutePath();
+        Path directoryPath = path.getParent();
+        synchronized(lock) {
+            WatchedDirectory directory = directories.get(directoryPath);
+            if (directory == null || !directory.remove(path.getFileName(), callback)) {
+                if (pollingService != null) {
+                    pollingService.removeWatcher(file, callback);
+                }
+                return;
+            }
+            if (directory.isEmpty()) {
+                directory.key.cancel();
+                directories.remove(directoryPath);
+                directoriesByKey.remove(directory.key);
             }
         }
+    }
 
-        if (toClose != null) {
-            try {
-                toClose.close();
-            } catch (IOException ex) {
-                log.log(Level.WARNING, "Exception while closing notifications for file " + file, ex);
+    @Override
+    public void close() {
+        scanFuture.cancel(false);
+        synchronized(lock) {
+            closed = true;
+            for (WatchService watchService : watchServices.values()) {
+                try {
+                    if (watchService != null) {
+                        watchService.close();
+                    }
+                } catch (IOException ex) {
+                    log.log(Level.WARNING, "Exception while closing file notifications", ex);
+                }
+            }
+            watchServices.clear();
+            directories.clear();
+            directoriesByKey.clear();
+            if (pollingService != null) {
+                pollingService.close();
             }
-            registrations.remove(toClose);
         }
     }
 
+    /**
+     * The number of notifications sent to the registered callbacks. A
+     * notification for a file counts once, regardless of how many callbacks
+     * are registered on it.
+     *
+     * @return the number of reloads
+     */
+    public long getReloadCount() {
+        return reloads.get();
+    }
+
+    /**
+     * The number of file events that did not result in a notification because
+     * they were coalesced with a pending one.
+     *
+     * @return the number of coalesced reloads
+     */
+    public long getCoalescedReloadCount() {
+        return coalescedReloads.get();
+    }
+
+    /**
+     * The number of directories registered for native notifications.
+     *
+     * @return the number of watch keys
+     */
+    int getWatchedDirectoryCount() {
+        synchronized(lock) {
+            return directories.size();
+        }
+    }
+
+    // Returns null if the file system does not have native notifications
+    private WatchService nativeWatchService(FileSystem fileSystem) throws IOException {
+        if (watchServices.containsKey(fileSystem)) {
+            return watchServices.get(fileSystem);
+        }
+        WatchService watchService;
+        try {
+            watchService = fileSystem.newWatchService();
+        } catch (UnsupportedOperationException ex) {
+            watchService = null;
+        }
+        // The JDK falls back to stat-ing the directory content when the
+        // platform has no notifications: our own polling only stats the files
+        // that are actually watched
+        if (watchService != null && watchService.getClass().getSimpleName().equals("PollingWatchService")) {
+            log.log(Level.FINE, "No native notifications for {0}: using polling", fileSystem);
+            watchService.close();
+            watchService = null;
+        }
+        watchServices.put(fileSystem, watchService);
+        return watchService;
+    }
+
+    private FileWatcherPollingService pollingService() {
+        if (pollingService == null) {
+            pollingService = new FileWatcherPollingService(exec, scanRate);
+        }
+        return pollingService;
+    }
+
     private void scan() {
-        for (Registration registration : registrations) {
-            registration.notifyChanges();
+        List<WatchService> toScan;
+        synchronized(lock) {
+            toScan = new ArrayList<>(watchServices.values());
+        }
+        for (WatchService watchService : toScan) {
+            if (watchService == null) {
+                continue;
+            }
+            try {
+                WatchKey key = watchService.poll();
+                while (key != null) {
+                    List<WatchEvent<?>> events = key.pollEvents();
+                    key.reset();
+                    synchronized(lock) {
+                        WatchedDirectory directory = directoriesByKey.get(key);
+                        if (directory != null) {
+                            directory.processEvents(events);
+                        }
+                    }
+                    key = watchService.poll();
+                }
+            } catch (ClosedWatchServiceException ex) {
+                // Service was closed: nothing to do
+            }
         }
     }
 
-    private class Registration {
-        final File file;
-        final Runnable callback;
+    /**
+     * A directory registered with the watch service, with the files being
+     * watched by file name.
+     */
+    private class WatchedDirectory {
         final Path path;
-        final WatchService watchService;
+        final WatchKey key;
+        final Map<Path, WatchedFile> files = new HashMap<>();
 
-        Registration(File file, Runnable callback) throws IOException {
-            this.file = file;
-            this.callback = callback;
-            this.path = file.toPath();
-            this.watchService = path.getFileSystem().newWatchService();
-            this.path.getParent().register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        WatchedDirectory(Path path, WatchKey key) {
+            this.path = path;
+            this.key = key;
         }
 
-        void close() throws IOException {
-            watchService.close();
+        void add(Path fileName, Runnable callback) {
+            WatchedFile file = files.get(fileName);
+            if (file == null) {
+                file = new WatchedFile(path.resolve(fileName));
+                files.put(fileName, file);
+            }
+            file.callbacks.add(callback);
+        }
+
+        boolean remove(Path fileName, Runnable callback) {
+            WatchedFile file = files.get(fileName);
+            if (file == null || !file.callbacks.remove(callback)) {
+                return false;
+            }
+            if (file.callbacks.isEmpty()) {
+                files.remove(fileName);
+            }
+            return true;
+        }
+
+        boolean isEmpty() {
+            return files.isEmpty();
         }
 
-        void notifyChanges() {
-            WatchKey key = watchService.poll();
-            if (key != null) {
-                boolean changed = false;
-                for (WatchEvent<?> watchEvent : key.pollEvents()) {
-                    Path path = (Path) watchEvent.context();
-                    if (path != null && path.getFileName().equals(file.getName())) {
-                        changed = true;
+        void processEvents(List<WatchEvent<?>> events) {
+            for (WatchEvent<?> event : events) {
+                if (event.kind() == OVERFLOW) {
+                    // Events were lost: any file may have changed
+                    for (WatchedFile file : files.values()) {
+                        file.changed();
+                    }
+                } else {
+                    WatchedFile file = files.get((Path) event.context());
+                    if (file != null) {
+                        file.changed();
                     }
                 }
-                key.reset();
+            }
+        }
+    }
+
+    /**
+     * A file being watched, with its callbacks and debounce state.
+     */
+    private class WatchedFile implements Runnable {
+        final Path path;
+        final List<Runnable> callbacks = new CopyOnWriteArrayList<>();
+        // Guarded by lock
+        long lastEventTime;
+        boolean pending;
+
+        WatchedFile(Path path) {
+            this.path = path;
+        }
+
+        // Called with the lock held
+        void changed() {
+            lastEventTime = System.nanoTime();
+            if (pending) {
+                coalescedReloads.incrementAndGet();
+            } else {
+                pending = true;
+                exec.schedule(this, debounceNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        public void run() {
+            synchronized(lock) {
+                long remaining = debounceNanos - (System.nanoTime() - lastEventTime);
+                if (remaining > 0) {
+                    // Still changing: wait for the file to be quiet
+                    exec.schedule(this, remaining, TimeUnit.NANOSECONDS);
+                    return;
+                }
+                pending = false;
+            }
+            reloads.incrementAndGet();
+            for (Runnable callback : callbacks) {
                 try {
                     callback.run();
                 } catch(RuntimeException ex) {
                     // Protecting from callback errors
-                    log.log(Level.WARNING, "Exception on the file watcher callback", ex);
+                    log.log(Level.WARNING, "Exception on the file watcher callback for " + path, ex);
                 }
             }
         }
-
     }
 
 }
@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -32,10 +33,11 @@ public class FileWatcherPollingService implements FileWatcherService {
         }
     };
     private final List<Registration> registrations = new ArrayList<>();
+    private final ScheduledFuture<?> scanFuture;
 
     public FileWatcherPollingService(ScheduledExecutorService exec, Duration scanRate) {
         this.exec = exec;
-        exec.scheduleWithFixedDelay(scanTask, 0, scanRate.toNanos(), TimeUnit.NANOSECONDS);
+        scanFuture = exec.scheduleWithFixedDelay(scanTask, 0, scanRate.toNanos(), TimeUnit.NANOSECONDS);
     }
 
     @Override
@@ -62,6 +64,14 @@ public class FileWatcherPollingService implements FileWatcherService {
         }
     }
 
+    @Override
+    public void close() {
+        scanFuture.cancel(false);
+        synchronized(lock) {
+            registrations.clear();
+        }
+    }
+
     public void scan() {
         synchronized(lock) {
             for (Registration registration : registrations) {
@@ -27,4 +27,9 @@ interface FileWatcherService {
      * @param callback no longer called when the file changes
      */
     public void removeWatcher(File file, Runnable callback);
+
+    /**
+     * Stops all notifications and releases the resources.
+     */
+    public void close();
 }
@@ -0,0 +1,41 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.file;
+
+import java.io.File;
+
+/**
+ * A file format that accesses the file directly, instead of going through
+ * a stream, so that it can use the file channel (e.g. to map the file in
+ * memory). The values read may stay backed by the file, so writes must not
+ * affect them, and must work while they are still referenced: on some
+ * platforms (e.g. Windows) a mapped file can't be replaced.
+ * <p>
+ * The file datasource uses these methods instead of the stream based ones
+ * when available.
+ *
+ * @author carcassi
+ */
+public interface MappedFileFormat extends FileFormat {
+
+    /**
+     * Reads the value from the given file.
+     *
+     * @param file the file to read; not null
+     * @return the value de-serialized
+     * @throws java.lang.Exception any error
+     */
+    public Object readValue(File file) throws Exception;
+
+    /**
+     * Writes the value to the given file. Values previously read from the
+     * file must not be affected by the write.
+     *
+     * @param value the value to write; not null
+     * @param file the file to write; not null
+     * @throws java.lang.Exception any error
+     */
+    public void writeValue(Object value, File file) throws Exception;
+}
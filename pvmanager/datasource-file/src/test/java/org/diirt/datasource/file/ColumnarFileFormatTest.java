@@ -0,0 +1,146 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.time.Instant;
+import java.util.Arrays;
+
+import org.diirt.util.array.ArrayByte;
+import org.diirt.util.array.ArrayDouble;
+import org.diirt.util.array.ArrayFloat;
+import org.diirt.util.array.ArrayInt;
+import org.diirt.util.array.ArrayLong;
+import org.diirt.util.array.ArrayShort;
+import org.diirt.util.text.NumberFormats;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.VDoubleArray;
+import org.diirt.vtype.VIntArray;
+import org.diirt.vtype.VNumberArray;
+import org.diirt.vtype.VTable;
+import org.diirt.vtype.ValueFactory;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+import static org.diirt.vtype.ValueFactory.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class ColumnarFileFormatTest {
+
+    private static VTable createTable() {
+        return ValueFactory.newVTable(Arrays.<Class<?>>asList(double.class, float.class, long.class, int.class,
+                short.class, byte.class, String.class, Instant.class),
+                Arrays.asList("double", "float", "long", "int", "short", "byte", "string", "timestamp"),
+                Arrays.<Object>asList(new ArrayDouble(1.5, Double.NaN, -3), new ArrayFloat(1, 2, 3),
+                        new ArrayLong(Long.MIN_VALUE, 0, Long.MAX_VALUE), new ArrayInt(7, 8, 9),
+                        new ArrayShort((short) 1, (short) 2, (short) 3), new ArrayByte((byte) -1, (byte) 0, (byte) 1),
+                        Arrays.asList("A", "", "\u00e8\"\n"),
+                        Arrays.asList(Instant.ofEpochSecond(0, 1), Instant.ofEpochSecond(1400000000, 999999999), Instant.ofEpochSecond(-1))));
+    }
+
+    private static void assertTableEquals(VTable actual, VTable expected) {
+        assertThat(actual.getColumnCount(), equalTo(expected.getColumnCount()));
+        assertThat(actual.getRowCount(), equalTo(expected.getRowCount()));
+        for (int i = 0; i < expected.getColumnCount(); i++) {
+            assertThat(actual.getColumnName(i), equalTo(expected.getColumnName(i)));
+            assertThat(actual.getColumnType(i), equalTo((Object) expected.getColumnType(i)));
+            assertThat(actual.getColumnData(i), equalTo(expected.getColumnData(i)));
+        }
+    }
+
+    @Test
+    public void tableRoundTripFile() throws Exception {
+        ColumnarFileFormat format = new ColumnarFileFormat();
+        File file = File.createTempFile("table", ".vcol");
+        file.deleteOnExit();
+        VTable table = createTable();
+        format.writeValue(table, file);
+        VTable read = (VTable) format.readValue(file);
+        assertTableEquals(read, table);
+
+        // Values read stay valid after the file is replaced
+        format.writeValue(ValueFactory.newVTable(Arrays.<Class<?>>asList(double.class),
+                Arrays.asList("double"), Arrays.<Object>asList(new ArrayDouble(42))), file);
+        assertTableEquals(read, table);
+        VTable reread = (VTable) format.readValue(file);
+        assertThat(reread.getRowCount(), equalTo(1));
+        assertThat(file.getParentFile().listFiles((dir, name) -> name.startsWith("." + file.getName())), emptyArray());
+    }
+
+    @Test
+    public void tableRoundTripStream() throws Exception {
+        ColumnarFileFormat format = new ColumnarFileFormat();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VTable table = createTable();
+        format.writeValue(table, out);
+        assertThat(out.size() % 8, equalTo(0));
+        VTable read = (VTable) format.readValue(new ByteArrayInputStream(out.toByteArray()));
+        assertTableEquals(read, table);
+    }
+
+    @Test
+    public void arrayRoundTripFile() throws Exception {
+        ColumnarFileFormat format = new ColumnarFileFormat();
+        File file = File.createTempFile("array", ".vcol");
+        file.deleteOnExit();
+        double[] data = new double[100000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = Math.sin(i);
+        }
+        format.writeValue(newVDoubleArray(new ArrayDouble(data), alarmNone(), timeNow(), displayNone()), file);
+        VDoubleArray read = (VDoubleArray) format.readValue(file);
+        assertThat(read.getData(), equalTo((Object) new ArrayDouble(data)));
+        assertThat(read.getSizes(), equalTo((Object) new ArrayInt(100000)));
+
+        VNumberArray matrix = newVNumberArray(new ArrayInt(1, 2, 3, 4, 5, 6), new ArrayInt(2, 3),
+                null, alarmNone(), timeNow(), displayNone());
+        format.writeValue(matrix, file);
+        VIntArray readMatrix = (VIntArray) format.readValue(file);
+        assertThat(readMatrix.getData(), equalTo((Object) new ArrayInt(1, 2, 3, 4, 5, 6)));
+        assertThat(readMatrix.getSizes(), equalTo((Object) new ArrayInt(2, 3)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedValue() throws Exception {
+        new ColumnarFileFormat().writeValue(newVString("test", alarmNone(), timeNow()), new ByteArrayOutputStream());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notColumnar() throws Exception {
+        new ColumnarFileFormat().readValue(new ByteArrayInputStream("Name,Value\nA,1\n".getBytes()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncated() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ColumnarFileFormat().writeValue(createTable(), out);
+        new ColumnarFileFormat().readValue(new ByteArrayInputStream(Arrays.copyOf(out.toByteArray(), out.size() - 16)));
+    }
+
+    @Test
+    public void arrayMetadataNotStored() throws Exception {
+        ColumnarFileFormat format = new ColumnarFileFormat();
+        File file = File.createTempFile("array", ".vcol");
+        file.deleteOnExit();
+        format.writeValue(newVDoubleArray(new ArrayDouble(1, 2, 3), newAlarm(AlarmSeverity.MAJOR, "HIHI"),
+                newTime(Instant.ofEpochSecond(0)), newDisplay(0.0, 1.0, 2.0, "m", NumberFormats.toStringFormat(), 8.0, 9.0, 10.0, 0.0, 10.0)), file);
+        VDoubleArray read = (VDoubleArray) format.readValue(file);
+        assertThat(read.getAlarmSeverity(), equalTo(AlarmSeverity.NONE));
+        assertThat(read.getTimestamp(), not(equalTo(Instant.ofEpochSecond(0))));
+        assertThat(read.getUnits(), equalTo(""));
+        assertThat(read.getData(), equalTo((Object) new ArrayDouble(1, 2, 3)));
+    }
+
+    @Test
+    public void registered() {
+        assertThat(FileFormatRegistry.getDefault().getFileFormatFor("vcol"), instanceOf(ColumnarFileFormat.class));
+    }
+}
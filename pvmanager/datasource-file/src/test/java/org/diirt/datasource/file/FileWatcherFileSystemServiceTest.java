@@ -8,11 +8,14 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.PrintWriter;
+import java.nio.file.Files;
 import java.time.Duration;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -70,4 +73,90 @@ public class FileWatcherFileSystemServiceTest {
         assertThat(latch.getCount(), equalTo(0L));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void coalesceWrites() throws Exception {
+        File filename = File.createTempFile("file.", ".csv");
+        filename.deleteOnExit();
+        final AtomicInteger counter = new AtomicInteger();
+        FileWatcherFileSystemService service = new FileWatcherFileSystemService(exec, Duration.ofMillis(10), Duration.ofMillis(500));
+        service.addWatcher(filename, new Runnable() {
+
+            @Override
+            public void run() {
+                counter.incrementAndGet();
+            }
+        });
+
+        for (int i = 0; i < 10; i++) {
+            try (PrintWriter writer = new PrintWriter(filename)) {
+                writer.println("Value");
+                writer.println(i);
+            }
+            Thread.sleep(20);
+        }
+
+        Thread.sleep(2000);
+        assertThat(counter.get(), equalTo(1));
+        assertThat(service.getReloadCount(), equalTo(1L));
+        assertThat(service.getCoalescedReloadCount(), greaterThan(0L));
+        service.close();
+    }
+
+    @Test
+    public void sharedDirectory() throws Exception {
+        File dir = Files.createTempDirectory("watch").toFile();
+        dir.deleteOnExit();
+        final AtomicInteger counter1 = new AtomicInteger();
+        final AtomicInteger counter2 = new AtomicInteger();
+        File file1 = new File(dir, "file1.csv");
+        File file2 = new File(dir, "file2.csv");
+        file1.deleteOnExit();
+        file2.deleteOnExit();
+        Runnable callback1 = new Runnable() {
+
+            @Override
+            public void run() {
+                counter1.incrementAndGet();
+            }
+        };
+        Runnable callback2 = new Runnable() {
+
+            @Override
+            public void run() {
+                counter2.incrementAndGet();
+            }
+        };
+        FileWatcherFileSystemService service = new FileWatcherFileSystemService(exec, Duration.ofMillis(10), Duration.ofMillis(50));
+        service.addWatcher(file1, callback1);
+        service.addWatcher(file2, callback2);
+        assertThat(service.getWatchedDirectoryCount(), equalTo(1));
+
+        try (PrintWriter writer = new PrintWriter(file1)) {
+            writer.println("Value");
+        }
+        Thread.sleep(2000);
+        assertThat(counter1.get(), equalTo(1));
+        assertThat(counter2.get(), equalTo(0));
+
+        service.removeWatcher(file1, callback1);
+        assertThat(service.getWatchedDirectoryCount(), equalTo(1));
+        service.removeWatcher(file2, callback2);
+        assertThat(service.getWatchedDirectoryCount(), equalTo(0));
+        service.close();
+    }
+
+    @Test
+    public void closeCancelsScan() throws Exception {
+        ScheduledThreadPoolExecutor scanExec = new ScheduledThreadPoolExecutor(1);
+        scanExec.setRemoveOnCancelPolicy(true);
+        try {
+            FileWatcherFileSystemService service = new FileWatcherFileSystemService(scanExec, Duration.ofMillis(10));
+            assertThat(scanExec.getQueue().size(), equalTo(1));
+            service.close();
+            assertThat(scanExec.getQueue().size(), equalTo(0));
+        } finally {
+            scanExec.shutdownNow();
+        }
+    }
+
+}
@@ -182,8 +182,13 @@ public class ExpressionLanguage {
     }
 
     static DesiredRateExpression<?> function(String function, DesiredRateExpressionList<?> args) {
+        return function(function, args, null);
+    }
+
+    static DesiredRateExpression<?> function(String function, DesiredRateExpressionList<?> args, FormulaAst ast) {
         Collection<FormulaFunction> matchedFunctions = FormulaRegistry.getDefault().findFunctions(function, args.getDesiredRateExpressions().size());
-        FormulaReadFunction readFunction = new FormulaReadFunction(Expressions.functionsOf(args), matchedFunctions, function);
+        FormulaResultCache.SharedResult sharedResult = ast == null ? null : FormulaResultCache.getDefault().sharedResultFor(ast);
+        FormulaReadFunction readFunction = new FormulaReadFunction(Expressions.functionsOf(args), matchedFunctions, function, sharedResult);
         List<String> argNames = new ArrayList<>(args.getDesiredRateExpressions().size());
         for (DesiredRateExpression<? extends Object> arg : args.getDesiredRateExpressions()) {
             argNames.add(arg.getName());
@@ -11,6 +11,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.regex.Pattern;
 import org.antlr.runtime.ANTLRStringStream;
 import org.antlr.runtime.CharStream;
 import org.antlr.runtime.CommonTokenStream;
@@ -25,6 +26,10 @@ import org.diirt.util.text.StringUtil;
  * This class provides a logical representation of the expression,
  * static factory methods to create such expressions from text representation
  * (i.e. parsing) and the ability to convert to datasource expressions.
+ * <p>
+ * The AST is immutable. The results of {@link #formula(java.lang.String) }
+ * are kept in a bounded cache, so that parsing the same formula again
+ * does not go through the parser.
  *
  * @author carcassi
  */
@@ -243,7 +248,7 @@ public class FormulaAst {
      * @return the new node
      */
     public static FormulaAst op(String opName, List<FormulaAst> children) {
-        return new FormulaAst(Type.OP, children, opName);
+        return new FormulaAst(Type.OP, Collections.unmodifiableList(new ArrayList<>(children)), opName);
     }
 
     /**
@@ -270,30 +275,74 @@ public class FormulaAst {
         if (ast != null) {
             return ast;
         }
-        formula = formula.substring(1);
 
-        try {
-            ast = createParser(formula).formula();
-            if (ast == null) {
-                throw new IllegalArgumentException("Parsing failed");
-            }
+        ast = cache.get(formula);
+        if (ast != null) {
             return ast;
-        } catch (Exception ex) {
-            throw new IllegalArgumentException("Error parsing formula: " + ex.getMessage(), ex);
         }
+
+        ast = quotedChannel(formula);
+        if (ast == null) {
+            try {
+                ast = createParser(formula.substring(1)).formula();
+                if (ast == null) {
+                    throw new IllegalArgumentException("Parsing failed");
+                }
+            } catch (Exception ex) {
+                throw new IllegalArgumentException("Error parsing formula: " + ex.getMessage(), ex);
+            }
+        }
+        cache.put(formula, ast);
+        return ast;
+    }
+
+    /**
+     * The number of times {@link #formula(java.lang.String) } found
+     * the AST in the cache.
+     *
+     * @return the number of cache hits
+     */
+    public static long getFormulaCacheHitCount() {
+        return cache.getHitCount();
     }
 
+    /**
+     * The number of times {@link #formula(java.lang.String) } did not find
+     * the AST in the cache. Formulas that are plain channel names do not
+     * go through the cache.
+     *
+     * @return the number of cache misses
+     */
+    public static long getFormulaCacheMissCount() {
+        return cache.getMissCount();
+    }
+
+    private static final FormulaAstCache cache = new FormulaAstCache(10000);
+    private static final Pattern singleQuotedPattern = Pattern.compile(StringUtil.SINGLEQUOTED_STRING_REGEX);
+    // A quoted channel with no quotes or escape sequences inside
+    private static final Pattern simpleQuotedChannel = Pattern.compile("=[ \\t\\r\\n]*'[^'\"\\\\]*'[ \\t\\r\\n]*");
+
     private static FormulaAst staticChannel(String formula) {
         if (formula.startsWith("=")) {
             return null;
         }
 
-        if (formula.trim().matches(StringUtil.SINGLEQUOTED_STRING_REGEX)) {
-            return channel(formula.trim());
+        // Fast path: the name can only be quoted if it starts with a quote
+        String trimmed = formula.trim();
+        if (trimmed.startsWith("'") && singleQuotedPattern.matcher(trimmed).matches()) {
+            return channel(trimmed);
         }
         return channel(formula);
     }
 
+    // A formula that is a single quoted channel does not need the parser
+    private static FormulaAst quotedChannel(String formula) {
+        if (simpleQuotedChannel.matcher(formula).matches()) {
+            return channelFromToken(formula.substring(1).trim());
+        }
+        return null;
+    }
+
     /**
      * The AST corresponding to a single channel, if the formula represents one,
      * or null, if the formula is not a single channel.
@@ -306,6 +355,10 @@ public class FormulaAst {
         if (ast != null) {
             return ast;
         }
+        ast = quotedChannel(formula);
+        if (ast != null) {
+            return ast;
+        }
         formula = formula.substring(1);
 
         try {
@@ -338,7 +391,7 @@ public class FormulaAst {
                 for (FormulaAst child : getChildren()) {
                     expressions.and(child.toExpression());
                 }
-                return ExpressionLanguage.function((String) getValue(), expressions);
+                return ExpressionLanguage.function((String) getValue(), expressions, this);
             default:
                 throw new IllegalArgumentException("Unsupported type " + getType() + " for ast");
         }
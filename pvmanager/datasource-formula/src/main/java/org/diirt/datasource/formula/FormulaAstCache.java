@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.formula;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread-safe cache from formula text to the parsed AST. When
+ * full, the least recently used entry is discarded.
+ *
+ * @author carcassi
+ */
+class FormulaAstCache {
+
+    private final Map<String, FormulaAst> map;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxSize the maximum number of entries
+     */
+    FormulaAstCache(final int maxSize) {
+        map = new LinkedHashMap<String, FormulaAst>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FormulaAst> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the AST for the given formula, if present.
+     *
+     * @param formula the formula text
+     * @return the AST or null
+     */
+    FormulaAst get(String formula) {
+        FormulaAst ast;
+        synchronized (map) {
+            ast = map.get(formula);
+        }
+        if (ast != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return ast;
+    }
+
+    /**
+     * Adds the AST for the given formula.
+     *
+     * @param formula the formula text
+     * @param ast the parsed AST
+     */
+    void put(String formula, FormulaAst ast) {
+        synchronized (map) {
+            map.put(formula, ast);
+        }
+    }
+
+    int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    long getHitCount() {
+        return hits.get();
+    }
+
+    long getMissCount() {
+        return misses.get();
+    }
+}
@@ -5,6 +5,7 @@
 package org.diirt.datasource.formula;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import org.diirt.datasource.PVDirector;
@@ -12,6 +13,17 @@ import org.diirt.datasource.ReadFunction;
 import org.diirt.vtype.ValueUtil;
 
 /**
+ * The read function for a formula function node.
+ * <p>
+ * The function to call is resolved against the runtime classes of the
+ * arguments, and is kept until one of those classes changes: at each scan
+ * only the classes are compared. Argument values are compared by identity,
+ * so that a pure function is not recalculated if none of its arguments
+ * has produced a new value. The argument list passed to the function
+ * is allocated once and reused.
+ * <p>
+ * The result of pure functions can be shared with the other readers of the
+ * same sub-expression through {@link FormulaResultCache}.
  *
  * @author carcassi
  */
@@ -25,14 +37,27 @@ class FormulaReadFunction implements ReadFunction<Object> {
     public Object lastValue;
     public volatile PVDirector<?> director;
 
+    private final ReadFunction<?>[] functions;
+    private final Object[] values;
+    // Runtime classes of the arguments lastFormula was resolved for
+    private final Class<?>[] resolvedTypes;
+    private final FormulaResultCache.SharedResult sharedResult;
+    private static final Object NO_MATCH = new Object();
+
     FormulaReadFunction(List<ReadFunction<?>> argumentFunctions, Collection<FormulaFunction> formulaMatches, String functionName) {
+        this(argumentFunctions, formulaMatches, functionName, null);
+    }
+
+    FormulaReadFunction(List<ReadFunction<?>> argumentFunctions, Collection<FormulaFunction> formulaMatches, String functionName,
+            FormulaResultCache.SharedResult sharedResult) {
         this.argumentFunctions = argumentFunctions;
         this.formulaMatches = formulaMatches;
-        this.argumentValues = new ArrayList<>(argumentFunctions.size());
-        for (ReadFunction<?> argumentFunction : argumentFunctions) {
-            argumentValues.add(null);
-        }
+        this.functions = argumentFunctions.toArray(new ReadFunction<?>[argumentFunctions.size()]);
+        this.values = new Object[functions.length];
+        this.resolvedTypes = new Class<?>[functions.length];
+        this.argumentValues = Arrays.asList(values);
         this.functionName = functionName;
+        this.sharedResult = sharedResult;
     }
 
     void setDirector(PVDirector<?> director) {
@@ -45,14 +70,45 @@ class FormulaReadFunction implements ReadFunction<Object> {
             throw new RuntimeException("No function named '" + functionName + "'  is defined");
         }
 
-        List<Object> previousValues = new ArrayList<>(argumentValues);
-        for (int i = 0; i < argumentFunctions.size(); i++) {
-            argumentValues.set(i, argumentFunctions.get(i).readValue());
+        boolean changed = false;
+        boolean sameTypes = lastFormula != null;
+        for (int i = 0; i < functions.length; i++) {
+            Object value = functions[i].readValue();
+            if (value != values[i]) {
+                values[i] = value;
+                changed = true;
+            }
+            if (sameTypes && typeOf(value) != resolvedTypes[i]) {
+                sameTypes = false;
+            }
         }
-        if (previousValues.equals(argumentValues) && lastFormula != null && lastFormula.isPure()) {
+        if (!changed && lastFormula != null && lastFormula.isPure()) {
             return lastValue;
         }
 
+        if (!sameTypes) {
+            resolveFormula();
+        }
+
+        if (sharedResult != null && lastFormula.isPure()) {
+            Object value = sharedResult.get(lastFormula, values, NO_MATCH);
+            if (value == NO_MATCH) {
+                value = lastFormula.calculate(argumentValues);
+                sharedResult.put(lastFormula, values, value);
+            }
+            lastValue = value;
+            return lastValue;
+        }
+
+        lastValue = lastFormula.calculate(argumentValues);
+        return lastValue;
+    }
+
+    private static Class<?> typeOf(Object value) {
+        return value == null ? null : value.getClass();
+    }
+
+    private void resolveFormula() {
         if (lastFormula == null || !FormulaFunctions.matchArgumentTypes(argumentValues, lastFormula)) {
             if (lastFormula instanceof StatefulFormulaFunction) {
                 ((StatefulFormulaFunction) lastFormula).dispose();
@@ -87,8 +143,9 @@ class FormulaReadFunction implements ReadFunction<Object> {
             throw new RuntimeException("Can't find match for function '" + functionName + "'  and arguments " + typeNames);
         }
 
-        lastValue = lastFormula.calculate(argumentValues);
-        return lastValue;
+        for (int i = 0; i < values.length; i++) {
+            resolvedTypes[i] = typeOf(values[i]);
+        }
     }
 
 }
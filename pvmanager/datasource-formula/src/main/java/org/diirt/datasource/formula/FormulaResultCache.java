@@ -0,0 +1,196 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.formula;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide cache of the last result of pure formula functions, so that
+ * the same sub-expression used by different formula readers is calculated
+ * only once per value change.
+ * <p>
+ * There is one {@link SharedResult} for each distinct function node
+ * of the formula AST ({@link FormulaAst#equals(java.lang.Object) }). Each
+ * {@link FormulaReadFunction} created for that node holds a reference to it:
+ * when all the expressions are disconnected and collected, the entry
+ * is removed. Since each reader still reads its own channels, a result is
+ * reused only if the arguments are the same instances. This is the case
+ * for results of shared sub-expressions, and for channels whose data
+ * source delivers the same value to all its readers: for example, a
+ * {@link org.diirt.datasource.MultiplexedChannelHandler} converts each
+ * message once for all the readers that use the same type adapter.
+ * Literal arguments are part of the AST, and are not compared.
+ * <p>
+ * The last result is published as an immutable entry, so looking it up
+ * and storing a new one does not take a lock: when two readers calculate
+ * the same result at the same time, both calculate it and the last one
+ * is kept.
+ *
+ * @author carcassi
+ */
+class FormulaResultCache {
+
+    private static final FormulaResultCache defaultCache = new FormulaResultCache();
+
+    static FormulaResultCache getDefault() {
+        return defaultCache;
+    }
+
+    private final Map<FormulaAst, SharedResultReference> results = new HashMap<>();
+    private final ReferenceQueue<SharedResult> collected = new ReferenceQueue<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Returns the shared result for the given function node. Must be
+     * kept for as long as the result is used.
+     *
+     * @param ast an OP node
+     * @return the shared result
+     */
+    SharedResult sharedResultFor(FormulaAst ast) {
+        if (ast.getType() != FormulaAst.Type.OP) {
+            throw new IllegalArgumentException("Only function nodes can be shared (was " + ast.getType() + ")");
+        }
+        synchronized (results) {
+            removeCollected();
+            SharedResultReference reference = results.get(ast);
+            SharedResult result = reference == null ? null : reference.get();
+            if (result == null) {
+                result = new SharedResult(ast.getChildren());
+                results.put(ast, new SharedResultReference(ast, result, collected));
+            }
+            return result;
+        }
+    }
+
+    private void removeCollected() {
+        SharedResultReference reference = (SharedResultReference) collected.poll();
+        while (reference != null) {
+            // The entry may have been replaced in the meantime
+            if (results.get(reference.ast) == reference) {
+                results.remove(reference.ast);
+            }
+            reference = (SharedResultReference) collected.poll();
+        }
+    }
+
+    /**
+     * The number of function nodes currently shared.
+     *
+     * @return the number of entries
+     */
+    int size() {
+        synchronized (results) {
+            removeCollected();
+            return results.size();
+        }
+    }
+
+    /**
+     * The number of times a result calculated by another reader was reused.
+     *
+     * @return the number of hits
+     */
+    long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * The number of times a pure function had to be calculated.
+     *
+     * @return the number of misses
+     */
+    long getMissCount() {
+        return misses.get();
+    }
+
+    private static class SharedResultReference extends WeakReference<SharedResult> {
+        private final FormulaAst ast;
+
+        SharedResultReference(FormulaAst ast, SharedResult result, ReferenceQueue<SharedResult> queue) {
+            super(result, queue);
+            this.ast = ast;
+        }
+    }
+
+    /**
+     * The function, the arguments and the result of a calculation.
+     */
+    private static class Entry {
+        private final FormulaFunction function;
+        private final Object[] arguments;
+        private final Object value;
+
+        Entry(FormulaFunction function, Object[] arguments, Object value) {
+            this.function = function;
+            this.arguments = arguments;
+            this.value = value;
+        }
+    }
+
+    /**
+     * The last result of a function node, with the function and the
+     * arguments that produced it.
+     */
+    class SharedResult {
+        private final boolean[] literals;
+        private volatile Entry last;
+
+        SharedResult(List<FormulaAst> children) {
+            literals = new boolean[children.size()];
+            for (int i = 0; i < literals.length; i++) {
+                switch (children.get(i).getType()) {
+                    case OP:
+                    case CHANNEL:
+                        break;
+                    default:
+                        literals[i] = true;
+                }
+            }
+        }
+
+        /**
+         * Returns the stored result if it was calculated by the same function
+         * on the same arguments.
+         *
+         * @param function the function to be called
+         * @param arguments the arguments
+         * @param noMatch the object to return if there is no match
+         * @return the result or noMatch
+         */
+        Object get(FormulaFunction function, Object[] arguments, Object noMatch) {
+            Entry entry = last;
+            if (entry == null || function != entry.function || arguments.length != literals.length) {
+                misses.incrementAndGet();
+                return noMatch;
+            }
+            for (int i = 0; i < literals.length; i++) {
+                if (!literals[i] && arguments[i] != entry.arguments[i]) {
+                    misses.incrementAndGet();
+                    return noMatch;
+                }
+            }
+            hits.incrementAndGet();
+            return entry.value;
+        }
+
+        /**
+         * Stores a new result.
+         *
+         * @param function the function that was called
+         * @param arguments the arguments; they are copied
+         * @param value the result
+         */
+        void put(FormulaFunction function, Object[] arguments, Object value) {
+            last = new Entry(function, arguments.clone(), value);
+        }
+    }
+}
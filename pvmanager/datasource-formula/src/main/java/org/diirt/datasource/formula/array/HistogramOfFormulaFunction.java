@@ -10,9 +10,8 @@ import java.util.Arrays;
 import java.util.List;
 import org.diirt.datasource.formula.StatefulFormulaFunction;
 import org.diirt.util.array.ArrayInt;
-import org.diirt.util.array.IteratorNumber;
 import org.diirt.util.array.ListNumber;
-import org.diirt.util.array.ListNumbers;
+import org.diirt.util.stats.HistogramAccumulator;
 import org.diirt.util.stats.Range;
 import org.diirt.util.stats.Ranges;
 import org.diirt.util.stats.Statistics;
@@ -62,6 +61,10 @@ public class HistogramOfFormulaFunction extends StatefulFormulaFunction {
     private VNumberArray previousResult;
     private double previousMaxCount;
     private Range previousXRange;
+    private HistogramAccumulator histogram;
+    private int[] previousBins = new int[0];
+    private int previousSize;
+    private int[] bins = new int[0];
 
     @Override
     public Object calculate(List<Object> args) {
@@ -85,30 +88,28 @@ public class HistogramOfFormulaFunction extends StatefulFormulaFunction {
             xRange = stats.getRange();
         }
 
-        IteratorNumber newValues = numberArray.getData().iterator();
-        double minValueRange = xRange.getMinimum();
-        double maxValueRange = xRange.getMaximum();
+        // The bins are reused while the range does not change. Arrays are
+        // often updated in place (e.g. circular buffers), so only the
+        // elements that moved to another bin are updated. The bin of each
+        // element is kept here, as the previous data may be the same
+        // storage as the new one.
+        if (histogram == null || !xRange.equals(previousXRange)) {
+            histogram = HistogramAccumulator.linear(xRange, nBins);
+            previousSize = 0;
+        }
+        ListNumber data = numberArray.getData();
+        if (bins.length < data.size()) {
+            bins = new int[Math.max(data.size(), bins.length * 2)];
+        }
+        updateBins(histogram, previousBins, previousSize, data, bins);
+        int[] swap = previousBins;
+        previousBins = bins;
+        bins = swap;
+        previousSize = data.size();
 
-        ListNumber xBoundaries = ListNumbers.linearListFromRange(minValueRange, maxValueRange, nBins + 1);
+        ListNumber xBoundaries = histogram.getBoundaries();
         String unit = numberArray.getUnits();
-        int[] binData = new int[nBins];
-        double maxCount = 0;
-        while (newValues.hasNext()) {
-            double value = newValues.nextDouble();
-            // Check value in range
-            if (xRange.contains(value)) {
-
-                int bin = (int) Math.floor(xRange.normalize( value) * nBins);
-                if (bin == nBins) {
-                    bin--;
-                }
-
-                binData[bin]++;
-                if (binData[bin] > maxCount) {
-                    maxCount = binData[bin];
-                }
-            }
-        }
+        double maxCount = histogram.getMaxCount();
 
         if (previousMaxCount > maxCount && previousMaxCount < maxCount * 2.0) {
             maxCount = previousMaxCount;
@@ -117,10 +118,43 @@ public class HistogramOfFormulaFunction extends StatefulFormulaFunction {
         previousMaxCount = maxCount;
         previousXRange = xRange;
         previousValue = numberArray;
-        previousResult = newVNumberArray(new ArrayInt(binData), new ArrayInt(nBins), Arrays.asList(newDisplay(xBoundaries, unit)),
+        previousResult = newVNumberArray(histogram.getCounts(), new ArrayInt(nBins), Arrays.asList(newDisplay(xBoundaries, unit)),
                 numberArray, numberArray, newDisplay(0.0, 0.0, 0.0, "count", NumberFormats.format(0), maxCount, maxCount, maxCount, Double.NaN, Double.NaN));
 
         return previousResult;
     }
 
+    /**
+     * Updates the histogram so that it becomes the histogram of the new data.
+     * For every index where the bin changed, the element is removed from
+     * the old bin and added to the new one. Elements past the end of
+     * the shorter list are removed or added.
+     *
+     * @param histogram the histogram with the old bins
+     * @param oldBins the bin of each element in the histogram, -1 if discarded
+     * @param oldSize the number of elements in the histogram
+     * @param newData the data the histogram should have
+     * @param newBins filled with the bin of each element of the new data
+     */
+    static void updateBins(HistogramAccumulator histogram, int[] oldBins, int oldSize, ListNumber newData, int[] newBins) {
+        for (int i = 0; i < newData.size(); i++) {
+            int newBin = histogram.binOf(newData.getDouble(i));
+            int oldBin = i < oldSize ? oldBins[i] : -1;
+            if (newBin != oldBin) {
+                if (oldBin != -1) {
+                    histogram.removeFromBin(oldBin);
+                }
+                if (newBin != -1) {
+                    histogram.addToBin(newBin);
+                }
+            }
+            newBins[i] = newBin;
+        }
+        for (int i = newData.size(); i < oldSize; i++) {
+            if (oldBins[i] != -1) {
+                histogram.removeFromBin(oldBins[i]);
+            }
+        }
+    }
+
 }
@@ -51,4 +51,38 @@ public class FormulaAstTest {
         assertThat(formula("=3+'x'+\"y\"").listChannelNames(), equalTo(Arrays.asList("x")));
         assertThat(formula("='x'+'y'").listChannelNames(), equalTo(Arrays.asList("x", "y")));
     }
+
+    @Test
+    public void formulaCache1() {
+        FormulaAst ast = formula("=3+'cached'");
+        long hits = getFormulaCacheHitCount();
+        assertThat(formula("=3+'cached'"), sameInstance(ast));
+        assertThat(getFormulaCacheHitCount(), equalTo(hits + 1));
+    }
+
+    @Test
+    public void quotedChannel1() {
+        assertThat(formula("='x'"), equalTo(channel("x")));
+        assertThat(formula("= 'ca://x' "), equalTo(channel("ca://x")));
+        assertThat(singleChannel("='x'"), equalTo(channel("x")));
+        assertThat(formula("='x'+'y'"), equalTo(op("+", channel("x"), channel("y"))));
+    }
+
+    @Test
+    public void plainChannel1() {
+        long hits = getFormulaCacheHitCount();
+        long misses = getFormulaCacheMissCount();
+        assertThat(formula("sim://noise"), equalTo(channel("sim://noise")));
+        assertThat(getFormulaCacheHitCount(), equalTo(hits));
+        assertThat(getFormulaCacheMissCount(), equalTo(misses));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutableChildren() {
+        FormulaAst[] children = {integer(3), integer(4)};
+        FormulaAst ast = op("+", children);
+        children[0] = integer(5);
+        assertThat(ast, equalTo(op("+", integer(3), integer(4))));
+        ast.getChildren().set(0, integer(5));
+    }
 }
@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.formula;
+
+import org.diirt.datasource.ReadExpressionTester;
+import org.diirt.datasource.ReadFunction;
+import org.diirt.datasource.ValueCache;
+import org.diirt.util.array.ArrayDouble;
+import org.diirt.vtype.ValueFactory;
+
+/**
+ * Measures the time needed to evaluate common formulas, both when the
+ * channel 'x' has a new value at every scan and when it does not change.
+ *
+ * @author carcassi
+ */
+public class FormulaBenchmark {
+
+    private static final String[] scalarFormulas = {"='x' + 1", "='x' * 2 + 3 * 'x' - 1",
+        "=sin('x') * cos('x') + sqrt(abs('x'))", "='x' > 3 ? 'x' : -'x'",
+        "=((('x' + 1) * 2 - 3) / 4 + 5) * 6"};
+    private static final String[] arrayFormulas = {"=arraySum('x', 3)", "=arrayMult(arraySum('x', 3), 'x')",
+        "=arrayPow(arrayDiv(arraySum('x', 1), 'x'), 2)"};
+
+    public static void main(String[] args) {
+        System.out.println(System.getProperty("java.version"));
+        int nIterations = 1000000;
+        for (int n = 0; n < 3; n++) {
+            for (String formula : scalarFormulas) {
+                Object[] values = new Object[1000];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = ValueFactory.newVDouble((double) i);
+                }
+                profile(formula, values, nIterations);
+            }
+            for (String formula : arrayFormulas) {
+                Object[] values = new Object[10];
+                for (int i = 0; i < values.length; i++) {
+                    double[] array = new double[1000];
+                    for (int j = 0; j < array.length; j++) {
+                        array[j] = i + j + 1;
+                    }
+                    values[i] = ValueFactory.newVDoubleArray(new ArrayDouble(array),
+                            ValueFactory.alarmNone(), ValueFactory.timeNow(), ValueFactory.displayNone());
+                }
+                profile(formula, values, nIterations / 100);
+            }
+        }
+    }
+
+    private static void profile(String formula, Object[] values, int nIterations) {
+        ReadExpressionTester exp = new ReadExpressionTester(ExpressionLanguage.formula(formula));
+        @SuppressWarnings("unchecked")
+        ValueCache<Object> cache = (ValueCache<Object>) exp.recipeFor("x").getReadSubscription().getValueCache();
+        ReadFunction<?> function = exp.getFunction();
+
+        int check = 0;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < nIterations; i++) {
+            cache.writeValue(values[i % values.length]);
+            check += function.readValue().hashCode();
+        }
+        long changingTime = System.nanoTime() - startTime;
+
+        cache.writeValue(values[0]);
+        startTime = System.nanoTime();
+        for (int i = 0; i < nIterations; i++) {
+            check += function.readValue().hashCode();
+        }
+        long sameTime = System.nanoTime() - startTime;
+
+        System.out.println(formula + ": " + changingTime / nIterations + " ns/scan (changing), "
+                + sameTime / nIterations + " ns/scan (unchanged) (" + check + ")");
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.formula;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.diirt.datasource.ReadFunction;
+import org.diirt.vtype.VNumber;
+import org.diirt.vtype.VString;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+import static org.diirt.vtype.ValueFactory.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class FormulaReadFunctionTest {
+
+    private static class CountingFunction implements FormulaFunction {
+        private final Class<?> argumentType;
+        private final boolean pure;
+        int calls;
+
+        CountingFunction(Class<?> argumentType, boolean pure) {
+            this.argumentType = argumentType;
+            this.pure = pure;
+        }
+
+        @Override
+        public boolean isPure() {
+            return pure;
+        }
+
+        @Override
+        public boolean isVarArgs() {
+            return false;
+        }
+
+        @Override
+        public String getName() {
+            return "count";
+        }
+
+        @Override
+        public String getDescription() {
+            return "Counts the calls";
+        }
+
+        @Override
+        public List<Class<?>> getArgumentTypes() {
+            return Collections.<Class<?>>singletonList(argumentType);
+        }
+
+        @Override
+        public List<String> getArgumentNames() {
+            return Collections.singletonList("arg");
+        }
+
+        @Override
+        public Class<?> getReturnType() {
+            return Integer.class;
+        }
+
+        @Override
+        public Object calculate(List<Object> args) {
+            calls++;
+            return calls;
+        }
+    }
+
+    private static class ValueFunction implements ReadFunction<Object> {
+        Object value;
+
+        @Override
+        public Object readValue() {
+            return value;
+        }
+    }
+
+    @Test
+    public void pureFunctionIdentity() {
+        ValueFunction arg = new ValueFunction();
+        CountingFunction function = new CountingFunction(VNumber.class, true);
+        FormulaReadFunction readFunction = new FormulaReadFunction(Arrays.<ReadFunction<?>>asList(arg),
+                Arrays.<FormulaFunction>asList(function), "count");
+        arg.value = newVDouble(1.0);
+        assertThat(readFunction.readValue(), equalTo((Object) 1));
+        assertThat(readFunction.readValue(), equalTo((Object) 1));
+        // A new instance is a new value, even if equal
+        arg.value = newVDouble(1.0);
+        assertThat(readFunction.readValue(), equalTo((Object) 2));
+        assertThat(function.calls, equalTo(2));
+    }
+
+    @Test
+    public void impureFunction() {
+        ValueFunction arg = new ValueFunction();
+        CountingFunction function = new CountingFunction(VNumber.class, false);
+        FormulaReadFunction readFunction = new FormulaReadFunction(Arrays.<ReadFunction<?>>asList(arg),
+                Arrays.<FormulaFunction>asList(function), "count");
+        arg.value = newVDouble(1.0);
+        readFunction.readValue();
+        readFunction.readValue();
+        assertThat(function.calls, equalTo(2));
+    }
+
+    @Test
+    public void typeChange() {
+        ValueFunction arg = new ValueFunction();
+        CountingFunction numberFunction = new CountingFunction(VNumber.class, true);
+        CountingFunction stringFunction = new CountingFunction(VString.class, true);
+        FormulaReadFunction readFunction = new FormulaReadFunction(Arrays.<ReadFunction<?>>asList(arg),
+                Arrays.<FormulaFunction>asList(numberFunction, stringFunction), "count");
+        arg.value = newVDouble(1.0);
+        readFunction.readValue();
+        arg.value = newVInt(1, alarmNone(), timeNow(), displayNone());
+        readFunction.readValue();
+        assertThat(readFunction.lastFormula, sameInstance((FormulaFunction) numberFunction));
+        arg.value = newVString("test", alarmNone(), timeNow());
+        readFunction.readValue();
+        assertThat(readFunction.lastFormula, sameInstance((FormulaFunction) stringFunction));
+        assertThat(numberFunction.calls, equalTo(2));
+        assertThat(stringFunction.calls, equalTo(1));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void noMatch() {
+        ValueFunction arg = new ValueFunction();
+        arg.value = newVString("test", alarmNone(), timeNow());
+        new FormulaReadFunction(Arrays.<ReadFunction<?>>asList(arg),
+                Arrays.<FormulaFunction>asList(new CountingFunction(VNumber.class, true)), "count").readValue();
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.formula;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.diirt.datasource.ChannelHandler;
+import org.diirt.datasource.ChannelWriteCallback;
+import org.diirt.datasource.DataSource;
+import org.diirt.datasource.DataSourceTypeAdapter;
+import org.diirt.datasource.MultiplexedChannelHandler;
+import org.diirt.datasource.PVManager;
+import org.diirt.datasource.PVReader;
+import org.diirt.datasource.ReadExpressionTester;
+import org.diirt.datasource.ValueCache;
+import org.diirt.vtype.VDouble;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+import static org.diirt.vtype.ValueFactory.*;
+import static org.diirt.datasource.formula.FormulaAst.*;
+import static java.time.Duration.ofMillis;
+
+/**
+ *
+ * @author carcassi
+ */
+public class FormulaResultCacheTest {
+
+    @Test
+    public void sharedSubExpression() {
+        // (x + 1) * 2 in two readers
+        FormulaAst ast1 = op("*", op("+", channel("x"), integer(1)), integer(2));
+        FormulaAst ast2 = op("*", op("+", channel("x"), integer(1)), integer(2));
+        ReadExpressionTester reader1 = new ReadExpressionTester(ast1.toExpression());
+        ReadExpressionTester reader2 = new ReadExpressionTester(ast2.toExpression());
+        FormulaResultCache cache = FormulaResultCache.getDefault();
+
+        VDouble value = newVDouble(3.0);
+        reader1.writeValue("x", value);
+        reader2.writeValue("x", value);
+        long hits = cache.getHitCount();
+        VDouble result1 = (VDouble) reader1.getValue();
+        VDouble result2 = (VDouble) reader2.getValue();
+        assertThat(result1.getValue(), equalTo(8.0));
+        // Both nodes were calculated once
+        assertThat(result2, sameInstance(result1));
+        assertThat(cache.getHitCount(), equalTo(hits + 2));
+
+        // Different values are not shared
+        reader1.writeValue("x", newVDouble(4.0));
+        reader2.writeValue("x", newVDouble(4.0));
+        result1 = (VDouble) reader1.getValue();
+        result2 = (VDouble) reader2.getValue();
+        assertThat(result1.getValue(), equalTo(10.0));
+        assertThat(result2.getValue(), equalTo(10.0));
+        assertThat(result2, not(sameInstance(result1)));
+    }
+
+    /**
+     * A data source that, like most real ones, converts each message
+     * into a new value for the readers.
+     */
+    private static class ConvertingDataSource extends DataSource {
+
+        private final boolean lockFreeFanOut;
+        private volatile ConvertingChannelHandler handler;
+
+        ConvertingDataSource(boolean lockFreeFanOut) {
+            super(false);
+            this.lockFreeFanOut = lockFreeFanOut;
+        }
+
+        @Override
+        protected ChannelHandler createChannel(String channelName) {
+            handler = new ConvertingChannelHandler(channelName, lockFreeFanOut);
+            return handler;
+        }
+    }
+
+    private static class ConvertingChannelHandler extends MultiplexedChannelHandler<Object, Double> {
+
+        private final DataSourceTypeAdapter<Object, Double> adapter = new DataSourceTypeAdapter<Object, Double>() {
+
+            @Override
+            public int match(ValueCache<?> cache, Object connection) {
+                return 1;
+            }
+
+            @Override
+            public Object getSubscriptionParameter(ValueCache<?> cache, Object connection) {
+                throw new UnsupportedOperationException("Not supported.");
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean updateCache(ValueCache<?> cache, Object connection, Double message) {
+                ((ValueCache<Object>) cache).writeValue(newVDouble(message));
+                return true;
+            }
+        };
+
+        ConvertingChannelHandler(String channelName, boolean lockFreeFanOut) {
+            super(channelName);
+            setLockFreeFanOut(lockFreeFanOut);
+        }
+
+        @Override
+        protected void connect() {
+            processConnection(new Object());
+        }
+
+        @Override
+        protected void disconnect() {
+            processConnection(null);
+        }
+
+        @Override
+        protected void write(Object newValue, ChannelWriteCallback callback) {
+            throw new UnsupportedOperationException("Not supported.");
+        }
+
+        @Override
+        protected DataSourceTypeAdapter<Object, Double> findTypeAdapter(ValueCache<?> cache, Object connection) {
+            return adapter;
+        }
+
+        void newMessage(Double message) {
+            processMessage(message);
+        }
+    }
+
+    private static long hitsForTwoReaders(ConvertingDataSource dataSource) throws Exception {
+        FormulaResultCache cache = FormulaResultCache.getDefault();
+        ScheduledExecutorService previousScanner = PVManager.getReadScannerExecutorService();
+        // A single scanning thread, so that the two readers never calculate
+        // at the same time
+        ScheduledExecutorService scanner = Executors.newSingleThreadScheduledExecutor();
+        PVManager.setReadScannerExecutorService(scanner);
+        PVReader<?> pv1 = null;
+        PVReader<?> pv2 = null;
+        try {
+            pv1 = PVManager.read(op("+", channel("x"), integer(1)).toExpression()).from(dataSource).maxRate(ofMillis(10));
+            pv2 = PVManager.read(op("+", channel("x"), integer(1)).toExpression()).from(dataSource).maxRate(ofMillis(10));
+            long deadline = System.currentTimeMillis() + 2000;
+            while (dataSource.handler == null || dataSource.handler.getReadUsageCounter() != 2) {
+                assertThat("Readers not connected", System.currentTimeMillis() < deadline, equalTo(true));
+                Thread.sleep(10);
+            }
+
+            long hits = cache.getHitCount();
+            dataSource.handler.newMessage(3.0);
+            while (pv1.getValue() == null || pv2.getValue() == null) {
+                assertThat("No value received", System.currentTimeMillis() < deadline, equalTo(true));
+                Thread.sleep(10);
+            }
+            assertThat(((VDouble) pv1.getValue()).getValue(), equalTo(4.0));
+            assertThat(((VDouble) pv2.getValue()).getValue(), equalTo(4.0));
+            return cache.getHitCount() - hits;
+        } finally {
+            if (pv1 != null) {
+                pv1.close();
+            }
+            if (pv2 != null) {
+                pv2.close();
+            }
+            PVManager.setReadScannerExecutorService(previousScanner);
+            scanner.shutdownNow();
+            dataSource.close();
+        }
+    }
+
+    @Test
+    public void sharedAcrossReadersOfSameChannel() throws Exception {
+        // Lock-free fan-out converts once for all readers: the second
+        // reader reuses the result of the first
+        assertThat(hitsForTwoReaders(new ConvertingDataSource(true)), equalTo(1L));
+    }
+
+    @Test
+    public void sharedAcrossReadersDefaultMode() throws Exception {
+        // The handler lock is taken, but the message is still converted
+        // once for all readers with the same adapter
+        assertThat(hitsForTwoReaders(new ConvertingDataSource(false)), equalTo(1L));
+    }
+
+    @Test
+    public void differentLiterals() {
+        FormulaAst ast1 = op("+", channel("x"), integer(1));
+        FormulaAst ast2 = op("+", channel("x"), integer(2));
+        ReadExpressionTester reader1 = new ReadExpressionTester(ast1.toExpression());
+        ReadExpressionTester reader2 = new ReadExpressionTester(ast2.toExpression());
+        VDouble value = newVDouble(3.0);
+        reader1.writeValue("x", value);
+        reader2.writeValue("x", value);
+        assertThat(((VDouble) reader1.getValue()).getValue(), equalTo(4.0));
+        assertThat(((VDouble) reader2.getValue()).getValue(), equalTo(5.0));
+    }
+}
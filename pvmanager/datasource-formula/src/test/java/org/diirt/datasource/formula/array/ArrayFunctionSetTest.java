@@ -31,6 +31,9 @@ import org.diirt.vtype.table.ListNumberProvider;
 import org.diirt.vtype.table.VTableFactory;
 import org.junit.Test;
 
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
 /**
  * @author shroffk
  *
@@ -343,6 +346,45 @@ public class ArrayFunctionSetTest {
                 .latestTimeReturned();
     }
 
+    @Test
+    public void histogramOfChangedElements() {
+        HistogramOfFormulaFunction function = new HistogramOfFormulaFunction();
+        VNumberArray array1 = newVDoubleArray(new ArrayDouble(0, 10, 3, 3, 3.5, 4, 4.5, 3, 7, 3.1), alarmNone(),
+                timeNow(), displayNone());
+        function.calculate(Arrays.<Object>asList(array1));
+
+        // Few elements changed: the histogram is updated in place
+        VNumberArray array2 = newVDoubleArray(new ArrayDouble(0, 10, 3, 6, 3.5, 4, 4.5, 3, 7, 3.1, 8), alarmNone(),
+                timeNow(), displayNone());
+        VNumberArray result2 = (VNumberArray) function.calculate(Arrays.<Object>asList(array2));
+        VNumberArray expected2 = (VNumberArray) new HistogramOfFormulaFunction().calculate(Arrays.<Object>asList(array2));
+        assertThat(result2.getData(), equalTo(expected2.getData()));
+
+        // Element removed
+        VNumberArray array3 = newVDoubleArray(new ArrayDouble(0, 10, 3, 6, 3.5, 4, 4.5, 3, 7, 3.1), alarmNone(),
+                timeNow(), displayNone());
+        VNumberArray result3 = (VNumberArray) function.calculate(Arrays.<Object>asList(array3));
+        VNumberArray expected3 = (VNumberArray) new HistogramOfFormulaFunction().calculate(Arrays.<Object>asList(array3));
+        assertThat(result3.getData(), equalTo(expected3.getData()));
+    }
+
+    @Test
+    public void histogramOfInPlaceUpdate() {
+        HistogramOfFormulaFunction function = new HistogramOfFormulaFunction();
+        double[] buffer = new double[] {0, 10, 3, 3, 3.5, 4, 4.5, 3, 7, 3.1};
+        function.calculate(Arrays.<Object>asList(newVDoubleArray(new ArrayDouble(buffer), alarmNone(),
+                timeNow(), displayNone())));
+
+        // The new value shares the array with the previous one
+        buffer[3] = 6;
+        buffer[4] = 8;
+        VNumberArray array2 = newVDoubleArray(new ArrayDouble(buffer), alarmNone(),
+                timeNow(), displayNone());
+        VNumberArray result2 = (VNumberArray) function.calculate(Arrays.<Object>asList(array2));
+        VNumberArray expected2 = (VNumberArray) new HistogramOfFormulaFunction().calculate(Arrays.<Object>asList(array2));
+        assertThat(result2.getData(), equalTo(expected2.getData()));
+    }
+
     @Test
     public void arrayRangeOf(){
         Alarm alarm = newAlarm(AlarmSeverity.MINOR, "HIGH");
@@ -4,6 +4,7 @@
  */
 package org.diirt.datasource.graphene;
 
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.util.List;
 import org.diirt.graphene.BubbleGraph2DRenderer;
@@ -11,7 +12,6 @@ import org.diirt.graphene.BubbleGraph2DRendererUpdate;
 import org.diirt.graphene.Point3DWithLabelDataset;
 import org.diirt.datasource.QueueCollector;
 import org.diirt.datasource.ReadFunction;
-import org.diirt.vtype.VImage;
 import org.diirt.vtype.VTable;
 import org.diirt.vtype.ValueUtil;
 
@@ -30,7 +30,9 @@ public class BubbleGraph2DFunction implements ReadFunction<Graph2DResult> {
     private ReadFunctionArgument<String> colorColumnName;
     private BubbleGraph2DRenderer renderer = new BubbleGraph2DRenderer(300,
             200);
-    private VImage previousImage;
+    private VTable previousData;
+    private Graph2DResult previousResult;
+    private final GraphImageBuffer imageBuffer = new GraphImageBuffer();
     private final QueueCollector<BubbleGraph2DRendererUpdate> rendererUpdateQueue = new QueueCollector<>(
             100);
 
@@ -63,11 +65,20 @@ public class BubbleGraph2DFunction implements ReadFunction<Graph2DResult> {
             return null;
         }
 
+        // If data and columns are the same and there are no updates, return the previous result
+        List<BubbleGraph2DRendererUpdate> updates = rendererUpdateQueue
+                .readValue();
+        if (vTable == previousData && !xColumnName.isChanged() && !yColumnName.isChanged()
+                && !sizeColumnName.isChanged() && !colorColumnName.isChanged()
+                && updates.isEmpty() && previousResult != null) {
+            return previousResult;
+        }
+        previousData = vTable;
+        previousResult = null;
+
         // Prepare new dataset
         Point3DWithLabelDataset dataset = DatasetConversions.point3DDatasetFromVTable(vTable, xColumnName.getValue(), yColumnName.getValue(), sizeColumnName.getValue(), colorColumnName.getValue());
 
-        List<BubbleGraph2DRendererUpdate> updates = rendererUpdateQueue
-                .readValue();
         for (BubbleGraph2DRendererUpdate scatterGraph2DRendererUpdate : updates) {
             renderer.update(scatterGraph2DRendererUpdate);
         }
@@ -76,19 +87,19 @@ public class BubbleGraph2DFunction implements ReadFunction<Graph2DResult> {
             return null;
         }
 
-        BufferedImage image = new BufferedImage(renderer.getImageWidth(),
-                renderer.getImageHeight(), BufferedImage.TYPE_3BYTE_BGR);
-        renderer.draw(image.createGraphics(), dataset);
+        BufferedImage image = imageBuffer.nextImage(renderer.getImageWidth(), renderer.getImageHeight());
+        Graphics2D graphics = image.createGraphics();
+        renderer.draw(graphics, dataset);
+        graphics.dispose();
 
-        previousImage = ValueUtil.toVImage(image);
         int focusValueIndex = -1;
         if (renderer.getFocusValueIndex() != null) {
             focusValueIndex = renderer.getFocusValueIndex();
         }
-        return new Graph2DResult(vTable, previousImage,
+        previousResult = new Graph2DResult(vTable, ValueUtil.toVImage(image),
                 new GraphDataRange(renderer.getXPlotRange(), renderer.getXPlotRange(), renderer.getXAggregatedRange()), new GraphDataRange(
                 renderer.getYPlotRange(), renderer.getYPlotRange(), renderer.getYAggregatedRange()),
                 focusValueIndex);
-
+        return previousResult;
     }
 }
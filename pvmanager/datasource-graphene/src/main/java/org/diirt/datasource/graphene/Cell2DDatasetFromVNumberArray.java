@@ -4,7 +4,7 @@
  */
 package org.diirt.datasource.graphene;
 
-import org.diirt.graphene.Cell2DDataset;
+import org.diirt.graphene.ConcurrentCell2DDataset;
 import org.diirt.util.array.ArrayDouble;
 import org.diirt.util.array.ArrayInt;
 import org.diirt.util.array.ListByte;
@@ -20,7 +20,7 @@ import org.diirt.vtype.ndarray.Array2DDouble;
  *
  * @author carcassi
  */
-class Cell2DDatasetFromVNumberArray implements Cell2DDataset {
+class Cell2DDatasetFromVNumberArray implements ConcurrentCell2DDataset {
     private Statistics statistics;
     private final ListNumber xBoundaries;
     private final ListNumber yBoundaries;
@@ -34,6 +34,7 @@ class Cell2DDatasetFromVNumberArray implements Cell2DDataset {
     private final ListNumber values;
 
     private final Array2DDouble array2D;
+    private final boolean xReversed;
 
     public Cell2DDatasetFromVNumberArray(VNumberArray data) {
         this.data = data;
@@ -42,10 +43,12 @@ class Cell2DDatasetFromVNumberArray implements Cell2DDataset {
             this.xBoundaries = data.getDimensionDisplay().get(0).getCellBoundaries();
             this.yBoundaries = new ArrayDouble(0, 1);
             this.array2D = new Array2DDouble(new ArrayInt(1, xBoundaries.size() - 1), false, data.getDimensionDisplay().get(0).isReversed());
+            this.xReversed = false;
         } else if (data.getSizes().size() == 2) {
             this.xBoundaries = data.getDimensionDisplay().get(1).getCellBoundaries();
             this.yBoundaries = data.getDimensionDisplay().get(0).getCellBoundaries();
             this.array2D = new Array2DDouble(data.getSizes(), data.getDimensionDisplay().get(1).isReversed(), data.getDimensionDisplay().get(0).isReversed());
+            this.xReversed = data.getDimensionDisplay().get(1).isReversed();
         } else {
             throw new IllegalArgumentException("Array is 3D or more");
         }
@@ -73,6 +76,16 @@ class Cell2DDatasetFromVNumberArray implements Cell2DDataset {
         return values.getDouble(array2D.getIndex(x, y));
     }
 
+    @Override
+    public void getRowValues(int y, int[] xIndexes, double[] rowValues) {
+        // The cells of a row are contiguous, in order or reversed
+        int rowStart = array2D.getIndex(0, y);
+        int step = xReversed ? -1 : 1;
+        for (int i = 0; i < xIndexes.length; i++) {
+            rowValues[i] = values.getDouble(rowStart + step * xIndexes[i]);
+        }
+    }
+
     @Override
     public Statistics getStatistics() {
         if (statistics == null) {
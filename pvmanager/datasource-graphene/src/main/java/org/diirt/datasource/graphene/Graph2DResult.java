@@ -40,6 +40,15 @@ public class Graph2DResult {
         return focusDataIndex;
     }
 
+    /**
+     * The rendered graph.
+     * <p>
+     * The graph functions render into two images used alternately, so
+     * the data of this image is overwritten two results later. A client
+     * that keeps the image longer than the next result must copy it.
+     *
+     * @return the image of the graph
+     */
     public VImage getImage() {
         return image;
     }
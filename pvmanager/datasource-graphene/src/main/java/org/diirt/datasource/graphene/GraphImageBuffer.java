@@ -0,0 +1,48 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.graphene;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * The images a graph function renders into, so that a new image is not
+ * allocated at every scan.
+ * <p>
+ * The {@link org.diirt.vtype.VImage} returned by the functions wraps the
+ * raster of the image, so the image can't be redrawn while a client
+ * may still be displaying it. Two images are used alternately: the one
+ * being drawn is never the one of the last result. The image is reallocated
+ * only when the size changes. The renderers paint the background of the
+ * whole image, so the previous content does not need to be cleared.
+ * <p>
+ * This means that, unlike other {@link org.diirt.vtype.VType}s, the
+ * image returned by a result is not immutable: the image of result N
+ * is overwritten when result N+2 is drawn. A client that needs to keep
+ * the image longer than the following update must copy it.
+ *
+ * @author carcassi
+ */
+class GraphImageBuffer {
+
+    private final BufferedImage[] images = new BufferedImage[2];
+    private int current;
+
+    /**
+     * Returns the image to draw the next result into.
+     *
+     * @param width the width of the image
+     * @param height the height of the image
+     * @return an image of TYPE_3BYTE_BGR with the given size
+     */
+    BufferedImage nextImage(int width, int height) {
+        current = 1 - current;
+        BufferedImage image = images[current];
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+            images[current] = image;
+        }
+        return image;
+    }
+}
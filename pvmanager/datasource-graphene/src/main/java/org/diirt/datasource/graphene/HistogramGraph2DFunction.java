@@ -4,7 +4,9 @@
  */
 package org.diirt.datasource.graphene;
 
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.util.List;
 import org.diirt.graphene.*;
 import org.diirt.datasource.QueueCollector;
 import org.diirt.datasource.ReadFunction;
@@ -21,7 +23,9 @@ class HistogramGraph2DFunction implements ReadFunction<Graph2DResult> {
 
     private AreaGraph2DRenderer renderer = new AreaGraph2DRenderer(300, 200);
 
-    private Graph2DResult previousImage;
+    private VNumberArray previousData;
+    private Graph2DResult previousResult;
+    private final GraphImageBuffer imageBuffer = new GraphImageBuffer();
     private final QueueCollector<AreaGraph2DRendererUpdate> rendererUpdateQueue = new QueueCollector<>(100);
 
     public HistogramGraph2DFunction(ReadFunction<?> arrayData) {
@@ -41,13 +45,21 @@ class HistogramGraph2DFunction implements ReadFunction<Graph2DResult> {
             return null;
         }
 
+        // If data is old and no updates, return the previous result
+        List<AreaGraph2DRendererUpdate> updates = getUpdateQueue().readValue();
+        if (data == previousData && updates.isEmpty() && previousResult != null) {
+            return previousResult;
+        }
+        previousData = data;
+        previousResult = null;
+
         // TODO: check array is one dimensional
 
         Cell1DDataset dataset = null;
         dataset = DatasetConversions.cell1DDatasetsFromVNumberArray(data);
 
         // Process all renderer updates
-        for (AreaGraph2DRendererUpdate rendererUpdate : getUpdateQueue().readValue()) {
+        for (AreaGraph2DRendererUpdate rendererUpdate : updates) {
             renderer.update(rendererUpdate);
         }
 
@@ -55,17 +67,20 @@ class HistogramGraph2DFunction implements ReadFunction<Graph2DResult> {
         if (renderer.getImageHeight() == 0 && renderer.getImageWidth() == 0)
             return null;
 
-        BufferedImage image = new BufferedImage(renderer.getImageWidth(), renderer.getImageHeight(), BufferedImage.TYPE_3BYTE_BGR);
-        renderer.draw(image.createGraphics(), dataset);
+        BufferedImage image = imageBuffer.nextImage(renderer.getImageWidth(), renderer.getImageHeight());
+        Graphics2D graphics = image.createGraphics();
+        renderer.draw(graphics, dataset);
+        graphics.dispose();
         int index = -1;
         if (renderer.getFocusValueIndex() != null) {
             index = renderer.getFocusValueIndex();
         }
 
-        return new Graph2DResult(data, ValueUtil.toVImage(image),
+        previousResult = new Graph2DResult(data, ValueUtil.toVImage(image),
                 new GraphDataRange(renderer.getXPlotRange(), dataset.getXRange(), dataset.getXRange()),
                 new GraphDataRange(renderer.getYPlotRange(), dataset.getStatistics().getRange(), renderer.getYAggregatedRange()),
                 index);
+        return previousResult;
     }
 
 }
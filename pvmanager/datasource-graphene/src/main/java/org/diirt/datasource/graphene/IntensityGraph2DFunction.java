@@ -29,6 +29,7 @@ class IntensityGraph2DFunction implements ReadFunction<Graph2DResult> {
 
     private VNumberArray oldData;
     private Graph2DResult previousResult;
+    private final GraphImageBuffer imageBuffer = new GraphImageBuffer();
     private final QueueCollector<IntensityGraph2DRendererUpdate> rendererUpdateQueue = new QueueCollector<>(100);
 
     public IntensityGraph2DFunction(ReadFunction<?> arrayData) {
@@ -51,11 +52,12 @@ class IntensityGraph2DFunction implements ReadFunction<Graph2DResult> {
         List<IntensityGraph2DRendererUpdate> updates = getUpdateQueue().readValue();
 
         // If data is old and no updates, return the previous result
-        if (data == oldData && updates.isEmpty()) {
+        if (data == oldData && updates.isEmpty() && previousResult != null) {
             return previousResult;
         }
 
         oldData = data;
+        previousResult = null;
 
         // TODO: check array is one dimensional
 
@@ -70,13 +72,14 @@ class IntensityGraph2DFunction implements ReadFunction<Graph2DResult> {
         if (renderer.getImageHeight() == 0 && renderer.getImageWidth() == 0)
             return null;
 
-        GraphBuffer buffer = new GraphBuffer(renderer);
+        GraphBuffer buffer = new GraphBuffer(imageBuffer.nextImage(renderer.getImageWidth(), renderer.getImageHeight()));
         renderer.draw(buffer, dataset);
 
-        return new Graph2DResult(data, ValueUtil.toVImage(buffer.getImage()),
+        previousResult = new Graph2DResult(data, ValueUtil.toVImage(buffer.getImage()),
                 new GraphDataRange(renderer.getXPlotRange(), dataset.getXRange(), dataset.getXRange()),
                 new GraphDataRange(renderer.getYPlotRange(), dataset.getYRange(), dataset.getYRange()),
                 -1, selectionData(data, renderer));
+        return previousResult;
     }
 
     private VNumberArray selectionData(VNumberArray data, IntensityGraph2DRenderer renderer) {
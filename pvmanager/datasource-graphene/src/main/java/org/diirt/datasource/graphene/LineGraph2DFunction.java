@@ -5,8 +5,8 @@
 package org.diirt.datasource.graphene;
 
 import org.diirt.vtype.VNumberArray;
-import org.diirt.vtype.VImage;
 import org.diirt.vtype.ValueUtil;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.util.List;
 import org.diirt.graphene.*;
@@ -29,7 +29,9 @@ class LineGraph2DFunction implements ReadFunction<Graph2DResult> {
 
     private LineGraph2DRenderer renderer = new LineGraph2DRenderer(300, 200);
 
-    private VImage previousImage;
+    private VType previousData;
+    private Graph2DResult previousResult;
+    private final GraphImageBuffer imageBuffer = new GraphImageBuffer();
     private final QueueCollector<LineGraph2DRendererUpdate> rendererUpdateQueue = new QueueCollector<>(100);
 
     LineGraph2DFunction(ReadFunction<?> tableData,
@@ -58,6 +60,15 @@ class LineGraph2DFunction implements ReadFunction<Graph2DResult> {
             return null;
         }
 
+        // If data and columns are the same and there are no updates, return the previous result
+        List<LineGraph2DRendererUpdate> updates = rendererUpdateQueue.readValue();
+        if (vType == previousData && !xColumnName.isChanged() && !yColumnName.isChanged()
+                && !tooltipColumnName.isChanged() && updates.isEmpty() && previousResult != null) {
+            return previousResult;
+        }
+        previousData = vType;
+        previousResult = null;
+
         // Prepare new dataset
         Point2DDataset dataset;
         if (vType instanceof VNumberArray) {
@@ -67,7 +78,6 @@ class LineGraph2DFunction implements ReadFunction<Graph2DResult> {
         }
 
         // Process all renderer updates
-        List<LineGraph2DRendererUpdate> updates = rendererUpdateQueue.readValue();
         for (LineGraph2DRendererUpdate rendererUpdate : updates) {
             renderer.update(rendererUpdate);
         }
@@ -76,14 +86,16 @@ class LineGraph2DFunction implements ReadFunction<Graph2DResult> {
         if (renderer.getImageHeight() == 0 && renderer.getImageWidth() == 0)
             return null;
 
-        BufferedImage image = new BufferedImage(renderer.getImageWidth(), renderer.getImageHeight(), BufferedImage.TYPE_3BYTE_BGR);
-        renderer.draw(image.createGraphics(), dataset);
+        BufferedImage image = imageBuffer.nextImage(renderer.getImageWidth(), renderer.getImageHeight());
+        Graphics2D graphics = image.createGraphics();
+        renderer.draw(graphics, dataset);
+        graphics.dispose();
 
-        previousImage = ValueUtil.toVImage(image);
-        return new Graph2DResult(vType, previousImage,
+        previousResult = new Graph2DResult(vType, ValueUtil.toVImage(image),
                 new GraphDataRange(renderer.getXPlotRange(), dataset.getXStatistics().getRange(), renderer.getXAggregatedRange()),
                 new GraphDataRange(renderer.getYPlotRange(), dataset.getYStatistics().getRange(), renderer.getYAggregatedRange()),
                 renderer.getFocusValueIndex());
+        return previousResult;
     }
 
 }
@@ -5,8 +5,8 @@
 package org.diirt.datasource.graphene;
 
 import org.diirt.vtype.VNumberArray;
-import org.diirt.vtype.VImage;
 import org.diirt.vtype.ValueUtil;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.util.AbstractList;
 import java.util.Collections;
@@ -32,7 +32,9 @@ class MultilineGraph2DFunction implements ReadFunction<Graph2DResult> {
 
     private LineGraph2DRenderer renderer = new LineGraph2DRenderer(300, 200);
 
-    private VImage previousImage;
+    private VType previousData;
+    private Graph2DResult previousResult;
+    private final GraphImageBuffer imageBuffer = new GraphImageBuffer();
     private final QueueCollector<LineGraph2DRendererUpdate> rendererUpdateQueue = new QueueCollector<>(100);
 
     MultilineGraph2DFunction(ReadFunction<?> tableData,
@@ -58,6 +60,15 @@ class MultilineGraph2DFunction implements ReadFunction<Graph2DResult> {
             return null;
         }
 
+        // If data and columns are the same and there are no updates, return the previous result
+        List<LineGraph2DRendererUpdate> updates = rendererUpdateQueue.readValue();
+        if (vType == previousData && !xColumnNames.isChanged() && !yColumnNames.isChanged()
+                && updates.isEmpty() && previousResult != null) {
+            return previousResult;
+        }
+        previousData = vType;
+        previousResult = null;
+
         // Prepare new dataset
         final List<Point2DDataset> dataset;
         if (vType instanceof VNumberArray) {
@@ -67,7 +78,6 @@ class MultilineGraph2DFunction implements ReadFunction<Graph2DResult> {
         }
 
         // Process all renderer updates
-        List<LineGraph2DRendererUpdate> updates = rendererUpdateQueue.readValue();
         for (LineGraph2DRendererUpdate rendererUpdate : updates) {
             renderer.update(rendererUpdate);
         }
@@ -76,10 +86,11 @@ class MultilineGraph2DFunction implements ReadFunction<Graph2DResult> {
         if (renderer.getImageHeight() == 0 && renderer.getImageWidth() == 0)
             return null;
 
-        BufferedImage image = new BufferedImage(renderer.getImageWidth(), renderer.getImageHeight(), BufferedImage.TYPE_3BYTE_BGR);
-        renderer.draw(image.createGraphics(), dataset);
+        BufferedImage image = imageBuffer.nextImage(renderer.getImageWidth(), renderer.getImageHeight());
+        Graphics2D graphics = image.createGraphics();
+        renderer.draw(graphics, dataset);
+        graphics.dispose();
 
-        previousImage = ValueUtil.toVImage(image);
         Statistics xDataRange = StatisticsUtil.statisticsOf(new AbstractList<Statistics>() {
 
             @Override
@@ -106,10 +117,11 @@ class MultilineGraph2DFunction implements ReadFunction<Graph2DResult> {
             }
         });
 
-        return new Graph2DResult(vType, previousImage,
+        previousResult = new Graph2DResult(vType, ValueUtil.toVImage(image),
                 new GraphDataRange(renderer.getXPlotRange(), xDataRange.getRange(), renderer.getXAggregatedRange()),
                 new GraphDataRange(renderer.getYPlotRange(), yDataRange.getRange(), renderer.getYAggregatedRange()),
                 -1);
+        return previousResult;
     }
 
 }
@@ -4,6 +4,7 @@
  */
 package org.diirt.datasource.graphene;
 
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.util.List;
 
@@ -12,7 +13,6 @@ import org.diirt.graphene.ScatterGraph2DRenderer;
 import org.diirt.graphene.ScatterGraph2DRendererUpdate;
 import org.diirt.datasource.QueueCollector;
 import org.diirt.datasource.ReadFunction;
-import org.diirt.vtype.VImage;
 import org.diirt.vtype.VTable;
 import org.diirt.vtype.ValueUtil;
 
@@ -30,7 +30,9 @@ public class ScatterGraph2DFunction implements ReadFunction<Graph2DResult> {
     private ReadFunctionArgument<String> tooltipColumnName;
     private ScatterGraph2DRenderer renderer = new ScatterGraph2DRenderer(300,
             200);
-    private VImage previousImage;
+    private VTable previousData;
+    private Graph2DResult previousResult;
+    private final GraphImageBuffer imageBuffer = new GraphImageBuffer();
     private final QueueCollector<ScatterGraph2DRendererUpdate> rendererUpdateQueue = new QueueCollector<>(
             100);
 
@@ -60,11 +62,19 @@ public class ScatterGraph2DFunction implements ReadFunction<Graph2DResult> {
             return null;
         }
 
+        // If data and columns are the same and there are no updates, return the previous result
+        List<ScatterGraph2DRendererUpdate> updates = rendererUpdateQueue
+                .readValue();
+        if (vTable == previousData && !xColumnName.isChanged() && !yColumnName.isChanged()
+                && !tooltipColumnName.isChanged() && updates.isEmpty() && previousResult != null) {
+            return previousResult;
+        }
+        previousData = vTable;
+        previousResult = null;
+
         // Prepare new dataset
         Point2DDataset dataset = DatasetConversions.point2DDatasetFromVTable(vTable, xColumnName.getValue(), yColumnName.getValue());
 
-        List<ScatterGraph2DRendererUpdate> updates = rendererUpdateQueue
-                .readValue();
         for (ScatterGraph2DRendererUpdate scatterGraph2DRendererUpdate : updates) {
             renderer.update(scatterGraph2DRendererUpdate);
         }
@@ -73,15 +83,15 @@ public class ScatterGraph2DFunction implements ReadFunction<Graph2DResult> {
             return null;
         }
 
-        BufferedImage image = new BufferedImage(renderer.getImageWidth(),
-                renderer.getImageHeight(), BufferedImage.TYPE_3BYTE_BGR);
-        renderer.draw(image.createGraphics(), dataset);
+        BufferedImage image = imageBuffer.nextImage(renderer.getImageWidth(), renderer.getImageHeight());
+        Graphics2D graphics = image.createGraphics();
+        renderer.draw(graphics, dataset);
+        graphics.dispose();
 
-        previousImage = ValueUtil.toVImage(image);
-        return new Graph2DResult(vTable, previousImage,
+        previousResult = new Graph2DResult(vTable, ValueUtil.toVImage(image),
                 new GraphDataRange(renderer.getXPlotRange(), renderer.getXPlotRange(), renderer.getXAggregatedRange()), new GraphDataRange(
                 renderer.getYPlotRange(), renderer.getYPlotRange(), renderer.getYAggregatedRange()),
                 -1);
-
+        return previousResult;
     }
 }
@@ -0,0 +1,43 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.graphene;
+
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class GraphImageBufferTest {
+
+    @Test
+    public void nextImage1() {
+        GraphImageBuffer buffer = new GraphImageBuffer();
+        BufferedImage image1 = buffer.nextImage(300, 200);
+        BufferedImage image2 = buffer.nextImage(300, 200);
+        assertThat(image1.getType(), equalTo(BufferedImage.TYPE_3BYTE_BGR));
+        assertThat(image2, not(sameInstance(image1)));
+        assertThat(buffer.nextImage(300, 200), sameInstance(image1));
+        assertThat(buffer.nextImage(300, 200), sameInstance(image2));
+    }
+
+    @Test
+    public void nextImage2() {
+        GraphImageBuffer buffer = new GraphImageBuffer();
+        BufferedImage image1 = buffer.nextImage(300, 200);
+        BufferedImage image2 = buffer.nextImage(300, 200);
+
+        // A new size reallocates the image
+        BufferedImage image3 = buffer.nextImage(100, 80);
+        assertThat(image3, not(sameInstance(image1)));
+        assertThat(image3.getWidth(), equalTo(100));
+        assertThat(image3.getHeight(), equalTo(80));
+        assertThat(buffer.nextImage(100, 80), not(sameInstance(image2)));
+        assertThat(buffer.nextImage(100, 80), sameInstance(image3));
+    }
+}
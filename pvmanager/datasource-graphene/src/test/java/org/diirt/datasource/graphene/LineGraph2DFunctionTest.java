@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.graphene;
+
+import java.util.Arrays;
+import org.diirt.datasource.ReadFunction;
+import org.diirt.graphene.LineGraph2DRendererUpdate;
+import org.diirt.util.array.ArrayDouble;
+import org.diirt.util.array.ListNumber;
+import org.diirt.vtype.VImage;
+import org.diirt.vtype.VType;
+import org.diirt.vtype.ValueFactory;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class LineGraph2DFunctionTest {
+
+    private static class Value<T> implements ReadFunction<T> {
+
+        private T value;
+
+        public Value(T value) {
+            this.value = value;
+        }
+
+        public void setValue(T value) {
+            this.value = value;
+        }
+
+        @Override
+        public T readValue() {
+            return value;
+        }
+    }
+
+    private static VType array(double... values) {
+        return ValueFactory.newVDoubleArray(new ArrayDouble(values), ValueFactory.alarmNone(),
+                ValueFactory.timeNow(), ValueFactory.displayNone());
+    }
+
+    private static VType string(String value) {
+        return ValueFactory.newVString(value, ValueFactory.alarmNone(), ValueFactory.timeNow());
+    }
+
+    private static byte[] copy(VImage image) {
+        ListNumber data = image.getData();
+        byte[] copy = new byte[data.size()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = data.getByte(i);
+        }
+        return copy;
+    }
+
+    @Test
+    public void unchangedInputs() {
+        Value<VType> data = new Value<>(array(1, 3, 2, 4));
+        LineGraph2DFunction function = new LineGraph2DFunction(data, null, null, null);
+        Graph2DResult result1 = function.readValue();
+        Graph2DResult result2 = function.readValue();
+        assertThat(result2, sameInstance(result1));
+        assertThat(function.readValue(), sameInstance(result1));
+    }
+
+    @Test
+    public void dataChanged() {
+        Value<VType> data = new Value<>(array(1, 3, 2, 4));
+        LineGraph2DFunction function = new LineGraph2DFunction(data, null, null, null);
+        Graph2DResult result1 = function.readValue();
+        data.setValue(array(4, 2, 3, 1));
+        Graph2DResult result2 = function.readValue();
+        assertThat(result2, not(sameInstance(result1)));
+        assertThat(result2.getData(), sameInstance(data.readValue()));
+        assertThat(copy(result2.getImage()), not(equalTo(copy(result1.getImage()))));
+    }
+
+    @Test
+    public void columnChanged() {
+        VType table = ValueFactory.newVTable(Arrays.<Class<?>>asList(double.class, double.class, double.class),
+                Arrays.asList("x", "y", "z"),
+                Arrays.<Object>asList(new ArrayDouble(1, 2, 3, 4), new ArrayDouble(1, 3, 2, 4), new ArrayDouble(4, 2, 3, 1)));
+        Value<VType> yColumn = new Value<>(string("y"));
+        LineGraph2DFunction function = new LineGraph2DFunction(new Value<>(table),
+                new Value<>(string("x")), yColumn, null);
+        Graph2DResult result1 = function.readValue();
+        assertThat(function.readValue(), sameInstance(result1));
+
+        // Same column name in a new value: nothing to redraw
+        yColumn.setValue(string("y"));
+        assertThat(function.readValue(), sameInstance(result1));
+
+        yColumn.setValue(string("z"));
+        Graph2DResult result2 = function.readValue();
+        assertThat(result2, not(sameInstance(result1)));
+        assertThat(copy(result2.getImage()), not(equalTo(copy(result1.getImage()))));
+    }
+
+    @Test
+    public void sizeChanged() {
+        LineGraph2DFunction function = new LineGraph2DFunction(new Value<>(array(1, 3, 2, 4)), null, null, null);
+        Graph2DResult result1 = function.readValue();
+        assertThat(result1.getImage().getWidth(), equalTo(300));
+        assertThat(result1.getImage().getHeight(), equalTo(200));
+
+        function.getRendererUpdateQueue().writeValue(new LineGraph2DRendererUpdate().imageWidth(100).imageHeight(80));
+        Graph2DResult result2 = function.readValue();
+        assertThat(result2, not(sameInstance(result1)));
+        assertThat(result2.getImage().getWidth(), equalTo(100));
+        assertThat(result2.getImage().getHeight(), equalTo(80));
+        assertThat(result2.getImage().getData().size(), equalTo(100 * 80 * 3));
+
+        // The update was consumed
+        assertThat(function.readValue(), sameInstance(result2));
+    }
+
+    @Test
+    public void imagesAlternate() {
+        Value<VType> data = new Value<>(array(1, 3, 2, 4));
+        LineGraph2DFunction function = new LineGraph2DFunction(data, null, null, null);
+        Graph2DResult result1 = function.readValue();
+        byte[] image1 = copy(result1.getImage());
+        data.setValue(array(4, 2, 3, 1));
+        Graph2DResult result2 = function.readValue();
+        byte[] image2 = copy(result2.getImage());
+
+        // The previous result is not touched by the next one
+        assertThat(copy(result1.getImage()), equalTo(image1));
+
+        data.setValue(array(2, 2, 2, 2));
+        Graph2DResult result3 = function.readValue();
+        byte[] image3 = copy(result3.getImage());
+        assertThat(image3, not(equalTo(image1)));
+
+        // The last result is still intact, while the one before
+        // was drawn over
+        assertThat(copy(result2.getImage()), equalTo(image2));
+        assertThat(copy(result1.getImage()), equalTo(image3));
+    }
+}
@@ -49,6 +49,9 @@ class SimulationChannelHandler<T> extends MultiplexedChannelHandler<Simulation<T
         super(channelName);
         this.simulation = simulation;
         this.exec = exec;
+        // Values are generated by a single task, and simulated channels
+        // are often shared by many readers
+        setLockFreeFanOut(true);
     }
 
     @Override
@@ -0,0 +1,52 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.sys;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.diirt.datasource.ChannelMetrics;
+import org.diirt.datasource.MetricsRegistry;
+import org.diirt.util.array.ArrayDouble;
+import org.diirt.util.array.ArrayLong;
+
+import static org.diirt.vtype.ValueFactory.*;
+
+/**
+ * A table with the metrics of all the channel handlers being measured.
+ *
+ * @author carcassi
+ */
+class ChannelMetricsChannelHandler extends SystemChannelHandler {
+
+    private static final List<Class<?>> types = Arrays.<Class<?>>asList(String.class,
+            long.class, double.class, double.class);
+    private static final List<String> names = Arrays.asList("Channel",
+            "Messages", "Process message avg (us)", "Process message p99 (us)");
+
+    public ChannelMetricsChannelHandler(String channelName) {
+        super(channelName);
+    }
+
+    @Override
+    protected Object createValue() {
+        List<ChannelMetrics> metrics = MetricsRegistry.getChannelMetrics();
+        int size = metrics.size();
+        String[] channelName = new String[size];
+        long[] messages = new long[size];
+        double[] processAvg = new double[size];
+        double[] processP99 = new double[size];
+        for (int i = 0; i < size; i++) {
+            ChannelMetrics channel = metrics.get(i);
+            channelName[i] = channel.getChannelName();
+            messages[i] = channel.getMessages();
+            processAvg[i] = channel.getProcessMessageTime().getAverageNanos() / 1000.0;
+            processP99[i] = channel.getProcessMessageTime().getPercentileNanos(99) / 1000.0;
+        }
+        return newVTable(types, names, Arrays.<Object>asList(Arrays.asList(channelName),
+                new ArrayLong(messages), new ArrayDouble(processAvg), new ArrayDouble(processP99)));
+    }
+
+}
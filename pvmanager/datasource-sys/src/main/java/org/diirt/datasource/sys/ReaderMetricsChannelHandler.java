@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.sys;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.diirt.datasource.MetricsRegistry;
+import org.diirt.datasource.ReaderMetrics;
+import org.diirt.util.array.ArrayDouble;
+import org.diirt.util.array.ArrayLong;
+
+import static org.diirt.vtype.ValueFactory.*;
+
+/**
+ * A table with the metrics of all the readers being measured.
+ *
+ * @author carcassi
+ */
+class ReaderMetricsChannelHandler extends SystemChannelHandler {
+
+    private static final List<Class<?>> types = Arrays.<Class<?>>asList(String.class,
+            long.class, long.class, long.class, long.class,
+            double.class, double.class, double.class, double.class);
+    private static final List<String> names = Arrays.asList("Name",
+            "Value events", "Scans", "Coalesced", "Skipped in flight",
+            "Read value avg (us)", "Read value p99 (us)", "Notification delay avg (us)", "Notification delay p99 (us)");
+
+    public ReaderMetricsChannelHandler(String channelName) {
+        super(channelName);
+    }
+
+    @Override
+    protected Object createValue() {
+        List<ReaderMetrics> metrics = MetricsRegistry.getReaderMetrics();
+        int size = metrics.size();
+        String[] name = new String[size];
+        long[] valueEvents = new long[size];
+        long[] scans = new long[size];
+        long[] coalesced = new long[size];
+        long[] skipped = new long[size];
+        double[] readAvg = new double[size];
+        double[] readP99 = new double[size];
+        double[] delayAvg = new double[size];
+        double[] delayP99 = new double[size];
+        for (int i = 0; i < size; i++) {
+            ReaderMetrics reader = metrics.get(i);
+            name[i] = reader.getName();
+            valueEvents[i] = reader.getValueEvents();
+            scans[i] = reader.getScans();
+            coalesced[i] = reader.getCoalescedEvents();
+            skipped[i] = reader.getSkippedInFlight();
+            readAvg[i] = reader.getReadValueTime().getAverageNanos() / 1000.0;
+            readP99[i] = reader.getReadValueTime().getPercentileNanos(99) / 1000.0;
+            delayAvg[i] = reader.getNotificationDelay().getAverageNanos() / 1000.0;
+            delayP99[i] = reader.getNotificationDelay().getPercentileNanos(99) / 1000.0;
+        }
+        return newVTable(types, names, Arrays.<Object>asList(Arrays.asList(name),
+                new ArrayLong(valueEvents), new ArrayLong(scans), new ArrayLong(coalesced), new ArrayLong(skipped),
+                new ArrayDouble(readAvg), new ArrayDouble(readP99), new ArrayDouble(delayAvg), new ArrayDouble(delayP99)));
+    }
+
+}
@@ -63,6 +63,12 @@ public final class SystemDataSource extends DataSource {
         if ("qualified_host_name".equals(channelName)) {
             return new QualifiedHostnameChannelHandler(channelName);
         }
+        if ("metrics_readers".equals(channelName)) {
+            return new ReaderMetricsChannelHandler(channelName);
+        }
+        if ("metrics_channels".equals(channelName)) {
+            return new ChannelMetricsChannelHandler(channelName);
+        }
         if (channelName.startsWith(SystemPropertyChannelHandler.PREFIX)) {
             return new SystemPropertyChannelHandler(channelName);
         }
@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource;
+
+import java.util.Arrays;
+import java.util.List;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests the CircularQueueCollector.
+ *
+ * @author carcassi
+ */
+public class CircularQueueCollectorTest {
+
+    @Test
+    public void inputOutput() {
+        CircularQueueCollector<Integer> collector = new CircularQueueCollector<>(5);
+        assertThat(collector.readValue().size(), equalTo(0));
+        collector.writeValue(0);
+        assertThat(collector.readValue(), equalTo(Arrays.asList(0)));
+        assertThat(collector.readValue().size(), equalTo(0));
+        collector.writeValue(1);
+        collector.writeValue(2);
+        collector.writeValue(3);
+        assertThat(collector.readValue(), equalTo(Arrays.asList(1,2,3)));
+        assertThat(collector.readValue().size(), equalTo(0));
+        collector.writeValue(1);
+        collector.writeValue(2);
+        collector.writeValue(3);
+        collector.writeValue(4);
+        collector.writeValue(5);
+        collector.writeValue(6);
+        assertThat(collector.readValue(), equalTo(Arrays.asList(2,3,4,5,6)));
+        assertThat(collector.readValue().size(), equalTo(0));
+    }
+
+    @Test
+    public void setMaxSize() {
+        CircularQueueCollector<Integer> collector = new CircularQueueCollector<>(5);
+        assertThat(collector.readValue().size(), equalTo(0));
+        collector.writeValue(1);
+        collector.writeValue(2);
+        collector.writeValue(3);
+        collector.writeValue(4);
+        collector.writeValue(5);
+        collector.writeValue(6);
+        collector.setMaxSize(2);
+        assertThat(collector.readValue(), equalTo(Arrays.asList(5,6)));
+        assertThat(collector.readValue().size(), equalTo(0));
+        collector.writeValue(1);
+        collector.writeValue(2);
+        collector.writeValue(3);
+        collector.setMaxSize(5);
+        collector.writeValue(4);
+        collector.writeValue(5);
+        collector.writeValue(6);
+        assertThat(collector.readValue(), equalTo(Arrays.asList(2,3,4,5,6)));
+        assertThat(collector.readValue().size(), equalTo(0));
+    }
+
+    @Test
+    public void droppedCount() {
+        CircularQueueCollector<Integer> collector = new CircularQueueCollector<>(3);
+        for (int i = 0; i < 10; i++) {
+            collector.writeValue(i);
+        }
+        assertThat(collector.getDroppedCount(), equalTo(7L));
+        assertThat(collector.readValue(), equalTo(Arrays.asList(7,8,9)));
+        collector.writeValue(1);
+        collector.writeValue(2);
+        collector.writeValue(3);
+        collector.setMaxSize(1);
+        assertThat(collector.getDroppedCount(), equalTo(9L));
+        assertThat(collector.readValue(), equalTo(Arrays.asList(3)));
+    }
+
+    @Test
+    public void growAndWrap() {
+        CircularQueueCollector<Integer> collector = new CircularQueueCollector<>(100);
+        for (int n = 0; n < 3; n++) {
+            for (int i = 0; i < 250; i++) {
+                collector.writeValue(i);
+            }
+            List<Integer> values = collector.readValue();
+            assertThat(values.size(), equalTo(100));
+            for (int i = 0; i < 100; i++) {
+                assertThat(values.get(i), equalTo(150 + i));
+            }
+        }
+        assertThat(collector.readValue().size(), equalTo(0));
+    }
+
+    @Test
+    public void setMaxSizeAfterRead() {
+        // Both buffers have grown to 10 values
+        CircularQueueCollector<Integer> collector = new CircularQueueCollector<>(10);
+        for (int n = 0; n < 2; n++) {
+            for (int i = 0; i < 10; i++) {
+                collector.writeValue(i);
+            }
+            assertThat(collector.readValue().size(), equalTo(10));
+        }
+
+        collector.setMaxSize(3);
+        for (int n = 0; n < 2; n++) {
+            collector.readValue();
+            for (int i = 0; i < 10; i++) {
+                collector.writeValue(i);
+            }
+            assertThat(collector.readValue(), equalTo(Arrays.asList(7,8,9)));
+        }
+        assertThat(collector.getDroppedCount(), equalTo(14L));
+    }
+}
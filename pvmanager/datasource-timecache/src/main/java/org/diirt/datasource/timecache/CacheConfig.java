@@ -10,6 +10,7 @@ import java.util.List;
 
 import org.diirt.datasource.timecache.source.DataSource;
 import org.diirt.datasource.timecache.storage.DataStorage;
+import org.diirt.datasource.timecache.storage.DataStorageFactory;
 
 /**
  * @author Fred Arnaud (Sopra Group) - ITER
@@ -18,6 +19,7 @@ public class CacheConfig {
 
     private List<DataSource> sources = new ArrayList<DataSource>();
     private DataStorage storage;
+    private DataStorageFactory storageFactory;
     private int nbOfChunksPerQuery = 100;
     private Duration retrievalGap = Duration.ofHours(168); // 1 week
 
@@ -37,6 +39,31 @@ public class CacheConfig {
         this.storage = storage;
     }
 
+    public DataStorageFactory getStorageFactory() {
+        return storageFactory;
+    }
+
+    /**
+     * Sets a factory used to create one {@link DataStorage} per channel.
+     * When set, it takes precedence over the shared storage.
+     * @param storageFactory the factory, or <code>null</code> to use the
+     *            shared storage.
+     */
+    public void setStorageFactory(DataStorageFactory storageFactory) {
+        this.storageFactory = storageFactory;
+    }
+
+    /**
+     * Returns the {@link DataStorage} to be used for the specified channel:
+     * a new one from the factory if set, the shared one otherwise.
+     * @param channelName name of the channel.
+     */
+    public DataStorage getStorage(String channelName) {
+        if (storageFactory != null)
+            return storageFactory.createStorage(channelName);
+        return storage;
+    }
+
     public int getNbOfChunksPerQuery() {
         return nbOfChunksPerQuery;
     }
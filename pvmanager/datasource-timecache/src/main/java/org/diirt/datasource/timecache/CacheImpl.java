@@ -35,7 +35,7 @@ public class CacheImpl implements Cache {
             config = configMap.get(Parameter.Default);
         PVCache pvCache = (PVCache) cachedPVs.get(channelName);
         if (pvCache == null) {
-            pvCache = new PVCacheImpl(channelName, config.getSources(), config.getStorage());
+            pvCache = new PVCacheImpl(channelName, config.getSources(), config.getStorage(channelName));
             // TODO: calculate retrieval gap from statistics
             ((PVCacheImpl) pvCache).setRetrievalGap(config.getRetrievalGap());
             pvCache.setStatisticsEnabled(statisticsEnabled);
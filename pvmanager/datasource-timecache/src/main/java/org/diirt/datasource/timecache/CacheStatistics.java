@@ -36,9 +36,35 @@ public class CacheStatistics {
             pvStats.put(channelName, stats);
     }
 
+    /** Number of requests to sources waiting to run. */
+    public int getQueuedRequests() {
+        return DataRequestScheduler.get().getQueuedCount();
+    }
+
+    /** Number of requests to sources running. */
+    public int getRunningRequests() {
+        return DataRequestScheduler.get().getRunningCount();
+    }
+
+    /** Number of requests merged into a queued request for the same channel. */
+    public long getMergedRequests() {
+        return DataRequestScheduler.get().getMergedCount();
+    }
+
+    /** Average time, in milliseconds, spent by requests in the queue. */
+    public double getAverageQueueTime() {
+        return DataRequestScheduler.get().getAverageQueueTime();
+    }
+
+    /** Average time, in milliseconds, taken to complete a request. */
+    public double getAverageFetchTime() {
+        return DataRequestScheduler.get().getAverageFetchTime();
+    }
+
     public void print() {
         System.out.println("\n" + printQueryStats());
         System.out.println(printPVCacheStats());
+        System.out.println(DataRequestScheduler.get().toConsoleString());
     }
 
     private String printQueryStats() {
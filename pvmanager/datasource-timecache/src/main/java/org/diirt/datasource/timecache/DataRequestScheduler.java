@@ -0,0 +1,215 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.timecache;
+
+import static org.diirt.util.concurrent.Executors.namedPool;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.diirt.datasource.timecache.source.DataSource;
+import org.diirt.datasource.timecache.util.CacheHelper;
+
+/**
+ * Runs the {@link DataRequestThread} of all caches on a bounded pool of
+ * threads. Requests with the lowest priority value run first, in order of
+ * submission. A request waiting in the queue absorbs any new request for
+ * the same channel and source whose interval intersects its own: the
+ * interval is extended and the listeners of both are notified. The number
+ * of requests running at the same time on each source is limited.
+ * @author Fred Arnaud (Sopra Group) - ITER
+ */
+public class DataRequestScheduler {
+
+    private static final Logger log = Logger.getLogger(DataRequestScheduler.class.getName());
+
+    /** Priority of requests for data being displayed. */
+    public static final int PRIORITY_VISIBLE = 0;
+    /** Priority of requests that anticipate future queries. */
+    public static final int PRIORITY_BACKGROUND = 10;
+
+    private static DataRequestScheduler scheduler = new DataRequestScheduler(8, 2);
+
+    public static DataRequestScheduler get() {
+        return scheduler;
+    }
+
+    private final ExecutorService executor;
+    private final int maxRunningRequests;
+    private int maxRunningRequestsPerSource;
+
+    // Guarded by this
+    private final List<DataRequestThread> queue = new ArrayList<DataRequestThread>();
+    private final Map<DataSource, Integer> runningBySource = new IdentityHashMap<DataSource, Integer>();
+    private int running = 0;
+    private long sequence = 0;
+    private long submittedCount = 0;
+    private long mergedCount = 0;
+    private long completedCount = 0;
+    private long totalQueueNanos = 0;
+    private long totalFetchNanos = 0;
+
+    /**
+     * @param maxRunningRequests maximum number of requests running at the
+     *            same time.
+     * @param maxRunningRequestsPerSource maximum number of requests running
+     *            at the same time on the same source.
+     */
+    public DataRequestScheduler(int maxRunningRequests, int maxRunningRequestsPerSource) {
+        if (maxRunningRequests <= 0 || maxRunningRequestsPerSource <= 0)
+            throw new IllegalArgumentException("Limits must be positive");
+        this.maxRunningRequests = maxRunningRequests;
+        this.maxRunningRequestsPerSource = maxRunningRequestsPerSource;
+        this.executor = Executors.newFixedThreadPool(maxRunningRequests, namedPool("diirt timecache fetch "));
+    }
+
+    /**
+     * Queues the request, or merges it into a queued request for the same
+     * channel and source.
+     * @param request to be executed.
+     */
+    public synchronized void submit(DataRequestThread request) {
+        for (DataRequestThread queued : queue) {
+            if (queued.getSource() == request.getSource()
+                    && queued.getChannelName().equals(request.getChannelName())
+                    && queued.getInterval().getStart() != null
+                    && request.getInterval().getStart() != null
+                    && CacheHelper.intersects(queued.getInterval(), request.getInterval())) {
+                queued.merge(request);
+                mergedCount++;
+                return;
+            }
+        }
+        request.queued(sequence++, System.nanoTime());
+        queue.add(request);
+        submittedCount++;
+        dispatch();
+    }
+
+    /**
+     * Removes the request from the queue if it has not started yet.
+     * @return <code>true</code> if the request was removed.
+     */
+    synchronized boolean remove(DataRequestThread request) {
+        return queue.remove(request);
+    }
+
+    public synchronized void setMaxRunningRequestsPerSource(int max) {
+        if (max <= 0)
+            throw new IllegalArgumentException("Limit must be positive");
+        this.maxRunningRequestsPerSource = max;
+        dispatch();
+    }
+
+    public synchronized int getMaxRunningRequestsPerSource() {
+        return maxRunningRequestsPerSource;
+    }
+
+    public int getMaxRunningRequests() {
+        return maxRunningRequests;
+    }
+
+    // Starts the queued requests that can run. Called with the lock held.
+    private void dispatch() {
+        while (running < maxRunningRequests) {
+            DataRequestThread next = null;
+            for (DataRequestThread request : queue) {
+                Integer count = runningBySource.get(request.getSource());
+                if (count != null && count >= maxRunningRequestsPerSource)
+                    continue;
+                if (next == null || request.getFetchPriority() < next.getFetchPriority()
+                        || (request.getFetchPriority() == next.getFetchPriority()
+                                && request.getSequence() < next.getSequence()))
+                    next = request;
+            }
+            if (next == null)
+                return;
+            queue.remove(next);
+            running++;
+            Integer count = runningBySource.get(next.getSource());
+            runningBySource.put(next.getSource(), count == null ? 1 : count + 1);
+            final DataRequestThread request = next;
+            final long startNanos = System.nanoTime();
+            totalQueueNanos += startNanos - request.getQueuedNanos();
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        request.run();
+                    } catch (RuntimeException e) {
+                        log.log(Level.WARNING, "Request " + request.getRequestID() + " failed", e);
+                    } finally {
+                        completed(request, System.nanoTime() - startNanos);
+                    }
+                }
+            });
+        }
+    }
+
+    private synchronized void completed(DataRequestThread request, long fetchNanos) {
+        running--;
+        int count = runningBySource.get(request.getSource());
+        if (count == 1)
+            runningBySource.remove(request.getSource());
+        else
+            runningBySource.put(request.getSource(), count - 1);
+        completedCount++;
+        totalFetchNanos += fetchNanos;
+        dispatch();
+    }
+
+    /** Number of requests waiting to run. */
+    public synchronized int getQueuedCount() {
+        return queue.size();
+    }
+
+    /** Number of requests running. */
+    public synchronized int getRunningCount() {
+        return running;
+    }
+
+    /** Number of requests queued since creation, not counting merged ones. */
+    public synchronized long getSubmittedCount() {
+        return submittedCount;
+    }
+
+    /** Number of requests merged into a queued request since creation. */
+    public synchronized long getMergedCount() {
+        return mergedCount;
+    }
+
+    /** Number of requests completed since creation. */
+    public synchronized long getCompletedCount() {
+        return completedCount;
+    }
+
+    /** Average time, in milliseconds, spent by the requests in the queue. */
+    public synchronized double getAverageQueueTime() {
+        long started = completedCount + running;
+        return started == 0 ? 0 : totalQueueNanos / 1000000.0 / started;
+    }
+
+    /** Average time, in milliseconds, taken to complete a request. */
+    public synchronized double getAverageFetchTime() {
+        return completedCount == 0 ? 0 : totalFetchNanos / 1000000.0 / completedCount;
+    }
+
+    public String toConsoleString() {
+        synchronized (this) {
+            return "Requests: queued " + queue.size() + ", running " + running
+                    + ", submitted " + submittedCount + ", merged " + mergedCount
+                    + ", completed " + completedCount
+                    + String.format(", avg queue %.1f ms, avg fetch %.1f ms",
+                            getAverageQueueTime(), getAverageFetchTime());
+        }
+    }
+
+}
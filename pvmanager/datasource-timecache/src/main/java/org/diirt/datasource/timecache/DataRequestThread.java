@@ -7,6 +7,7 @@ package org.diirt.datasource.timecache;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.diirt.datasource.timecache.source.DataSource;
@@ -19,6 +20,11 @@ import org.diirt.util.time.TimeInterval;
  * {@link TimeInterval}. Polls chunks from the source until the
  * {@link Timestamp} of the last received {@link Data} is superior to the end of
  * the defined {@link TimeInterval}.
+ * <p>
+ * Despite its name, no thread is created: {@link #start()} submits the
+ * request to the {@link DataRequestScheduler} which runs it on a shared
+ * pool. A request for the same channel and source submitted while this one
+ * is queued is merged into it.
  * @author Fred Arnaud (Sopra Group) - ITER
  */
 public class DataRequestThread extends Thread {
@@ -28,24 +34,67 @@ public class DataRequestThread extends Thread {
 
     private final String channelName;
     private final DataSource source;
-    private TimeInterval interval;
-    private Instant lastReceived;
+    private volatile TimeInterval interval;
+    private volatile Instant lastReceived;
 
     private List<DataRequestListener> listeners;
 
+    // Scheduling, see DataRequestScheduler
+    private int fetchPriority = DataRequestScheduler.PRIORITY_VISIBLE;
+    private long sequence;
+    private long queuedNanos;
+    private boolean started = false;
+    private volatile boolean cancelled = false;
+    private DataRequestThread leader;
+    private final List<DataRequestThread> followers = new CopyOnWriteArrayList<DataRequestThread>();
+
     public DataRequestThread(String channelName, DataSource source,
             TimeInterval interval) throws Exception {
         if (channelName == null || channelName.isEmpty() || source == null
                 || interval == null)
             throw new Exception("null or empty argument not allowed");
         this.requestID = idCounter.getAndIncrement();
-        this.listeners = new ArrayList<DataRequestListener>();
+        this.listeners = new CopyOnWriteArrayList<DataRequestListener>();
         this.channelName = channelName;
         this.source = source;
         this.interval = CacheHelper.arrange(interval);
         this.lastReceived = this.interval.getStart();
     }
 
+    /**
+     * Submits the request to the shared {@link DataRequestScheduler}: no
+     * thread is created. The request can be merged with a queued request
+     * for the same channel and source.
+     */
+    @Override
+    public synchronized void start() {
+        if (started)
+            throw new IllegalThreadStateException("Request " + requestID + " already started");
+        started = true;
+        DataRequestScheduler.get().submit(this);
+    }
+
+    /**
+     * Cancels the request: its listeners will not be notified anymore and,
+     * if no other request was merged into it, it will stop requesting the
+     * source.
+     */
+    public void cancel() {
+        cancelled = true;
+        DataRequestThread currentLeader;
+        synchronized (DataRequestScheduler.get()) {
+            currentLeader = leader;
+            if (currentLeader == null && followers.isEmpty())
+                DataRequestScheduler.get().remove(this);
+        }
+        if (currentLeader != null)
+            currentLeader.followers.remove(this);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void run() {
@@ -56,7 +105,8 @@ public class DataRequestThread extends Thread {
         DataChunk currentChunk = source.getData(channelName, interval.getStart());
         boolean process = true;
         while (process) {
-            if (currentChunk == null || currentChunk.isEmpty()
+            if ((cancelled && followers.isEmpty())
+                    || currentChunk == null || currentChunk.isEmpty()
                     || !CacheHelper.intersects(interval, currentChunk.getInterval())) {
                 process = false;
                 break;
@@ -75,14 +125,76 @@ public class DataRequestThread extends Thread {
 
     // Notify the listeners that a new chunk is available
     private void notifyNewData(DataChunk chunk) {
-        for (DataRequestListener l : listeners)
-            l.newData(chunk, this);
+        if (!cancelled) {
+            for (DataRequestListener l : listeners)
+                l.newData(chunk, this);
+        }
+        for (DataRequestThread follower : followers) {
+            if (CacheHelper.intersects(follower.getInterval(), chunk.getInterval())) {
+                follower.lastReceived = chunk.getInterval().getEnd();
+                follower.notifyNewData(chunk);
+            }
+        }
     }
 
     // Notify the listeners that the thread has finished requesting samples
     private void notifyComplete() {
-        for (DataRequestListener l : listeners)
-            l.intervalComplete(this);
+        if (!cancelled) {
+            for (DataRequestListener l : listeners)
+                l.intervalComplete(this);
+        }
+        for (DataRequestThread follower : followers)
+            follower.notifyComplete();
+    }
+
+    /**
+     * Merges a request, not yet queued, into this queued one: the interval
+     * is extended to cover both and the listeners of the merged request are
+     * notified of the data in its interval. Called by the scheduler.
+     */
+    void merge(DataRequestThread request) {
+        TimeInterval other = request.getInterval();
+        Instant start = interval.getStart().compareTo(other.getStart()) <= 0 ? interval.getStart() : other.getStart();
+        Instant end;
+        if (interval.getEnd() == null || other.getEnd() == null)
+            end = null;
+        else
+            end = interval.getEnd().compareTo(other.getEnd()) >= 0 ? interval.getEnd() : other.getEnd();
+        interval = TimeInterval.between(start, end);
+        lastReceived = start;
+        fetchPriority = Math.min(fetchPriority, request.fetchPriority);
+        request.leader = this;
+        followers.add(request);
+    }
+
+    void queued(long sequence, long queuedNanos) {
+        this.sequence = sequence;
+        this.queuedNanos = queuedNanos;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    long getQueuedNanos() {
+        return queuedNanos;
+    }
+
+    /** Whether requests from other caches have been merged into this one. */
+    boolean hasFollowers() {
+        return !followers.isEmpty();
+    }
+
+    /**
+     * Sets the priority used by the {@link DataRequestScheduler}: lower
+     * values run first. Must be called before {@link #start()}.
+     */
+    public void setFetchPriority(int fetchPriority) {
+        this.fetchPriority = fetchPriority;
+    }
+
+    public int getFetchPriority() {
+        return fetchPriority;
     }
 
     /** Add a {@link DataRequestListener}. */
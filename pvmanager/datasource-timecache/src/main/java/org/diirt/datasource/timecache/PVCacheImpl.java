@@ -95,7 +95,7 @@ public class PVCacheImpl implements PVCache, DataStorageListener {
                         if (runningThreadsToSources.isEmpty()) {
                             IntervalsList missingGaps = retrieveMissingGaps();
                             for (TimeInterval ti : missingGaps.getIntervals()) {
-                                retrieveData(ti);
+                                retrieveData(ti, DataRequestScheduler.PRIORITY_BACKGROUND);
                             }
                         }
                     }
@@ -171,7 +171,7 @@ public class PVCacheImpl implements PVCache, DataStorageListener {
         newIntervalToRetrieve = CacheHelper.arrange(newIntervalToRetrieve);
         IntervalsList missing_intervals = retrieveMissingIntervals(newIntervalToRetrieve);
         for (TimeInterval ti : missing_intervals.getIntervals()) {
-            retrieveData(ti);
+            retrieveData(ti, DataRequestScheduler.PRIORITY_VISIBLE);
         }
         optimizeRunningRequests(newIntervalToRetrieve);
         try {
@@ -182,7 +182,7 @@ public class PVCacheImpl implements PVCache, DataStorageListener {
         }
     }
 
-    private void retrieveData(TimeInterval newIntervalToRetrieve) {
+    private void retrieveData(TimeInterval newIntervalToRetrieve, int priority) {
         log.log(Level.INFO,
                 "START requesting SOURCES: " + CacheHelper.format(newIntervalToRetrieve) + " for " + channelName);
         for (DataSource s : dataSources) {
@@ -190,6 +190,7 @@ public class PVCacheImpl implements PVCache, DataStorageListener {
             try {
                 thread = new DataRequestThread(channelName, s, newIntervalToRetrieve);
                 thread.addListener(new DataFromSourceListener());
+                thread.setFetchPriority(priority);
                 thread.start();
                 runningThreadsToSources.add(thread);
                 if (isStatisticsEnabled()) {
@@ -210,7 +211,9 @@ public class PVCacheImpl implements PVCache, DataStorageListener {
                 DataRequestThread current_thread = it_threads.next();
                 TimeInterval current_thread_interval = current_thread.getInterval();
 
-                if (CacheHelper.intersects(current_thread_interval, newIntervalToRetrieve)
+                // Requests merged from other caches rely on the whole interval
+                if (!current_thread.hasFollowers()
+                        && CacheHelper.intersects(current_thread_interval, newIntervalToRetrieve)
                         && newIntervalToRetrieve.getStart().compareTo(current_thread.getLastReceived()) > 0) {
 
                     TimeInterval first_part = TimeInterval.between(current_thread_interval.getStart(), newIntervalToRetrieve.getStart());
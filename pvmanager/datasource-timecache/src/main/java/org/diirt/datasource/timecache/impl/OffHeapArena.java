@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.timecache.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.diirt.datasource.timecache.storage.DataStorage;
+import org.diirt.datasource.timecache.storage.DataStorageFactory;
+
+/**
+ * Bounded pool of direct memory shared by a set of {@link OffHeapStorage}.
+ * The memory is split in fixed size blocks, each holding one columnar chunk
+ * of samples: epoch nanoseconds, value and alarm severity. When all the
+ * blocks are used, the least recently used chunk is evicted from its
+ * storage. Direct buffers are allocated lazily, in segments of at most 2GB,
+ * up to the capacity.
+ * <p>
+ * All the storages created by an arena are synchronized on the arena.
+ * @author Fred Arnaud (Sopra Group) - ITER
+ */
+public class OffHeapArena implements DataStorageFactory {
+
+    /** 8 bytes for the timestamp, 8 for the value, 1 for the severity. */
+    static final int BYTES_PER_SAMPLE = 17;
+
+    private final int samplesPerChunk;
+    private final int chunkBytes;
+    private final int chunksPerSegment;
+    private final int maxChunks;
+
+    private final List<ByteBuffer> segments = new ArrayList<ByteBuffer>();
+    private int allocatedChunks = 0;
+    private int[] freeBlocks;
+    private int freeCount = 0;
+    // Access ordered: the first entry is the least recently used chunk
+    private final LinkedHashMap<OffHeapStorage.Chunk, Boolean> lru =
+            new LinkedHashMap<OffHeapStorage.Chunk, Boolean>(16, 0.75f, true);
+
+    /**
+     * Creates an arena of the given size.
+     * @param capacityBytes maximum number of bytes of direct memory.
+     * @param samplesPerChunk number of samples in each chunk.
+     */
+    public OffHeapArena(long capacityBytes, int samplesPerChunk) {
+        if (samplesPerChunk <= 0 || samplesPerChunk > Integer.MAX_VALUE / BYTES_PER_SAMPLE)
+            throw new IllegalArgumentException("Invalid number of samples per chunk (was " + samplesPerChunk + ")");
+        this.samplesPerChunk = samplesPerChunk;
+        this.chunkBytes = samplesPerChunk * BYTES_PER_SAMPLE;
+        this.chunksPerSegment = Integer.MAX_VALUE / chunkBytes;
+        long chunks = capacityBytes / chunkBytes;
+        if (chunks < 1)
+            throw new IllegalArgumentException("Capacity must hold at least one chunk of " + chunkBytes + " bytes (was " + capacityBytes + ")");
+        this.maxChunks = (int) Math.min(Integer.MAX_VALUE, chunks);
+        this.freeBlocks = new int[Math.min(maxChunks, 1024)];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataStorage createStorage(String channelName) {
+        return new OffHeapStorage(this);
+    }
+
+    public int getSamplesPerChunk() {
+        return samplesPerChunk;
+    }
+
+    public long getCapacityBytes() {
+        return (long) maxChunks * chunkBytes;
+    }
+
+    public synchronized long getUsedBytes() {
+        return (long) lru.size() * chunkBytes;
+    }
+
+    /**
+     * Assigns a block to the chunk, evicting the least recently used chunks
+     * if needed. Must be called with the arena lock held.
+     * @param chunk that needs a block.
+     * @param evicted list where the evicted chunks are added.
+     * @return the block index.
+     */
+    int allocate(OffHeapStorage.Chunk chunk, List<OffHeapStorage.Chunk> evicted) {
+        int block;
+        if (freeCount > 0) {
+            block = freeBlocks[--freeCount];
+        } else if (allocatedChunks < maxChunks) {
+            block = allocatedChunks++;
+            if (block / chunksPerSegment >= segments.size()) {
+                int remaining = maxChunks - segments.size() * chunksPerSegment;
+                segments.add(ByteBuffer.allocateDirect(Math.min(remaining, chunksPerSegment) * chunkBytes));
+            }
+        } else {
+            Iterator<OffHeapStorage.Chunk> iter = lru.keySet().iterator();
+            OffHeapStorage.Chunk oldest = iter.next();
+            iter.remove();
+            oldest.storage.evicted(oldest);
+            evicted.add(oldest);
+            block = oldest.block;
+        }
+        lru.put(chunk, Boolean.TRUE);
+        return block;
+    }
+
+    /**
+     * Returns the block of a chunk that has been removed from its storage.
+     * Must be called with the arena lock held.
+     */
+    void release(OffHeapStorage.Chunk chunk) {
+        if (lru.remove(chunk) == null)
+            return;
+        if (freeCount == freeBlocks.length) {
+            int[] newFreeBlocks = new int[Math.min(maxChunks, freeBlocks.length * 2)];
+            System.arraycopy(freeBlocks, 0, newFreeBlocks, 0, freeCount);
+            freeBlocks = newFreeBlocks;
+        }
+        freeBlocks[freeCount++] = chunk.block;
+    }
+
+    /** Marks the chunk as recently used. Must be called with the arena lock held. */
+    void touch(OffHeapStorage.Chunk chunk) {
+        lru.get(chunk);
+    }
+
+    // Layout of a block: samplesPerChunk timestamps, then values, then severities
+
+    void put(int block, int index, long nanos, double value, byte severity) {
+        ByteBuffer segment = segments.get(block / chunksPerSegment);
+        int base = (block % chunksPerSegment) * chunkBytes;
+        segment.putLong(base + index * 8, nanos);
+        segment.putDouble(base + samplesPerChunk * 8 + index * 8, value);
+        segment.put(base + samplesPerChunk * 16 + index, severity);
+    }
+
+    long getNanos(int block, int index) {
+        ByteBuffer segment = segments.get(block / chunksPerSegment);
+        return segment.getLong((block % chunksPerSegment) * chunkBytes + index * 8);
+    }
+
+    double getValue(int block, int index) {
+        ByteBuffer segment = segments.get(block / chunksPerSegment);
+        return segment.getDouble((block % chunksPerSegment) * chunkBytes + samplesPerChunk * 8 + index * 8);
+    }
+
+    byte getSeverity(int block, int index) {
+        ByteBuffer segment = segments.get(block / chunksPerSegment);
+        return segment.get((block % chunksPerSegment) * chunkBytes + samplesPerChunk * 16 + index);
+    }
+
+}
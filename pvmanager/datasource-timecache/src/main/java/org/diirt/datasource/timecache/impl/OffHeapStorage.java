@@ -0,0 +1,286 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.timecache.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.diirt.datasource.timecache.Data;
+import org.diirt.datasource.timecache.DataChunk;
+import org.diirt.datasource.timecache.source.SourceData;
+import org.diirt.datasource.timecache.storage.DataStorage;
+import org.diirt.datasource.timecache.storage.DataStorageListener;
+import org.diirt.datasource.timecache.util.CacheHelper;
+import org.diirt.datasource.timecache.util.TimestampsSet;
+import org.diirt.util.time.TimeInterval;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.VNumber;
+import org.diirt.vtype.VType;
+import org.diirt.vtype.ValueFactory;
+
+/**
+ * {@link DataStorage} for a single channel that keeps samples in columnar
+ * chunks allocated from an {@link OffHeapArena}. Only the timestamp, the
+ * value and the alarm severity of {@link VNumber} samples are kept: they are
+ * read back as VDouble with no display information. Other types of samples
+ * are kept on the heap, alongside their chunk.
+ * <p>
+ * Chunks never overlap in time: samples that fall within the time range of
+ * a stored chunk are considered already stored. When a chunk is evicted by
+ * the arena, listeners are notified of the loss of exactly its time range.
+ * @author Fred Arnaud (Sopra Group) - ITER
+ */
+public class OffHeapStorage implements DataStorage {
+
+    private static final AlarmSeverity[] severities = AlarmSeverity.values();
+    /** Severity marker for samples kept on the heap. */
+    private static final byte ON_HEAP = -1;
+
+    /** A chunk of samples in a block of the arena. */
+    static class Chunk {
+
+        final OffHeapStorage storage;
+        int block;
+        int size;
+        long firstNanos;
+        long lastNanos;
+        VType[] onHeapValues;
+
+        Chunk(OffHeapStorage storage) {
+            this.storage = storage;
+        }
+    }
+
+    private final OffHeapArena arena;
+    private final int chunkSize;
+    // Chunks by first timestamp, guarded by the arena
+    private final TreeMap<Long, Chunk> chunks = new TreeMap<Long, Chunk>();
+    private final List<DataStorageListener> listeners = new CopyOnWriteArrayList<DataStorageListener>();
+
+    public OffHeapStorage(OffHeapArena arena) {
+        this(arena, 1000);
+    }
+
+    /**
+     * @param arena where the samples are stored.
+     * @param chunkSize maximum number of samples in the {@link DataChunk}
+     *            returned by {@link #getData(String, Instant)}.
+     */
+    public OffHeapStorage(OffHeapArena arena, int chunkSize) {
+        this.arena = arena;
+        this.chunkSize = chunkSize;
+    }
+
+    static long toNanos(Instant instant) {
+        return instant.getEpochSecond() * 1000000000L + instant.getNano();
+    }
+
+    static Instant toInstant(long nanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, 1000000000L), Math.floorMod(nanos, 1000000000L));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataChunk getData(String channelName, Instant from) {
+        DataChunk chunk = new DataChunk(chunkSize);
+        long fromNanos = from == null ? Long.MIN_VALUE : toNanos(from);
+        synchronized (arena) {
+            Long key = chunks.floorKey(fromNanos);
+            if (key == null)
+                key = chunks.isEmpty() ? null : chunks.firstKey();
+            while (key != null && !chunk.isFull()) {
+                Chunk c = chunks.get(key);
+                arena.touch(c);
+                for (int i = 0; i < c.size; i++) {
+                    if (arena.getNanos(c.block, i) >= fromNanos && !chunk.add(sample(c, i)))
+                        break;
+                }
+                key = chunks.higherKey(key);
+            }
+        }
+        return chunk;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SortedSet<Data> getAvailableData(TimeInterval interval) {
+        TreeSet<Data> set = new TreeSet<Data>();
+        if (interval == null)
+            return set;
+        interval = CacheHelper.arrange(interval);
+        long start = interval.getStart() == null ? Long.MIN_VALUE : toNanos(interval.getStart());
+        long end = interval.getEnd() == null ? Long.MAX_VALUE : toNanos(interval.getEnd());
+        synchronized (arena) {
+            Long key = chunks.floorKey(start);
+            if (key == null)
+                key = chunks.isEmpty() ? null : chunks.firstKey();
+            while (key != null && key <= end) {
+                Chunk c = chunks.get(key);
+                arena.touch(c);
+                for (int i = 0; i < c.size; i++) {
+                    long nanos = arena.getNanos(c.block, i);
+                    if (nanos >= start && nanos <= end)
+                        set.add(sample(c, i));
+                }
+                key = chunks.higherKey(key);
+            }
+        }
+        return set;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasAvailableData(TimeInterval interval) {
+        if (interval == null)
+            return false;
+        interval = CacheHelper.arrange(interval);
+        long start = interval.getStart() == null ? Long.MIN_VALUE : toNanos(interval.getStart());
+        long end = interval.getEnd() == null ? Long.MAX_VALUE : toNanos(interval.getEnd());
+        synchronized (arena) {
+            Long key = chunks.floorKey(start);
+            if (key == null)
+                key = chunks.isEmpty() ? null : chunks.firstKey();
+            while (key != null && key <= end) {
+                Chunk c = chunks.get(key);
+                for (int i = 0; i < c.size; i++) {
+                    long nanos = arena.getNanos(c.block, i);
+                    if (nanos >= start && nanos <= end)
+                        return true;
+                }
+                key = chunks.higherKey(key);
+            }
+        }
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SortedSet<Data> storeData(DataChunk chunk) {
+        TreeSet<Data> set = new TreeSet<Data>();
+        if (chunk == null)
+            return set;
+        List<Chunk> evicted = new ArrayList<Chunk>();
+        synchronized (arena) {
+            Chunk current = null;
+            long limit = Long.MAX_VALUE;
+            for (Data data : chunk.getDatas()) {
+                long nanos = toNanos(data.getTimestamp());
+                Map.Entry<Long, Chunk> entry = chunks.floorEntry(nanos);
+                if (entry != null && entry.getValue() != current && entry.getValue().lastNanos >= nanos) {
+                    // Already stored
+                    current = null;
+                    continue;
+                }
+                if (current != null && (current.size == arena.getSamplesPerChunk() || nanos >= limit))
+                    current = null;
+                if (current == null) {
+                    current = new Chunk(this);
+                    current.block = arena.allocate(current, evicted);
+                    current.firstNanos = nanos;
+                    chunks.put(nanos, current);
+                    Long next = chunks.higherKey(nanos);
+                    limit = next == null ? Long.MAX_VALUE : next;
+                }
+                append(current, nanos, data.getValue());
+                set.add(data);
+            }
+        }
+        fireEvicted(evicted);
+        return set;
+    }
+
+    private void append(Chunk c, long nanos, VType value) {
+        if (value instanceof VNumber) {
+            VNumber number = (VNumber) value;
+            arena.put(c.block, c.size, nanos, number.getValue().doubleValue(), (byte) number.getAlarmSeverity().ordinal());
+        } else {
+            if (c.onHeapValues == null)
+                c.onHeapValues = new VType[arena.getSamplesPerChunk()];
+            c.onHeapValues[c.size] = value;
+            arena.put(c.block, c.size, nanos, Double.NaN, ON_HEAP);
+        }
+        c.lastNanos = nanos;
+        c.size++;
+    }
+
+    private Data sample(Chunk c, int index) {
+        Instant timestamp = toInstant(arena.getNanos(c.block, index));
+        byte severity = arena.getSeverity(c.block, index);
+        VType value;
+        if (severity == ON_HEAP) {
+            value = c.onHeapValues[index];
+        } else {
+            AlarmSeverity alarmSeverity = severities[severity];
+            value = ValueFactory.newVDouble(arena.getValue(c.block, index),
+                    ValueFactory.newAlarm(alarmSeverity, alarmSeverity.name()),
+                    ValueFactory.newTime(timestamp), ValueFactory.displayNone());
+        }
+        return new SourceData(timestamp, value);
+    }
+
+    /** Called by the arena, with its lock held, when a chunk is evicted. */
+    void evicted(Chunk c) {
+        chunks.remove(c.firstNanos);
+    }
+
+    private void fireEvicted(List<Chunk> evicted) {
+        for (Chunk c : evicted)
+            c.storage.fireDataLoss(c);
+    }
+
+    // Notifies the exact time range of the chunk
+    private void fireDataLoss(Chunk c) {
+        TimestampsSet lostSet = new TimestampsSet();
+        lostSet.setTolerance(Duration.ofNanos(c.lastNanos - c.firstNanos));
+        lostSet.add(toInstant(c.firstNanos));
+        lostSet.add(toInstant(c.lastNanos));
+        for (DataStorageListener l : listeners)
+            l.dataLoss(lostSet);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addListener(DataStorageListener listener) {
+        if (listener != null)
+            listeners.add(listener);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void removeListener(DataStorageListener listener) {
+        if (listener != null)
+            listeners.remove(listener);
+    }
+
+    // Useful to debug
+    public int getStoredSampleCount() {
+        int count = 0;
+        synchronized (arena) {
+            for (Chunk c : chunks.values())
+                count += c.size;
+        }
+        return count;
+    }
+
+    @Override
+    public void clearAll() {
+        List<Chunk> removed;
+        synchronized (arena) {
+            removed = new ArrayList<Chunk>(chunks.values());
+            for (Chunk c : removed)
+                arena.release(c);
+            chunks.clear();
+        }
+        fireEvicted(removed);
+    }
+
+}
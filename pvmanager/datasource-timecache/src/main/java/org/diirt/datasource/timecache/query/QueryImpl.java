@@ -278,7 +278,7 @@ public class QueryImpl implements Query, PVCacheListener {
     public void close() {
         this.cache.removeListener(this);
         if (runningThreadToStorage != null) {
-            runningThreadToStorage.interrupt();
+            runningThreadToStorage.cancel();
             runningThreadToStorage = null;
         }
         Iterator<QueryChunk> itChunk = chunks.iterator();
@@ -0,0 +1,20 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.timecache.storage;
+
+/**
+ * Creates a {@link DataStorage} for each cached channel.
+ * @author Fred Arnaud (Sopra Group) - ITER
+ */
+public interface DataStorageFactory {
+
+    /**
+     * Creates the {@link DataStorage} dedicated to the specified channel.
+     * @param channelName name of the channel.
+     * @return a new {@link DataStorage}.
+     */
+    public DataStorage createStorage(String channelName);
+
+}
@@ -4,6 +4,7 @@
  */
 package org.diirt.datasource.timecache.util;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
 import java.time.Duration;
@@ -27,7 +28,7 @@ public class CacheHelper {
 
     static {
         try {
-            ps = new PrintStream("src/test/resources/logs.txt");
+            ps = new PrintStream(new File(System.getProperty("java.io.tmpdir"), "diirt-timecache-logs.txt"));
         } catch (FileNotFoundException e) {
         }
     }
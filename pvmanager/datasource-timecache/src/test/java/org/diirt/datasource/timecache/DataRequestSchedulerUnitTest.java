@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.timecache;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.diirt.datasource.timecache.source.DataSource;
+import org.diirt.datasource.timecache.source.SourceData;
+import org.diirt.util.time.TimeInterval;
+import org.diirt.vtype.ValueFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test {@link DataRequestScheduler}: requests are run by priority, merged
+ * when they overlap a queued one and limited per source.
+ * @author Fred Arnaud (Sopra Group) - ITER
+ */
+public class DataRequestSchedulerUnitTest {
+
+    private static final Instant start = Instant.ofEpochSecond(1400000000);
+
+    /** Source with one sample per second, blocked until released. */
+    private static class BlockingSource implements DataSource {
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public DataChunk getData(String channelName, Instant from) {
+            calls.add(channelName);
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            DataChunk chunk = new DataChunk(10);
+            long first = from.getEpochSecond() + (from.getNano() > 0 ? 1 : 0);
+            for (long s = first; s < start.getEpochSecond() + 100 && !chunk.isFull(); s++) {
+                Instant timestamp = Instant.ofEpochSecond(s);
+                chunk.add(new SourceData(timestamp, ValueFactory.newVDouble((double) s)));
+            }
+            return chunk;
+        }
+    }
+
+    private static class CountingListener implements DataRequestListener {
+
+        final CountDownLatch complete = new CountDownLatch(1);
+        volatile int samples = 0;
+
+        @Override
+        public void newData(DataChunk chunk, DataRequestThread thread) {
+            samples += chunk.getDatas().size();
+        }
+
+        @Override
+        public void intervalComplete(DataRequestThread thread) {
+            complete.countDown();
+        }
+    }
+
+    private static DataRequestThread request(String channelName, DataSource source,
+            int from, int to, CountingListener listener) throws Exception {
+        DataRequestThread request = new DataRequestThread(channelName, source,
+                TimeInterval.between(start.plusSeconds(from), start.plusSeconds(to)));
+        request.addListener(listener);
+        return request;
+    }
+
+    /**
+     * Test that a request overlapping a queued one for the same channel is
+     * merged into it and that both listeners are notified.
+     */
+    @Test
+    public void testMerge() throws Exception {
+        DataRequestScheduler scheduler = new DataRequestScheduler(1, 1);
+        BlockingSource source = new BlockingSource();
+        CountingListener l1 = new CountingListener();
+        CountingListener l2 = new CountingListener();
+        CountingListener l3 = new CountingListener();
+
+        scheduler.submit(request("other", source, 0, 9, new CountingListener()));
+        scheduler.submit(request("channel", source, 0, 29, l1));
+        scheduler.submit(request("channel", source, 20, 49, l2));
+        scheduler.submit(request("channel", source, 70, 79, l3));
+        Assert.assertEquals(1, scheduler.getMergedCount());
+        Assert.assertEquals(2, scheduler.getQueuedCount());
+
+        source.release.countDown();
+        Assert.assertTrue(l1.complete.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(l2.complete.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(l3.complete.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(50, l1.samples);
+        Assert.assertEquals(30, l2.samples);
+        Assert.assertEquals(10, l3.samples);
+        Assert.assertEquals(3, scheduler.getSubmittedCount());
+    }
+
+    /**
+     * Test that visible requests run before background ones and that a
+     * cancelled request is not run.
+     */
+    @Test
+    public void testPriority() throws Exception {
+        DataRequestScheduler scheduler = new DataRequestScheduler(1, 1);
+        BlockingSource source = new BlockingSource();
+        CountingListener last = new CountingListener();
+
+        scheduler.submit(request("first", source, 0, 9, new CountingListener()));
+        DataRequestThread background = request("background", source, 0, 9, last);
+        background.setFetchPriority(DataRequestScheduler.PRIORITY_BACKGROUND);
+        scheduler.submit(background);
+        DataRequestThread cancelled = request("cancelled", source, 0, 9, new CountingListener());
+        scheduler.submit(cancelled);
+        scheduler.submit(request("visible", source, 0, 9, new CountingListener()));
+        Assert.assertTrue(scheduler.remove(cancelled));
+
+        source.release.countDown();
+        Assert.assertTrue(last.complete.await(10, TimeUnit.SECONDS));
+        // each request polls a full chunk, then an empty one
+        Assert.assertEquals(6, source.calls.size());
+        Assert.assertEquals("visible", source.calls.get(2));
+        Assert.assertEquals("background", source.calls.get(4));
+    }
+
+    /**
+     * Test that the number of requests running on the same source is
+     * limited.
+     */
+    @Test
+    public void testLimitPerSource() throws Exception {
+        DataRequestScheduler scheduler = new DataRequestScheduler(4, 2);
+        BlockingSource source1 = new BlockingSource();
+        BlockingSource source2 = new BlockingSource();
+        for (int i = 0; i < 3; i++)
+            scheduler.submit(request("channel" + i, source1, 0, 9, new CountingListener()));
+        CountingListener listener = new CountingListener();
+        scheduler.submit(request("channel", source2, 0, 9, listener));
+
+        Assert.assertEquals(3, scheduler.getRunningCount());
+        Assert.assertEquals(1, scheduler.getQueuedCount());
+        source2.release.countDown();
+        Assert.assertTrue(listener.complete.await(10, TimeUnit.SECONDS));
+        source1.release.countDown();
+    }
+
+}
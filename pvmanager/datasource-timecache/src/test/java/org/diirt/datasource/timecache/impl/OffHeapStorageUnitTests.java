@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.timecache.impl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedSet;
+
+import org.diirt.datasource.timecache.Data;
+import org.diirt.datasource.timecache.DataChunk;
+import org.diirt.datasource.timecache.source.SourceData;
+import org.diirt.datasource.timecache.storage.DataStorageListener;
+import org.diirt.datasource.timecache.util.IntervalsList;
+import org.diirt.datasource.timecache.util.TimestampsSet;
+import org.diirt.util.time.TimeInterval;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.VDouble;
+import org.diirt.vtype.ValueFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test {@link OffHeapStorage}: stores provided samples in the arena and
+ * evicts the least recently used chunks when the arena is full.
+ * @author Fred Arnaud (Sopra Group) - ITER
+ */
+public class OffHeapStorageUnitTests {
+
+    private static final Instant start = Instant.ofEpochSecond(1400000000);
+
+    private static DataChunk chunkOf(int first, int count) {
+        DataChunk chunk = new DataChunk(count);
+        for (int i = first; i < first + count; i++) {
+            Instant timestamp = start.plusMillis(100 * i);
+            chunk.add(new SourceData(timestamp, ValueFactory.newVDouble((double) i,
+                    ValueFactory.newAlarm(i % 2 == 0 ? AlarmSeverity.NONE : AlarmSeverity.MINOR, "ALARM"),
+                    ValueFactory.newTime(timestamp), ValueFactory.displayNone())));
+        }
+        return chunk;
+    }
+
+    /**
+     * Test that no data is lost when writing/reading from storage, and that
+     * samples already stored are not duplicated.
+     */
+    @Test
+    public void testStorage() {
+        OffHeapArena arena = new OffHeapArena(1024 * 1024, 100);
+        OffHeapStorage storage = new OffHeapStorage(arena);
+        storage.storeData(null);
+        Assert.assertTrue(storage.getAvailableData(null).isEmpty());
+
+        DataChunk chunk = chunkOf(0, 250);
+        TimeInterval chunkInterval = chunk.getInterval();
+        Assert.assertEquals(250, storage.storeData(chunk).size());
+        Assert.assertEquals(250, storage.getStoredSampleCount());
+        Assert.assertEquals(3 * 100 * OffHeapArena.BYTES_PER_SAMPLE, arena.getUsedBytes());
+
+        SortedSet<Data> dataSet = storage.getAvailableData(chunkInterval);
+        Assert.assertEquals(250, dataSet.size());
+        Iterator<Data> itSet = dataSet.iterator();
+        for (Data expected : chunk.getDatas()) {
+            Data actual = itSet.next();
+            Assert.assertEquals(expected.getTimestamp(), actual.getTimestamp());
+            VDouble expectedValue = (VDouble) expected.getValue();
+            VDouble actualValue = (VDouble) actual.getValue();
+            Assert.assertEquals(expectedValue.getValue(), actualValue.getValue());
+            Assert.assertEquals(expectedValue.getAlarmSeverity(), actualValue.getAlarmSeverity());
+        }
+
+        // overlapping chunk: only the new samples are stored
+        Assert.assertEquals(50, storage.storeData(chunkOf(200, 100)).size());
+        Assert.assertEquals(300, storage.getStoredSampleCount());
+
+        // intervals with one/both missing border or reversed
+        Assert.assertEquals(300, storage.getAvailableData(TimeInterval.between(null, null)).size());
+        Assert.assertEquals(51, storage.getAvailableData(TimeInterval.between(start.plusMillis(100 * 249), null)).size());
+        Assert.assertEquals(11, storage.getAvailableData(TimeInterval.between(start.plusSeconds(1), start)).size());
+        Assert.assertTrue(storage.hasAvailableData(TimeInterval.between(start, start.plusMillis(50))));
+        Assert.assertFalse(storage.hasAvailableData(TimeInterval.between(start.plusMillis(10), start.plusMillis(50))));
+
+        // reading from an instant
+        DataChunk read = storage.getData("test", start.plusMillis(100 * 150));
+        Assert.assertEquals(150, read.getDatas().size());
+        Assert.assertEquals(start.plusMillis(100 * 150), read.getDatas().first().getTimestamp());
+    }
+
+    /**
+     * Test that the least recently used chunk is evicted when the arena is
+     * full and that listeners are notified of the exact lost interval.
+     */
+    @Test
+    public void testEviction() {
+        OffHeapArena arena = new OffHeapArena(2 * 100 * OffHeapArena.BYTES_PER_SAMPLE, 100);
+        OffHeapStorage storage1 = (OffHeapStorage) arena.createStorage("channel1");
+        OffHeapStorage storage2 = (OffHeapStorage) arena.createStorage("channel2");
+        final List<IntervalsList> lost1 = new ArrayList<IntervalsList>();
+        storage1.addListener(new DataStorageListener() {
+            @Override
+            public void dataLoss(TimestampsSet lostSet) {
+                lost1.add(lostSet.toIntervalsList());
+            }
+        });
+
+        storage1.storeData(chunkOf(0, 100));
+        storage1.storeData(chunkOf(100, 100));
+        // first chunk is now the most recently used
+        storage1.getAvailableData(TimeInterval.between(start, start.plusSeconds(1)));
+        storage2.storeData(chunkOf(0, 100));
+
+        Assert.assertEquals(1, lost1.size());
+        Assert.assertEquals(new IntervalsList(TimeInterval.between(start.plusMillis(100 * 100), start.plusMillis(100 * 199))).toString(),
+                lost1.get(0).toString());
+        Assert.assertEquals(100, storage1.getStoredSampleCount());
+        Assert.assertEquals(100, storage2.getStoredSampleCount());
+        Assert.assertEquals(0, storage1.getAvailableData(TimeInterval.between(start.plusMillis(100 * 100), null)).size());
+
+        storage1.clearAll();
+        Assert.assertEquals(2, lost1.size());
+        Assert.assertEquals(0, storage1.getStoredSampleCount());
+        Assert.assertEquals(100 * OffHeapArena.BYTES_PER_SAMPLE, arena.getUsedBytes());
+    }
+
+}
@@ -28,14 +28,26 @@ class AverageAggregator extends Aggregator<VDouble, VDouble> {
         // TODO: this code should be consolidated with the StatisticsDoubleAggregator
         double totalSum = 0;
         AlarmSeverity statSeverity = null;
-        for (VDouble vDouble : data) {
-            switch(vDouble.getAlarmSeverity()) {
+        // Samples from a VDoubleQueueCollector are read without creating VDoubles
+        VDoubleSamples samples = data instanceof VDoubleSamples ? (VDoubleSamples) data : null;
+        for (int i = 0; i < data.size(); i++) {
+            AlarmSeverity severity;
+            double value;
+            if (samples != null) {
+                severity = samples.getAlarmSeverity(i);
+                value = samples.getValues().getDouble(i);
+            } else {
+                VDouble vDouble = data.get(i);
+                severity = vDouble.getAlarmSeverity();
+                value = vDouble.getValue();
+            }
+            switch(severity) {
                 case NONE:
                     // if severity was never MINOR or MAJOR,
                     // severity should be NONE
                     if (statSeverity != MINOR || statSeverity != MAJOR)
                         statSeverity = NONE;
-                    totalSum += vDouble.getValue();
+                    totalSum += value;
                     break;
 
                 case MINOR:
@@ -43,12 +55,12 @@ class AverageAggregator extends Aggregator<VDouble, VDouble> {
                     // set it to MINOR
                     if (statSeverity != MAJOR)
                         statSeverity = MINOR;
-                    totalSum += vDouble.getValue();
+                    totalSum += value;
                     break;
 
                 case MAJOR:
                     statSeverity = MAJOR;
-                    totalSum += vDouble.getValue();
+                    totalSum += value;
                     break;
 
                 case UNDEFINED:
@@ -466,6 +466,33 @@ public class ExpressionLanguage {
         return new DesiredRateReadWriteExpressionImpl<>(readExp, writeExp);
     }
 
+    /**
+     * Returns up to 1,000 new values generated by the expression source rate,
+     * stored as primitive samples.
+     * <p>
+     * The values are collected by a {@link VDoubleQueueCollector}, so that
+     * only the value, time and alarm of each sample are kept between reads.
+     *
+     * @param expression source rate expression; can't be null
+     * @return a new expression
+     */
+    public static DesiredRateExpression<List<VDouble>> newVDoublesOf(SourceRateExpression<? extends VNumber> expression) {
+        return newVDoublesOf(expression, 1000);
+    }
+
+    /**
+     * Returns up to maxValues new values generated by the expression source rate,
+     * stored as primitive samples.
+     *
+     * @param expression source rate expression; can't be null
+     * @param maxValues maximum number of values to send with each notification
+     * @return a new expression
+     */
+    public static DesiredRateExpression<List<VDouble>> newVDoublesOf(SourceRateExpression<? extends VNumber> expression, int maxValues) {
+        return new DesiredRateExpressionImpl<List<VDouble>>(expression,
+                new VDoubleQueueCollector(maxValues), expression.getName());
+    }
+
     /**
      * Aggregates the sample at the scan rate and takes the average.
      *
@@ -473,7 +500,7 @@ public class ExpressionLanguage {
      * @return an expression representing the average of the expression
      */
     public static DesiredRateExpression<VDouble> averageOf(SourceRateExpression<VDouble> doublePv) {
-        DesiredRateExpression<List<VDouble>> queue = newValuesOf(doublePv);
+        DesiredRateExpression<List<VDouble>> queue = newVDoublesOf(doublePv);
         return new DesiredRateExpressionImpl<VDouble>(queue,
                 new AverageAggregator(queue.getFunction()), "avg(" + doublePv.getName() + ")");
     }
@@ -485,7 +512,7 @@ public class ExpressionLanguage {
      * @return an expression representing the statistical information of the expression
      */
     public static DesiredRateExpression<VStatistics> statisticsOf(SourceRateExpression<VDouble> doublePv) {
-        DesiredRateExpression<List<VDouble>> queue = newValuesOf(doublePv);
+        DesiredRateExpression<List<VDouble>> queue = newVDoublesOf(doublePv);
         return new DesiredRateExpressionImpl<VStatistics>(queue,
                 new StatisticsDoubleAggregator(queue.getFunction()), "stats(" + doublePv.getName() + ")");
     }
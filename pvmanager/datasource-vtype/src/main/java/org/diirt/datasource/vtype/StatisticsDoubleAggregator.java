@@ -56,14 +56,26 @@ class StatisticsDoubleAggregator extends Aggregator<VStatistics, VDouble> {
     protected VStatistics calculate(List<VDouble> data) {
         Stats stats = new Stats();
         AlarmSeverity statSeverity = null;
-        for (VDouble vDouble : data) {
-            switch(vDouble.getAlarmSeverity()) {
+        // Samples from a VDoubleQueueCollector are read without creating VDoubles
+        VDoubleSamples samples = data instanceof VDoubleSamples ? (VDoubleSamples) data : null;
+        for (int i = 0; i < data.size(); i++) {
+            AlarmSeverity severity;
+            double value;
+            if (samples != null) {
+                severity = samples.getAlarmSeverity(i);
+                value = samples.getValues().getDouble(i);
+            } else {
+                VDouble vDouble = data.get(i);
+                severity = vDouble.getAlarmSeverity();
+                value = vDouble.getValue();
+            }
+            switch(severity) {
                 case NONE:
                     // if severity was never MINOR or MAJOR,
                     // severity should be NONE
                     if (statSeverity != MINOR || statSeverity != MAJOR)
                         statSeverity = NONE;
-                    stats.includeValue(vDouble.getValue());
+                    stats.includeValue(value);
                     break;
 
                 case MINOR:
@@ -71,12 +83,12 @@ class StatisticsDoubleAggregator extends Aggregator<VStatistics, VDouble> {
                     // set it to MINOR
                     if (statSeverity != MAJOR)
                         statSeverity = MINOR;
-                    stats.includeValue(vDouble.getValue());
+                    stats.includeValue(value);
                     break;
 
                 case MAJOR:
                     statSeverity = MAJOR;
-                    stats.includeValue(vDouble.getValue());
+                    stats.includeValue(value);
                     break;
 
                 case UNDEFINED:
@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.vtype;
+
+import java.util.List;
+
+import org.diirt.datasource.Collector;
+import org.diirt.vtype.Display;
+import org.diirt.vtype.VDouble;
+import org.diirt.vtype.VNumber;
+import org.diirt.vtype.ValueFactory;
+import org.diirt.vtype.ValueUtil;
+
+/**
+ * Collects numeric values at read rate and puts them in a queue of
+ * primitive samples.
+ * <p>
+ * Works like {@link org.diirt.datasource.CircularQueueCollector}, but
+ * only the value, the timestamp and the alarm of each sample are kept in
+ * primitive arrays, and the display information is copied, so that the
+ * incoming {@link VNumber}s are not retained until the next read. The list
+ * returned is a {@link VDoubleSamples}, which is valid until the next read.
+ *
+ * @author carcassi
+ */
+public class VDoubleQueueCollector implements Collector<VNumber, List<VDouble>> {
+
+    private final Object lock = new Object();
+    private VDoubleSamples readBuffer;
+    private VDoubleSamples writeBuffer;
+    private int maxSize;
+    private long droppedCount;
+    private Runnable notification;
+    private Display display;
+
+    /**
+     * New queue collector with the given max size for the queue.
+     *
+     * @param maxSize maximum number of elements in the queue
+     */
+    public VDoubleQueueCollector(int maxSize) {
+        synchronized(lock) {
+            this.maxSize = maxSize;
+            readBuffer = new VDoubleSamples();
+            writeBuffer = new VDoubleSamples();
+        }
+    }
+
+    @Override
+    public void setChangeNotification(Runnable notification) {
+        synchronized (lock) {
+            this.notification = notification;
+        }
+    }
+
+    @Override
+    public void writeValue(VNumber newValue) {
+        Runnable task;
+        synchronized(lock) {
+            if (writeBuffer.addValue(newValue.getValue().doubleValue(), newValue.getTimestamp(), newValue.isTimeValid(),
+                    newValue.getAlarmSeverity(), newValue.getAlarmName(), displayOf(newValue), maxSize)) {
+                droppedCount++;
+            }
+            task = notification;
+        }
+        // Run task without holding the lock
+        if (task != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * The display information of the value, without retaining the value
+     * itself. The previous display is reused if nothing changed.
+     */
+    private Display displayOf(Display newDisplay) {
+        if (display == null || !ValueUtil.displayEquals(display, newDisplay)) {
+            display = ValueFactory.newDisplay(newDisplay.getLowerDisplayLimit(), newDisplay.getLowerAlarmLimit(),
+                    newDisplay.getLowerWarningLimit(), newDisplay.getUnits(), newDisplay.getFormat(),
+                    newDisplay.getUpperWarningLimit(), newDisplay.getUpperAlarmLimit(), newDisplay.getUpperDisplayLimit(),
+                    newDisplay.getLowerCtrlLimit(), newDisplay.getUpperCtrlLimit());
+        }
+        return display;
+    }
+
+    @Override
+    public List<VDouble> readValue() {
+        synchronized(lock) {
+            VDoubleSamples data = writeBuffer;
+            writeBuffer = readBuffer;
+            // The max size may have been lowered since this buffer was filled
+            writeBuffer.clearValues(maxSize);
+            readBuffer = data;
+            return readBuffer;
+        }
+    }
+
+    /**
+     * Changes the number of maximum values in the queue.
+     * <p>
+     * If new maxSize is less than the current number of element in the queue,
+     * the old values are discarded.
+     *
+     * @param maxSize the maximum number of elements in the queue
+     */
+    public void setMaxSize(int maxSize) {
+        synchronized(lock) {
+            this.maxSize = maxSize;
+            droppedCount += writeBuffer.trim(maxSize);
+        }
+    }
+
+    /**
+     * The maximum number of elements in the queue.
+     *
+     * @return the maximum number of elements in the queue
+     */
+    public int getMaxSize() {
+        synchronized(lock) {
+            return maxSize;
+        }
+    }
+
+    /**
+     * The total number of values that were discarded because the
+     * queue was full.
+     *
+     * @return the number of values dropped since creation
+     */
+    public long getDroppedCount() {
+        synchronized(lock) {
+            return droppedCount;
+        }
+    }
+
+}
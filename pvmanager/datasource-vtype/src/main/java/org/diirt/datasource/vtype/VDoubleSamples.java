@@ -0,0 +1,212 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.vtype;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import org.diirt.datasource.CircularBuffer;
+import org.diirt.util.array.ListDouble;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.Display;
+import org.diirt.vtype.VDouble;
+
+import static org.diirt.vtype.ValueFactory.*;
+
+/**
+ * A list of numeric samples stored in parallel primitive arrays: the
+ * value, the epoch nanoseconds and the validity of the timestamp and the
+ * alarm severity.
+ * <p>
+ * This is the list returned by {@link VDoubleQueueCollector}. Consumers
+ * that know about it can read the values through {@link #getValues() } and
+ * the other accessors without creating a {@link VDouble} for each sample.
+ * {@link #get(int) } creates a new {@link VDouble} at each call: the
+ * display is the one of the latest sample, and the time user tag is not
+ * retained.
+ *
+ * @author carcassi
+ */
+public final class VDoubleSamples extends CircularBuffer<VDouble> {
+
+    private static final AlarmSeverity[] severityValues = AlarmSeverity.values();
+
+    /**
+     * Marks a sample without timestamp.
+     */
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private double[] values = new double[0];
+    private long[] timestamps = new long[0];
+    private byte[] severities = new byte[0];
+    private boolean[] timeValids = new boolean[0];
+    private String[] alarmNames = new String[0];
+    private Display display;
+
+    private final ListDouble valuesView = new ListDouble() {
+
+        @Override
+        public double getDouble(int index) {
+            return values[position(index)];
+        }
+
+        @Override
+        public int size() {
+            return VDoubleSamples.this.size();
+        }
+    };
+
+    VDoubleSamples() {
+    }
+
+    /**
+     * Adds a sample, overwriting the oldest one if the buffer
+     * has reached the max size.
+     *
+     * @return true if the oldest sample was dropped
+     */
+    boolean addValue(double value, Instant timestamp, boolean timeValid, AlarmSeverity severity, String alarmName, Display display, int maxSize) {
+        if (maxSize <= 0) {
+            return true;
+        }
+
+        this.display = display;
+        boolean dropped = append(maxSize);
+        int index = position(size() - 1);
+        values[index] = value;
+        timestamps[index] = timestamp == null ? NO_TIMESTAMP : timestamp.getEpochSecond() * 1_000_000_000L + timestamp.getNano();
+        timeValids[index] = timeValid;
+        severities[index] = (byte) severity.ordinal();
+        alarmNames[index] = alarmName;
+        return dropped;
+    }
+
+    /**
+     * Drops the oldest samples so that no more than maxSize are left.
+     *
+     * @return the number of samples dropped
+     */
+    int trim(int maxSize) {
+        return dropOldest(maxSize);
+    }
+
+    /**
+     * Removes all samples, shrinking the buffer if it is larger
+     * than the max size.
+     */
+    void clearValues(int maxSize) {
+        reset(maxSize);
+    }
+
+    @Override
+    protected void reallocate(int capacity, int offset, int count) {
+        double[] newValues = new double[capacity];
+        long[] newTimestamps = new long[capacity];
+        boolean[] newTimeValids = new boolean[capacity];
+        byte[] newSeverities = new byte[capacity];
+        String[] newAlarmNames = new String[capacity];
+        for (int i = 0; i < count; i++) {
+            int position = position(i + offset);
+            newValues[i] = values[position];
+            newTimestamps[i] = timestamps[position];
+            newTimeValids[i] = timeValids[position];
+            newSeverities[i] = severities[position];
+            newAlarmNames[i] = alarmNames[position];
+        }
+        values = newValues;
+        timestamps = newTimestamps;
+        timeValids = newTimeValids;
+        severities = newSeverities;
+        alarmNames = newAlarmNames;
+    }
+
+    @Override
+    protected void release(int fromPosition, int toPosition) {
+        // Only the alarm names are references that need to be released
+        Arrays.fill(alarmNames, fromPosition, toPosition, null);
+    }
+
+    /**
+     * The values of all the samples, oldest first. The list is a view
+     * and is valid as long as this list.
+     *
+     * @return the sample values
+     */
+    public ListDouble getValues() {
+        return valuesView;
+    }
+
+    /**
+     * The timestamp of the sample at the given index, as nanoseconds
+     * from the epoch.
+     *
+     * @param index the index of the sample
+     * @return the epoch nanoseconds, or {@link Long#MIN_VALUE} if the
+     * sample had no timestamp
+     */
+    public long getTimestampNanos(int index) {
+        return timestamps[position(index)];
+    }
+
+    /**
+     * The timestamp of the sample at the given index.
+     *
+     * @param index the index of the sample
+     * @return the timestamp; can be null
+     */
+    public Instant getTimestamp(int index) {
+        long nanos = getTimestampNanos(index);
+        if (nanos == NO_TIMESTAMP) {
+            return null;
+        }
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), Math.floorMod(nanos, 1_000_000_000L));
+    }
+
+    /**
+     * Whether the timestamp of the sample at the given index is valid.
+     *
+     * @param index the index of the sample
+     * @return true if the time was valid
+     */
+    public boolean isTimeValid(int index) {
+        return timeValids[position(index)];
+    }
+
+    /**
+     * The alarm severity of the sample at the given index.
+     *
+     * @param index the index of the sample
+     * @return the alarm severity
+     */
+    public AlarmSeverity getAlarmSeverity(int index) {
+        return severityValues[severities[position(index)]];
+    }
+
+    /**
+     * The alarm name of the sample at the given index.
+     *
+     * @param index the index of the sample
+     * @return the alarm name
+     */
+    public String getAlarmName(int index) {
+        return alarmNames[position(index)];
+    }
+
+    /**
+     * The display of the latest sample.
+     *
+     * @return the display; null if no sample was ever added
+     */
+    public Display getDisplay() {
+        return display;
+    }
+
+    @Override
+    public VDouble get(int index) {
+        return newVDouble(getValues().getDouble(index), newAlarm(getAlarmSeverity(index), getAlarmName(index)),
+                newTime(getTimestamp(index), null, isTimeValid(index)), display);
+    }
+
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource.vtype;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.diirt.util.array.ArrayDouble;
+import org.diirt.util.text.NumberFormats;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.Display;
+import org.diirt.vtype.VDouble;
+import org.diirt.vtype.ValueUtil;
+import org.junit.Test;
+
+import static org.diirt.vtype.ValueFactory.*;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class VDoubleQueueCollectorTest {
+
+    private static VDouble value(double value, long epochSecond, AlarmSeverity severity) {
+        return newVDouble(value, newAlarm(severity, severity.name()), newTime(Instant.ofEpochSecond(epochSecond, 123)), displayNone());
+    }
+
+    @Test
+    public void inputOutput() {
+        VDoubleQueueCollector collector = new VDoubleQueueCollector(5);
+        assertThat(collector.readValue().size(), equalTo(0));
+        collector.writeValue(value(1.0, 100, AlarmSeverity.NONE));
+        collector.writeValue(value(2.0, 101, AlarmSeverity.MINOR));
+        collector.writeValue(value(3.0, 102, AlarmSeverity.MAJOR));
+
+        List<VDouble> values = collector.readValue();
+        assertThat(values, instanceOf(VDoubleSamples.class));
+        VDoubleSamples samples = (VDoubleSamples) values;
+        assertThat(samples.getValues(), equalTo((Object) new ArrayDouble(1.0, 2.0, 3.0)));
+        assertThat(samples.getTimestamp(1), equalTo(Instant.ofEpochSecond(101, 123)));
+        assertThat(samples.getTimestampNanos(1), equalTo(101_000_000_123L));
+        assertThat(samples.getAlarmSeverity(2), equalTo(AlarmSeverity.MAJOR));
+
+        VDouble vDouble = values.get(1);
+        assertThat(vDouble.getValue(), equalTo(2.0));
+        assertThat(vDouble.getAlarmSeverity(), equalTo(AlarmSeverity.MINOR));
+        assertThat(vDouble.getAlarmName(), equalTo("MINOR"));
+        assertThat(vDouble.getTimestamp(), equalTo(Instant.ofEpochSecond(101, 123)));
+        assertThat(vDouble.getUpperDisplayLimit(), equalTo(displayNone().getUpperDisplayLimit()));
+
+        assertThat(collector.readValue().size(), equalTo(0));
+    }
+
+    @Test
+    public void overflow() {
+        VDoubleQueueCollector collector = new VDoubleQueueCollector(100);
+        for (int n = 0; n < 3; n++) {
+            for (int i = 0; i < 250; i++) {
+                collector.writeValue(value(i, i, AlarmSeverity.NONE));
+            }
+            VDoubleSamples samples = (VDoubleSamples) collector.readValue();
+            assertThat(samples.size(), equalTo(100));
+            for (int i = 0; i < 100; i++) {
+                assertThat(samples.getValues().getDouble(i), equalTo(150.0 + i));
+                assertThat(samples.getTimestamp(i), equalTo(Instant.ofEpochSecond(150 + i, 123)));
+            }
+        }
+        assertThat(collector.getDroppedCount(), equalTo(450L));
+    }
+
+    @Test
+    public void setMaxSize() {
+        VDoubleQueueCollector collector = new VDoubleQueueCollector(5);
+        for (int i = 0; i < 5; i++) {
+            collector.writeValue(value(i, i, AlarmSeverity.NONE));
+        }
+        collector.setMaxSize(2);
+        assertThat(collector.getMaxSize(), equalTo(2));
+        assertThat(collector.getDroppedCount(), equalTo(3L));
+        VDoubleSamples samples = (VDoubleSamples) collector.readValue();
+        assertThat(samples.getValues(), equalTo((Object) new ArrayDouble(3.0, 4.0)));
+    }
+
+    @Test
+    public void setMaxSizeAfterRead() {
+        VDoubleQueueCollector collector = new VDoubleQueueCollector(10);
+        for (int n = 0; n < 2; n++) {
+            for (int i = 0; i < 10; i++) {
+                collector.writeValue(value(i, i, AlarmSeverity.NONE));
+            }
+            assertThat(collector.readValue().size(), equalTo(10));
+        }
+
+        collector.setMaxSize(3);
+        for (int n = 0; n < 2; n++) {
+            collector.readValue();
+            for (int i = 0; i < 10; i++) {
+                collector.writeValue(value(i, i, AlarmSeverity.NONE));
+            }
+            VDoubleSamples samples = (VDoubleSamples) collector.readValue();
+            assertThat(samples.getValues(), equalTo((Object) new ArrayDouble(7.0, 8.0, 9.0)));
+        }
+        assertThat(collector.getDroppedCount(), equalTo(14L));
+    }
+
+    @Test
+    public void timeValidAndDisplay() {
+        VDoubleQueueCollector collector = new VDoubleQueueCollector(5);
+        Display display = newDisplay(0.0, 1.0, 2.0, "mm", NumberFormats.format(2), 8.0, 9.0, 10.0, 0.0, 10.0);
+        VDouble valid = newVDouble(1.0, alarmNone(), newTime(Instant.ofEpochSecond(100), null, true), display);
+        VDouble invalid = newVDouble(2.0, alarmNone(), newTime(Instant.ofEpochSecond(101), null, false), display);
+        collector.writeValue(valid);
+        collector.writeValue(invalid);
+
+        VDoubleSamples samples = (VDoubleSamples) collector.readValue();
+        assertThat(samples.isTimeValid(0), equalTo(true));
+        assertThat(samples.isTimeValid(1), equalTo(false));
+        assertThat(samples.get(0).isTimeValid(), equalTo(true));
+        assertThat(samples.get(1).isTimeValid(), equalTo(false));
+        assertThat(samples.get(1).getTimestamp(), equalTo(Instant.ofEpochSecond(101)));
+
+        // The display is a copy, not the last value
+        assertThat(samples.getDisplay(), not(sameInstance((Display) invalid)));
+        assertThat(ValueUtil.displayEquals(samples.getDisplay(), display), equalTo(true));
+        Display first = samples.getDisplay();
+        collector.writeValue(valid);
+        assertThat(((VDoubleSamples) collector.readValue()).getDisplay(), sameInstance(first));
+    }
+}
@@ -15,16 +15,32 @@ import java.util.concurrent.TimeUnit;
  */
 class ActiveScanDecoupler extends SourceDesiredRateDecoupler {
 
+    /**
+     * Whether scans run on a shared {@link ScanWheel} by default, set by the
+     * "ScanWheel" system property. The wheel uses fewer timers, but on few
+     * cores it costs more cpu and adds jitter compared to one periodic task
+     * per scan, so it is off by default.
+     */
+    static final boolean DEFAULT_SCAN_WHEEL = Boolean.getBoolean("ScanWheel");
+
+    private final boolean scanWheel;
     private volatile ScheduledFuture<?> scanTaskHandle;
+    private volatile ScanWheel.Registration scanRegistration;
 
     public ActiveScanDecoupler(ScheduledExecutorService scannerExecutor,
             Duration maxDuration, DesiredRateEventListener listener) {
+        this(scannerExecutor, maxDuration, listener, DEFAULT_SCAN_WHEEL);
+    }
+
+    ActiveScanDecoupler(ScheduledExecutorService scannerExecutor,
+            Duration maxDuration, DesiredRateEventListener listener, boolean scanWheel) {
         super(scannerExecutor, maxDuration, listener);
+        this.scanWheel = scanWheel;
     }
 
     @Override
     void onStart() {
-        scanTaskHandle = getScannerExecutor().scheduleWithFixedDelay(new Runnable() {
+        Runnable scan = new Runnable() {
 
             @Override
             public void run() {
@@ -38,7 +54,12 @@ class ActiveScanDecoupler extends SourceDesiredRateDecoupler {
                     sendDesiredRateEvent(event);
                 }
             }
-        }, 0, getMaxDuration().toNanos(), TimeUnit.NANOSECONDS);
+        };
+        if (scanWheel) {
+            scanRegistration = ScanWheel.register(getScannerExecutor(), getMaxDuration(), scan);
+        } else {
+            scanTaskHandle = getScannerExecutor().scheduleWithFixedDelay(scan, 0, getMaxDuration().toNanos(), TimeUnit.NANOSECONDS);
+        }
     }
 
     @Override
@@ -46,6 +67,9 @@ class ActiveScanDecoupler extends SourceDesiredRateDecoupler {
         if (scanTaskHandle != null) {
             scanTaskHandle.cancel(false);
             scanTaskHandle = null;
+        } else if (scanRegistration != null) {
+            scanRegistration.cancel();
+            scanRegistration = null;
         } else {
             throw new IllegalStateException("Scan was never started");
         }
@@ -17,6 +17,8 @@ public abstract class ChannelHandler {
 
     private static final Logger log = Logger.getLogger(ChannelHandler.class.getName());
     private final String channelName;
+    /** Null if metrics were disabled when the handler was created */
+    private final ChannelMetrics metrics;
 
     /**
      * Creates a new channel handler.
@@ -28,6 +30,16 @@ public abstract class ChannelHandler {
             throw new NullPointerException("Channel name cannot be null");
         }
         this.channelName = channelName;
+        this.metrics = MetricsRegistry.createChannelMetrics(channelName);
+    }
+
+    /**
+     * The metrics for this handler.
+     *
+     * @return the metrics; null if metrics were disabled at creation
+     */
+    ChannelMetrics getMetrics() {
+        return metrics;
     }
 
     /**
@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and timings for the messages processed by a single
+ * {@link ChannelHandler}.
+ * <p>
+ * The numbers are accumulated from the creation of the handler and
+ * can be read at any time, from any thread.
+ *
+ * @author carcassi
+ */
+public final class ChannelMetrics {
+
+    private final String channelName;
+    private final AtomicLong messages = new AtomicLong();
+    private final LatencyHistogram processMessageTime = new LatencyHistogram();
+
+    ChannelMetrics(String channelName) {
+        this.channelName = channelName;
+    }
+
+    void message(long processNanos) {
+        messages.incrementAndGet();
+        processMessageTime.record(processNanos);
+    }
+
+    /**
+     * The name of the channel.
+     *
+     * @return the channel name
+     */
+    public String getChannelName() {
+        return channelName;
+    }
+
+    /**
+     * The number of messages received by the handler.
+     *
+     * @return the number of messages
+     */
+    public long getMessages() {
+        return messages.get();
+    }
+
+    /**
+     * The time taken to dispatch a message to all the readers
+     * of the channel.
+     *
+     * @return the histogram of the dispatch times
+     */
+    public LatencyHistogram getProcessMessageTime() {
+        return processMessageTime;
+    }
+
+    @Override
+    public String toString() {
+        return "ChannelMetrics[" + channelName + ": messages " + getMessages() + ", processMessage " + processMessageTime + "]";
+    }
+
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource;
+
+import java.util.AbstractList;
+
+/**
+ * A list backed by a circular buffer that grows up to a max size, after
+ * which each new element overwrites the oldest one.
+ * <p>
+ * This class keeps track of which positions of the storage are in use,
+ * while the subclass holds the storage itself (for example, one or more
+ * arrays) and allocates it in {@link #reallocate(int, int, int) }. The max
+ * size is given at each call, so that it can change over time: after an
+ * element is added or the buffer is cleared, the capacity is never more
+ * than the max size given to that call.
+ *
+ * @param <T> the type of the elements
+ * @author carcassi
+ */
+public abstract class CircularBuffer<T> extends AbstractList<T> {
+
+    private int capacity;
+    private int head;
+    private int size;
+
+    /**
+     * Replaces the storage with a new one of the given capacity, copying
+     * the elements at indexes from offset to offset + count to the positions
+     * from 0 to count.
+     *
+     * @param capacity the capacity of the new storage
+     * @param offset the index of the first element to keep
+     * @param count the number of elements to keep
+     */
+    protected abstract void reallocate(int capacity, int offset, int count);
+
+    /**
+     * Releases the references held at the positions from fromPosition
+     * (inclusive) to toPosition (exclusive). Storage that does not hold
+     * references can ignore the call.
+     *
+     * @param fromPosition the first position
+     * @param toPosition the position after the last
+     */
+    protected abstract void release(int fromPosition, int toPosition);
+
+    /**
+     * Adds a slot at the end of the list, dropping the oldest element
+     * if the list has reached the max size. The position in the storage
+     * of the new slot is {@code position(size() - 1)}.
+     *
+     * @param maxSize the maximum number of elements; must be positive
+     * @return true if the oldest element was dropped
+     */
+    protected final boolean append(int maxSize) {
+        if (size < capacity && size < maxSize) {
+            size++;
+            return false;
+        }
+
+        if (capacity > maxSize) {
+            // The max size was lowered: keep only what fits with the new slot
+            move(maxSize, size - maxSize + 1);
+            size++;
+            return true;
+        }
+
+        if (capacity < maxSize) {
+            move(Math.min(maxSize, Math.max(16, capacity * 2)), 0);
+            size++;
+            return false;
+        }
+
+        // Full: the new slot is the one of the oldest
+        head++;
+        if (head == capacity) {
+            head = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Drops the oldest elements so that no more than maxSize are left.
+     *
+     * @param maxSize the maximum number of elements
+     * @return the number of elements dropped
+     */
+    protected final int dropOldest(int maxSize) {
+        int nDropped = Math.max(0, size - maxSize);
+        move(Math.max(0, Math.min(capacity, maxSize)), nDropped);
+        return nDropped;
+    }
+
+    /**
+     * Removes all the elements, releasing the storage if it is larger
+     * than the max size.
+     *
+     * @param maxSize the maximum number of elements
+     */
+    protected final void reset(int maxSize) {
+        if (capacity > maxSize) {
+            move(Math.max(0, maxSize), size);
+            return;
+        }
+
+        if (head + size <= capacity) {
+            release(head, head + size);
+        } else {
+            release(head, capacity);
+            release(0, head + size - capacity);
+        }
+        head = 0;
+        size = 0;
+    }
+
+    private void move(int newCapacity, int nDropped) {
+        int newSize = size - nDropped;
+        reallocate(newCapacity, nDropped, newSize);
+        capacity = newCapacity;
+        head = 0;
+        size = newSize;
+    }
+
+    /**
+     * The position in the storage of the element at the given index.
+     *
+     * @param index the index of the element
+     * @return the position in the storage
+     */
+    protected final int position(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int position = head + index;
+        if (position >= capacity) {
+            position -= capacity;
+        }
+        return position;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects value at read rate and puts them in a queue backed by a
+ * circular buffer.
+ * <p>
+ * Always returns new value as every read clears the cache.
+ * The values are returned oldest value first. When maxSize is reached,
+ * the oldest values are overwritten, in constant time, and counted
+ * as dropped.
+ * <p>
+ * Like {@link QueueCollector}, two buffers are used: one is written to
+ * while the other one is returned by the read. The list returned by
+ * {@link #readValue() } is a view of the read buffer and is valid until
+ * the next read.
+ *
+ * @param <T> the type contained in the queue
+ * @author carcassi
+ */
+public class CircularQueueCollector<T> implements Collector<T, List<T>> {
+
+    private final Object lock = new Object();
+    private Buffer<T> readBuffer;
+    private Buffer<T> writeBuffer;
+    private int maxSize;
+    private long droppedCount;
+    private Runnable notification;
+
+    /**
+     * A circular buffer of objects that grows up to the max size.
+     */
+    private static class Buffer<T> extends CircularBuffer<T> {
+
+        private Object[] data = new Object[0];
+
+        /**
+         * Adds the value, overwriting the oldest one if the buffer
+         * has reached the max size.
+         *
+         * @return true if the oldest value was dropped
+         */
+        boolean addValue(T value, int maxSize) {
+            if (maxSize <= 0) {
+                return true;
+            }
+
+            boolean dropped = append(maxSize);
+            data[position(size() - 1)] = value;
+            return dropped;
+        }
+
+        /**
+         * Drops the oldest values so that no more than maxSize are left.
+         *
+         * @return the number of values dropped
+         */
+        int trim(int maxSize) {
+            return dropOldest(maxSize);
+        }
+
+        /**
+         * Removes all values, shrinking the buffer if it is larger
+         * than the max size.
+         */
+        void clearValues(int maxSize) {
+            reset(maxSize);
+        }
+
+        @Override
+        protected void reallocate(int capacity, int offset, int count) {
+            Object[] newData = new Object[capacity];
+            for (int i = 0; i < count; i++) {
+                newData[i] = data[position(i + offset)];
+            }
+            data = newData;
+        }
+
+        @Override
+        protected void release(int fromPosition, int toPosition) {
+            // Release the references so that the values can be collected
+            Arrays.fill(data, fromPosition, toPosition, null);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            return (T) data[position(index)];
+        }
+    }
+
+    /**
+     * New queue collector with the given max size for the queue.
+     *
+     * @param maxSize maximum number of elements in the queue
+     */
+    public CircularQueueCollector(int maxSize) {
+        synchronized(lock) {
+            this.maxSize = maxSize;
+            readBuffer = new Buffer<>();
+            writeBuffer = new Buffer<>();
+        }
+    }
+
+    @Override
+    public void setChangeNotification(Runnable notification) {
+        synchronized (lock) {
+            this.notification = notification;
+        }
+    }
+
+    @Override
+    public void writeValue(T newValue) {
+        Runnable task;
+        synchronized(lock) {
+            if (writeBuffer.addValue(newValue, maxSize)) {
+                droppedCount++;
+            }
+            task = notification;
+        }
+        // Run task without holding the lock
+        if (task != null) {
+            task.run();
+        }
+    }
+
+    @Override
+    public List<T> readValue() {
+        synchronized(lock) {
+            Buffer<T> data = writeBuffer;
+            writeBuffer = readBuffer;
+            // The max size may have been lowered since this buffer was filled
+            writeBuffer.clearValues(maxSize);
+            readBuffer = data;
+            return readBuffer;
+        }
+    }
+
+    /**
+     * Changes the number of maximum values in the queue.
+     * <p>
+     * If new maxSize is less than the current number of element in the queue,
+     * the old values are discarded.
+     *
+     * @param maxSize the maximum number of elements in the queue
+     */
+    public void setMaxSize(int maxSize) {
+        synchronized(lock) {
+            this.maxSize = maxSize;
+            droppedCount += writeBuffer.trim(maxSize);
+        }
+    }
+
+    /**
+     * The maximum number of elements in the queue.
+     *
+     * @return the maximum number of elements in the queue
+     */
+    public int getMaxSize() {
+        synchronized(lock) {
+            return maxSize;
+        }
+    }
+
+    /**
+     * The total number of values that were discarded because the
+     * queue was full.
+     *
+     * @return the number of values dropped since creation
+     */
+    public long getDroppedCount() {
+        synchronized(lock) {
+            return droppedCount;
+        }
+    }
+
+}
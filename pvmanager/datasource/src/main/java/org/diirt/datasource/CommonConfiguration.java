@@ -70,6 +70,12 @@ class CommonConfiguration {
             notificationExecutor = PVManager.getDefaultNotificationExecutor();
         }
 
+        // Tasks on virtual threads would run concurrently:
+        // serialize the notifications for each reader or writer
+        if (notificationExecutor == org.diirt.util.concurrent.Executors.virtualThreads()) {
+            notificationExecutor = org.diirt.util.concurrent.Executors.serial(notificationExecutor);
+        }
+
         // Check that a data source has been specified
         if (dataSource == null) {
             throw new IllegalStateException("You need to specify a source either "
@@ -6,6 +6,7 @@ package org.diirt.datasource;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -64,13 +65,23 @@ public abstract class DataSource {
      */
     ChannelHandler channel(String channelName) {
         ChannelHandler channel = usedChannels.get(channelHandlerLookupName(channelName));
-        if (channel == null) {
-            channel = createChannel(channelName);
-            if (channel == null)
-                return null;
-            usedChannels.put(channelHandlerRegisterName(channelName, channel), channel);
+        if (channel != null) {
+            return channel;
+        }
+
+        // Lookup and registration names may differ, so computeIfAbsent
+        // can't be used: creation is serialized instead, so that two
+        // threads can't create two handlers for the same channel
+        synchronized (usedChannels) {
+            channel = usedChannels.get(channelHandlerLookupName(channelName));
+            if (channel == null) {
+                channel = createChannel(channelName);
+                if (channel == null)
+                    return null;
+                usedChannels.put(channelHandlerRegisterName(channelName, channel), channel);
+            }
+            return channel;
         }
-        return channel;
     }
 
     /**
@@ -124,6 +135,65 @@ public abstract class DataSource {
     private final Set<ChannelReadRecipe> readRecipes = Collections.synchronizedSet(new HashSet<ChannelReadRecipe>());
     private final Set<ChannelWriteRecipe> writeRecipes = Collections.synchronizedSet(new HashSet<ChannelWriteRecipe>());
 
+    // The channel recipes that still need to be added to their handler.
+    // They are all processed by a single task, so that readers opened
+    // at the same time are added in one pass per handler.
+    private final Queue<PendingRead> pendingReads = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean pendingReadsScheduled = new AtomicBoolean(false);
+
+    private static class PendingRead {
+
+        private final ChannelHandler channelHandler;
+        private final ChannelReadRecipe channelRecipe;
+
+        public PendingRead(ChannelHandler channelHandler, ChannelReadRecipe channelRecipe) {
+            this.channelHandler = channelHandler;
+            this.channelRecipe = channelRecipe;
+        }
+    }
+
+    private final Runnable addPendingReaders = new Runnable() {
+
+        @Override
+        public void run() {
+            pendingReadsScheduled.set(false);
+            long startTime = System.nanoTime();
+
+            Map<ChannelHandler, Collection<ChannelHandlerReadSubscription>> handlersWithSubscriptions =
+                    new LinkedHashMap<>();
+            PendingRead pendingRead;
+            int nRecipes = 0;
+            while ((pendingRead = pendingReads.poll()) != null) {
+                Collection<ChannelHandlerReadSubscription> subscriptions = handlersWithSubscriptions.get(pendingRead.channelHandler);
+                if (subscriptions == null) {
+                    subscriptions = new ArrayList<>();
+                    handlersWithSubscriptions.put(pendingRead.channelHandler, subscriptions);
+                }
+                subscriptions.add(pendingRead.channelRecipe.getReadSubscription());
+                nRecipes++;
+            }
+
+            for (Map.Entry<ChannelHandler, Collection<ChannelHandlerReadSubscription>> entry : handlersWithSubscriptions.entrySet()) {
+                ChannelHandler channelHandler = entry.getKey();
+                for (ChannelHandlerReadSubscription subscription : entry.getValue()) {
+                    try {
+                        channelHandler.addReader(subscription);
+                    } catch(Exception ex) {
+                        // If an error happens while adding the read subscription,
+                        // notify the appropriate handler
+                        subscription.getExceptionWriteFunction().writeValue(ex);
+                    }
+                }
+            }
+
+            if (nRecipes != 0 && log.isLoggable(Level.FINE)) {
+                log.log(Level.FINE, "{0} added {1} readers on {2} channels in {3} ms",
+                        new Object[] {DataSource.this.getClass().getSimpleName(), nRecipes,
+                            handlersWithSubscriptions.size(), (System.nanoTime() - startTime) / 1000000.0});
+            }
+        }
+    };
+
     /**
      * Connects to a set of channels based on the given recipe.
      * <p>
@@ -141,8 +211,7 @@ public abstract class DataSource {
 
         // Let's go through all the recipes first, so if something
         // breaks unexpectadely, either everything works or nothing works
-        final Map<ChannelHandler, Collection<ChannelReadRecipe>> handlersWithSubscriptions =
-                new HashMap<>();
+        List<PendingRead> newReads = new ArrayList<>();
         for (final ChannelReadRecipe channelRecipe : readRecipe.getChannelReadRecipes()) {
             try {
                 String channelName = channelRecipe.getChannelName();
@@ -150,12 +219,7 @@ public abstract class DataSource {
                 if (channelHandler == null) {
                     throw new RuntimeException("Channel named '" + channelName + "' not found");
                 }
-                Collection<ChannelReadRecipe> channelSubscriptions = handlersWithSubscriptions.get(channelHandler);
-                if (channelSubscriptions == null) {
-                    channelSubscriptions = new HashSet<>();
-                    handlersWithSubscriptions.put(channelHandler, channelSubscriptions);
-                }
-                channelSubscriptions.add(channelRecipe);
+                newReads.add(new PendingRead(channelHandler, channelRecipe));
             } catch (Exception ex) {
                 // If any error happens while creating the channel,
                 // report it to the exception handler of that channel
@@ -165,26 +229,29 @@ public abstract class DataSource {
         }
 
         // Now that we went through all channels,
-        // add a monitor to the ones that were found
-        exec.execute(new Runnable() {
+        // queue the monitors for the ones that were found: all the
+        // monitors queued before the task runs are added in one pass
+        // per channel handler
+        pendingReads.addAll(newReads);
+        if (pendingReadsScheduled.compareAndSet(false, true)) {
+            exec.execute(addPendingReaders);
+        }
+    }
 
-            @Override
-            public void run() {
-                for (Map.Entry<ChannelHandler, Collection<ChannelReadRecipe>> entry : handlersWithSubscriptions.entrySet()) {
-                    ChannelHandler channelHandler = entry.getKey();
-                    Collection<ChannelReadRecipe> channelRecipes = entry.getValue();
-                    for (ChannelReadRecipe channelRecipe : channelRecipes) {
-                        try {
-                            channelHandler.addReader(channelRecipe.getReadSubscription());
-                        } catch(Exception ex) {
-                            // If an error happens while adding the read subscription,
-                            // notify the appropriate handler
-                            channelRecipe.getReadSubscription().getExceptionWriteFunction().writeValue(ex);
-                        }
-                    }
-                }
-            }
-        });
+    /**
+     * Connects to the channels of all the given recipes.
+     * <p>
+     * This is the same as calling {@link #connectRead(org.diirt.datasource.ReadRecipe) }
+     * for each recipe: the subscriptions of all the recipes are grouped
+     * by channel handler and added together, so that each handler is
+     * visited only once.
+     *
+     * @param readRecipes the instructions for the data connections
+     */
+    public void connectRead(Collection<ReadRecipe> readRecipes) {
+        for (ReadRecipe readRecipe : readRecipes) {
+            connectRead(readRecipe);
+        }
     }
 
     /**
@@ -188,7 +188,7 @@ public class ExpressionLanguage {
     public static <T> DesiredRateExpression<List<T>>
             newValuesOf(SourceRateExpression<T> expression, int maxValues) {
         return new DesiredRateExpressionImpl<List<T>>(expression,
-                new QueueCollector<T>(maxValues),
+                new CircularQueueCollector<T>(maxValues),
                 expression.getName());
     }
 
@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations, in nanoseconds, with power of two buckets.
+ * <p>
+ * Recording a duration does not allocate and does not lock: it only
+ * updates a few atomic counters. The percentiles are approximated by the
+ * upper bound of the bucket, so they are precise within a factor of two.
+ *
+ * @author carcassi
+ */
+public final class LatencyHistogram {
+
+    private static final int N_BUCKETS = 64;
+
+    // Bucket i counts durations in [2^(i-1), 2^i), bucket 0 counts zero
+    private final AtomicLongArray buckets = new AtomicLongArray(N_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    LatencyHistogram() {
+    }
+
+    /**
+     * Adds a duration to the histogram. Negative durations are
+     * counted as zero.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(N_BUCKETS - Long.numberOfLeadingZeros(nanos));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+    }
+
+    /**
+     * The number of durations recorded.
+     *
+     * @return the number of samples
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * The sum of all the durations recorded.
+     *
+     * @return the total in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    /**
+     * The average of the durations recorded.
+     *
+     * @return the average in nanoseconds; 0 if no duration was recorded
+     */
+    public double getAverageNanos() {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        return (double) totalNanos.get() / n;
+    }
+
+    /**
+     * An upper bound for the given percentile of the durations recorded.
+     *
+     * @param percentile a number between 0 and 100
+     * @return the upper bound of the bucket where the percentile falls,
+     * in nanoseconds; 0 if no duration was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100 (was " + percentile + ")");
+        }
+        long[] counts = new long[N_BUCKETS];
+        long total = 0;
+        for (int i = 0; i < N_BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(total * percentile / 100.0);
+        long cumulative = 0;
+        for (int i = 0; i < N_BUCKETS; i++) {
+            cumulative += counts[i];
+            if (cumulative >= threshold && counts[i] != 0) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(N_BUCKETS - 1);
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket == 0) {
+            return 0;
+        }
+        if (bucket >= 63) {
+            return Long.MAX_VALUE;
+        }
+        return (1L << bucket) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "count " + getCount() + ", avg " + (long) getAverageNanos() + " ns, p99 " + getPercentileNanos(99) + " ns";
+    }
+
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps track of the metrics of all readers and channel handlers.
+ * <p>
+ * Metrics are disabled by default, and can be enabled by setting the
+ * system property {@code diirt.datasource.metrics} to true or by calling
+ * {@link #setEnabled(boolean) }. Only readers and channel handlers created
+ * while the metrics are enabled are measured: the others do no
+ * recording at all.
+ * <p>
+ * The registry does not prevent readers and handlers from being garbage
+ * collected: their metrics are removed once they are collected.
+ *
+ * @author carcassi
+ */
+public final class MetricsRegistry {
+
+    private MetricsRegistry() {
+        // Prevent instances
+    }
+
+    private static volatile boolean enabled = Boolean.getBoolean("diirt.datasource.metrics");
+    private static final Map<ReaderMetrics, Boolean> readers = new WeakHashMap<>();
+    private static final Map<ChannelMetrics, Boolean> channels = new WeakHashMap<>();
+
+    /**
+     * Whether readers and channel handlers created from now on
+     * will be measured.
+     *
+     * @return true if metrics are enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Changes whether readers and channel handlers created from now on
+     * will be measured.
+     *
+     * @param enabled true to enable the metrics
+     */
+    public static void setEnabled(boolean enabled) {
+        MetricsRegistry.enabled = enabled;
+    }
+
+    /**
+     * The metrics of all the readers that are being measured.
+     *
+     * @return a snapshot of the metrics of the readers
+     */
+    public static List<ReaderMetrics> getReaderMetrics() {
+        synchronized (readers) {
+            return new ArrayList<>(readers.keySet());
+        }
+    }
+
+    /**
+     * The metrics of all the channel handlers that are being measured.
+     *
+     * @return a snapshot of the metrics of the channel handlers
+     */
+    public static List<ChannelMetrics> getChannelMetrics() {
+        synchronized (channels) {
+            return new ArrayList<>(channels.keySet());
+        }
+    }
+
+    static ReaderMetrics createReaderMetrics(String name) {
+        if (!enabled) {
+            return null;
+        }
+        ReaderMetrics metrics = new ReaderMetrics(name);
+        synchronized (readers) {
+            readers.put(metrics, Boolean.TRUE);
+        }
+        return metrics;
+    }
+
+    static ChannelMetrics createChannelMetrics(String channelName) {
+        if (!enabled) {
+            return null;
+        }
+        ChannelMetrics metrics = new ChannelMetrics(channelName);
+        synchronized (channels) {
+            channels.put(metrics, Boolean.TRUE);
+        }
+        return metrics;
+    }
+
+}
@@ -4,6 +4,10 @@
  */
 package org.diirt.datasource;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
@@ -34,6 +38,9 @@ import java.util.logging.Logger;
  * the payload to types for pvmanager consumption; the connection payload and
  * message payload never leave this handler, only value types created by the
  * type adapters</li>
+ * <li>optionally, call {@link #setLockFreeFanOut(boolean) } for channels
+ * with many readers, so that messages are dispatched without holding
+ * the handler lock</li>
  * </ul>
  *
  * @param <ConnectionPayload> type of the payload for the connection
@@ -47,12 +54,18 @@ public abstract class MultiplexedChannelHandler<ConnectionPayload, MessagePayloa
     private int writeUsageCounter = 0;
     private boolean connected = false;
     private boolean writeConnected = false;
-    private MessagePayload lastMessage;
+    private volatile MessagePayload lastMessage;
     private ConnectionPayload connectionPayload;
     private Map<ChannelHandlerReadSubscription, MonitorHandler> monitors = new ConcurrentHashMap<>();
     private Map<WriteCache<?>, ChannelHandlerWriteSubscription> writeSubscriptions = new ConcurrentHashMap<>();
     private boolean processMessageOnDisconnect = true;
     private boolean processMessageOnReconnect = true;
+    private volatile boolean lockFreeFanOut = false;
+    private volatile FanOutSnapshot fanOutSnapshot = new FanOutSnapshot(null, Collections.<AdapterGroup>emptyList());
+    // Serializes the messages dispatched in lock-free mode with the ones
+    // sent by connection changes and to new readers. It is always taken
+    // after the handler lock, never before.
+    private final Object dispatchLock = new Object();
 
     private class MonitorHandler {
 
@@ -67,13 +80,13 @@ public abstract class MultiplexedChannelHandler<ConnectionPayload, MessagePayloa
             subscription.getConnectionWriteFunction().writeValue(connection);
         }
 
-        public final void processValue(MessagePayload payload) {
+        public final void processValue(ConnectionPayload connection, MessagePayload payload) {
             if (typeAdapter == null)
                 return;
 
             // Lock the collector and prepare the new value.
             try {
-                typeAdapter.updateCache(subscription.getValueCache(), getConnectionPayload(), payload);
+                typeAdapter.updateCache(subscription.getValueCache(), connection, payload);
             } catch (RuntimeException e) {
                 subscription.getExceptionWriteFunction().writeValue(e);
             }
@@ -93,6 +106,69 @@ public abstract class MultiplexedChannelHandler<ConnectionPayload, MessagePayloa
 
     }
 
+    /**
+     * All the monitors that share the same type adapter: the conversion
+     * is performed once, on the first monitor, and the result is copied
+     * to the others.
+     */
+    private class AdapterGroup {
+
+        private final DataSourceTypeAdapter<ConnectionPayload, MessagePayload> typeAdapter;
+        private final List<MonitorHandler> monitors = new ArrayList<>();
+
+        public AdapterGroup(DataSourceTypeAdapter<ConnectionPayload, MessagePayload> typeAdapter) {
+            this.typeAdapter = typeAdapter;
+        }
+
+        @SuppressWarnings("unchecked")
+        public final void processValue(ConnectionPayload connection, MessagePayload payload) {
+            ValueCache<?> firstCache = monitors.get(0).subscription.getValueCache();
+            try {
+                if (!typeAdapter.updateCache(firstCache, connection, payload)) {
+                    // No new value: nothing to copy
+                    return;
+                }
+            } catch (RuntimeException e) {
+                for (MonitorHandler monitor : monitors) {
+                    monitor.subscription.getExceptionWriteFunction().writeValue(e);
+                }
+                return;
+            }
+
+            Object value = firstCache.readValue();
+            for (int i = 1; i < monitors.size(); i++) {
+                ChannelHandlerReadSubscription subscription = monitors.get(i).subscription;
+                try {
+                    ((ValueCache<Object>) subscription.getValueCache()).writeValue(value);
+                } catch (RuntimeException e) {
+                    subscription.getExceptionWriteFunction().writeValue(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Immutable view of the subscribers, grouped by type adapter, used
+     * to dispatch messages. A new snapshot is published every time
+     * the readers, or their type adapters, change.
+     */
+    private class FanOutSnapshot {
+
+        private final ConnectionPayload connectionPayload;
+        private final List<AdapterGroup> groups;
+
+        public FanOutSnapshot(ConnectionPayload connectionPayload, List<AdapterGroup> groups) {
+            this.connectionPayload = connectionPayload;
+            this.groups = groups;
+        }
+
+        public final void processValue(MessagePayload payload) {
+            for (AdapterGroup group : groups) {
+                group.processValue(connectionPayload, payload);
+            }
+        }
+    }
+
     /**
      * Notifies all readers and writers of an error condition.
      *
@@ -166,12 +242,16 @@ public abstract class MultiplexedChannelHandler<ConnectionPayload, MessagePayloa
         for (MonitorHandler monitor : monitors.values()) {
             monitor.findTypeAdapter();
         }
-
-        if (isConnected() && lastMessage != null && processMessageOnReconnect) {
-            processMessage(lastMessage);
-        }
-        if (!isConnected() && lastMessage != null && processMessageOnDisconnect) {
-            processMessage(lastMessage);
+        updateFanOutSnapshot();
+
+        if (isConnected() ? processMessageOnReconnect : processMessageOnDisconnect) {
+            // Read the last message under the dispatch lock, so that
+            // it can't be replaced by a newer one before it is sent
+            synchronized (dispatchLock) {
+                if (lastMessage != null) {
+                    processMessage(lastMessage);
+                }
+            }
         }
     }
 
@@ -244,13 +324,27 @@ public abstract class MultiplexedChannelHandler<ConnectionPayload, MessagePayloa
         MonitorHandler monitor = new MonitorHandler(subscription);
         monitors.put(subscription, monitor);
         monitor.findTypeAdapter();
+        updateFanOutSnapshot();
         guardedConnect();
         if (getUsageCounter() > 1) {
-            if (connectionPayload != null) {
-                monitor.processConnection(isConnected());
-            }
+            processCurrentState(monitor);
+        }
+    }
+
+    /**
+     * Sends the current connection state and the last message to a
+     * newly added reader.
+     */
+    private void processCurrentState(MonitorHandler monitor) {
+        if (connectionPayload != null) {
+            monitor.processConnection(isConnected());
+        }
+        // In lock-free mode, the new reader may already be in the snapshot:
+        // the dispatch lock keeps a new message from being processed
+        // on the same cache at the same time
+        synchronized (dispatchLock) {
             if (lastMessage != null) {
-                monitor.processValue(lastMessage);
+                monitor.processValue(connectionPayload, lastMessage);
             }
         }
     }
@@ -258,6 +352,7 @@ public abstract class MultiplexedChannelHandler<ConnectionPayload, MessagePayloa
     @Override
     protected synchronized void removeReader(ChannelHandlerReadSubscription subscription) {
         monitors.remove(subscription);
+        updateFanOutSnapshot();
         readUsageCounter--;
         guardedDisconnect();
     }
@@ -292,19 +387,62 @@ public abstract class MultiplexedChannelHandler<ConnectionPayload, MessagePayloa
      * Process the payload for this channel. This should be called whenever
      * a new value needs to be processed. The handler will take care of
      * using the correct {@link DataSourceTypeAdapter}
-     * for each read monitor that was setup.
+     * for each read monitor that was setup. Readers that share the same
+     * type adapter are grouped: the payload is converted once, and all
+     * of them receive the same value.
+     *
+     * <p>
+     * In lock-free fan-out mode, the handler lock is not taken: the payload
+     * is dispatched to the last published snapshot of the readers. The
+     * dispatch is still serialized with the messages sent on connection
+     * changes and to new readers. In this mode, messages should all come
+     * from the same thread, since the order of concurrent calls is not defined.
      *
      * @param payload the payload of for this type of channel
      */
-    protected synchronized final void processMessage(MessagePayload payload) {
+    protected final void processMessage(MessagePayload payload) {
         if (log.isLoggable(Level.FINEST)) {
             log.log(Level.FINEST, "processMessage for channel {0} messagePayload {1}", new Object[]{getChannelName(), payload});
         }
 
-        lastMessage = payload;
+        ChannelMetrics metrics = getMetrics();
+        if (metrics != null) {
+            long start = System.nanoTime();
+            dispatchMessage(payload);
+            metrics.message(System.nanoTime() - start);
+        } else {
+            dispatchMessage(payload);
+        }
+    }
+
+    private void dispatchMessage(MessagePayload payload) {
+        if (lockFreeFanOut) {
+            synchronized (dispatchLock) {
+                lastMessage = payload;
+                fanOutSnapshot.processValue(payload);
+            }
+            return;
+        }
+
+        synchronized(this) {
+            lastMessage = payload;
+            fanOutSnapshot.processValue(payload);
+        }
+    }
+
+    private void updateFanOutSnapshot() {
+        Map<DataSourceTypeAdapter<ConnectionPayload, MessagePayload>, AdapterGroup> groups = new IdentityHashMap<>();
         for (MonitorHandler monitor : monitors.values()) {
-            monitor.processValue(payload);
+            if (monitor.typeAdapter != null) {
+                AdapterGroup group = groups.get(monitor.typeAdapter);
+                if (group == null) {
+                    group = new AdapterGroup(monitor.typeAdapter);
+                    groups.put(monitor.typeAdapter, group);
+                }
+                group.monitors.add(monitor);
+            }
         }
+        fanOutSnapshot = new FanOutSnapshot(connectionPayload, new ArrayList<>(groups.values()));
     }
 
     private void guardedConnect() {
@@ -325,6 +463,7 @@ public abstract class MultiplexedChannelHandler<ConnectionPayload, MessagePayloa
                     lastMessage = null;
                 }
                 connectionPayload = null;
+                updateFanOutSnapshot();
             } catch (RuntimeException ex) {
                 reportExceptionToAllReadersAndWriters(ex);
                 log.log(Level.WARNING, "Couldn't disconnect channel " + getChannelName(), ex);
@@ -434,5 +573,24 @@ public abstract class MultiplexedChannelHandler<ConnectionPayload, MessagePayloa
         this.processMessageOnReconnect = processMessageOnReconnect;
     }
 
+    /**
+     * Determines whether {@link #processMessage(java.lang.Object)} should
+     * dispatch messages without taking the handler lock. Default is false.
+     * <p>
+     * Messages are always dispatched to a copy-on-write snapshot of the
+     * readers, which is replaced only when readers are added or removed,
+     * or when the connection changes. When enabled, the snapshot is read
+     * without the handler lock. Use this for channels with
+     * many readers and a single thread delivering the messages. Messages
+     * only wait for connection changes and for the last message to be sent
+     * to a new reader, not for the other operations on the handler. A reader
+     * that is being removed may still receive one last message.
+     *
+     * @param lockFreeFanOut whether to dispatch messages without the handler lock
+     */
+    protected synchronized final void setLockFreeFanOut(boolean lockFreeFanOut) {
+        this.lockFreeFanOut = lockFreeFanOut;
+    }
+
 
 }
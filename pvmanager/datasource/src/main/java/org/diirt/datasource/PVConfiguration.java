@@ -122,6 +122,18 @@ public class PVConfiguration<R, W> extends CommonConfiguration {
         return this;
     }
 
+    /**
+     * Notifies only when the sources of the read expression change,
+     * instead of scanning it at the max rate. For more details, consult
+     * {@link PVReaderConfiguration#scanOnSourceChange() }.
+     *
+     * @return this
+     */
+    public PVConfiguration<R, W> scanOnSourceChange() {
+        pvReaderConfiguration.scanOnSourceChange();
+        return this;
+    }
+
     /**
      * Creates the pv such that writes are synchronous and read notifications
      * comes at most at the rate specified.
@@ -49,6 +49,8 @@ public class PVDirector<T> {
     private final WeakReference<PVReaderImpl<T>> pvReaderRef;
     /** Function for the new value */
     private final ReadFunction<T> readFunction;
+    /** Null if metrics were disabled when the director was created */
+    private final ReaderMetrics metrics;
     /** Creation for stack trace */
     private final Exception creationStackTrace = new Exception("PV was never closed (stack trace for creation)");
     /** Used to ignore duplicated errors */
@@ -93,6 +95,9 @@ public class PVDirector<T> {
 
             @Override
             public void run() {
+                if (metrics != null) {
+                    metrics.valueEvent();
+                }
                 if (scanStrategy != null) {
                     scanStrategy.newValueEvent();
                 }
@@ -220,8 +225,23 @@ public class PVDirector<T> {
      */
     PVDirector(PVReaderImpl<T> pv, ReadFunction<T> function, ScheduledExecutorService scannerExecutor,
             Executor notificationExecutor, DataSource dataSource, ExceptionHandler exceptionHandler) {
+        this(pv, function, scannerExecutor, notificationExecutor, dataSource, exceptionHandler, null);
+    }
+
+    /**
+     * Creates a new PVDirector that, if metrics are enabled, registers
+     * its metrics under the given name.
+     *
+     * @param pv the pv on which to notify
+     * @param function the function used to calculate new values
+     * @param notificationExecutor the thread switching mechanism
+     * @param name the name of the reader, used for the metrics
+     */
+    PVDirector(PVReaderImpl<T> pv, ReadFunction<T> function, ScheduledExecutorService scannerExecutor,
+            Executor notificationExecutor, DataSource dataSource, ExceptionHandler exceptionHandler, String name) {
         this.pvReaderRef = new WeakReference<>(pv);
         this.readFunction = function;
+        this.metrics = MetricsRegistry.createReaderMetrics(name);
         this.notificationExecutor = notificationExecutor;
         this.scannerExecutor = scannerExecutor;
         this.dataSource = dataSource;
@@ -272,8 +292,12 @@ public class PVDirector<T> {
         // Don't even calculate if notification is in flight.
         // This makes pvManager automatically throttle back if the consumer
         // is slower than the producer.
-        if (notificationInFlight)
+        if (notificationInFlight) {
+            if (metrics != null) {
+                metrics.skippedInFlight();
+            }
             return;
+        }
 
         // Calculate new value
         T newValue = null;
@@ -281,7 +305,14 @@ public class PVDirector<T> {
         boolean calculationSucceeded = false;
         try {
             // Tries to calculate the value
-            newValue = readFunction.readValue();
+            if (metrics != null) {
+                metrics.scan();
+                long start = System.nanoTime();
+                newValue = readFunction.readValue();
+                metrics.getReadValueTime().record(System.nanoTime() - start);
+            } else {
+                newValue = readFunction.readValue();
+            }
             if (newValue != null) {
                 NotificationSupport.findNotificationSupportFor(newValue);
             }
@@ -319,11 +350,15 @@ public class PVDirector<T> {
         // which is properly synchronized by the executor
         final T finalValue = newValue;
         final boolean finalCalculationSucceeded = calculationSucceeded;
+        final long submissionTime = metrics != null ? System.nanoTime() : 0;
         notificationInFlight = true;
         notificationExecutor.execute(new Runnable() {
 
             @Override
             public void run() {
+                if (metrics != null) {
+                    metrics.getNotificationDelay().record(System.nanoTime() - submissionTime);
+                }
                 try {
                     PVReaderImpl<T> pv = pvReaderRef.get();
                     // Proceed with notification only if PVReader was not garbage
@@ -412,5 +447,14 @@ public class PVDirector<T> {
         return desiredRateEventListener;
     }
 
+    /**
+     * The metrics for this director.
+     *
+     * @return the metrics; null if metrics were disabled at creation
+     */
+    ReaderMetrics getMetrics() {
+        return metrics;
+    }
+
 
 }
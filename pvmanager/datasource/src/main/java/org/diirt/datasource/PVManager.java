@@ -26,6 +26,10 @@ import org.diirt.datasource.expression.WriteExpression;
  * where the exception is done. This can be changed to make all notifications
  * routed to single threaded sub-systems, such as UI environments like SWING,
  * SWT or similar. This can be changed on a PV by PV basis.
+ * Setting the system property "VirtualThreadNotifications" to true changes
+ * the default to {@link org.diirt.util.concurrent.Executors#virtualThreads()}:
+ * each reader and writer is then notified in order on virtual threads, so that
+ * listeners can block without holding up the other notifications.
  * <p>
  * <b>AsynchWriteExecutor</b> - This is used for asynchronous writes, to return
  * right away, and for running timeouts on each write.
@@ -41,12 +45,18 @@ import org.diirt.datasource.expression.WriteExpression;
  * scan for new values. By default this uses the internal PVManager work pool. The work
  * submitted here is the calculation of the corresponding {@link DesiredRateExpression}
  * and submission to the NotificationExecutor.
+ * Each active scan is scheduled as its own periodic task. Setting the system
+ * property "ScanWheel" to true makes the scans with the same executor and
+ * compatible periods share a single timing wheel instead, which uses fewer
+ * timers but, on few cores, more cpu and more jitter.
  *
  * @author carcassi
  */
 public class PVManager {
 
-    private static volatile Executor defaultNotificationExecutor = org.diirt.util.concurrent.Executors.localThread();
+    private static volatile Executor defaultNotificationExecutor = Boolean.getBoolean("VirtualThreadNotifications")
+            ? org.diirt.util.concurrent.Executors.virtualThreads()
+            : org.diirt.util.concurrent.Executors.localThread();
     private static volatile DataSource defaultDataSource = DataSourceProvider.createDataSource();
     private static final ScheduledExecutorService workerPool = Executors.newScheduledThreadPool(
             Math.max(1,
@@ -73,6 +73,7 @@ public class PVReaderConfiguration<T> extends CommonConfiguration {
     private final List<PVReaderListener<T>> readListeners = new ArrayList<>();
     private ExceptionHandler exceptionHandler;
     private Duration maxRate;
+    private ScannerParameters.Type scannerType;
     PVReaderImpl<T> pv;
     ReadFunction<T> aggregatedFunction;
 
@@ -115,6 +116,25 @@ public class PVReaderConfiguration<T> extends CommonConfiguration {
         return this;
     }
 
+    /**
+     * Notifies only when the sources of the expression change, instead of
+     * scanning the expression at the max rate.
+     * <p>
+     * Nothing is done while the sources are idle. When a change arrives,
+     * at most one notification is sent per max rate period: the changes
+     * that arrive in the meantime are collected and sent at the end of
+     * the period. This is done by default for expressions that only
+     * collect values from the source. It should be used only for
+     * expressions that do not change in time on their own (e.g. not for
+     * averages over time windows), as these would not be recomputed.
+     *
+     * @return this
+     */
+    public PVReaderConfiguration<T> scanOnSourceChange() {
+        this.scannerType = ScannerParameters.Type.PASSIVE;
+        return this;
+    }
+
     /**
      * Sets the rate of scan of the expression and creates the actual {@link PVReader}
      * object that can be monitored through listeners.
@@ -140,7 +160,8 @@ public class PVReaderConfiguration<T> extends CommonConfiguration {
 
     static <T> PVDirector<T> prepareDirector(PVReaderConfiguration<T> readConfiguration) {
         PVDirector<T> director = new PVDirector<>(readConfiguration.pv, readConfiguration.aggregatedFunction, PVManager.getReadScannerExecutorService(),
-                readConfiguration.notificationExecutor, readConfiguration.dataSource, readConfiguration.exceptionHandler);
+                readConfiguration.notificationExecutor, readConfiguration.dataSource, readConfiguration.exceptionHandler,
+                readConfiguration.aggregatedPVExpression.getName());
         if (readConfiguration.timeout != null) {
             if (readConfiguration.timeoutMessage == null)
                 readConfiguration.timeoutMessage = "Read timeout";
@@ -154,11 +175,7 @@ public class PVReaderConfiguration<T> extends CommonConfiguration {
                 .readerDirector(director)
                 .scannerExecutor(PVManager.getReadScannerExecutorService())
                 .maxDuration(readConfiguration.maxRate);
-        if (readConfiguration.aggregatedFunction instanceof Collector || readConfiguration.aggregatedFunction instanceof ValueCache) {
-            scannerParameters.type(ScannerParameters.Type.PASSIVE);
-        } else {
-            scannerParameters.type(ScannerParameters.Type.ACTIVE);
-        }
+        scannerParameters.type(scannerType(readConfiguration));
         SourceDesiredRateDecoupler rateDecoupler = scannerParameters.build();
 
         readConfiguration.pv.setDirector(director);
@@ -167,6 +184,23 @@ public class PVReaderConfiguration<T> extends CommonConfiguration {
         rateDecoupler.start();
     }
 
+    /**
+     * The type of scan for the reader: the one requested, or passive
+     * for expressions that only collect values from the source.
+     *
+     * @param readConfiguration the reader configuration
+     * @return the type of scan
+     */
+    static ScannerParameters.Type scannerType(PVReaderConfiguration<?> readConfiguration) {
+        if (readConfiguration.scannerType != null) {
+            return readConfiguration.scannerType;
+        } else if (readConfiguration.aggregatedFunction instanceof Collector || readConfiguration.aggregatedFunction instanceof ValueCache) {
+            return ScannerParameters.Type.PASSIVE;
+        } else {
+            return ScannerParameters.Type.ACTIVE;
+        }
+    }
+
     private void validateReaderConfiguration() {
         if (maxRate.getSeconds() < 0 && maxRate.getNano() < 5000000) {
             throw new IllegalArgumentException("Current implementation limits the rate to >5ms or <200Hz (requested " + maxRate + "s)");
@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and timings for the notifications of a single {@link PVReader}.
+ * <p>
+ * The numbers are accumulated from the creation of the reader and
+ * can be read at any time, from any thread.
+ *
+ * @author carcassi
+ */
+public final class ReaderMetrics {
+
+    private final String name;
+    private final AtomicLong valueEvents = new AtomicLong();
+    private final AtomicLong scans = new AtomicLong();
+    private final AtomicLong skippedInFlight = new AtomicLong();
+    private final LatencyHistogram readValueTime = new LatencyHistogram();
+    private final LatencyHistogram notificationDelay = new LatencyHistogram();
+
+    ReaderMetrics(String name) {
+        this.name = name;
+    }
+
+    void valueEvent() {
+        valueEvents.incrementAndGet();
+    }
+
+    void scan() {
+        scans.incrementAndGet();
+    }
+
+    void skippedInFlight() {
+        skippedInFlight.incrementAndGet();
+    }
+
+    /**
+     * The name of the expression read by the reader.
+     *
+     * @return the reader name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The number of new values posted by the collectors of the reader.
+     *
+     * @return the number of value events
+     */
+    public long getValueEvents() {
+        return valueEvents.get();
+    }
+
+    /**
+     * The number of scans that calculated a new value, that is the number
+     * of times the read function was called.
+     *
+     * @return the number of scans
+     */
+    public long getScans() {
+        return scans.get();
+    }
+
+    /**
+     * The number of value events that were merged into a scan
+     * triggered by another event.
+     *
+     * @return the number of value events that did not cause their own scan
+     */
+    public long getCoalescedEvents() {
+        return Math.max(0, getValueEvents() - getScans());
+    }
+
+    /**
+     * The number of scans skipped because the previous notification
+     * was still being processed.
+     *
+     * @return the number of skipped scans
+     */
+    public long getSkippedInFlight() {
+        return skippedInFlight.get();
+    }
+
+    /**
+     * The time taken by the read function to calculate the new value.
+     *
+     * @return the histogram of calculation times
+     */
+    public LatencyHistogram getReadValueTime() {
+        return readValueTime;
+    }
+
+    /**
+     * The time between the submission of a notification to the
+     * notification executor and the start of its execution.
+     *
+     * @return the histogram of the executor queue delay
+     */
+    public LatencyHistogram getNotificationDelay() {
+        return notificationDelay;
+    }
+
+    @Override
+    public String toString() {
+        return "ReaderMetrics[" + name + ": valueEvents " + getValueEvents() + ", scans " + getScans()
+                + ", skippedInFlight " + getSkippedInFlight() + ", readValue " + readValueTime
+                + ", notificationDelay " + notificationDelay + "]";
+    }
+
+}
@@ -0,0 +1,373 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A hashed timing wheel that schedules periodic scan tasks that share the
+ * same executor and compatible periods.
+ * <p>
+ * Instead of one periodic task per scan, the wheel schedules a single
+ * task that ticks at a fixed rate. Periods that are a multiple of
+ * {@link #TICK_NANOS} share the wheel of their executor, whatever their
+ * value; any other period gets a wheel that ticks up to {@link #MAX_SLOTS}
+ * times per period. Within a wheel, the scans with the same period are
+ * placed on a ring of up to {@link #MAX_SLOTS} slots spread across the
+ * period, and each scan is assigned to the least loaded slot, so that
+ * scans do not all fire at the same moment. The wheel is only used for
+ * timing: at each tick, the scans of the slots due are submitted to the
+ * executor, so a slow scan does not delay the others. As with a fixed
+ * delay task, a scan is skipped if its previous run is still in progress.
+ * A wheel is created when the first scan is registered, and it's
+ * cancelled when the last scan is removed.
+ *
+ * @author carcassi
+ */
+class ScanWheel {
+
+    private static final Logger log = Logger.getLogger(ScanWheel.class.getName());
+
+    /**
+     * Maximum number of slots for each period in a wheel.
+     */
+    static final int MAX_SLOTS = 32;
+
+    /**
+     * Minimum time between two ticks of a wheel.
+     */
+    static final long MIN_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * Time between two ticks of the wheel shared by the periods that
+     * are a multiple of it.
+     */
+    static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final ConcurrentMap<Key, ScanWheel> wheels = new ConcurrentHashMap<>();
+
+    /**
+     * Identifies a wheel: the executor that runs the ticks and the time
+     * between ticks.
+     */
+    private static class Key {
+
+        private final ScheduledExecutorService executor;
+        private final long tickNanos;
+
+        public Key(ScheduledExecutorService executor, long tickNanos) {
+            this.executor = executor;
+            this.tickNanos = tickNanos;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 43 * hash + System.identityHashCode(executor);
+            hash = 43 * hash + (int) (tickNanos ^ (tickNanos >>> 32));
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return executor == other.executor && tickNanos == other.tickNanos;
+        }
+    }
+
+    /**
+     * The scans of a wheel that have the same period, placed on a ring
+     * of slots spread across the period. Guarded by the wheel: each slot
+     * is copied on write, so that ticks walk it outside the lock.
+     */
+    private class Ring {
+
+        private final long periodTicks;
+        private final int nSlots;
+        private final Registration[][] slots;
+        private int size;
+
+        private Ring(long periodTicks) {
+            this.periodTicks = periodTicks;
+            this.nSlots = (int) Math.min(MAX_SLOTS, periodTicks);
+            this.slots = new Registration[nSlots][];
+            Arrays.fill(slots, new Registration[0]);
+        }
+
+        /**
+         * The slot due at the given tick, or null if no slot is due.
+         * Slot s is due at the ticks where the tick modulo the period is
+         * s * periodTicks / nSlots.
+         */
+        private Registration[] slotAt(long tickCount) {
+            long residue = tickCount % periodTicks;
+            long slot = (residue * nSlots + periodTicks - 1) / periodTicks;
+            if (slot < nSlots && slot * periodTicks / nSlots == residue) {
+                return slots[(int) slot];
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A task registered on a wheel. Can be used to remove the task.
+     */
+    class Registration {
+
+        private final Runnable task;
+        private final Ring ring;
+        private final int slot;
+        private final long firstRunNanos;
+        // Only accessed by the ticks, which never overlap
+        private boolean ticking;
+        // Set while the task is submitted or running, so that runs never overlap
+        private final AtomicBoolean inFlight = new AtomicBoolean();
+        private volatile boolean cancelled;
+        private final Runnable run = new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    if (!cancelled) {
+                        task.run();
+                    }
+                } catch (RuntimeException ex) {
+                    log.log(Level.WARNING, "Scan task failed", ex);
+                } finally {
+                    inFlight.set(false);
+                }
+            }
+        };
+
+        private Registration(Runnable task, Ring ring, int slot) {
+            this.task = task;
+            this.ring = ring;
+            this.slot = slot;
+            this.firstRunNanos = System.nanoTime();
+        }
+
+        private void tick(long now) {
+            // Skip the ticks that come before a full period has passed
+            // since the run at registration, so that the period is respected
+            if (!ticking) {
+                if (now - firstRunNanos < ring.periodTicks * key.tickNanos) {
+                    return;
+                }
+                ticking = true;
+            }
+            submit();
+        }
+
+        private void submit() {
+            if (cancelled || !inFlight.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                key.executor.execute(run);
+            } catch (RejectedExecutionException ex) {
+                inFlight.set(false);
+                throw ex;
+            }
+        }
+
+        /**
+         * Removes the task from the wheel. After this returns, the task
+         * is not started again, though a run already in progress
+         * will complete.
+         */
+        void cancel() {
+            cancelled = true;
+            ScanWheel.this.remove(this);
+        }
+    }
+
+    private final Key key;
+    // Guarded by this wheel. The array is copied on write, so that ticks
+    // walk it outside the lock.
+    private Ring[] rings = new Ring[0];
+    private int size;
+    private boolean closed;
+    private ScheduledFuture<?> tickHandle;
+    // Only accessed by the ticks, which never overlap
+    private long tickCount;
+
+    private ScanWheel(Key key) {
+        this.key = key;
+    }
+
+    /**
+     * Registers a task to be run periodically on the given executor.
+     * The task is also submitted to run right away; the periodic runs
+     * will start within one period.
+     *
+     * @param executor the executor where the task is executed
+     * @param period the period between runs
+     * @param task the task to run
+     * @return the registration, to be used to cancel the task
+     */
+    static Registration register(ScheduledExecutorService executor, Duration period, Runnable task) {
+        Objects.requireNonNull(task);
+        long periodNanos = period.toNanos();
+        long tickNanos;
+        if (periodNanos % TICK_NANOS == 0) {
+            tickNanos = TICK_NANOS;
+        } else {
+            tickNanos = periodNanos / Math.max(1, Math.min(MAX_SLOTS, periodNanos / MIN_TICK_NANOS));
+        }
+        Key key = new Key(executor, tickNanos);
+        long periodTicks = periodNanos / tickNanos;
+        Registration registration = null;
+        while (registration == null) {
+            ScanWheel wheel = wheels.get(key);
+            if (wheel == null) {
+                ScanWheel newWheel = new ScanWheel(key);
+                wheel = wheels.putIfAbsent(key, newWheel);
+                if (wheel == null) {
+                    wheel = newWheel;
+                }
+            }
+            // Null if the wheel was closed in the meantime: try again
+            // with a new one
+            registration = wheel.add(task, periodTicks);
+        }
+        registration.submit();
+        return registration;
+    }
+
+    /**
+     * The number of wheels currently active.
+     *
+     * @return the number of wheels
+     */
+    static int wheelCount() {
+        return wheels.size();
+    }
+
+    private synchronized Registration add(Runnable task, long periodTicks) {
+        if (closed) {
+            return null;
+        }
+        Ring ring = null;
+        for (Ring existing : rings) {
+            if (existing.periodTicks == periodTicks) {
+                ring = existing;
+            }
+        }
+        if (ring == null) {
+            ring = new Ring(periodTicks);
+            Ring[] newRings = Arrays.copyOf(rings, rings.length + 1);
+            newRings[rings.length] = ring;
+            rings = newRings;
+        }
+
+        int slot = 0;
+        for (int i = 1; i < ring.nSlots; i++) {
+            if (ring.slots[i].length < ring.slots[slot].length) {
+                slot = i;
+            }
+        }
+        Registration registration = new Registration(task, ring, slot);
+        Registration[] oldSlot = ring.slots[slot];
+        Registration[] newSlot = Arrays.copyOf(oldSlot, oldSlot.length + 1);
+        newSlot[oldSlot.length] = registration;
+        ring.slots[slot] = newSlot;
+        ring.size++;
+        size++;
+
+        if (tickHandle == null) {
+            tickHandle = key.executor.scheduleAtFixedRate(new Runnable() {
+
+                @Override
+                public void run() {
+                    tick();
+                }
+            }, key.tickNanos, key.tickNanos, TimeUnit.NANOSECONDS);
+        }
+        return registration;
+    }
+
+    private void remove(Registration registration) {
+        synchronized (this) {
+            Ring ring = registration.ring;
+            Registration[] oldSlot = ring.slots[registration.slot];
+            int index = -1;
+            for (int i = 0; i < oldSlot.length; i++) {
+                if (oldSlot[i] == registration) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index == -1) {
+                return;
+            }
+
+            Registration[] newSlot = new Registration[oldSlot.length - 1];
+            System.arraycopy(oldSlot, 0, newSlot, 0, index);
+            System.arraycopy(oldSlot, index + 1, newSlot, index, newSlot.length - index);
+            ring.slots[registration.slot] = newSlot;
+            ring.size--;
+            size--;
+
+            if (ring.size == 0) {
+                Ring[] newRings = new Ring[rings.length - 1];
+                int n = 0;
+                for (Ring existing : rings) {
+                    if (existing != ring) {
+                        newRings[n++] = existing;
+                    }
+                }
+                rings = newRings;
+            }
+
+            if (size == 0) {
+                tickHandle.cancel(false);
+                tickHandle = null;
+                closed = true;
+                wheels.remove(key, this);
+            }
+        }
+    }
+
+    private void tick() {
+        // Ticks never overlap, as they are scheduled at fixed rate
+        long now = System.nanoTime();
+        List<Registration[]> dueSlots = new ArrayList<>();
+        synchronized (this) {
+            for (Ring ring : rings) {
+                Registration[] slot = ring.slotAt(tickCount);
+                if (slot != null) {
+                    dueSlots.add(slot);
+                }
+            }
+        }
+        tickCount++;
+        try {
+            for (Registration[] slot : dueSlots) {
+                for (Registration registration : slot) {
+                    registration.tick(now);
+                }
+            }
+        } catch (RejectedExecutionException ex) {
+            // The executor is shutting down
+            log.log(Level.FINE, "Scan not submitted", ex);
+        }
+    }
+}
@@ -5,7 +5,7 @@
 package org.diirt.datasource.expression;
 
 import java.util.List;
-import org.diirt.datasource.QueueCollector;
+import org.diirt.datasource.CircularQueueCollector;
 import org.diirt.datasource.WriteFunction;
 
 /**
@@ -19,8 +19,8 @@ import org.diirt.datasource.WriteFunction;
  */
 public class Queue<T> extends DesiredRateExpressionImpl<List<T>> {
 
-    private static <T> QueueCollector<T> createQueue(int maxSize) {
-        return new QueueCollector<>(maxSize);
+    private static <T> CircularQueueCollector<T> createQueue(int maxSize) {
+        return new CircularQueueCollector<>(maxSize);
     }
 
     /**
@@ -52,8 +52,8 @@ public class Queue<T> extends DesiredRateExpressionImpl<List<T>> {
     }
 
     @SuppressWarnings("unchecked")
-    private QueueCollector<T> getCollector() {
-        return (QueueCollector<T>) getFunction();
+    private CircularQueueCollector<T> getCollector() {
+        return (CircularQueueCollector<T>) getFunction();
     }
 
     /**
@@ -67,6 +67,15 @@ public class Queue<T> extends DesiredRateExpressionImpl<List<T>> {
         return this;
     }
 
+    /**
+     * The number of values discarded because the queue was full.
+     *
+     * @return the number of values dropped
+     */
+    public long getDroppedCount() {
+        return getCollector().getDroppedCount();
+    }
+
     /**
      * Adds a new value to the queue
      *
@@ -58,6 +58,24 @@ public class ActiveScanDecouplerTest {
         });
     }
 
+    @Test
+    public void activeScanningRateOnWheel() throws Exception {
+        repeatTest(10, new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                DesiredRateEventLog log = new DesiredRateEventLog();
+                SourceDesiredRateDecoupler decoupler = new ActiveScanDecoupler(PVManager.getReadScannerExecutorService(), TimeDuration.ofHertz(10), log, true);
+                log.setDecoupler(decoupler);
+                decoupler.start();
+                Thread.sleep(500);
+                decoupler.stop();
+                assertThat(log.getEvents().size(), lessThanOrEqualTo(5));
+                assertThat(log.getEvents().size(), greaterThanOrEqualTo(4));
+                return null;
+            }
+        });
+    }
+
     @Test
     public void pausedScanningRate() throws Exception {
         repeatTest(10, new Callable<Object>() {
@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class DataSourceTest {
+
+    private static class TestDataSource extends DataSource {
+
+        private final AtomicInteger nCreated = new AtomicInteger();
+        private final AtomicInteger nAddReader = new AtomicInteger();
+
+        public TestDataSource() {
+            super(false);
+        }
+
+        @Override
+        protected ChannelHandler createChannel(String channelName) {
+            nCreated.incrementAndGet();
+            return new MultiplexedChannelHandler<Object, Object>(channelName) {
+
+                @Override
+                protected void connect() {
+                    processConnection(new Object());
+                    processMessage("first");
+                }
+
+                @Override
+                protected synchronized void addReader(ChannelHandlerReadSubscription subscription) {
+                    nAddReader.incrementAndGet();
+                    super.addReader(subscription);
+                }
+
+                @Override
+                protected void disconnect() {
+                }
+
+                @Override
+                protected void write(Object newValue, ChannelWriteCallback callback) {
+                    throw new UnsupportedOperationException("Not supported.");
+                }
+            };
+        }
+    }
+
+    private static ReadRecipe readRecipe(String... channelNames) {
+        List<ChannelReadRecipe> channelRecipes = new ArrayList<>();
+        for (String channelName : channelNames) {
+            channelRecipes.add(new ChannelReadRecipe(channelName,
+                    new ChannelHandlerReadSubscription(new ValueCacheImpl<>(Object.class),
+                            new ValueCacheImpl<>(Exception.class), new ValueCacheImpl<>(Boolean.class))));
+        }
+        return new ReadRecipe(channelRecipes);
+    }
+
+    @Test
+    public void channelCreatedOnce() throws Exception {
+        final TestDataSource dataSource = new TestDataSource();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<ChannelHandler>> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            tasks.add(new Callable<ChannelHandler>() {
+
+                @Override
+                public ChannelHandler call() throws Exception {
+                    return dataSource.channel("test");
+                }
+            });
+        }
+        List<Future<ChannelHandler>> handlers = executor.invokeAll(tasks);
+        executor.shutdown();
+        for (Future<ChannelHandler> handler : handlers) {
+            assertThat(handler.get(), sameInstance(handlers.get(0).get()));
+        }
+        assertThat(dataSource.nCreated.get(), equalTo(1));
+        dataSource.close();
+    }
+
+    @Test
+    public void connectReadBatchFirstValue() throws Exception {
+        TestDataSource dataSource = new TestDataSource();
+        final AtomicInteger nWrites = new AtomicInteger();
+        List<ChannelReadRecipe> channelRecipes = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            ValueCache<Object> cache = new ValueCacheImpl<Object>(Object.class) {
+
+                @Override
+                public void writeValue(Object newValue) {
+                    nWrites.incrementAndGet();
+                    super.writeValue(newValue);
+                }
+            };
+            channelRecipes.add(new ChannelReadRecipe("a", new ChannelHandlerReadSubscription(cache,
+                    new ValueCacheImpl<>(Exception.class), new ValueCacheImpl<>(Boolean.class))));
+        }
+        dataSource.connectRead(new ReadRecipe(channelRecipes));
+        Thread.sleep(100);
+
+        // Readers are added through addReader, which handlers can override,
+        // and each reader receives the first value only once
+        assertThat(dataSource.nAddReader.get(), equalTo(2));
+        assertThat(nWrites.get(), equalTo(2));
+        for (ChannelReadRecipe channelRecipe : channelRecipes) {
+            assertThat(channelRecipe.getReadSubscription().getValueCache().readValue(), equalTo((Object) "first"));
+        }
+        dataSource.close();
+    }
+
+    @Test
+    public void connectReadBatch() throws Exception {
+        TestDataSource dataSource = new TestDataSource();
+        ReadRecipe recipe1 = readRecipe("a", "b");
+        ReadRecipe recipe2 = readRecipe("a", "c");
+        dataSource.connectRead(Arrays.asList(recipe1, recipe2));
+        dataSource.connectRead(readRecipe("a"));
+        Thread.sleep(100);
+
+        assertThat(dataSource.nCreated.get(), equalTo(3));
+        assertThat(dataSource.getChannels().get("a").getReadUsageCounter(), equalTo(3));
+        assertThat(dataSource.getChannels().get("b").getReadUsageCounter(), equalTo(1));
+        assertThat(dataSource.getChannels().get("c").getReadUsageCounter(), equalTo(1));
+        assertThat(dataSource.getChannels().get("a").isConnected(), equalTo(true));
+
+        dataSource.disconnectRead(recipe1);
+        Thread.sleep(100);
+        assertThat(dataSource.getChannels().get("a").getReadUsageCounter(), equalTo(2));
+        assertThat(dataSource.getChannels().get("b").getReadUsageCounter(), equalTo(0));
+        dataSource.close();
+    }
+}
@@ -50,13 +50,15 @@ import java.util.logging.Logger;
 
     @Override
     public void desiredRateEvent(DesiredRateEvent event) {
+        Integer msPause;
         synchronized(lock) {
             events.add(event);
             timestamps.add(Instant.now());
+            msPause = getPause(events.size() - 1);
         }
-        if (pause != null) {
+        if (msPause != null) {
             try {
-                Thread.sleep(pause);
+                Thread.sleep(msPause);
             } catch (InterruptedException ex) {
                 Logger.getLogger(DesiredRateEventLog.class.getName()).log(Level.SEVERE, null, ex);
             }
@@ -68,6 +70,22 @@ import java.util.logging.Logger;
         decoupler.readyForNextEvent();
     }
 
+    /**
+     * The time spent processing the given event.
+     *
+     * @param eventIndex the index of the event
+     * @return the pause in ms, or null for no pause
+     */
+    protected Integer getPause(int eventIndex) {
+        return pause;
+    }
+
+    public List<Instant> getTimestamps() {
+        synchronized(lock) {
+            return timestamps;
+        }
+    }
+
     public List<DesiredRateEvent.Type> getEventTypes(int n) {
         synchronized(lock) {
             return events.get(n).getTypes();
@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void empty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.getCount(), equalTo(0L));
+        assertThat(histogram.getAverageNanos(), equalTo(0.0));
+        assertThat(histogram.getPercentileNanos(99), equalTo(0L));
+    }
+
+    @Test
+    public void record() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1000);
+        }
+        histogram.record(1000000);
+        histogram.record(-5);
+        assertThat(histogram.getCount(), equalTo(101L));
+        assertThat(histogram.getTotalNanos(), equalTo(99 * 1000L + 1000000L));
+        assertThat(histogram.getPercentileNanos(0), equalTo(0L));
+        // 1000 is in the bucket [512, 1024)
+        assertThat(histogram.getPercentileNanos(50), equalTo(1023L));
+        // 1000000 is in the bucket [524288, 1048576)
+        assertThat(histogram.getPercentileNanos(100), equalTo(1048575L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongPercentile() {
+        new LatencyHistogram().getPercentileNanos(101);
+    }
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class MultiplexedChannelHandlerTest {
+
+    private static class TestChannelHandler extends MultiplexedChannelHandler<Object, String> {
+
+        private final AtomicInteger conversions = new AtomicInteger();
+        private final AtomicInteger inProgress = new AtomicInteger();
+        private volatile boolean overlapped = false;
+        private final DataSourceTypeAdapter<Object, String> adapter = new DataSourceTypeAdapter<Object, String>() {
+
+            @Override
+            public int match(ValueCache<?> cache, Object connection) {
+                return 1;
+            }
+
+            @Override
+            public Object getSubscriptionParameter(ValueCache<?> cache, Object connection) {
+                throw new UnsupportedOperationException("Not supported yet.");
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean updateCache(ValueCache<?> cache, Object connection, String message) {
+                conversions.incrementAndGet();
+                if (message.startsWith("skip")) {
+                    // Message that does not produce a new value
+                    return false;
+                }
+                if (inProgress.incrementAndGet() > 1) {
+                    overlapped = true;
+                }
+                ((ValueCache<String>) cache).writeValue(message.toUpperCase());
+                Thread.yield();
+                inProgress.decrementAndGet();
+                return true;
+            }
+        };
+
+        public TestChannelHandler(String channelName, boolean lockFreeFanOut) {
+            super(channelName);
+            setLockFreeFanOut(lockFreeFanOut);
+        }
+
+        @Override
+        protected void connect() {
+            processConnection(new Object());
+        }
+
+        @Override
+        protected void disconnect() {
+            processConnection(null);
+        }
+
+        @Override
+        protected void write(Object newValue, ChannelWriteCallback callback) {
+            throw new UnsupportedOperationException("Not supported.");
+        }
+
+        @Override
+        protected DataSourceTypeAdapter<Object, String> findTypeAdapter(ValueCache<?> cache, Object connection) {
+            return adapter;
+        }
+
+        public void newMessage(String message) {
+            processMessage(message);
+        }
+
+        public void newConnection(Object connection) {
+            processConnection(connection);
+        }
+    }
+
+    private static ChannelHandlerReadSubscription readSubscription(ValueCache<String> cache) {
+        return new ChannelHandlerReadSubscription(cache, new ValueCacheImpl<>(Exception.class), new ValueCacheImpl<>(Boolean.class));
+    }
+
+    @Test
+    public void lockedFanOut() {
+        TestChannelHandler handler = new TestChannelHandler("test", false);
+        ValueCache<String> cache1 = new ValueCacheImpl<>(String.class);
+        ValueCache<String> cache2 = new ValueCacheImpl<>(String.class);
+        handler.addReader(readSubscription(cache1));
+        handler.addReader(readSubscription(cache2));
+        handler.newMessage("value");
+        assertThat(cache1.readValue(), equalTo("VALUE"));
+        assertThat(cache2.readValue(), equalTo("VALUE"));
+        // Readers with the same adapter share the conversion in both modes
+        assertThat(handler.conversions.get(), equalTo(1));
+        assertThat(cache2.readValue(), sameInstance(cache1.readValue()));
+    }
+
+    @Test
+    public void lockFreeFanOut() {
+        TestChannelHandler handler = new TestChannelHandler("test", true);
+        ValueCache<String> cache1 = new ValueCacheImpl<>(String.class);
+        ValueCache<String> cache2 = new ValueCacheImpl<>(String.class);
+        ValueCache<String> cache3 = new ValueCacheImpl<>(String.class);
+        handler.addReader(readSubscription(cache1));
+        handler.addReader(readSubscription(cache2));
+        handler.addReader(readSubscription(cache3));
+        handler.newMessage("value");
+        assertThat(cache1.readValue(), equalTo("VALUE"));
+        assertThat(cache2.readValue(), equalTo("VALUE"));
+        assertThat(cache3.readValue(), equalTo("VALUE"));
+        assertThat(handler.conversions.get(), equalTo(1));
+    }
+
+    @Test
+    public void lockFreeFanOutNoNewValue() {
+        TestChannelHandler handler = new TestChannelHandler("test", true);
+        ValueCache<String> cache1 = new ValueCacheImpl<>(String.class);
+        ValueCache<String> cache2 = new ValueCacheImpl<>(String.class);
+        handler.addReader(readSubscription(cache1));
+        handler.addReader(readSubscription(cache2));
+        handler.newMessage("value");
+        assertThat(cache2.readValue(), equalTo("VALUE"));
+
+        // The adapter did not update the cache: nothing is copied
+        cache2.writeValue("other");
+        handler.newMessage("skip");
+        assertThat(cache1.readValue(), equalTo("VALUE"));
+        assertThat(cache2.readValue(), equalTo("other"));
+        assertThat(handler.conversions.get(), equalTo(2));
+    }
+
+    @Test
+    public void lockFreeFanOutAddRemoveReader() {
+        TestChannelHandler handler = new TestChannelHandler("test", true);
+        ValueCache<String> cache1 = new ValueCacheImpl<>(String.class);
+        ValueCache<String> cache2 = new ValueCacheImpl<>(String.class);
+        ChannelHandlerReadSubscription subscription1 = readSubscription(cache1);
+        handler.addReader(subscription1);
+        handler.newMessage("first");
+        assertThat(cache1.readValue(), equalTo("FIRST"));
+
+        // New reader receives the last message
+        handler.addReader(readSubscription(cache2));
+        assertThat(cache2.readValue(), equalTo("FIRST"));
+
+        // Removed reader does not receive new messages
+        handler.removeReader(subscription1);
+        handler.newMessage("second");
+        assertThat(cache1.readValue(), equalTo("FIRST"));
+        assertThat(cache2.readValue(), equalTo("SECOND"));
+        assertThat(handler.getReadUsageCounter(), equalTo(1));
+    }
+
+    @Test
+    public void lockFreeFanOutConcurrentConnection() throws Exception {
+        // Connection changes and new readers run while messages are
+        // dispatched: conversions must never overlap, and all readers
+        // must end up with the last message
+        final TestChannelHandler handler = new TestChannelHandler("test", true);
+        final List<ValueCache<String>> caches = new CopyOnWriteArrayList<>();
+        ValueCache<String> firstCache = new ValueCacheImpl<>(String.class);
+        caches.add(firstCache);
+        handler.addReader(readSubscription(firstCache));
+        final int nMessages = 20000;
+        Thread dispatcher = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                for (int i = 0; i < nMessages; i++) {
+                    handler.newMessage("value" + i);
+                }
+            }
+        });
+        dispatcher.start();
+        while (dispatcher.isAlive()) {
+            handler.newConnection(new Object());
+            if (caches.size() < 50) {
+                ValueCache<String> cache = new ValueCacheImpl<>(String.class);
+                caches.add(cache);
+                handler.addReader(readSubscription(cache));
+            }
+        }
+        dispatcher.join();
+
+        assertThat(handler.overlapped, equalTo(false));
+        for (ValueCache<String> cache : caches) {
+            assertThat(cache.readValue(), equalTo("VALUE" + (nMessages - 1)));
+        }
+    }
+
+    @Test
+    public void channelMetrics() {
+        MetricsRegistry.setEnabled(true);
+        TestChannelHandler handler;
+        try {
+            handler = new TestChannelHandler("metrics", false);
+        } finally {
+            MetricsRegistry.setEnabled(false);
+        }
+        assertThat(MetricsRegistry.getChannelMetrics(), hasItem(handler.getMetrics()));
+        handler.addReader(readSubscription(new ValueCacheImpl<>(String.class)));
+        handler.newMessage("first");
+        handler.newMessage("second");
+        assertThat(handler.getMetrics().getChannelName(), equalTo("metrics"));
+        assertThat(handler.getMetrics().getMessages(), equalTo(2L));
+        assertThat(handler.getMetrics().getProcessMessageTime().getCount(), equalTo(2L));
+
+        // Metrics disabled at creation
+        assertThat(new TestChannelHandler("test", false).getMetrics(), nullValue());
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class PVReaderConfigurationTest {
+
+    private static final ReadFunction<Object> function = new ReadFunction<Object>() {
+
+        @Override
+        public Object readValue() {
+            return null;
+        }
+    };
+
+    @Test
+    public void scannerTypeDefault() {
+        PVReaderConfiguration<Object> configuration = new PVReaderConfiguration<>(null);
+        configuration.aggregatedFunction = function;
+        assertThat(PVReaderConfiguration.scannerType(configuration), equalTo(ScannerParameters.Type.ACTIVE));
+
+        // Plain collectors are scanned on source change
+        configuration.aggregatedFunction = new LatestValueCollector<>();
+        assertThat(PVReaderConfiguration.scannerType(configuration), equalTo(ScannerParameters.Type.PASSIVE));
+    }
+
+    @Test
+    public void scanOnSourceChange() {
+        PVReaderConfiguration<Object> configuration = new PVReaderConfiguration<>(null);
+        configuration.aggregatedFunction = function;
+        configuration.scanOnSourceChange();
+        assertThat(PVReaderConfiguration.scannerType(configuration), equalTo(ScannerParameters.Type.PASSIVE));
+    }
+}
@@ -10,6 +10,9 @@ import org.diirt.datasource.SourceDesiredRateDecoupler;
 import org.diirt.datasource.ActiveScanDecoupler;
 import org.diirt.util.time.TimeDuration;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -197,6 +200,99 @@ public class PassiveScanDecouplerTest {
         });
     }
 
+    @Test
+    public void eventOnSourceChange() throws Exception {
+        repeatTest(5, new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                log = new DesiredRateEventLog();
+                SourceDesiredRateDecoupler decoupler = new PassiveScanDecoupler(PVManager.getReadScannerExecutorService(), TimeDuration.ofHertz(10), log);
+                log.setDecoupler(decoupler);
+                decoupler.start();
+                Thread.sleep(150);
+                // Nothing is sent while the source is idle
+                assertThat(log.getEvents().size(), equalTo(1));
+
+                decoupler.newValueEvent();
+                Thread.sleep(20);
+                decoupler.stop();
+                // The change is sent right away, since the last
+                // event is older than the max rate period
+                assertThat(log.getEvents().size(), equalTo(2));
+                assertThat(log.getEventTypes(1), hasItem(VALUE));
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void eventsThrottledToMaxRate() throws Exception {
+        repeatTest(5, new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                log = new DesiredRateEventLog();
+                SourceDesiredRateDecoupler decoupler = new PassiveScanDecoupler(PVManager.getReadScannerExecutorService(), TimeDuration.ofHertz(20), log);
+                log.setDecoupler(decoupler);
+                decoupler.start();
+                Thread.sleep(60);
+
+                // Changes at about 500Hz
+                for (int i = 0; i < 150; i++) {
+                    decoupler.newValueEvent();
+                    Thread.sleep(2);
+                }
+                Thread.sleep(100);
+                decoupler.stop();
+
+                assertMinInterval(log, 45);
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void lateEventKeepsMaxRate() throws Exception {
+        // The first value takes longer than the max rate period to process.
+        // The following events are then late: the next submission must be
+        // computed from the current time, not from the missed time slot,
+        // otherwise two events would be sent back to back
+        repeatTest(5, new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                log = new DesiredRateEventLog() {
+
+                    @Override
+                    protected Integer getPause(int eventIndex) {
+                        return eventIndex == 1 ? 120 : null;
+                    }
+                };
+                SourceDesiredRateDecoupler decoupler = new PassiveScanDecoupler(PVManager.getReadScannerExecutorService(), TimeDuration.ofHertz(20), log);
+                log.setDecoupler(decoupler);
+                decoupler.start();
+                Thread.sleep(60);
+
+                for (int i = 0; i < 150; i++) {
+                    decoupler.newValueEvent();
+                    Thread.sleep(2);
+                }
+                Thread.sleep(100);
+                decoupler.stop();
+
+                assertThat(log.getEvents().size(), greaterThanOrEqualTo(4));
+                assertMinInterval(log, 45);
+                return null;
+            }
+        });
+    }
+
+    private static void assertMinInterval(DesiredRateEventLog log, long minMs) {
+        List<Instant> timestamps = log.getTimestamps();
+        for (int i = 1; i < timestamps.size(); i++) {
+            assertThat("Interval before event " + i, Duration.between(timestamps.get(i - 1), timestamps.get(i)).toMillis(),
+                    greaterThanOrEqualTo(minMs));
+        }
+    }
+
     private DesiredRateEventLog log;
 
     public void repeatTest(int nTimes, Callable<?> task) throws Exception {
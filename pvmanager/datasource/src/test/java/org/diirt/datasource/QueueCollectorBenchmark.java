@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource;
+
+import java.util.List;
+
+/**
+ * Compares {@link QueueCollector} and {@link CircularQueueCollector}
+ * with a queue of 10,000 elements read at 10 Hz, for a source at 1 kHz
+ * (100 writes per read) and at 100 kHz (10,000 writes per read). The queue
+ * is first filled, so that every write at 100 kHz overflows.
+ *
+ * @author carcassi
+ */
+public class QueueCollectorBenchmark {
+
+    private static final int maxSize = 10000;
+
+    public static void main(String[] args) {
+        System.out.println(System.getProperty("java.version"));
+        System.out.println("\"writes per read\" collector \"ns per write\"");
+        for (int i = 0; i < 3; i++) {
+            profile(new QueueCollector<Object>(maxSize), 100, 100000);
+            profile(new CircularQueueCollector<Object>(maxSize), 100, 100000);
+            profile(new QueueCollector<Object>(maxSize), 10000, 200);
+            profile(new CircularQueueCollector<Object>(maxSize), 10000, 200);
+        }
+    }
+
+    private static void profile(Collector<Object, List<Object>> collector, int writesPerRead, int nReads) {
+        Object value = new Object();
+        for (int i = 0; i < maxSize; i++) {
+            collector.writeValue(value);
+        }
+
+        long total = 0;
+        long startTime = System.nanoTime();
+        for (int n = 0; n < nReads; n++) {
+            for (int i = 0; i < writesPerRead; i++) {
+                collector.writeValue(value);
+            }
+            total += collector.readValue().size();
+        }
+        long stopTime = System.nanoTime();
+
+        System.out.println(writesPerRead + " " + collector.getClass().getSimpleName() + " "
+                + (stopTime - startTime) / ((double) writesPerRead * nReads) + " (" + total + ")");
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of scanning with one periodic task per reader
+ * against the shared {@link ScanWheel}.
+ * <p>
+ * For each number of scans, it reports the cpu time used by the
+ * scanner threads and the jitter of the interval between two consecutive
+ * runs of the same scan (99th percentile and max). The first interval
+ * is not counted, as with the wheel it depends on the phase the scan
+ * was assigned to.
+ *
+ * @author carcassi
+ */
+public class ScanWheelBenchmark {
+
+    private static final Duration period = Duration.ofMillis(100);
+    private static final int nSeconds = 5;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("nScans mode \"cpu (ms/s)\" \"p99 jitter (ms)\" \"max jitter (ms)\"");
+        for (int nScans : new int[] {1000, 10000, 50000}) {
+            profile(nScans, false);
+            profile(nScans, true);
+        }
+    }
+
+    private static class Scan implements Runnable {
+
+        private long lastRun;
+        private int nRuns;
+        private final long[] jitters = new long[nSeconds * 1000 / (int) period.toMillis() + 10];
+        private int nJitters;
+
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            nRuns++;
+            if (nRuns > 2 && nJitters < jitters.length) {
+                jitters[nJitters] = Math.abs(now - lastRun - period.toNanos());
+                nJitters++;
+            }
+            lastRun = now;
+        }
+    }
+
+    public static void profile(int nScans, boolean wheel) throws Exception {
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
+        List<Scan> scans = new ArrayList<>();
+        List<ScheduledFuture<?>> futures = new ArrayList<>();
+        List<ScanWheel.Registration> registrations = new ArrayList<>();
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        long cpuStart = totalCpuTime(bean);
+        for (int i = 0; i < nScans; i++) {
+            Scan scan = new Scan();
+            scans.add(scan);
+            if (wheel) {
+                registrations.add(ScanWheel.register(executor, period, scan));
+            } else {
+                futures.add(executor.scheduleWithFixedDelay(scan, 0, period.toNanos(), TimeUnit.NANOSECONDS));
+            }
+        }
+
+        Thread.sleep(nSeconds * 1000);
+
+        for (ScheduledFuture<?> future : futures) {
+            future.cancel(false);
+        }
+        for (ScanWheel.Registration registration : registrations) {
+            registration.cancel();
+        }
+        long cpuTime = totalCpuTime(bean) - cpuStart;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        int nJitters = 0;
+        for (Scan scan : scans) {
+            nJitters += scan.nJitters;
+        }
+        long[] jitters = new long[nJitters];
+        int index = 0;
+        for (Scan scan : scans) {
+            System.arraycopy(scan.jitters, 0, jitters, index, scan.nJitters);
+            index += scan.nJitters;
+        }
+        Arrays.sort(jitters);
+
+        System.out.println(nScans + " " + (wheel ? "wheel" : "executor") + " "
+                + (cpuTime / 1000000.0 / nSeconds) + " "
+                + (jitters[(int) (jitters.length * 0.99)] / 1000000.0) + " "
+                + (jitters[jitters.length - 1] / 1000000.0));
+    }
+
+    private static long totalCpuTime(ThreadMXBean bean) {
+        long total = 0;
+        for (long id : bean.getAllThreadIds()) {
+            long time = bean.getThreadCpuTime(id);
+            if (time > 0) {
+                total += time;
+            }
+        }
+        return total;
+    }
+}
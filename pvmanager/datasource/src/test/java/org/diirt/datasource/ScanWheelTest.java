@@ -0,0 +1,223 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.datasource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class ScanWheelTest {
+
+    private static final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2);
+
+    @AfterClass
+    public static void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void sharedWheel() throws Exception {
+        int nWheels = ScanWheel.wheelCount();
+        final AtomicInteger counter = new AtomicInteger();
+        List<ScanWheel.Registration> registrations = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            registrations.add(ScanWheel.register(executor, Duration.ofMillis(100), new Runnable() {
+
+                @Override
+                public void run() {
+                    counter.incrementAndGet();
+                }
+            }));
+        }
+        assertThat(ScanWheel.wheelCount(), equalTo(nWheels + 1));
+
+        Thread.sleep(450);
+        for (ScanWheel.Registration registration : registrations) {
+            registration.cancel();
+        }
+        assertThat(ScanWheel.wheelCount(), equalTo(nWheels));
+
+        // Each task runs right away, and then once every 100 ms
+        assertThat(counter.get(), greaterThanOrEqualTo(400));
+        assertThat(counter.get(), lessThanOrEqualTo(500));
+
+        int count = counter.get();
+        Thread.sleep(200);
+        assertThat(counter.get(), equalTo(count));
+    }
+
+    @Test
+    public void differentPeriods() throws Exception {
+        int nWheels = ScanWheel.wheelCount();
+        Runnable task = new Runnable() {
+
+            @Override
+            public void run() {
+            }
+        };
+        // Multiples of the tick share the same wheel
+        ScanWheel.Registration registration1 = ScanWheel.register(executor, Duration.ofMillis(100), task);
+        ScanWheel.Registration registration2 = ScanWheel.register(executor, Duration.ofMillis(50), task);
+        assertThat(ScanWheel.wheelCount(), equalTo(nWheels + 1));
+        ScanWheel.Registration registration3 = ScanWheel.register(executor, Duration.ofMillis(15), task);
+        assertThat(ScanWheel.wheelCount(), equalTo(nWheels + 2));
+        registration1.cancel();
+        assertThat(ScanWheel.wheelCount(), equalTo(nWheels + 2));
+        registration2.cancel();
+        registration3.cancel();
+        assertThat(ScanWheel.wheelCount(), equalTo(nWheels));
+    }
+
+    @Test
+    public void compatiblePeriodsRate() throws Exception {
+        final AtomicInteger fast = new AtomicInteger();
+        final AtomicInteger slow = new AtomicInteger();
+        List<ScanWheel.Registration> registrations = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            registrations.add(ScanWheel.register(executor, Duration.ofMillis(50), new Runnable() {
+
+                @Override
+                public void run() {
+                    fast.incrementAndGet();
+                }
+            }));
+            registrations.add(ScanWheel.register(executor, Duration.ofMillis(200), new Runnable() {
+
+                @Override
+                public void run() {
+                    slow.incrementAndGet();
+                }
+            }));
+        }
+        Thread.sleep(470);
+        for (ScanWheel.Registration registration : registrations) {
+            registration.cancel();
+        }
+
+        // Runs at 0, 50, ..., 450 ms and at 0, 200, 400 ms
+        assertThat(fast.get(), greaterThanOrEqualTo(80));
+        assertThat(fast.get(), lessThanOrEqualTo(100));
+        assertThat(slow.get(), greaterThanOrEqualTo(20));
+        assertThat(slow.get(), lessThanOrEqualTo(30));
+    }
+
+    @Test
+    public void slowTaskDoesNotDelayOthers() throws Exception {
+        ScheduledExecutorService pool = Executors.newScheduledThreadPool(4);
+        try {
+            final AtomicInteger counter = new AtomicInteger();
+            ScanWheel.Registration slow = ScanWheel.register(pool, Duration.ofMillis(50), new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            ScanWheel.Registration fast = ScanWheel.register(pool, Duration.ofMillis(50), new Runnable() {
+
+                @Override
+                public void run() {
+                    counter.incrementAndGet();
+                }
+            });
+            Thread.sleep(500);
+            slow.cancel();
+            fast.cancel();
+
+            // Runs at 0, 50, ..., 450 ms
+            assertThat(counter.get(), greaterThanOrEqualTo(8));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void runsNeverOverlap() throws Exception {
+        ScheduledExecutorService pool = Executors.newScheduledThreadPool(4);
+        try {
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger runs = new AtomicInteger();
+            final AtomicBoolean overlapped = new AtomicBoolean();
+            ScanWheel.Registration registration = ScanWheel.register(pool, Duration.ofMillis(10), new Runnable() {
+
+                @Override
+                public void run() {
+                    if (running.incrementAndGet() > 1) {
+                        overlapped.set(true);
+                    }
+                    runs.incrementAndGet();
+                    try {
+                        Thread.sleep(25);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                }
+            });
+            Thread.sleep(300);
+            registration.cancel();
+
+            // Runs that find the previous one in progress are skipped
+            assertThat(overlapped.get(), equalTo(false));
+            assertThat(runs.get(), greaterThanOrEqualTo(5));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void cancelBeforeFirstRun() throws Exception {
+        ScheduledExecutorService single = Executors.newSingleThreadScheduledExecutor();
+        try {
+            final CountDownLatch release = new CountDownLatch(1);
+            single.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            final AtomicInteger counter = new AtomicInteger();
+            ScanWheel.Registration registration = ScanWheel.register(single, Duration.ofMillis(20), new Runnable() {
+
+                @Override
+                public void run() {
+                    counter.incrementAndGet();
+                }
+            });
+
+            // The first run is still queued behind the blocked task
+            registration.cancel();
+            release.countDown();
+            Thread.sleep(100);
+            assertThat(counter.get(), equalTo(0));
+        } finally {
+            single.shutdownNow();
+        }
+    }
+}
@@ -89,4 +89,8 @@ public final class ArrayDouble extends ListDouble implements Serializable {
     double[] wrappedArray() {
         return array;
     }
+
+    boolean isReadOnly() {
+        return readOnly;
+    }
 }
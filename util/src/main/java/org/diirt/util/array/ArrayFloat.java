@@ -90,4 +90,8 @@ public final class ArrayFloat extends ListFloat implements Serializable {
     float[] wrappedArray() {
         return array;
     }
+
+    boolean isReadOnly() {
+        return readOnly;
+    }
 }
@@ -89,4 +89,8 @@ public final class ArrayInt extends ListInt implements Serializable {
     int[] wrappedArray() {
         return array;
     }
+
+    boolean isReadOnly() {
+        return readOnly;
+    }
 }
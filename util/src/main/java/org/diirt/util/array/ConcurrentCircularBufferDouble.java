@@ -0,0 +1,206 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.util.array;
+
+import java.util.ConcurrentModificationException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed capacity circular buffer of timestamped values, that can be filled
+ * by one thread and read by any number of threads without locks.
+ * <p>
+ * Each value added gets a sequence number. A reader calls {@link #snapshot() }
+ * to get the values currently in the buffer: the snapshot is a view on the
+ * buffer, and no data is copied. The buffer is allocated with at least
+ * twice the capacity, so that a snapshot remains readable while the
+ * producer adds at least {@code capacity} more values. If an element of
+ * the snapshot is read after being overwritten, a
+ * {@link ConcurrentModificationException} is thrown instead of returning
+ * a wrong value; {@link Snapshot#isValid() } can be used to check beforehand.
+ * <p>
+ * Only one thread at a time can call {@link #add(long, double) } and
+ * {@link #clear() }.
+ *
+ * @author carcassi
+ */
+public class ConcurrentCircularBufferDouble {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicLongArray values;
+    private final AtomicLongArray timestamps;
+    // Sequence of the first value after the last clear
+    private volatile long first;
+    // Sequence of the next value that is being written:
+    // the values before claimed - buffer size may have been overwritten
+    private volatile long claimed;
+    // Sequence of the next value to write: the values before are readable
+    private volatile long published;
+
+    /**
+     * Creates a new buffer that holds the given number of values.
+     *
+     * @param capacity the maximum number of values in a snapshot
+     */
+    public ConcurrentCircularBufferDouble(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 29)) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^29 (was " + capacity + ")");
+        }
+        this.capacity = capacity;
+        int bufferSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        this.mask = bufferSize - 1;
+        this.values = new AtomicLongArray(bufferSize);
+        this.timestamps = new AtomicLongArray(bufferSize);
+    }
+
+    /**
+     * Adds a new value. Must be called by the producer thread only.
+     *
+     * @param timestamp the timestamp of the value (e.g. epoch nanos)
+     * @param value the new value
+     */
+    public void add(long timestamp, double value) {
+        long sequence = published;
+        // Readers must know that the slot is being reused before it is written
+        claimed = sequence + 1;
+        int index = (int) sequence & mask;
+        values.set(index, Double.doubleToRawLongBits(value));
+        timestamps.set(index, timestamp);
+        published = sequence + 1;
+    }
+
+    /**
+     * Removes all values. Must be called by the producer thread only.
+     * Snapshots taken before are not affected.
+     */
+    public void clear() {
+        first = published;
+    }
+
+    /**
+     * The maximum number of values in the buffer.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * The total number of values added to the buffer. Can be used to tell
+     * whether there is new data without taking a snapshot.
+     *
+     * @return the sequence number of the next value to be added
+     */
+    public long getSequence() {
+        return published;
+    }
+
+    /**
+     * Takes a snapshot of the values currently in the buffer.
+     *
+     * @return a view of the current values
+     */
+    public Snapshot snapshot() {
+        long end = published;
+        long start = Math.max(first, end - capacity);
+        return new Snapshot(start, (int) (end - start));
+    }
+
+    private void checkAvailable(long sequence) {
+        if (sequence < claimed - (mask + 1)) {
+            throw new ConcurrentModificationException("Value " + sequence + " was overwritten in the circular buffer");
+        }
+    }
+
+    /**
+     * The values of the buffer at the time it was taken.
+     */
+    public class Snapshot {
+
+        private final long start;
+        private final int size;
+
+        private final ListDouble valueList = new ListDouble() {
+
+            @Override
+            public double getDouble(int index) {
+                long sequence = sequenceOf(index);
+                double value = Double.longBitsToDouble(values.get((int) sequence & mask));
+                checkAvailable(sequence);
+                return value;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+
+        private final ListLong timestampList = new ListLong() {
+
+            @Override
+            public long getLong(int index) {
+                long sequence = sequenceOf(index);
+                long timestamp = timestamps.get((int) sequence & mask);
+                checkAvailable(sequence);
+                return timestamp;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+
+        Snapshot(long start, int size) {
+            this.start = start;
+            this.size = size;
+        }
+
+        private long sequenceOf(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return start + index;
+        }
+
+        /**
+         * The values, from the oldest to the newest.
+         *
+         * @return a view of the values
+         */
+        public ListDouble getValues() {
+            return valueList;
+        }
+
+        /**
+         * The timestamps, from the oldest to the newest.
+         *
+         * @return a view of the timestamps
+         */
+        public ListLong getTimestamps() {
+            return timestampList;
+        }
+
+        /**
+         * The sequence number of the first value in the snapshot.
+         *
+         * @return the sequence number of the oldest value
+         */
+        public long getStartSequence() {
+            return start;
+        }
+
+        /**
+         * Whether all the values of the snapshot can still be read.
+         *
+         * @return false if the producer has overwritten some of the values
+         */
+        public boolean isValid() {
+            return size == 0 || start >= claimed - (mask + 1);
+        }
+    }
+}
@@ -9,6 +9,13 @@ import java.util.List;
 
 /**
  * Math operations defined on lists of numbers.
+ * <p>
+ * When the arguments are read-only arrays ({@link ArrayDouble}, {@link ArrayFloat}
+ * or {@link ArrayInt}) the operations are computed right away in a single
+ * loop over the primitive arrays, which the JIT can vectorize, and the result
+ * is again a read-only {@link ArrayDouble}: chaining operations does not
+ * stack virtual calls for each element. For any other argument, the result
+ * is a view that computes each element on access.
  *
  * @author carcassi
  * @author Mark Davis (NSCL/FRIB)
@@ -100,6 +107,14 @@ public class ListMath {
     public static ListDouble rescale(final ListNumber data, final double factor, final double offset) {
         if (factor == 1.0)
             return add(data, offset);
+        double[] array = arrayOf(data);
+        if (array != null) {
+            double[] result = resultArray(data, array);
+            for (int i = 0; i < result.length; i++) {
+                result[i] = factor * array[i] + offset;
+            }
+            return new ArrayDouble(result);
+        }
         return new ListDouble() {
 
             @Override
@@ -123,6 +138,14 @@ public class ListMath {
      * @return result[x] = numerator / data[x] + offset
      */
     public static ListDouble inverseRescale(final ListNumber data, final double numerator, final double offset) {
+        double[] array = arrayOf(data);
+        if (array != null) {
+            double[] result = resultArray(data, array);
+            for (int i = 0; i < result.length; i++) {
+                result[i] = numerator / array[i] + offset;
+            }
+            return new ArrayDouble(result);
+        }
         return new ListDouble() {
 
             @Override
@@ -145,6 +168,14 @@ public class ListMath {
      * @return result[x] = data[x] ** expon
      */
     public static ListDouble pow(final ListNumber data, final double expon) {
+        double[] array = arrayOf(data);
+        if (array != null) {
+            double[] result = resultArray(data, array);
+            for (int i = 0; i < result.length; i++) {
+                result[i] = Math.pow(array[i], expon);
+            }
+            return new ArrayDouble(result);
+        }
         return new ListDouble() {
 
             @Override
@@ -167,6 +198,14 @@ public class ListMath {
      * @return result[x] = base ** expons[x]
      */
     public static ListDouble pow(final double base, final ListNumber expons) {
+        double[] array = arrayOf(expons);
+        if (array != null) {
+            double[] result = resultArray(expons, array);
+            for (int i = 0; i < result.length; i++) {
+                result[i] = Math.pow(base, array[i]);
+            }
+            return new ArrayDouble(result);
+        }
         return new ListDouble() {
 
             @Override
@@ -189,6 +228,14 @@ public class ListMath {
      * @return result[x] = data[x] + offset
      */
     public static ListDouble add(final ListNumber data, final double offset) {
+        double[] array = arrayOf(data);
+        if (array != null) {
+            double[] result = resultArray(data, array);
+            for (int i = 0; i < result.length; i++) {
+                result[i] = array[i] + offset;
+            }
+            return new ArrayDouble(result);
+        }
         return new ListDouble() {
 
             @Override
@@ -214,6 +261,15 @@ public class ListMath {
     public static ListDouble add(final ListNumber data1, final ListNumber data2) {
         if (data1.size() != data2.size())
             throw new IllegalArgumentException("Can't sum ListNumbers of different size (" + data1.size() + " - " + data2.size() + ")");
+        double[] array1 = arrayOf(data1);
+        double[] array2 = arrayOf(data2);
+        if (array1 != null && array2 != null) {
+            double[] result = resultArray(data1, array1, data2, array2);
+            for (int i = 0; i < result.length; i++) {
+                result[i] = array1[i] + array2[i];
+            }
+            return new ArrayDouble(result);
+        }
         return new ListDouble() {
 
             @Override
@@ -239,6 +295,15 @@ public class ListMath {
     public static ListDouble subtract(final ListNumber data1, final ListNumber data2) {
         if (data1.size() != data2.size())
             throw new IllegalArgumentException("Can't subtract ListNumbers of different size (" + data1.size() + " - " + data2.size() + ")");
+        double[] array1 = arrayOf(data1);
+        double[] array2 = arrayOf(data2);
+        if (array1 != null && array2 != null) {
+            double[] result = resultArray(data1, array1, data2, array2);
+            for (int i = 0; i < result.length; i++) {
+                result[i] = array1[i] - array2[i];
+            }
+            return new ArrayDouble(result);
+        }
         return new ListDouble() {
 
             @Override
@@ -266,6 +331,15 @@ public class ListMath {
             throw new IllegalArgumentException(
                         "Can't do element-wise mult on ListNumbers of different size ("
                      + data1.size() + " - " + data2.size() + ")");
+        double[] array1 = arrayOf(data1);
+        double[] array2 = arrayOf(data2);
+        if (array1 != null && array2 != null) {
+            double[] result = resultArray(data1, array1, data2, array2);
+            for (int i = 0; i < result.length; i++) {
+                result[i] = array1[i] * array2[i];
+            }
+            return new ArrayDouble(result);
+        }
         return new ListDouble() {
 
             @Override
@@ -293,6 +367,15 @@ public class ListMath {
             throw new IllegalArgumentException(
                         "Can't do element-wise mult on ListNumbers of different size ("
                      + data1.size() + " - " + data2.size() + ")");
+        double[] array1 = arrayOf(data1);
+        double[] array2 = arrayOf(data2);
+        if (array1 != null && array2 != null) {
+            double[] result = resultArray(data1, array1, data2, array2);
+            for (int i = 0; i < result.length; i++) {
+                result[i] = array1[i] / array2[i];
+            }
+            return new ArrayDouble(result);
+        }
         return new ListDouble() {
 
             @Override
@@ -307,6 +390,53 @@ public class ListMath {
         };
     }
 
+    /**
+     * Returns the values of a read-only array-backed list as a double array,
+     * or null if the list needs to be accessed element by element.
+     * For an {@link ArrayDouble} this is the wrapped array itself, for the
+     * other types it is a new converted copy.
+     */
+    private static double[] arrayOf(ListNumber data) {
+        if (data instanceof ArrayDouble && ((ArrayDouble) data).isReadOnly()) {
+            return ((ArrayDouble) data).wrappedArray();
+        }
+        if (data instanceof ArrayFloat && ((ArrayFloat) data).isReadOnly()) {
+            float[] array = ((ArrayFloat) data).wrappedArray();
+            double[] result = new double[array.length];
+            for (int i = 0; i < array.length; i++) {
+                result[i] = array[i];
+            }
+            return result;
+        }
+        if (data instanceof ArrayInt && ((ArrayInt) data).isReadOnly()) {
+            int[] array = ((ArrayInt) data).wrappedArray();
+            double[] result = new double[array.length];
+            for (int i = 0; i < array.length; i++) {
+                result[i] = array[i];
+            }
+            return result;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the array where to store the result: the converted copy if one
+     * was made, a new array otherwise.
+     */
+    private static double[] resultArray(ListNumber data, double[] array) {
+        if (data instanceof ArrayDouble) {
+            return new double[array.length];
+        }
+        return array;
+    }
+
+    private static double[] resultArray(ListNumber data1, double[] array1, ListNumber data2, double[] array2) {
+        if (!(data1 instanceof ArrayDouble)) {
+            return array1;
+        }
+        return resultArray(data2, array2);
+    }
+
     /**
      * XXX: This is just a prototype
      * @param x real part
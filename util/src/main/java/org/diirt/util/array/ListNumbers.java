@@ -23,22 +23,46 @@ public class ListNumbers {
      */
     public static SortedListView sortedView(ListNumber values) {
         SortedListView view = new SortedListView(values);
+        if (!isSorted(values)) {
+            SortedListView.quicksort(view);
+        }
+        return view;
+    }
+
+    /**
+     * Creates the sorted view of values that the caller already knows
+     * to be sorted, without checking them. The view has the identity
+     * as index map.
+     *
+     * @param values the values, already sorted
+     * @return the sorted view
+     */
+    public static SortedListView sortedViewOfSorted(ListNumber values) {
+        return new SortedListView(values);
+    }
+
+    /**
+     * Whether the values are sorted in ascending order. Equal consecutive
+     * values are allowed. The check is a single pass over the list,
+     * stopping at the first value out of order.
+     *
+     * @param values a list of values
+     * @return true if the values are sorted
+     */
+    public static boolean isSorted(ListNumber values) {
         if (values.size() <= 1) {
-            // Nothing to sort
-            return view;
+            return true;
         }
 
         double value = values.getDouble(0);
         for (int i = 1; i < values.size(); i++) {
             double newValue = values.getDouble(i);
             if (value > newValue) {
-                SortedListView.quicksort(view);
-                return view;
+                return false;
             }
             value = newValue;
         }
-
-        return view;
+        return true;
     }
 
     /**
@@ -6,6 +6,10 @@ package org.diirt.util.array;
 
 /**
  * A sorted view of a list.
+ * <p>
+ * If the list is already sorted, the view reads the values directly and
+ * the index map is the identity, which is not stored: the array of
+ * indexes is allocated only if the values need to be sorted.
  *
  * @author carcassi
  */
@@ -14,27 +18,49 @@ public class SortedListView extends ListDouble {
     private ListNumber values;
     private ListInt indexes;
     private int[] indexArray;
+    private boolean identity;
 
     SortedListView(ListNumber values) {
         this.values = values;
-        indexArray = new int[values.size()];
-        for (int i = 0; i < indexArray.length; i++) {
-            indexArray[i] = i;
-        }
-        this.indexes = new ArrayInt(indexArray);
+        this.indexes = new IdentityListInt(values.size());
+        this.indexArray = null;
+        this.identity = true;
     }
 
     SortedListView(ListNumber values, ListInt indexes) {
         this.values = values;
         this.indexes = indexes;
         this.indexArray = null;
+        this.identity = indexes instanceof IdentityListInt && indexes.size() == values.size();
     }
 
     @Override
     public double getDouble(int index) {
+        if (identity) {
+            return values.getDouble(index);
+        }
         return values.getDouble(indexes.getInt(index));
     }
 
+    /**
+     * Whether the view is in the same order as the original list,
+     * in which case the index map is the identity.
+     *
+     * @return true if the original list was already sorted
+     */
+    public boolean isIdentity() {
+        return identity;
+    }
+
+    private void allocateIndexes() {
+        indexArray = new int[values.size()];
+        for (int i = 0; i < indexArray.length; i++) {
+            indexArray[i] = i;
+        }
+        indexes = new ArrayInt(indexArray);
+        identity = false;
+    }
+
     @Override
     public int size() {
         return values.size();
@@ -62,6 +88,9 @@ public class SortedListView extends ListDouble {
      * @param list the view to sort
      */
     static void quicksort(SortedListView list) {
+        if (list.indexArray == null) {
+            list.allocateIndexes();
+        }
         quicksort(list, 0, list.size() - 1);
     }
 
@@ -102,4 +131,26 @@ public class SortedListView extends ListDouble {
         return (x < y);
     }
 
+    private static class IdentityListInt extends ListInt {
+
+        private final int size;
+
+        IdentityListInt(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public int getInt(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return index;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
 }
@@ -4,8 +4,11 @@
  */
 package org.diirt.util.concurrent;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -39,6 +42,108 @@ public class Executors {
         return CURRENT_EXECUTOR;
     }
 
+    /**
+     * Executes each task on a new virtual thread. If virtual threads
+     * are not available (before Java 21), it executes the tasks on a
+     * cached pool of daemon threads.
+     * <p>
+     * Tasks can block (e.g. for I/O) without holding up the others, but
+     * they are not serialized: use {@link #serial(java.util.concurrent.Executor) }
+     * if the tasks of a single client need to run in order.
+     *
+     * @return an executor that runs tasks on virtual threads
+     */
+    public static Executor virtualThreads() {
+        return VIRTUAL_THREADS_EXECUTOR;
+    }
+
+    /**
+     * Executes the tasks one at a time, in the order they were submitted,
+     * on the given executor. No thread is held while no task is pending,
+     * and a thread is released only when all the pending tasks are done.
+     *
+     * @param executor the executor that runs the tasks
+     * @return an executor that serializes the tasks
+     */
+    public static Executor serial(Executor executor) {
+        return new SerialExecutor(executor);
+    }
+
+    private static final Executor VIRTUAL_THREADS_EXECUTOR = createVirtualThreadsExecutor();
+
+    private static Executor createVirtualThreadsExecutor() {
+        try {
+            // Virtual threads are looked up by reflection, so that this
+            // still runs on older versions of Java
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "PVMgr Virtual ", 1L);
+            final ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return new Executor() {
+
+                @Override
+                public void execute(Runnable command) {
+                    factory.newThread(command).start();
+                }
+            };
+        } catch (ReflectiveOperationException ex) {
+            log.log(Level.FINE, "Virtual threads not available: using a cached thread pool", ex);
+            return java.util.concurrent.Executors.newCachedThreadPool(namedPool("PVMgr Virtual "));
+        }
+    }
+
+    /**
+     * Runs the tasks one at a time on the given executor.
+     */
+    private static class SerialExecutor implements Executor {
+
+        private final Executor executor;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        private final Runnable drain = new Runnable() {
+
+            @Override
+            public void run() {
+                while (true) {
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        try {
+                            task.run();
+                        } catch (Exception ex) {
+                            log.log(Level.WARNING, "Exception on the serial executor", ex);
+                        } catch (AssertionError ex) {
+                            log.log(Level.WARNING, "Assertion failed on the serial executor", ex);
+                        }
+                    }
+                    scheduled.set(false);
+                    // A task may have been added after the last poll
+                    // but before the flag was reset
+                    if (tasks.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                }
+            }
+        };
+
+        SerialExecutor(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(drain);
+                } catch (RuntimeException ex) {
+                    scheduled.set(false);
+                    throw ex;
+                }
+            }
+        }
+    }
+
     private static final Executor SWING_EXECUTOR = new Executor() {
 
         @Override
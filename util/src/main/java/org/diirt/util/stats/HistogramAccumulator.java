@@ -0,0 +1,439 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.util.stats;
+
+import java.util.Arrays;
+import org.diirt.util.array.ArrayDouble;
+import org.diirt.util.array.ArrayInt;
+import org.diirt.util.array.CollectionNumber;
+import org.diirt.util.array.IteratorNumber;
+import org.diirt.util.array.ListInt;
+import org.diirt.util.array.ListNumber;
+import org.diirt.util.array.ListNumbers;
+
+/**
+ * Incrementally computes the histogram of a stream of values.
+ * <p>
+ * Values can be added and removed in batches, so that the histogram of
+ * a sliding window (e.g. the last hour of a waveform) is updated only with
+ * the values that entered and left the window. NaN values are always
+ * discarded. The bins can be:
+ * <ul>
+ *   <li>linear: fixed range divided in equal bins; values outside the range
+ *   are discarded</li>
+ *   <li>logarithmic: fixed range divided in bins equal in logarithmic scale;
+ *   values outside the range, or not positive, are discarded</li>
+ *   <li>auto range: linear bins that start from the initial range and
+ *   grow to include all the values. When a value falls outside, the width
+ *   of the bins is doubled by merging pairs of adjacent bins, so the
+ *   counts remain exact. Infinite values are discarded.</li>
+ * </ul>
+ * <p>
+ * To fill a histogram from multiple threads, each thread fills its own
+ * partial accumulator created with {@link #newPartial() }, and the partials
+ * are then combined with {@link #merge(org.diirt.util.stats.HistogramAccumulator) }.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author carcassi
+ */
+public class HistogramAccumulator {
+
+    private static enum Binning {LINEAR, LOG, AUTO}
+
+    private final Binning binning;
+    private final int nBins;
+    private int[] counts;
+    private int totalCount;
+
+    // Fixed binning: the range, in log scale for LOG
+    private final Range range;
+    private final double min;
+    private final double max;
+
+    // Auto range: bin i covers [origin + (firstIndex + i) * binWidth, origin + (firstIndex + i + 1) * binWidth),
+    // where binWidth is baseWidth * 2^level
+    private final double origin;
+    private final double baseWidth;
+    private int level;
+    private double binWidth;
+    private long firstIndex;
+
+    private HistogramAccumulator(Binning binning, Range range, int nBins) {
+        this.binning = binning;
+        this.nBins = nBins;
+        this.counts = new int[nBins];
+        this.range = range;
+        if (binning == Binning.LOG) {
+            this.min = Math.log10(range.getMinimum());
+            this.max = Math.log10(range.getMaximum());
+        } else {
+            this.min = range.getMinimum();
+            this.max = range.getMaximum();
+        }
+        this.origin = range.getMinimum();
+        this.baseWidth = (range.getMaximum() - range.getMinimum()) / nBins;
+        this.binWidth = baseWidth;
+    }
+
+    /**
+     * A histogram with nBins equal bins on the given range.
+     *
+     * @param range the range of the histogram; can't be null
+     * @param nBins the number of bins; must be positive
+     * @return a new accumulator
+     */
+    public static HistogramAccumulator linear(Range range, int nBins) {
+        if (nBins <= 0) {
+            throw new IllegalArgumentException("Number of bins must be positive (was " + nBins + ")");
+        }
+        return new HistogramAccumulator(Binning.LINEAR, range, nBins);
+    }
+
+    /**
+     * A histogram with nBins bins on the given range, equal in logarithmic
+     * scale.
+     *
+     * @param range the range of the histogram; must be positive
+     * @param nBins the number of bins; must be positive
+     * @return a new accumulator
+     */
+    public static HistogramAccumulator logarithmic(Range range, int nBins) {
+        if (nBins <= 0) {
+            throw new IllegalArgumentException("Number of bins must be positive (was " + nBins + ")");
+        }
+        if (!(range.getMinimum() > 0)) {
+            throw new IllegalArgumentException("Range for logarithmic bins must be positive (was " + range + ")");
+        }
+        return new HistogramAccumulator(Binning.LOG, range, nBins);
+    }
+
+    /**
+     * A histogram with nBins equal bins that starts on the given range,
+     * and grows to include all the values added.
+     *
+     * @param initialRange the initial range; must have a positive width
+     * @param nBins the number of bins; must be at least 2
+     * @return a new accumulator
+     */
+    public static HistogramAccumulator autoRange(Range initialRange, int nBins) {
+        if (nBins < 2) {
+            throw new IllegalArgumentException("Number of bins must be at least 2 (was " + nBins + ")");
+        }
+        double width = initialRange.getMaximum() - initialRange.getMinimum();
+        if (!(width > 0) || Double.isInfinite(width)) {
+            throw new IllegalArgumentException("Initial range must have a finite positive width (was " + initialRange + ")");
+        }
+        return new HistogramAccumulator(Binning.AUTO, initialRange, nBins);
+    }
+
+    /**
+     * Returns an empty accumulator with the same bins as this one, which
+     * can be filled by another thread and then merged into this one.
+     *
+     * @return a new empty accumulator
+     */
+    public HistogramAccumulator newPartial() {
+        HistogramAccumulator partial = new HistogramAccumulator(binning, range, nBins);
+        partial.level = level;
+        partial.binWidth = binWidth;
+        partial.firstIndex = firstIndex;
+        return partial;
+    }
+
+    // The bin of the value, or -1 if the value is discarded
+    private int fixedBin(double value) {
+        double scaled = binning == Binning.LOG ? Math.log10(value) : value;
+        if (!(scaled >= min && scaled <= max)) {
+            return -1;
+        }
+        int bin = (int) Math.floor((scaled - min) / (max - min) * nBins);
+        if (bin == nBins) {
+            bin--;
+        }
+        return bin;
+    }
+
+    private long autoIndex(double value) {
+        return (long) Math.floor((value - origin) / binWidth);
+    }
+
+    /**
+     * Adds a value to the histogram.
+     *
+     * @param value the new value
+     */
+    public void add(double value) {
+        int bin;
+        if (binning == Binning.AUTO) {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                return;
+            }
+            long index = autoIndex(value);
+            if (index < firstIndex || index >= firstIndex + nBins) {
+                index = include(index);
+            }
+            bin = (int) (index - firstIndex);
+        } else {
+            bin = fixedBin(value);
+            if (bin == -1) {
+                return;
+            }
+        }
+        counts[bin]++;
+        totalCount++;
+    }
+
+    /**
+     * Adds all the values to the histogram.
+     *
+     * @param values the new values
+     */
+    public void add(CollectionNumber values) {
+        IteratorNumber iterator = values.iterator();
+        while (iterator.hasNext()) {
+            add(iterator.nextDouble());
+        }
+    }
+
+    /**
+     * Removes a value that was previously added.
+     *
+     * @param value the value to remove
+     * @throws IllegalStateException if there is no such value in the histogram
+     */
+    public void remove(double value) {
+        int bin;
+        if (binning == Binning.AUTO) {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                return;
+            }
+            long index = autoIndex(value);
+            if (index < firstIndex || index >= firstIndex + nBins) {
+                throw new IllegalStateException("Value " + value + " was never added");
+            }
+            bin = (int) (index - firstIndex);
+        } else {
+            bin = fixedBin(value);
+            if (bin == -1) {
+                // Was discarded when added
+                return;
+            }
+        }
+        if (counts[bin] == 0) {
+            throw new IllegalStateException("Value " + value + " was never added");
+        }
+        counts[bin]--;
+        totalCount--;
+    }
+
+    /**
+     * The bin of the value, for linear and logarithmic bins. Those bins
+     * never change, so the caller can keep the bin of each value it added,
+     * and later remove it with {@link #removeFromBin(int) } without
+     * needing the value itself.
+     *
+     * @param value a value
+     * @return the index of the bin, or -1 if the value is discarded
+     * @throws UnsupportedOperationException for auto range bins
+     */
+    public int binOf(double value) {
+        if (binning == Binning.AUTO) {
+            throw new UnsupportedOperationException("Auto range bins change as values are added");
+        }
+        return fixedBin(value);
+    }
+
+    /**
+     * Adds a value to the given bin, as returned by {@link #binOf(double) }.
+     *
+     * @param bin the index of the bin
+     */
+    public void addToBin(int bin) {
+        if (binning == Binning.AUTO) {
+            throw new UnsupportedOperationException("Auto range bins change as values are added");
+        }
+        counts[bin]++;
+        totalCount++;
+    }
+
+    /**
+     * Removes a value from the given bin, as returned by {@link #binOf(double) }.
+     *
+     * @param bin the index of the bin
+     * @throws IllegalStateException if the bin is empty
+     */
+    public void removeFromBin(int bin) {
+        if (binning == Binning.AUTO) {
+            throw new UnsupportedOperationException("Auto range bins change as values are added");
+        }
+        if (counts[bin] == 0) {
+            throw new IllegalStateException("Bin " + bin + " is empty");
+        }
+        counts[bin]--;
+        totalCount--;
+    }
+
+    /**
+     * Removes all the values, which must have been previously added.
+     *
+     * @param values the values to remove
+     * @throws IllegalStateException if one of the values is not in the histogram
+     */
+    public void remove(CollectionNumber values) {
+        IteratorNumber iterator = values.iterator();
+        while (iterator.hasNext()) {
+            remove(iterator.nextDouble());
+        }
+    }
+
+    /**
+     * Removes all values. The bins of an auto range histogram are kept.
+     */
+    public void clear() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+    }
+
+    /**
+     * Adds the counts of the other histogram to this one. The other
+     * histogram must have been created by {@link #newPartial() } from this one,
+     * or from the same factory method with the same arguments.
+     *
+     * @param other the histogram to merge
+     */
+    public void merge(HistogramAccumulator other) {
+        if (other.binning != binning || other.nBins != nBins || !other.range.equals(range)) {
+            throw new IllegalArgumentException("Histograms have different bins");
+        }
+        if (binning != Binning.AUTO) {
+            for (int i = 0; i < nBins; i++) {
+                counts[i] += other.counts[i];
+            }
+            totalCount += other.totalCount;
+            return;
+        }
+
+        if (other.level > level) {
+            rebin(other.level, firstIndex >> (other.level - level));
+        }
+        for (int i = 0; i < nBins; i++) {
+            if (other.counts[i] != 0) {
+                long index = (other.firstIndex + i) >> (level - other.level);
+                if (index < firstIndex || index >= firstIndex + nBins) {
+                    index = include(index);
+                }
+                counts[(int) (index - firstIndex)] += other.counts[i];
+            }
+        }
+        totalCount += other.totalCount;
+    }
+
+    // Doubles the bin width until the index (given at the current level)
+    // fits together with the current bins. Returns the index at the new level.
+    private long include(long index) {
+        while (true) {
+            index = index >> 1;
+            long currentLow = firstIndex >> 1;
+            long currentHigh = (firstIndex + nBins - 1) >> 1;
+            long low = Math.min(currentLow, index);
+            long high = Math.max(currentHigh, index);
+            if (high - low + 1 <= nBins) {
+                // Leave the free bins on the side the range is growing
+                rebin(level + 1, index < currentLow ? high - nBins + 1 : low);
+                return index;
+            }
+            rebin(level + 1, currentLow);
+        }
+    }
+
+    private void rebin(int newLevel, long newFirstIndex) {
+        int shift = newLevel - level;
+        int[] newCounts = new int[nBins];
+        for (int i = 0; i < nBins; i++) {
+            if (counts[i] != 0) {
+                newCounts[(int) (((firstIndex + i) >> shift) - newFirstIndex)] += counts[i];
+            }
+        }
+        counts = newCounts;
+        firstIndex = newFirstIndex;
+        level = newLevel;
+        binWidth = Math.scalb(baseWidth, level);
+    }
+
+    /**
+     * The number of bins.
+     *
+     * @return the number of bins
+     */
+    public int getNBins() {
+        return nBins;
+    }
+
+    /**
+     * The counts for each bin. The list is a copy, and does not change
+     * when values are added or removed.
+     *
+     * @return the counts; never null
+     */
+    public ListInt getCounts() {
+        return new ArrayInt(counts.clone());
+    }
+
+    /**
+     * The count of the fullest bin.
+     *
+     * @return the maximum count
+     */
+    public int getMaxCount() {
+        int maxCount = 0;
+        for (int i = 0; i < nBins; i++) {
+            maxCount = Math.max(maxCount, counts[i]);
+        }
+        return maxCount;
+    }
+
+    /**
+     * The number of values in the histogram, excluding the ones
+     * that were discarded.
+     *
+     * @return the number of values
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * The range covered by the bins.
+     *
+     * @return the range; never null
+     */
+    public Range getRange() {
+        if (binning != Binning.AUTO) {
+            return range;
+        }
+        return Ranges.range(origin + firstIndex * binWidth, origin + (firstIndex + nBins) * binWidth);
+    }
+
+    /**
+     * The boundaries of the bins, from the smallest to the greatest.
+     * The number of elements is {@link #getNBins() } + 1.
+     *
+     * @return the boundaries; never null
+     */
+    public ListNumber getBoundaries() {
+        if (binning == Binning.LOG) {
+            double[] boundaries = new double[nBins + 1];
+            for (int i = 0; i <= nBins; i++) {
+                boundaries[i] = Math.pow(10, min + (max - min) * i / nBins);
+            }
+            boundaries[0] = range.getMinimum();
+            boundaries[nBins] = range.getMaximum();
+            return new ArrayDouble(boundaries);
+        }
+        Range currentRange = getRange();
+        return ListNumbers.linearListFromRange(currentRange.getMinimum(), currentRange.getMaximum(), nBins + 1);
+    }
+}
@@ -0,0 +1,206 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.util.stats;
+
+import org.diirt.util.array.CollectionNumber;
+import org.diirt.util.array.IteratorNumber;
+
+/**
+ * Incrementally computes the statistics of a sliding window of values,
+ * excluding NaN values.
+ * <p>
+ * Values are added at the end of the window and removed from the start:
+ * {@link #remove(double) } must be called with the oldest value still in the
+ * window, as is the case when following a circular buffer. Each operation
+ * takes constant amortized time and the accumulator does not keep a copy
+ * of the window: the average and standard deviation are updated with
+ * Welford's algorithm, while the range is kept with two monotonic queues
+ * that hold only the candidates for minimum and maximum.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author carcassi
+ */
+public class StatisticsAccumulator {
+
+    private int count;
+    private double mean;
+    private double m2;
+    // Sequence number of the next value added and removed (NaN excluded)
+    private long addSequence;
+    private long removeSequence;
+    private final MonotonicQueue minQueue = new MonotonicQueue(true);
+    private final MonotonicQueue maxQueue = new MonotonicQueue(false);
+
+    /**
+     * Adds a value at the end of the window.
+     *
+     * @param value the new value
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        minQueue.add(value, addSequence);
+        maxQueue.add(value, addSequence);
+        addSequence++;
+    }
+
+    /**
+     * Adds all the values at the end of the window.
+     *
+     * @param values the new values
+     */
+    public void add(CollectionNumber values) {
+        IteratorNumber iterator = values.iterator();
+        while (iterator.hasNext()) {
+            add(iterator.nextDouble());
+        }
+    }
+
+    /**
+     * Removes the oldest value of the window.
+     *
+     * @param value the oldest value; must be the same that was added
+     * @throws IllegalStateException if the window is empty
+     */
+    public void remove(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (count == 0) {
+            throw new IllegalStateException("No values to remove");
+        }
+        count--;
+        if (count == 0) {
+            // Start again from scratch to avoid accumulating errors
+            mean = 0;
+            m2 = 0;
+        } else {
+            double delta = value - mean;
+            mean -= delta / count;
+            m2 -= delta * (value - mean);
+        }
+        minQueue.remove(removeSequence);
+        maxQueue.remove(removeSequence);
+        removeSequence++;
+    }
+
+    /**
+     * Removes all the values from the start of the window.
+     *
+     * @param values the oldest values, in the order they were added
+     */
+    public void remove(CollectionNumber values) {
+        IteratorNumber iterator = values.iterator();
+        while (iterator.hasNext()) {
+            remove(iterator.nextDouble());
+        }
+    }
+
+    /**
+     * Removes all values.
+     */
+    public void clear() {
+        count = 0;
+        mean = 0;
+        m2 = 0;
+        removeSequence = addSequence;
+        minQueue.clear();
+        maxQueue.clear();
+    }
+
+    /**
+     * The number of values (excluding NaN) currently in the window.
+     *
+     * @return the number of values
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * The statistics of the values currently in the window.
+     *
+     * @return the statistics; null if there are no values
+     */
+    public Statistics getStatistics() {
+        if (count == 0) {
+            return null;
+        }
+        return StatisticsUtil.statistics(Ranges.range(minQueue.first(), maxQueue.first()), count, mean, m2);
+    }
+
+    /**
+     * Queue of values whose first element is the minimum (or maximum) of
+     * the window. A value is dropped as soon as a newer value is smaller
+     * (or larger), since it can't be the minimum (or maximum) anymore.
+     */
+    private static class MonotonicQueue {
+        private final boolean min;
+        private double[] values = new double[16];
+        private long[] sequences = new long[16];
+        private int head;
+        private int size;
+
+        MonotonicQueue(boolean min) {
+            this.min = min;
+        }
+
+        void add(double value, long sequence) {
+            while (size > 0) {
+                double last = values[index(size - 1)];
+                if (min ? last >= value : last <= value) {
+                    size--;
+                } else {
+                    break;
+                }
+            }
+            if (size == values.length) {
+                grow();
+            }
+            int index = index(size);
+            values[index] = value;
+            sequences[index] = sequence;
+            size++;
+        }
+
+        void remove(long sequence) {
+            if (size > 0 && sequences[head] == sequence) {
+                head = index(1);
+                size--;
+            }
+        }
+
+        double first() {
+            return values[head];
+        }
+
+        void clear() {
+            head = 0;
+            size = 0;
+        }
+
+        private int index(int offset) {
+            return (head + offset) & (values.length - 1);
+        }
+
+        private void grow() {
+            double[] newValues = new double[values.length * 2];
+            long[] newSequences = new long[values.length * 2];
+            for (int i = 0; i < size; i++) {
+                newValues[i] = values[index(i)];
+                newSequences[i] = sequences[index(i)];
+            }
+            values = newValues;
+            sequences = newSequences;
+            head = 0;
+        }
+    }
+}
@@ -4,10 +4,13 @@
  */
 package org.diirt.util.stats;
 
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import org.diirt.util.array.CollectionNumber;
+import org.diirt.util.array.CollectionNumbers;
 import org.diirt.util.array.IteratorNumber;
+import org.diirt.util.array.ListNumber;
 
 /**
  * Utility class to calculate statistical information.
@@ -52,88 +55,257 @@ public class StatisticsUtil {
 
     }
 
+    /**
+     * Arrays larger than this are processed in parallel.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 18;
+
+    /**
+     * The number of consecutive elements whose statistics are computed with
+     * a two pass algorithm before being merged.
+     */
+    static final int BLOCK_SIZE = 1024;
+
     /**
      * Calculates data statistics, excluding NaN values.
+     * <p>
+     * The mean and the standard deviation are calculated with numerically
+     * stable algorithms: the standard deviation remains accurate even when
+     * the values have a large offset compared to their spread. Arrays larger
+     * than {@link #PARALLEL_THRESHOLD} are split across the common fork-join
+     * pool. Other lists may be lazy views or not be thread-safe, so they
+     * are always read from the calling thread.
      *
      * @param data the data
      * @return the calculated statistics
      */
     public static Statistics statisticsOf(CollectionNumber data) {
-        IteratorNumber iterator = data.iterator();
-        if (!iterator.hasNext()) {
-            return null;
-        }
-        int count = 0;
-        double min = iterator.nextDouble();
-        while (Double.isNaN(min)) {
-            if (!iterator.hasNext()) {
-                return null;
+        Partial result;
+        if (data instanceof ListNumber) {
+            ListNumber list = (ListNumber) data;
+            if (list.size() > PARALLEL_THRESHOLD && CollectionNumbers.wrappedArray(list) != null) {
+                result = ForkJoinPool.commonPool().invoke(new StatisticsTask(list, 0, list.size()));
             } else {
-                min = iterator.nextDouble();
+                result = partialOf(list, 0, list.size());
+            }
+        } else {
+            result = new Partial();
+            IteratorNumber iterator = data.iterator();
+            while (iterator.hasNext()) {
+                result.add(iterator.nextDouble());
             }
         }
-        double max = min;
-        double total = min;
-        double totalSquare = min*min;
-        count++;
+        return result.toStatistics();
+    }
 
-        while (iterator.hasNext()) {
-            double value = iterator.nextDouble();
-            if (!Double.isNaN(value)) {
-                if (value > max)
-                    max = value;
+    /**
+     * Aggregates statistical information.
+     *
+     * @param data a list of statistical information
+     * @return the aggregate of all
+     */
+    public static Statistics statisticsOf(List<Statistics> data) {
+        Partial result = new Partial();
+        for (Statistics stats : data) {
+            if (stats != null) {
+                result.merge(stats.getCount(), stats.getRange().getMinimum(), stats.getRange().getMaximum(),
+                        stats.getAverage(), stats.getStdDev() * stats.getStdDev() * stats.getCount());
+            }
+        }
+        return result.toStatistics();
+    }
+
+    /**
+     * Statistics of part of the data: count, range, mean and sum of the
+     * squares of the differences from the mean.
+     */
+    static class Partial {
+        int count;
+        double min = Double.NaN;
+        double max = Double.NaN;
+        double mean;
+        double m2;
+
+        // Welford update
+        void add(double value) {
+            if (Double.isNaN(value)) {
+                return;
+            }
+            if (count == 0) {
+                min = value;
+                max = value;
+            } else {
                 if (value < min)
                     min = value;
-                total += value;
-                totalSquare += value*value;
-                count++;
+                if (value > max)
+                    max = value;
+            }
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+        }
+
+        // Chan et al. parallel combination
+        void merge(int otherCount, double otherMin, double otherMax, double otherMean, double otherM2) {
+            if (otherCount == 0) {
+                return;
+            }
+            if (count == 0) {
+                count = otherCount;
+                min = otherMin;
+                max = otherMax;
+                mean = otherMean;
+                m2 = otherM2;
+                return;
             }
+            int newCount = count + otherCount;
+            double delta = otherMean - mean;
+            mean += delta * otherCount / newCount;
+            m2 += otherM2 + delta * delta * ((double) count * otherCount / newCount);
+            count = newCount;
+            if (otherMin < min)
+                min = otherMin;
+            if (otherMax > max)
+                max = otherMax;
         }
 
-        double average = total/count;
-        double stdDev = Math.sqrt(totalSquare / count - average * average);
+        void merge(Partial other) {
+            merge(other.count, other.min, other.max, other.mean, other.m2);
+        }
 
-        return new StatisticsImpl(Ranges.range(min, max), count, average, stdDev);
+        Statistics toStatistics() {
+            if (count == 0) {
+                return null;
+            }
+            return statistics(Ranges.range(min, max), count, mean, m2);
+        }
     }
 
     /**
-     * Aggregates statistical information.
+     * Creates the statistics from the sum of the squares of the differences
+     * from the mean.
      *
-     * @param data a list of statistical information
-     * @return the aggregate of all
+     * @param range the range
+     * @param count the number of values
+     * @param mean the mean
+     * @param m2 the sum of the squares of the differences from the mean
+     * @return the statistics
      */
-    public static Statistics statisticsOf(List<Statistics> data) {
-        if (data.isEmpty())
-            return null;
+    static Statistics statistics(Range range, int count, double mean, double m2) {
+        // Rounding may make m2 slightly negative
+        return new StatisticsImpl(range, count, mean, Math.sqrt(Math.max(0.0, m2 / count)));
+    }
 
-        Iterator<Statistics> iterator = data.iterator();
-        if (!iterator.hasNext()) {
-            return null;
-        }
-        Statistics first = null;
-        while (first == null && iterator.hasNext()) {
-            first = iterator.next();
+    // Statistics of the elements from start (included) to end (excluded)
+    private static Partial partialOf(ListNumber data, int start, int end) {
+        Partial result = new Partial();
+        Partial block = new Partial();
+        double[] array = CollectionNumbers.wrappedDoubleArray(data);
+        for (int blockStart = start; blockStart < end; blockStart += BLOCK_SIZE) {
+            int blockEnd = Math.min(end, blockStart + BLOCK_SIZE);
+            if (array != null) {
+                blockOf(array, blockStart, blockEnd, block);
+            } else {
+                blockOf(data, blockStart, blockEnd, block);
+            }
+            result.merge(block);
         }
-        if (first == null)
-            return null;
+        return result;
+    }
 
-        int count = first.getCount();
-        Range range = first.getRange();
-        double total = first.getAverage() * first.getCount();
-        double totalSquare = (first.getStdDev() * first.getStdDev() + first.getAverage() * first.getAverage()) * first.getCount();
+    // Two pass algorithm on a block small enough to stay in cache
+    private static void blockOf(double[] data, int start, int end, Partial block) {
+        int count = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double total = 0;
+        for (int i = start; i < end; i++) {
+            double value = data[i];
+            if (!Double.isNaN(value)) {
+                if (value < min)
+                    min = value;
+                if (value > max)
+                    max = value;
+                total += value;
+                count++;
+            }
+        }
+        double mean = total / count;
+        double m2 = 0;
+        for (int i = start; i < end; i++) {
+            double value = data[i];
+            if (!Double.isNaN(value)) {
+                double delta = value - mean;
+                m2 += delta * delta;
+            }
+        }
+        block.count = count;
+        block.min = min;
+        block.max = max;
+        block.mean = mean;
+        block.m2 = m2;
+    }
 
-        while (iterator.hasNext()) {
-            Statistics stats = iterator.next();
-            range = range.combine(stats.getRange());
-            total += stats.getAverage() * stats.getCount();
-            totalSquare += ( stats.getStdDev() * stats.getStdDev() + stats.getAverage() * stats.getAverage() ) * stats.getCount();
-            count += stats.getCount();
+    private static void blockOf(ListNumber data, int start, int end, Partial block) {
+        int count = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double total = 0;
+        for (int i = start; i < end; i++) {
+            double value = data.getDouble(i);
+            if (!Double.isNaN(value)) {
+                if (value < min)
+                    min = value;
+                if (value > max)
+                    max = value;
+                total += value;
+                count++;
+            }
         }
+        double mean = total / count;
+        double m2 = 0;
+        for (int i = start; i < end; i++) {
+            double value = data.getDouble(i);
+            if (!Double.isNaN(value)) {
+                double delta = value - mean;
+                m2 += delta * delta;
+            }
+        }
+        block.count = count;
+        block.min = min;
+        block.max = max;
+        block.mean = mean;
+        block.m2 = m2;
+    }
+
+    private static class StatisticsTask extends RecursiveTask<Partial> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ListNumber data;
+        private final int start;
+        private final int end;
 
-        double average = total/count;
-        double stdDev = Math.sqrt(totalSquare / count - average * average);
+        StatisticsTask(ListNumber data, int start, int end) {
+            this.data = data;
+            this.start = start;
+            this.end = end;
+        }
 
-        return new StatisticsImpl(range, count, average, stdDev);
+        @Override
+        protected Partial compute() {
+            if (end - start <= PARALLEL_THRESHOLD / 4) {
+                return partialOf(data, start, end);
+            }
+            // Split on a block boundary, so blocks are the same as sequential
+            int middle = start + ((end - start) / 2 / BLOCK_SIZE) * BLOCK_SIZE;
+            StatisticsTask right = new StatisticsTask(data, middle, end);
+            right.fork();
+            Partial result = new StatisticsTask(data, start, middle).compute();
+            result.merge(right.join());
+            return result;
+        }
     }
 
     /**
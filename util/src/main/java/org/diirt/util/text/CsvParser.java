@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.io.Reader;
 import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -41,6 +42,11 @@ import static org.diirt.util.text.StringUtil.DOUBLE_REGEX_WITH_NAN;
  * <p>
  * The parsing of each line is based on code and insights found in
  * <a href="http://regex.info/book.html"> Mastering Regular Expressions</a>.
+ * <p>
+ * For large files, the parser can work in streaming mode (see
+ * {@link #withStreaming(boolean)}): separator and header are detected
+ * on the first lines only, and the text is then processed one line at a
+ * time, storing numeric columns directly as doubles.
  *
  * @author carcassi
  */
@@ -49,6 +55,13 @@ public class CsvParser {
     // Configuration
     private final String separators;
     private final Header header;
+    private final boolean streaming;
+
+    /**
+     * Number of lines, after the first, used in streaming mode to detect
+     * the separator, the header and the column types.
+     */
+    static final int STREAMING_PREFIX_LINES = 1000;
 
     /**
      * The configuration options for the header.
@@ -108,11 +121,12 @@ public class CsvParser {
      * Automatic parser: auto-detects whether the first line is a header or not
      * and tries the most common separators (i.e. ',' ';' 'TAB' 'SPACE').
      */
-    public static final CsvParser AUTOMATIC = new CsvParser(",;\t ", Header.AUTO);
+    public static final CsvParser AUTOMATIC = new CsvParser(",;\t ", Header.AUTO, false);
 
-    private CsvParser(String separators, Header header) {
+    private CsvParser(String separators, Header header, boolean streaming) {
         this.separators = separators;
         this.header = header;
+        this.streaming = streaming;
     }
 
     /**
@@ -134,7 +148,7 @@ public class CsvParser {
      * @return a new parser
      */
     public CsvParser withSeparators(String separators) {
-        return new CsvParser(separators, header);
+        return new CsvParser(separators, header, streaming);
     }
 
     /**
@@ -154,7 +168,42 @@ public class CsvParser {
      * @return a new parser
      */
     public CsvParser withHeader(Header header) {
-        return new CsvParser(separators, header);
+        return new CsvParser(separators, header, streaming);
+    }
+
+    /**
+     * Whether the parser reads the text in a single pass, without keeping
+     * all the lines in memory.
+     *
+     * @return true if the parser works in streaming mode
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Creates a new parser that works in streaming mode or not.
+     * <p>
+     * In streaming mode, the separator, the header and the column types are
+     * detected on the first {@value #STREAMING_PREFIX_LINES} lines after
+     * the header; the rest of the text is then parsed one line at a time,
+     * and numbers are parsed as they are read. The lines are not kept, and
+     * the text is tokenized only once.
+     * <p>
+     * If a column that was detected as numeric contains a non numeric
+     * value after the first lines, the column is converted to strings.
+     * The text of the numeric values that would not be formatted back the
+     * same way is kept until the end of the parsing, so the strings are the
+     * same as the ones of the non streaming parser (e.g. "1.50" and "007"
+     * are not reformatted).
+     * If the number of columns changes after the first lines, the parsing
+     * fails: other separators are not tried.
+     *
+     * @param streaming true for streaming mode
+     * @return a new parser
+     */
+    public CsvParser withStreaming(boolean streaming) {
+        return new CsvParser(separators, header, streaming);
     }
 
 
@@ -171,6 +220,10 @@ public class CsvParser {
      * @return the parsed information
      */
     public CsvParserResult parse(Reader reader) {
+        if (streaming) {
+            return parseStreaming(reader);
+        }
+
         // State used for parsing. Since each call has its own state,
         // the parsing is thread safe.
         State state = new State();
@@ -308,29 +361,9 @@ public class CsvParser {
         try {
             BufferedReader br = new BufferedReader(reader);
             List<String> lines = new ArrayList<>();
-            // The current line read from the Reader
             String line;
-            // The full csv line that may span multiple lines
-            String longLine = null;
-            while ((line = br.readLine()) != null) {
-                // If we have a line from the previous iteration,
-                // we concatenate it
-                if (longLine == null) {
-                    longLine = line;
-                } else {
-                    longLine = longLine.concat("\n").concat(line);
-                }
-                // Count the number of quotes: if it's even, the csv line
-                // must end here. If not, it will continue to the next
-                if (isEvenQuotes(longLine)) {
-                    lines.add(longLine);
-                    longLine = null;
-                }
-            }
-            // If there is text leftover, the line was not closed propertly.
-            // XXX: we need to figure out how to handle errors like this
-            if (longLine != null) {
-                lines.add(longLine);
+            while ((line = nextCsvLine(br)) != null) {
+                lines.add(line);
             }
             return lines;
         } catch(IOException ex) {
@@ -338,6 +371,38 @@ public class CsvParser {
         }
     }
 
+    /**
+     * Reads the next csv line, which may span multiple text lines if it
+     * contains quoted text.
+     *
+     * @param br the source of text
+     * @return the next line; null if there is no more text
+     * @throws IOException if the reader fails
+     */
+    static String nextCsvLine(BufferedReader br) throws IOException {
+        // The current line read from the Reader
+        String line;
+        // The full csv line that may span multiple lines
+        String longLine = null;
+        while ((line = br.readLine()) != null) {
+            // If we have a line from the previous iteration,
+            // we concatenate it
+            if (longLine == null) {
+                longLine = line;
+            } else {
+                longLine = longLine.concat("\n").concat(line);
+            }
+            // Count the number of quotes: if it's even, the csv line
+            // must end here. If not, it will continue to the next
+            if (isEvenQuotes(longLine)) {
+                return longLine;
+            }
+        }
+        // If there is text leftover, the line was not closed propertly.
+        // XXX: we need to figure out how to handle errors like this
+        return longLine;
+    }
+
     /**
      * Determines whether the string contains an even number of double quote
      * characters.
@@ -501,6 +566,445 @@ public class CsvParser {
         };
     }
 
+    /**
+     * Parses the text one line at a time, detecting separator and header
+     * on the first lines.
+     *
+     * @param reader a reader
+     * @return the parsed information
+     */
+    private CsvParserResult parseStreaming(Reader reader) {
+        try {
+            BufferedReader br = new BufferedReader(reader);
+
+            // Read the first lines, used to detect the format
+            List<String> prefix = new ArrayList<>();
+            String line;
+            while (prefix.size() <= STREAMING_PREFIX_LINES && (line = nextCsvLine(br)) != null) {
+                prefix.add(line);
+            }
+            if (prefix.isEmpty()) {
+                return new CsvParserResult(null, null, null, 0, false, "Parsing failed: no lines");
+            }
+
+            // Try each separator on the first lines
+            LineTokens tokens = new LineTokens();
+            char separator = 0;
+            boolean[] numeric = null;
+            char bestSeparator = 0;
+            int bestNLines = -1;
+            for (int nSeparator = 0; nSeparator < separators.length() && numeric == null; nSeparator++) {
+                char currentSeparator = separators.charAt(nSeparator);
+                if (!tokenize(prefix.get(0), currentSeparator, tokens) || tokens.count == 1) {
+                    continue;
+                }
+                boolean[] currentNumeric = new boolean[tokens.count];
+                int mismatchLine = checkPrefix(prefix, currentSeparator, tokens, currentNumeric);
+                if (mismatchLine == -1) {
+                    separator = currentSeparator;
+                    numeric = currentNumeric;
+                } else if (mismatchLine > bestNLines) {
+                    bestSeparator = currentSeparator;
+                    bestNLines = mismatchLine;
+                }
+            }
+
+            if (numeric == null) {
+                if (bestNLines != -1) {
+                    return new CsvParserResult(null, null, null, 0, false, "Parsing failed: number of columns not constant. Using separator '"
+                            + bestSeparator + "', line " + (bestNLines + 1));
+                }
+                // No separator gives more than one column: single column
+                separator = separators.isEmpty() ? ',' : separators.charAt(0);
+                numeric = new boolean[1];
+                int mismatchLine = checkPrefix(prefix, separator, tokens, numeric);
+                if (mismatchLine != -1) {
+                    return new CsvParserResult(null, null, null, 0, false, "Parsing failed: number of columns not constant. Using separator '"
+                            + separator + "', line " + (mismatchLine + 1));
+                }
+            }
+            int nColumns = numeric.length;
+
+            // Prepare the columns, with the header if it's data
+            tokenize(prefix.get(0), separator, tokens);
+            List<String> columnNames = new ArrayList<>(nColumns);
+            ColumnBuilder[] columns = new ColumnBuilder[nColumns];
+            for (int i = 0; i < nColumns; i++) {
+                columnNames.add(tokens.token(i));
+                columns[i] = new ColumnBuilder(numeric[i]);
+            }
+            if (header == Header.NONE || (header == Header.AUTO && isFirstLineData(numeric, columnNames))) {
+                for (int i = 0; i < nColumns; i++) {
+                    columns[i].add(tokens, i);
+                    columnNames.set(i, alphabeticName(i));
+                }
+            }
+
+            // Parse the first lines, then the rest of the text
+            int nLine = 1;
+            for (; nLine < prefix.size(); nLine++) {
+                tokenize(prefix.get(nLine), separator, tokens);
+                for (int i = 0; i < nColumns; i++) {
+                    columns[i].add(tokens, i);
+                }
+            }
+            prefix = null;
+            while ((line = nextCsvLine(br)) != null) {
+                if (!tokenize(line, separator, tokens) || tokens.count != nColumns) {
+                    return new CsvParserResult(null, null, null, 0, false, "Parsing failed: number of columns not constant. Using separator '"
+                            + separator + "', line " + (nLine + 1));
+                }
+                for (int i = 0; i < nColumns; i++) {
+                    columns[i].add(tokens, i);
+                }
+                nLine++;
+            }
+
+            List<Object> columnValues = new ArrayList<>(nColumns);
+            List<Class<?>> columnTypes = new ArrayList<>(nColumns);
+            for (int i = 0; i < nColumns; i++) {
+                columnValues.add(columns[i].getValues());
+                columnTypes.add(columns[i].getType());
+            }
+            return new CsvParserResult(columnNames, columnValues, columnTypes, columns[0].size, true, null);
+        } catch(IOException ex) {
+            throw new RuntimeException("Couldn't process data", ex);
+        }
+    }
+
+    /**
+     * Checks that all the lines after the first have the same number of
+     * tokens as the first, and which columns contain only numbers.
+     *
+     * @param prefix the lines to check
+     * @param separator the separator
+     * @param tokens the tokens to reuse
+     * @param numeric filled with whether each column contains only numbers
+     * @return the index of the first mismatched line; -1 if all lines match
+     */
+    private static int checkPrefix(List<String> prefix, char separator, LineTokens tokens, boolean[] numeric) {
+        Arrays.fill(numeric, true);
+        for (int nLine = 1; nLine < prefix.size(); nLine++) {
+            if (!tokenize(prefix.get(nLine), separator, tokens) || tokens.count != numeric.length) {
+                return nLine;
+            }
+            for (int i = 0; i < numeric.length; i++) {
+                if (numeric[i] && !tokens.isNumberParsable(i)) {
+                    numeric[i] = false;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether the header can be safely interpreted as data, given
+     * which columns contain only numbers.
+     *
+     * @param numeric whether each column contains only numbers
+     * @param headerTokens the header
+     * @return true if header should be handled as data
+     */
+    private static boolean isFirstLineData(boolean[] numeric, List<String> headerTokens) {
+        boolean headerCompatible = true;
+        boolean allStrings = true;
+        for (int i = 0; i < numeric.length; i++) {
+            if (numeric[i]) {
+                allStrings = false;
+                String token = headerTokens.get(i);
+                if (!token.isEmpty() && !isNumber(token, 0, token.length())) {
+                    headerCompatible = false;
+                }
+            }
+        }
+        return !allStrings && headerCompatible;
+    }
+
+    /**
+     * The tokens of a line, kept as positions within the line so that
+     * numbers can be parsed without creating intermediate tokens.
+     */
+    private static class LineTokens {
+        private String line;
+        private int count;
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private boolean[] quoted = new boolean[16];
+
+        private void add(int start, int end, boolean isQuoted) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+                quoted = Arrays.copyOf(quoted, count * 2);
+            }
+            starts[count] = start;
+            ends[count] = end;
+            quoted[count] = isQuoted;
+            count++;
+        }
+
+        private boolean isEmpty(int n) {
+            return !quoted[n] && starts[n] == ends[n];
+        }
+
+        private boolean isNumberParsable(int n) {
+            return !quoted[n] && (starts[n] == ends[n] || isNumber(line, starts[n], ends[n]));
+        }
+
+        private String token(int n) {
+            String token = line.substring(starts[n], ends[n]);
+            if (quoted[n]) {
+                token = token.replace("\"\"", "\"");
+            }
+            return token;
+        }
+    }
+
+    /**
+     * Divides a line into tokens. This is a hand written version of the
+     * regular expression used in {@link #parseCSVLine(String, String)}: a
+     * token is either quoted, with double quotes escaped by doubling them,
+     * or a sequence of characters that are not the separator or a quote.
+     *
+     * @param line the line
+     * @param separator the separator
+     * @param tokens where the tokens are added
+     * @return false if the line is not well formed
+     */
+    private static boolean tokenize(String line, char separator, LineTokens tokens) {
+        tokens.line = line;
+        tokens.count = 0;
+        int length = line.length();
+        int i = 0;
+        while (true) {
+            if (i < length && line.charAt(i) == '"') {
+                // Quoted token: look for the closing quote
+                i++;
+                int start = i;
+                while (true) {
+                    if (i >= length) {
+                        return false;
+                    }
+                    if (line.charAt(i) == '"') {
+                        if (i + 1 < length && line.charAt(i + 1) == '"') {
+                            i += 2;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        i++;
+                    }
+                }
+                tokens.add(start, i, true);
+                i++;
+            } else {
+                int start = i;
+                while (i < length) {
+                    char c = line.charAt(i);
+                    if (c == separator) {
+                        break;
+                    }
+                    if (c == '"') {
+                        return false;
+                    }
+                    i++;
+                }
+                tokens.add(start, i, false);
+            }
+            if (i >= length) {
+                return true;
+            }
+            if (line.charAt(i) != separator) {
+                return false;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Checks whether the characters match {@link StringUtil#DOUBLE_REGEX_WITH_NAN}.
+     *
+     * @param text the text
+     * @param start the first character
+     * @param end after the last character
+     * @return true if the characters represent a double
+     */
+    static boolean isNumber(CharSequence text, int start, int end) {
+        if (end - start == 3 && text.charAt(start) == 'N' && text.charAt(start + 1) == 'a' && text.charAt(start + 2) == 'N') {
+            return true;
+        }
+        int i = start;
+        if (i < end && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+            i++;
+        }
+        int intDigits = 0;
+        while (i < end && isDigit(text.charAt(i))) {
+            i++;
+            intDigits++;
+        }
+        boolean dot = false;
+        int fractionDigits = 0;
+        if (i < end && text.charAt(i) == '.') {
+            dot = true;
+            i++;
+            while (i < end && isDigit(text.charAt(i))) {
+                i++;
+                fractionDigits++;
+            }
+        }
+        if (dot ? fractionDigits == 0 : intDigits == 0) {
+            return false;
+        }
+        if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            if (i < end && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+                i++;
+            }
+            int exponentDigits = 0;
+            while (i < end && isDigit(text.charAt(i))) {
+                i++;
+                exponentDigits++;
+            }
+            if (exponentDigits == 0) {
+                return false;
+            }
+        }
+        return i == end;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Accumulates the values of a column: numbers are stored in a growable
+     * array until a value that is not a number is found. The text of the
+     * numbers that cannot be formatted back from their double value is
+     * kept as well, so that the column can be converted to strings without
+     * reformatting the values already read.
+     */
+    private static class ColumnBuilder {
+        private double[] numbers;
+        // Indexes and text of the numbers that do not format back to the same text
+        private int[] tokenIndexes;
+        private String[] tokens;
+        private int nTokens;
+        private List<String> strings;
+        private int size;
+
+        ColumnBuilder(boolean numeric) {
+            if (numeric) {
+                numbers = new double[1024];
+                tokenIndexes = new int[16];
+                tokens = new String[16];
+            } else {
+                strings = new ArrayList<>();
+            }
+        }
+
+        void add(LineTokens tokens, int n) {
+            if (numbers != null) {
+                if (tokens.isEmpty(n)) {
+                    addDouble(Double.NaN, "");
+                    return;
+                }
+                if (tokens.isNumberParsable(n)) {
+                    String token = tokens.line.substring(tokens.starts[n], tokens.ends[n]);
+                    addDouble(Double.parseDouble(token), token);
+                    return;
+                }
+                convertToStrings();
+            }
+            strings.add(tokens.token(n));
+            size++;
+        }
+
+        private void addDouble(double value, String token) {
+            if (size == numbers.length) {
+                numbers = Arrays.copyOf(numbers, size + (size >> 1));
+            }
+            if (!isFormatted(token, value)) {
+                if (nTokens == tokens.length) {
+                    tokenIndexes = Arrays.copyOf(tokenIndexes, nTokens * 2);
+                    tokens = Arrays.copyOf(tokens, nTokens * 2);
+                }
+                tokenIndexes[nTokens] = size;
+                tokens[nTokens++] = token;
+            }
+            numbers[size++] = value;
+        }
+
+        private void convertToStrings() {
+            strings = new ArrayList<>(Math.max(16, size + (size >> 1)));
+            int nextToken = 0;
+            for (int i = 0; i < size; i++) {
+                if (nextToken < nTokens && tokenIndexes[nextToken] == i) {
+                    strings.add(tokens[nextToken++]);
+                } else {
+                    strings.add(format(numbers[i]));
+                }
+            }
+            numbers = null;
+            tokenIndexes = null;
+            tokens = null;
+        }
+
+        Object getValues() {
+            if (numbers != null) {
+                return new ArrayDouble(numbers.length == size ? numbers : Arrays.copyOf(numbers, size));
+            }
+            return strings;
+        }
+
+        Class<?> getType() {
+            return numbers != null ? double.class : String.class;
+        }
+    }
+
+    /**
+     * Formats a number of a column that is converted to strings: NaN is an
+     * empty value, integers up to 15 digits have no decimals and the other
+     * values are formatted by {@link Double#toString(double) }.
+     */
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "";
+        }
+        if (isSmallInteger(value)) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static boolean isSmallInteger(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15
+                && !(value == 0.0 && Double.doubleToRawLongBits(value) != 0L);
+    }
+
+    /**
+     * Whether {@link #format(double) } gives back the token the value
+     * was parsed from.
+     */
+    private static boolean isFormatted(String token, double value) {
+        if (Double.isNaN(value)) {
+            return token.isEmpty();
+        }
+
+        // Integers are checked without formatting: an optional minus and
+        // up to 15 digits without leading zeros, which parse exactly
+        int start = token.startsWith("-") ? 1 : 0;
+        int nDigits = token.length() - start;
+        boolean integer = nDigits > 0;
+        for (int i = start; i < token.length() && integer; i++) {
+            integer = isDigit(token.charAt(i));
+        }
+        if (integer) {
+            return nDigits <= 15 && (token.charAt(start) != '0' || (nDigits == 1 && start == 0));
+        }
+
+        return !isSmallInteger(value) && Double.toString(value).equals(token);
+    }
+
     static String alphabeticName(int i) {
         String name = "";
         while (true) {
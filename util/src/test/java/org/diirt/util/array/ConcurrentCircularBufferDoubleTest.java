@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.util.array;
+
+import java.util.ConcurrentModificationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class ConcurrentCircularBufferDoubleTest {
+
+    @Test
+    public void snapshot1() {
+        ConcurrentCircularBufferDouble buffer = new ConcurrentCircularBufferDouble(5);
+        assertThat(buffer.snapshot().getValues().size(), equalTo(0));
+        for (int i = 0; i < 3; i++) {
+            buffer.add(i * 10, i);
+        }
+        ConcurrentCircularBufferDouble.Snapshot snapshot = buffer.snapshot();
+        assertThat(snapshot.getValues(), equalTo((ListDouble) new ArrayDouble(0, 1, 2)));
+        assertThat(snapshot.getTimestamps(), equalTo((ListLong) new ArrayLong(0, 10, 20)));
+
+        for (int i = 3; i < 12; i++) {
+            buffer.add(i * 10, i);
+        }
+        // The old snapshot is not affected
+        assertThat(snapshot.getValues(), equalTo((ListDouble) new ArrayDouble(0, 1, 2)));
+        snapshot = buffer.snapshot();
+        assertThat(snapshot.getValues(), equalTo((ListDouble) new ArrayDouble(7, 8, 9, 10, 11)));
+        assertThat(snapshot.getTimestamps(), equalTo((ListLong) new ArrayLong(70, 80, 90, 100, 110)));
+        assertThat(snapshot.getStartSequence(), equalTo(7L));
+        assertThat(buffer.getSequence(), equalTo(12L));
+
+        buffer.clear();
+        assertThat(buffer.snapshot().getValues().size(), equalTo(0));
+        assertThat(snapshot.getValues().size(), equalTo(5));
+        buffer.add(120, 12);
+        assertThat(buffer.snapshot().getValues(), equalTo((ListDouble) new ArrayDouble(12)));
+    }
+
+    @Test
+    public void overwrittenSnapshot() {
+        ConcurrentCircularBufferDouble buffer = new ConcurrentCircularBufferDouble(4);
+        for (int i = 0; i < 4; i++) {
+            buffer.add(i, i);
+        }
+        ConcurrentCircularBufferDouble.Snapshot snapshot = buffer.snapshot();
+        // The buffer holds at least twice the capacity
+        for (int i = 4; i < 8; i++) {
+            buffer.add(i, i);
+        }
+        assertThat(snapshot.isValid(), equalTo(true));
+        assertThat(snapshot.getValues().getDouble(0), equalTo(0.0));
+        buffer.add(8, 8);
+        assertThat(snapshot.isValid(), equalTo(false));
+        assertThat(snapshot.getValues().getDouble(3), equalTo(3.0));
+        try {
+            snapshot.getValues().getDouble(0);
+            fail("Overwritten value was read");
+        } catch (ConcurrentModificationException ex) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void concurrentReaders() throws Exception {
+        final ConcurrentCircularBufferDouble buffer = new ConcurrentCircularBufferDouble(1000);
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread[] readers = new Thread[3];
+        for (int n = 0; n < readers.length; n++) {
+            readers[n] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        while (!done.get()) {
+                            ConcurrentCircularBufferDouble.Snapshot snapshot = buffer.snapshot();
+                            ListDouble values = snapshot.getValues();
+                            ListLong timestamps = snapshot.getTimestamps();
+                            try {
+                                for (int i = 0; i < values.size(); i++) {
+                                    double value = values.getDouble(i);
+                                    assertThat(value, equalTo((double) (snapshot.getStartSequence() + i)));
+                                    assertThat(timestamps.getLong(i), equalTo((long) value * 10));
+                                }
+                            } catch (ConcurrentModificationException ex) {
+                                // Reader was too slow: take a new snapshot
+                            }
+                        }
+                    } catch (Throwable ex) {
+                        error.set(ex);
+                    }
+                }
+            });
+            readers[n].start();
+        }
+        for (int i = 0; i < 2000000; i++) {
+            buffer.add(i * 10L, i);
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertThat(error.get(), nullValue());
+    }
+}
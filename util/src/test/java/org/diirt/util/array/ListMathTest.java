@@ -61,4 +61,39 @@ public class ListMathTest {
         ListDouble y = new ArrayDouble(0, 0, 0, 0, 0, 0, 0, 0);
         List<ListNumber> res = ListMath.dft(x, y);
     }
+
+    @Test
+    public void bulkOperations() {
+        ListNumber doubles = new ArrayDouble(1, 2, 4, 8);
+        ListNumber floats = new ArrayFloat(1, 2, 4, 8);
+        ListNumber ints = new ArrayInt(1, 2, 4, 8);
+        for (ListNumber data : new ListNumber[] {doubles, floats, ints}) {
+            assertThat(ListMath.rescale(data, 2, 1), equalTo((ListDouble) new ArrayDouble(3, 5, 9, 17)));
+            assertThat(ListMath.add(data, 1), equalTo((ListDouble) new ArrayDouble(2, 3, 5, 9)));
+            assertThat(ListMath.inverseRescale(data, 8, 1), equalTo((ListDouble) new ArrayDouble(9, 5, 3, 2)));
+            assertThat(ListMath.pow(data, 2), equalTo((ListDouble) new ArrayDouble(1, 4, 16, 64)));
+            assertThat(ListMath.pow(2, data), equalTo((ListDouble) new ArrayDouble(2, 4, 16, 256)));
+            for (ListNumber other : new ListNumber[] {doubles, floats, ints}) {
+                assertThat(ListMath.add(data, other), equalTo((ListDouble) new ArrayDouble(2, 4, 8, 16)));
+                assertThat(ListMath.subtract(data, other), equalTo((ListDouble) new ArrayDouble(0, 0, 0, 0)));
+                assertThat(ListMath.multiply(data, other), equalTo((ListDouble) new ArrayDouble(1, 4, 16, 64)));
+                assertThat(ListMath.divide(data, other), equalTo((ListDouble) new ArrayDouble(1, 1, 1, 1)));
+            }
+            assertThat(ListMath.multiply(ListMath.add(data, 3), data), instanceOf(ArrayDouble.class));
+        }
+        // Inputs are not modified
+        assertThat(doubles, equalTo((ListNumber) new ArrayDouble(1, 2, 4, 8)));
+        assertThat(floats, equalTo((ListNumber) new ArrayFloat(1, 2, 4, 8)));
+        assertThat(ints, equalTo((ListNumber) new ArrayInt(1, 2, 4, 8)));
+    }
+
+    @Test
+    public void writableArraysStayViews() {
+        ArrayDouble data = new ArrayDouble(new double[] {1, 2, 3}, false);
+        ListDouble rescaled = ListMath.rescale(data, 2, 0);
+        ListDouble summed = ListMath.add(data, new ArrayDouble(1, 1, 1));
+        data.setDouble(0, 5);
+        assertThat(rescaled.getDouble(0), equalTo(10.0));
+        assertThat(summed.getDouble(0), equalTo(6.0));
+    }
 }
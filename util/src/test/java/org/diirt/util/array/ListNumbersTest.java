@@ -50,6 +50,37 @@ public class ListNumbersTest {
         assertThat(sortedView.getIndexes(), equalTo((ListInt) new ArrayInt(0,1,2,4,3,5)));
     }
 
+    @Test
+    public void sortedView5() {
+        // Already sorted: the view reads the values directly
+        ListNumber values = new ArrayDouble(0,1,2,2,4,5);
+        SortedListView sortedView = ListNumbers.sortedView(values);
+        assertThat(sortedView.isIdentity(), equalTo(true));
+        assertThat(sortedView, equalTo((ListNumber) new ArrayDouble(0,1,2,2,4,5)));
+        assertThat(sortedView.getIndexes(), equalTo((ListInt) new ArrayInt(0,1,2,3,4,5)));
+
+        SortedListView otherView = ListNumbers.sortedView(new ArrayDouble(5,4,3,2,1,0), sortedView.getIndexes());
+        assertThat(otherView.isIdentity(), equalTo(true));
+        assertThat(otherView, equalTo((ListNumber) new ArrayDouble(5,4,3,2,1,0)));
+    }
+
+    @Test
+    public void sortedViewOfSorted1() {
+        ListNumber values = new ArrayDouble(0,1,2,2,4,5);
+        SortedListView sortedView = ListNumbers.sortedViewOfSorted(values);
+        assertThat(sortedView.isIdentity(), equalTo(true));
+        assertThat(sortedView, equalTo((ListNumber) new ArrayDouble(0,1,2,2,4,5)));
+        assertThat(sortedView.getIndexes(), equalTo((ListInt) new ArrayInt(0,1,2,3,4,5)));
+    }
+
+    @Test
+    public void isSorted1() {
+        assertThat(ListNumbers.isSorted(new ArrayDouble()), equalTo(true));
+        assertThat(ListNumbers.isSorted(new ArrayDouble(3)), equalTo(true));
+        assertThat(ListNumbers.isSorted(new ArrayDouble(1,2,2,3)), equalTo(true));
+        assertThat(ListNumbers.isSorted(new ArrayDouble(1,3,2)), equalTo(false));
+    }
+
     @Test
     public void binarySearchValueOrLower1() {
         ListNumber values = new ArrayDouble(1,2,3,3,4,5,5,6,7,8,10);
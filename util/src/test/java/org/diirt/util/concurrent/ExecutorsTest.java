@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class ExecutorsTest {
+
+    @Test
+    public void virtualThreads() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            Executors.virtualThreads().execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            });
+        }
+        assertThat(latch.await(5, TimeUnit.SECONDS), equalTo(true));
+    }
+
+    @Test
+    public void serial() throws Exception {
+        Executor executor = Executors.serial(Executors.virtualThreads());
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1000);
+        for (int i = 0; i < 1000; i++) {
+            final int n = i;
+            executor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    int nRunning = running.incrementAndGet();
+                    if (nRunning > maxRunning.get()) {
+                        maxRunning.set(nRunning);
+                    }
+                    order.add(n);
+                    running.decrementAndGet();
+                    latch.countDown();
+                }
+            });
+        }
+        assertThat(latch.await(5, TimeUnit.SECONDS), equalTo(true));
+        assertThat(maxRunning.get(), equalTo(1));
+        for (int i = 0; i < 1000; i++) {
+            assertThat(order.get(i), equalTo(i));
+        }
+    }
+
+    @Test
+    public void serialContinuesAfterException() throws Exception {
+        Executor executor = Executors.serial(Executors.virtualThreads());
+        final CountDownLatch latch = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                throw new RuntimeException("Expected");
+            }
+        });
+        executor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        assertThat(latch.await(5, TimeUnit.SECONDS), equalTo(true));
+    }
+}
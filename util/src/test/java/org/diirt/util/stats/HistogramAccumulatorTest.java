@@ -0,0 +1,179 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.util.stats;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.diirt.util.array.ArrayDouble;
+import org.diirt.util.array.ArrayInt;
+import org.diirt.util.array.ListInt;
+import org.diirt.util.array.ListNumber;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class HistogramAccumulatorTest {
+
+    @Test
+    public void linear1() {
+        HistogramAccumulator histogram = HistogramAccumulator.linear(Ranges.range(0, 10), 5);
+        histogram.add(new ArrayDouble(0, 1, 2, 3.5, 9.9, 10, 11, -1, Double.NaN));
+        assertThat(histogram.getCounts(), equalTo((ListInt) new ArrayInt(2, 2, 0, 0, 2)));
+        assertThat(histogram.getTotalCount(), equalTo(6));
+        assertThat(histogram.getMaxCount(), equalTo(2));
+        assertThat(histogram.getBoundaries(), equalTo((ListNumber) new ArrayDouble(0, 2, 4, 6, 8, 10)));
+        assertThat(histogram.getRange(), equalTo(Ranges.range(0, 10)));
+
+        histogram.remove(new ArrayDouble(0, 11, 10));
+        assertThat(histogram.getCounts(), equalTo((ListInt) new ArrayInt(1, 2, 0, 0, 1)));
+        assertThat(histogram.getTotalCount(), equalTo(4));
+    }
+
+    @Test
+    public void logarithmic1() {
+        HistogramAccumulator histogram = HistogramAccumulator.logarithmic(Ranges.range(1, 1000), 3);
+        histogram.add(new ArrayDouble(1, 5, 10, 50, 999, 0, -5, 2000));
+        assertThat(histogram.getCounts(), equalTo((ListInt) new ArrayInt(2, 2, 1)));
+        assertThat(histogram.getBoundaries().getDouble(0), equalTo(1.0));
+        assertThat(histogram.getBoundaries().getDouble(1), closeTo(10.0, 1e-12));
+        assertThat(histogram.getBoundaries().getDouble(2), closeTo(100.0, 1e-12));
+        assertThat(histogram.getBoundaries().getDouble(3), equalTo(1000.0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void removeNotAdded() {
+        HistogramAccumulator histogram = HistogramAccumulator.linear(Ranges.range(0, 10), 5);
+        histogram.add(1);
+        histogram.remove(5);
+    }
+
+    @Test
+    public void bins1() {
+        HistogramAccumulator histogram = HistogramAccumulator.linear(Ranges.range(0, 10), 5);
+        assertThat(histogram.binOf(0), equalTo(0));
+        assertThat(histogram.binOf(3), equalTo(1));
+        assertThat(histogram.binOf(10), equalTo(4));
+        assertThat(histogram.binOf(11), equalTo(-1));
+        assertThat(histogram.binOf(Double.NaN), equalTo(-1));
+        histogram.addToBin(histogram.binOf(3));
+        histogram.addToBin(histogram.binOf(3.5));
+        histogram.removeFromBin(1);
+        assertThat(histogram.getCounts(), equalTo((ListInt) new ArrayInt(0, 1, 0, 0, 0)));
+        assertThat(histogram.getTotalCount(), equalTo(1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void removeFromEmptyBin() {
+        HistogramAccumulator histogram = HistogramAccumulator.linear(Ranges.range(0, 10), 5);
+        histogram.addToBin(1);
+        histogram.removeFromBin(2);
+    }
+
+    @Test
+    public void autoRange1() {
+        HistogramAccumulator histogram = HistogramAccumulator.autoRange(Ranges.range(0, 4), 4);
+        histogram.add(new ArrayDouble(0.5, 1.5, 2.5, 3.5));
+        assertThat(histogram.getCounts(), equalTo((ListInt) new ArrayInt(1, 1, 1, 1)));
+
+        // Growing to the right: bins are merged in pairs
+        histogram.add(5);
+        assertThat(histogram.getRange(), equalTo(Ranges.range(0, 8)));
+        assertThat(histogram.getCounts(), equalTo((ListInt) new ArrayInt(2, 2, 1, 0)));
+
+        // Growing to the left: free bins are added on the left
+        histogram.add(-3);
+        assertThat(histogram.getRange(), equalTo(Ranges.range(-8, 8)));
+        assertThat(histogram.getCounts(), equalTo((ListInt) new ArrayInt(0, 1, 4, 1)));
+        assertThat(histogram.getTotalCount(), equalTo(6));
+
+        histogram.remove(new ArrayDouble(0.5, -3));
+        assertThat(histogram.getCounts(), equalTo((ListInt) new ArrayInt(0, 0, 3, 1)));
+    }
+
+    @Test
+    public void autoRangeFarValue() {
+        HistogramAccumulator histogram = HistogramAccumulator.autoRange(Ranges.range(0, 1), 10);
+        histogram.add(new ArrayDouble(0.05, 0.95, 1000, -1000));
+        assertThat(histogram.getTotalCount(), equalTo(4));
+        Range range = histogram.getRange();
+        assertThat(range.getMinimum(), lessThanOrEqualTo(-1000.0));
+        assertThat(range.getMaximum(), greaterThan(1000.0));
+        int total = 0;
+        ListInt counts = histogram.getCounts();
+        for (int i = 0; i < counts.size(); i++) {
+            total += counts.getInt(i);
+        }
+        assertThat(total, equalTo(4));
+    }
+
+    @Test
+    public void slidingWindow() {
+        // Adding and removing batches gives the same histogram as
+        // computing it on the window
+        Random random = new Random(1);
+        double[] data = new double[10000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = random.nextGaussian();
+        }
+        HistogramAccumulator histogram = HistogramAccumulator.linear(Ranges.range(-3, 3), 100);
+        int windowSize = 1000;
+        for (int start = 0; start + windowSize < data.length; start += 100) {
+            if (start == 0) {
+                histogram.add(new ArrayDouble(Arrays.copyOfRange(data, 0, windowSize)));
+            } else {
+                histogram.remove(new ArrayDouble(Arrays.copyOfRange(data, start - 100, start)));
+                histogram.add(new ArrayDouble(Arrays.copyOfRange(data, start + windowSize - 100, start + windowSize)));
+            }
+            HistogramAccumulator expected = HistogramAccumulator.linear(Ranges.range(-3, 3), 100);
+            expected.add(new ArrayDouble(Arrays.copyOfRange(data, start, start + windowSize)));
+            assertThat(histogram.getCounts(), equalTo(expected.getCounts()));
+        }
+    }
+
+    @Test
+    public void mergeAutoRange() {
+        // Partials filled separately give the same counts as a single
+        // histogram, even if their ranges grew differently
+        Random random = new Random(2);
+        HistogramAccumulator histogram = HistogramAccumulator.autoRange(Ranges.range(0, 1), 20);
+        HistogramAccumulator single = HistogramAccumulator.autoRange(Ranges.range(0, 1), 20);
+        HistogramAccumulator partial1 = histogram.newPartial();
+        HistogramAccumulator partial2 = histogram.newPartial();
+        for (int i = 0; i < 1000; i++) {
+            double value1 = random.nextDouble() * 50;
+            double value2 = -random.nextDouble() * 7;
+            partial1.add(value1);
+            partial2.add(value2);
+            single.add(value1);
+            single.add(value2);
+        }
+        histogram.merge(partial1);
+        histogram.merge(partial2);
+        assertThat(histogram.getTotalCount(), equalTo(2000));
+        Range range = histogram.getRange();
+        assertThat(range.getMinimum(), lessThanOrEqualTo(-7.0));
+        assertThat(range.getMaximum(), greaterThanOrEqualTo(50.0));
+
+        // Bring both to bins that contain all values, and compare
+        HistogramAccumulator common = histogram.newPartial();
+        common.merge(single);
+        HistogramAccumulator fromPartials = common.newPartial();
+        fromPartials.merge(histogram);
+        HistogramAccumulator fromSingle = common.newPartial();
+        fromSingle.merge(single);
+        assertThat(fromPartials.getRange(), equalTo(fromSingle.getRange()));
+        assertThat(fromPartials.getCounts(), equalTo(fromSingle.getCounts()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mergeDifferentBins() {
+        HistogramAccumulator histogram = HistogramAccumulator.linear(Ranges.range(0, 10), 5);
+        histogram.merge(HistogramAccumulator.linear(Ranges.range(0, 10), 6));
+    }
+}
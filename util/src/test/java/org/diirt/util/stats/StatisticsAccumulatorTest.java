@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.util.stats;
+
+import java.util.Random;
+import org.diirt.util.array.ArrayDouble;
+import org.diirt.util.array.CircularBufferDouble;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class StatisticsAccumulatorTest {
+
+    @Test
+    public void addRemove1() {
+        StatisticsAccumulator accumulator = new StatisticsAccumulator();
+        assertThat(accumulator.getStatistics(), nullValue());
+        accumulator.add(new ArrayDouble(1, 3, 5, Double.NaN, -1, 7));
+        Statistics stats = accumulator.getStatistics();
+        assertThat(stats.getAverage(), equalTo(3.0));
+        assertThat(stats.getStdDev(), equalTo(2.8284271247461903));
+        assertThat(stats.getRange().getMinimum(), equalTo(-1.0));
+        assertThat(stats.getRange().getMaximum(), equalTo(7.0));
+        assertThat(stats.getCount(), equalTo(5));
+
+        accumulator.remove(new ArrayDouble(1, 3, 5, Double.NaN));
+        stats = accumulator.getStatistics();
+        assertThat(stats.getAverage(), equalTo(3.0));
+        assertThat(stats.getStdDev(), closeTo(4.0, 1e-12));
+        assertThat(stats.getRange().getMinimum(), equalTo(-1.0));
+        assertThat(stats.getRange().getMaximum(), equalTo(7.0));
+        assertThat(stats.getCount(), equalTo(2));
+
+        accumulator.remove(-1);
+        accumulator.remove(7);
+        assertThat(accumulator.getStatistics(), nullValue());
+        accumulator.add(2);
+        assertThat(accumulator.getStatistics().getRange().getMinimum(), equalTo(2.0));
+        accumulator.clear();
+        assertThat(accumulator.getCount(), equalTo(0));
+    }
+
+    @Test
+    public void slidingWindow() {
+        Random rand = new Random(1);
+        int windowSize = 100;
+        CircularBufferDouble window = new CircularBufferDouble(windowSize);
+        StatisticsAccumulator accumulator = new StatisticsAccumulator();
+        for (int i = 0; i < 10000; i++) {
+            if (window.size() == windowSize) {
+                accumulator.remove(window.getDouble(0));
+            }
+            double value = i % 50 == 0 ? Double.NaN : 1e6 + rand.nextGaussian() + i % 13;
+            window.addDouble(value);
+            accumulator.add(value);
+
+            Statistics expected = StatisticsUtil.statisticsOf(window);
+            Statistics actual = accumulator.getStatistics();
+            if (expected == null) {
+                assertThat(actual, nullValue());
+                continue;
+            }
+            assertThat(actual.getCount(), equalTo(expected.getCount()));
+            assertThat(actual.getRange().getMinimum(), equalTo(expected.getRange().getMinimum()));
+            assertThat(actual.getRange().getMaximum(), equalTo(expected.getRange().getMaximum()));
+            assertThat(actual.getAverage(), closeTo(expected.getAverage(), 1e-6));
+            assertThat(actual.getStdDev(), closeTo(expected.getStdDev(), 1e-6));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void removeEmpty() {
+        new StatisticsAccumulator().remove(1.0);
+    }
+}
@@ -8,9 +8,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import org.diirt.util.array.ArrayDouble;
+import org.diirt.util.array.CollectionDouble;
+import org.diirt.util.array.IteratorDouble;
+import org.diirt.util.array.ListDouble;
 import org.junit.Test;
 import static org.junit.Assert.*;
-import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.Matchers.*;
 
 
 /**
@@ -73,4 +76,91 @@ public class StatisticsUtilTest {
         assertThat(stats.getRange().getMaximum(), equalTo(7.0));
         assertThat(stats.getCount(), equalTo(5));
     }
+
+    @Test
+    public void statisticsOfLargeOffset() {
+        Statistics stats = StatisticsUtil.statisticsOf(new ArrayDouble(1e9 + 1, 1e9 + 3, 1e9 + 5, 1e9 - 1, 1e9 + 7));
+        assertThat(stats.getAverage(), equalTo(1e9 + 3));
+        assertThat(stats.getStdDev(), closeTo(2.8284271247461903, 1e-12));
+    }
+
+    @Test
+    public void statisticsOfParallel() {
+        final int size = StatisticsUtil.PARALLEL_THRESHOLD * 3 + 17;
+        final ListDouble data = new ListDouble() {
+
+            @Override
+            public double getDouble(int index) {
+                return index % 1000 == 0 ? Double.NaN : 1e6 + index % 7;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+        double[] array = new double[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = data.getDouble(i);
+        }
+        Statistics stats = StatisticsUtil.statisticsOf(data);
+        Statistics arrayStats = StatisticsUtil.statisticsOf(new ArrayDouble(array));
+        // Not a list: goes through the iterator
+        Statistics iteratorStats = StatisticsUtil.statisticsOf(new CollectionDouble() {
+
+            @Override
+            public IteratorDouble iterator() {
+                return data.iterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        });
+        for (Statistics other : Arrays.asList(arrayStats, iteratorStats)) {
+            assertThat(other.getCount(), equalTo(stats.getCount()));
+            assertThat(other.getRange().getMinimum(), equalTo(1e6));
+            assertThat(other.getRange().getMaximum(), equalTo(1e6 + 6));
+            assertThat(other.getAverage(), closeTo(stats.getAverage(), 1e-5));
+            assertThat(other.getStdDev(), closeTo(stats.getStdDev(), 1e-5));
+        }
+        assertThat(stats.getCount(), equalTo(size - (size - 1) / 1000 - 1));
+        assertThat(stats.getStdDev(), closeTo(2.0, 1e-3));
+    }
+
+    @Test
+    public void statisticsOfLazyList() {
+        // A list that is not backed by an array is read only by the caller
+        final int size = StatisticsUtil.PARALLEL_THRESHOLD * 2;
+        final Thread caller = Thread.currentThread();
+        final List<Thread> otherThreads = new ArrayList<>();
+        ListDouble data = new ListDouble() {
+
+            @Override
+            public double getDouble(int index) {
+                if (Thread.currentThread() != caller) {
+                    synchronized (otherThreads) {
+                        otherThreads.add(Thread.currentThread());
+                    }
+                }
+                return index % 3;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+        Statistics stats = StatisticsUtil.statisticsOf(data);
+        assertThat(otherThreads, empty());
+        assertThat(stats.getCount(), equalTo(size));
+        assertThat(stats.getRange().getMaximum(), equalTo(2.0));
+    }
+
+    @Test
+    public void statisticsOfNaN() {
+        assertThat(StatisticsUtil.statisticsOf(new ArrayDouble(Double.NaN, Double.NaN)), nullValue());
+        assertThat(StatisticsUtil.statisticsOf(new ArrayDouble()), nullValue());
+    }
 }
@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.util.text;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Random;
+
+/**
+ * Compares the time and the peak heap needed to parse a large csv file with
+ * and without streaming.
+ *
+ * @author carcassi
+ */
+public class CsvParserBenchmark {
+    public static void main(String[] args) throws Exception {
+        System.out.println(System.getProperty("java.version"));
+
+        int nRows = 1000000;
+        int nIterations = 5;
+
+        File file = File.createTempFile("benchmark", ".csv");
+        file.deleteOnExit();
+        Random rand = new Random(1);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            writer.write("Index,Name,Value,Error,Timestamp\n");
+            for (int i = 0; i < nRows; i++) {
+                writer.write(i + ",\"Channel " + (i % 100) + "\"," + rand.nextGaussian() + ","
+                        + rand.nextDouble() + "," + (1400000000L + i) + "\n");
+            }
+        }
+        System.out.println(nRows + " rows, " + file.length() / 1024 / 1024 + " MB");
+
+        profile("Buffered", CsvParser.AUTOMATIC, file, nIterations);
+        profile("Streaming", CsvParser.AUTOMATIC.withStreaming(true), file, nIterations);
+    }
+
+    private static void profile(String name, CsvParser parser, File file, int nIterations) throws Exception {
+        for (int i = 0; i < nIterations; i++) {
+            System.gc();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                pool.resetPeakUsage();
+            }
+            long startTime = System.nanoTime();
+            CsvParserResult result;
+            try (Reader reader = new FileReader(file)) {
+                result = parser.parse(reader);
+            }
+            long stopTime = System.nanoTime();
+            long peakMemory = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    peakMemory += pool.getPeakUsage().getUsed();
+                }
+            }
+            System.out.println(name + ": " + (stopTime - startTime) / 1000000 + " ms, "
+                    + peakMemory / 1024 / 1024 + " MB peak heap, " + result.getRowCount() + " rows");
+        }
+    }
+}
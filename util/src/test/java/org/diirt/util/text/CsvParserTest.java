@@ -5,6 +5,7 @@
 package org.diirt.util.text;
 
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.util.Arrays;
 import java.util.List;
 import org.diirt.util.array.ArrayDouble;
@@ -234,4 +235,78 @@ public class CsvParserTest {
         assertThat(result.getColumnValues().get(1), equalTo((Object) new ArrayDouble(1, Double.NaN, Double.NaN, 4, Double.NaN)));
         assertThat(result.getColumnValues().get(2), equalTo((Object) new ArrayDouble(1,2,3, Double.NaN, Double.NaN)));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void parseStreamingMatchesParse() throws Exception {
+        assertThat(CsvParser.AUTOMATIC.withStreaming(true).isStreaming(), equalTo(true));
+        for (int i = 1; i <= 9; i++) {
+            String file = "table" + i + ".csv";
+            CsvParser parser = i == 7 ? CsvParser.AUTOMATIC.withSeparators("~") : CsvParser.AUTOMATIC;
+            CsvParser streaming = parser.withStreaming(true);
+            CsvParserResult expected = parser.parse(new InputStreamReader(getClass().getResource(file).openStream()));
+            CsvParserResult result = streaming.parse(new InputStreamReader(getClass().getResource(file).openStream()));
+            assertThat(file, result.isParsingSuccessful(), equalTo(expected.isParsingSuccessful()));
+            assertThat(file, result.getRowCount(), equalTo(expected.getRowCount()));
+            assertThat(file, result.getColumnNames(), equalTo(expected.getColumnNames()));
+            assertThat(file, result.getColumnTypes(), equalTo(expected.getColumnTypes()));
+            assertThat(file, result.getColumnValues(), equalTo(expected.getColumnValues()));
+        }
+    }
+
+    @Test
+    public void parseStreamingLateString() throws Exception {
+        StringBuilder text = new StringBuilder("Name,Value\n");
+        for (int i = 0; i < CsvParser.STREAMING_PREFIX_LINES + 10; i++) {
+            text.append("\"N").append(i).append("\",").append(i).append(".5\n");
+        }
+        text.append("\"Last\",none\n");
+        CsvParserResult result = CsvParser.AUTOMATIC.withStreaming(true).parse(new StringReader(text.toString()));
+        assertThat(result.isParsingSuccessful(), equalTo(true));
+        assertThat(result.getRowCount(), equalTo(CsvParser.STREAMING_PREFIX_LINES + 11));
+        assertThat((Object) result.getColumnTypes().get(1), equalTo((Object) String.class));
+        List<?> values = (List<?>) result.getColumnValues().get(1);
+        assertThat(values.get(0), equalTo((Object) "0.5"));
+        assertThat(values.get(CsvParser.STREAMING_PREFIX_LINES + 10), equalTo((Object) "none"));
+    }
+
+    @Test
+    public void parseStreamingLateStringKeepsText() throws Exception {
+        String[] numbers = {"1.50", "007", "9007199254740993", "", "1e3", "-0", "1.5", "12", "1.0", "-0.25", "0", "-12"};
+        StringBuilder text = new StringBuilder("Name,Value\n");
+        for (int i = 0; i < CsvParser.STREAMING_PREFIX_LINES + 10; i++) {
+            text.append("\"N").append(i).append("\",").append(numbers[i % numbers.length]).append("\n");
+        }
+        text.append("\"Last\",none\n");
+        CsvParserResult result = CsvParser.AUTOMATIC.withStreaming(true).parse(new StringReader(text.toString()));
+        CsvParserResult expected = CsvParser.AUTOMATIC.parse(new StringReader(text.toString()));
+        assertThat((Object) result.getColumnTypes().get(1), equalTo((Object) String.class));
+        List<?> values = (List<?>) result.getColumnValues().get(1);
+        for (int i = 0; i < numbers.length; i++) {
+            assertThat(values.get(i), equalTo((Object) numbers[i]));
+        }
+        assertThat(values, equalTo(expected.getColumnValues().get(1)));
+    }
+
+    @Test
+    public void parseStreamingLateMismatch() throws Exception {
+        StringBuilder text = new StringBuilder("A;B\n");
+        for (int i = 0; i < CsvParser.STREAMING_PREFIX_LINES + 10; i++) {
+            text.append(i).append(";").append(i).append("\n");
+        }
+        text.append("1;2;3\n");
+        CsvParserResult result = CsvParser.AUTOMATIC.withStreaming(true).parse(new StringReader(text.toString()));
+        assertThat(result.isParsingSuccessful(), equalTo(false));
+        assertThat(result.getMessage(), equalTo("Parsing failed: number of columns not constant. Using separator ';', line "
+                + (CsvParser.STREAMING_PREFIX_LINES + 12)));
+    }
+
+    @Test
+    public void isNumber() {
+        for (String token : Arrays.asList("1", "-1", "+1.5", ".5", "1e3", "1.5E-3", "NaN", "0.000000123")) {
+            assertThat(token, CsvParser.isNumber(token, 0, token.length()), equalTo(true));
+        }
+        for (String token : Arrays.asList("", "1.", "e3", "1e", "-", "1.5.2", "nan", "1d", "0x10", " 1")) {
+            assertThat(token, CsvParser.isNumber(token, 0, token.length()), equalTo(false));
+        }
+    }
+}
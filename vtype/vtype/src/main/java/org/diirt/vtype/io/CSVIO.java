@@ -136,7 +136,17 @@ public class CSVIO {
     }
 
     public VTable importVTable(Reader reader) {
-        CsvParser parser = CsvParser.AUTOMATIC;
+        return importVTable(reader, CsvParser.AUTOMATIC);
+    }
+
+    /**
+     * Imports a table using the given parser configuration.
+     *
+     * @param reader the source of the csv text
+     * @param parser the parser to use
+     * @return the table
+     */
+    public VTable importVTable(Reader reader, CsvParser parser) {
         CsvParserResult result = parser.parse(reader);
         if (!result.isParsingSuccessful()) {
             throw new RuntimeException(result.getMessage());
@@ -0,0 +1,300 @@
+/**
+ * Copyright (C) 2010-14 diirt developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.diirt.vtype.table;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import org.diirt.util.array.ArrayInt;
+import org.diirt.util.array.ListInt;
+import org.diirt.util.array.ListNumber;
+import org.diirt.vtype.VTable;
+
+/**
+ * Natural join of tables on their common columns. The tables are joined
+ * from left to right: at each step a hash index is built on the key columns
+ * of the smaller side, either the rows joined so far or the next table, and
+ * probed with the other side. The result is the list of matching rows for
+ * each table, in the same order as the cartesian product, so that the
+ * columns can be created as views.
+ * <p>
+ * Numbers are compared by value, NaN never matches. Strings are compared
+ * with equals. Tables with no common columns give the cartesian product.
+ *
+ * @author carcassi
+ */
+class HashJoin {
+
+    private final VTable[] tables;
+    // For each key, the column index in each table
+    private final int[][] keyColumns;
+    private final boolean[] numericKeys;
+
+    /**
+     * Prepares the join of the given tables.
+     *
+     * @param tables the tables to join
+     * @param keyColumns for each common column, the index of the column in each table
+     */
+    HashJoin(VTable[] tables, List<int[]> keyColumns) {
+        this.tables = tables;
+        this.keyColumns = keyColumns.toArray(new int[keyColumns.size()][]);
+        this.numericKeys = new boolean[keyColumns.size()];
+        for (int key = 0; key < this.keyColumns.length; key++) {
+            int[] columns = this.keyColumns[key];
+            Class<?> firstTableType = tables[0].getColumnType(columns[0]);
+            if (firstTableType.isPrimitive()) {
+                numericKeys[key] = true;
+            } else if (!firstTableType.equals(String.class)) {
+                throw new UnsupportedOperationException("Natural join only supports numbers and Strings");
+            }
+            for (int nTable = 1; nTable < tables.length; nTable++) {
+                Class<?> tableType = tables[nTable].getColumnType(columns[nTable]);
+                if (numericKeys[key] != tableType.isPrimitive() || (!numericKeys[key] && tableType != String.class)) {
+                    throw new IllegalArgumentException("Column types must match for natural join");
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the rows of each table that are part of the join.
+     *
+     * @return for each table, the row index of each row of the result
+     */
+    ListInt[] rows() {
+        // Rows joined so far: rows[nTable][n]
+        int[][] rows = new int[tables.length][];
+        int size = tables[0].getRowCount();
+        rows[0] = new int[size];
+        for (int i = 0; i < size; i++) {
+            rows[0][i] = i;
+        }
+        for (int nTable = 1; nTable < tables.length; nTable++) {
+            long[] pairs;
+            if (keyColumns.length == 0) {
+                pairs = crossPairs(size, tables[nTable].getRowCount());
+            } else if (tables[nTable].getRowCount() <= size) {
+                pairs = probeJoined(rows[0], size, nTable);
+            } else {
+                pairs = probeTable(rows[0], size, nTable);
+            }
+            int newSize = pairs.length;
+            int[][] newRows = new int[tables.length][];
+            for (int i = 0; i <= nTable; i++) {
+                newRows[i] = new int[newSize];
+            }
+            for (int n = 0; n < newSize; n++) {
+                int joined = (int) (pairs[n] >>> 32);
+                for (int i = 0; i < nTable; i++) {
+                    newRows[i][n] = rows[i][joined];
+                }
+                newRows[nTable][n] = (int) pairs[n];
+            }
+            rows = newRows;
+            size = newSize;
+        }
+
+        ListInt[] result = new ListInt[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            result[i] = new ArrayInt(rows[i]);
+        }
+        return result;
+    }
+
+    private static long[] crossPairs(int joinedSize, int tableSize) {
+        long total = (long) joinedSize * tableSize;
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Join result too large (" + total + " rows)");
+        }
+        long[] pairs = new long[(int) total];
+        int n = 0;
+        for (int joined = 0; joined < joinedSize; joined++) {
+            for (int row = 0; row < tableSize; row++) {
+                pairs[n++] = pair(joined, row);
+            }
+        }
+        return pairs;
+    }
+
+    // Index on the next table, probed with the joined rows in order
+    private long[] probeJoined(int[] firstTableRows, int joinedSize, int nTable) {
+        VTable table = tables[nTable];
+        Index index = new Index(nTable, null, table.getRowCount());
+        PairBuffer pairs = new PairBuffer(Math.max(joinedSize, 16));
+        for (int joined = 0; joined < joinedSize; joined++) {
+            int firstRow = firstTableRows[joined];
+            if (hasNaN(0, firstRow)) {
+                continue;
+            }
+            long hash = hash(0, firstRow);
+            for (int entry = index.first(hash); entry != -1; entry = index.next(entry, hash)) {
+                int row = index.row(entry);
+                if (keysEqual(0, firstRow, nTable, row)) {
+                    pairs.add(pair(joined, row));
+                }
+            }
+        }
+        return pairs.toArray();
+    }
+
+    // Index on the joined rows, probed with the next table; pairs are sorted
+    // afterwards to keep the cartesian product order
+    private long[] probeTable(int[] firstTableRows, int joinedSize, int nTable) {
+        VTable table = tables[nTable];
+        Index index = new Index(0, firstTableRows, joinedSize);
+        PairBuffer pairs = new PairBuffer(Math.max(joinedSize, 16));
+        for (int row = 0; row < table.getRowCount(); row++) {
+            if (hasNaN(nTable, row)) {
+                continue;
+            }
+            long hash = hash(nTable, row);
+            for (int entry = index.first(hash); entry != -1; entry = index.next(entry, hash)) {
+                if (keysEqual(0, firstTableRows[entry], nTable, row)) {
+                    pairs.add(pair(entry, row));
+                }
+            }
+        }
+        long[] result = pairs.toArray();
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static long pair(int joined, int row) {
+        return ((long) joined << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    private boolean hasNaN(int nTable, int row) {
+        for (int key = 0; key < keyColumns.length; key++) {
+            if (numericKeys[key] && Double.isNaN(numberColumn(nTable, key).getDouble(row))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long hash(int nTable, int row) {
+        long hash = 17;
+        for (int key = 0; key < keyColumns.length; key++) {
+            long keyHash;
+            if (numericKeys[key]) {
+                double value = numberColumn(nTable, key).getDouble(row);
+                // 0.0 and -0.0 are equal
+                keyHash = value == 0.0 ? 0 : Double.doubleToLongBits(value);
+            } else {
+                keyHash = Objects.hashCode(stringColumn(nTable, key).get(row));
+            }
+            hash = hash * 0x9E3779B97F4A7C15L + keyHash;
+        }
+        return hash ^ (hash >>> 29);
+    }
+
+    private boolean keysEqual(int table1, int row1, int table2, int row2) {
+        for (int key = 0; key < keyColumns.length; key++) {
+            if (numericKeys[key]) {
+                if (numberColumn(table1, key).getDouble(row1) != numberColumn(table2, key).getDouble(row2)) {
+                    return false;
+                }
+            } else {
+                if (!Objects.equals(stringColumn(table1, key).get(row1), stringColumn(table2, key).get(row2))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private ListNumber numberColumn(int nTable, int key) {
+        return (ListNumber) tables[nTable].getColumnData(keyColumns[key][nTable]);
+    }
+
+    private List<?> stringColumn(int nTable, int key) {
+        return (List<?>) tables[nTable].getColumnData(keyColumns[key][nTable]);
+    }
+
+    /**
+     * Chained hash index on the key columns of a set of rows of a table.
+     * Entries are numbered from 0 and chains are in ascending order.
+     */
+    private class Index {
+
+        private final int[] heads;
+        private final int[] nexts;
+        private final long[] hashes;
+        private final int[] rows;
+        private final int mask;
+
+        Index(int nTable, int[] rows, int size) {
+            int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+            this.heads = new int[capacity];
+            Arrays.fill(heads, -1);
+            this.mask = capacity - 1;
+            this.nexts = new int[size];
+            this.hashes = new long[size];
+            this.rows = rows;
+            // Inserting at the head in reverse order gives ascending chains
+            for (int entry = size - 1; entry >= 0; entry--) {
+                int row = row(entry);
+                if (hasNaN(nTable, row)) {
+                    nexts[entry] = -1;
+                    continue;
+                }
+                long hash = hash(nTable, row);
+                int bucket = bucket(hash);
+                hashes[entry] = hash;
+                nexts[entry] = heads[bucket];
+                heads[bucket] = entry;
+            }
+        }
+
+        private int bucket(long hash) {
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+
+        int row(int entry) {
+            return rows == null ? entry : rows[entry];
+        }
+
+        int first(long hash) {
+            return skip(heads[bucket(hash)], hash);
+        }
+
+        int next(int entry, long hash) {
+            return skip(nexts[entry], hash);
+        }
+
+        private int skip(int entry, long hash) {
+            while (entry != -1 && hashes[entry] != hash) {
+                entry = nexts[entry];
+            }
+            return entry;
+        }
+    }
+
+    private static class PairBuffer {
+
+        private long[] data;
+        private int size;
+
+        PairBuffer(int capacity) {
+            data = new long[capacity];
+        }
+
+        void add(long value) {
+            if (size == data.length) {
+                if (size == Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Join result too large");
+                }
+                data = Arrays.copyOf(data, (int) Math.min(Integer.MAX_VALUE, 2L * size));
+            }
+            data[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+
+}
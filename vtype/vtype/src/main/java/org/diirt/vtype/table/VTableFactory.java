@@ -45,6 +45,15 @@ public class VTableFactory {
         return join(tables.toArray(new VTable[tables.size()]));
     }
 
+    /**
+     * Natural join of the given tables: the rows whose common columns have
+     * equal values are combined. Tables without common columns are combined
+     * as a cartesian product. The columns of the result are views on the
+     * columns of the tables.
+     *
+     * @param tables the tables to join
+     * @return the joined table; null if no tables are given
+     */
     public static VTable join(VTable... tables) {
         if (tables.length == 0) {
             return null;
@@ -76,52 +85,8 @@ public class VTableFactory {
             }
         }
 
-        if (commonColumnsIndexes.isEmpty()) {
-            throw new UnsupportedOperationException("Case not implemented yet");
-        }
-
-        List<EqualValueFilter> filters = new ArrayList<>();
-        for (Map.Entry<String, int[]> entry : commonColumnsIndexes.entrySet()) {
-            int[] indexes = entry.getValue();
-            filters.add(new EqualValueFilter(Arrays.asList(tables), indexes));
-        }
-
         // Find rows
-        boolean done = false;
-        List<BufferInt> rowIndexes = new ArrayList<>();
-        for (int i = 0; i < tables.length; i++) {
-            rowIndexes.add(new BufferInt());
-            if (tables[i].getRowCount() == 0) {
-                done = true;
-            }
-        }
-        int[] currentIndexes = new int[tables.length];
-        while (!done) {
-            boolean match = true;
-            for (EqualValueFilter filter : filters) {
-                match = match && filter.filterRow(currentIndexes);
-            }
-            if (match) {
-                for (int i = 0; i < currentIndexes.length; i++) {
-                    rowIndexes.get(i).addInt(currentIndexes[i]);
-                }
-            }
-            boolean needsIncrement = true;
-            int offset = currentIndexes.length - 1;
-            while (needsIncrement) {
-                currentIndexes[offset]++;
-                if (currentIndexes[offset] == tables[offset].getRowCount()) {
-                    currentIndexes[offset] = 0;
-                    offset--;
-                    if (offset == -1) {
-                        done = true;
-                        needsIncrement = false;
-                    }
-                } else {
-                    needsIncrement = false;
-                }
-            }
-        }
+        List<ListInt> rowIndexes = Arrays.asList(new HashJoin(tables, new ArrayList<>(commonColumnsIndexes.values())).rows());
 
         List<String> columnNames = new ArrayList<>();
         List<Class<?>> columnTypes = new ArrayList<>();
@@ -164,6 +164,34 @@ public class VTableFactoryTest {
         assertThat(table.getColumnData(3), equalTo((Object) new ArrayDouble()));
     }
 
+    @Test
+    public void join5() {
+        VTable table1 = newVTable(column("Rack", newVStringArray(Arrays.asList("A", "B"), alarmNone(), timeNow())));
+        VTable table2 = newVTable(column("Slot", newVDoubleArray(new ArrayDouble(1,2,3), alarmNone(), timeNow(), displayNone())));
+        VTable table = join(table1, table2);
+        assertThat(table.getColumnCount(), equalTo(2));
+        assertThat(table.getRowCount(), equalTo(6));
+        assertThat(table.getColumnData(0), equalTo((Object) Arrays.asList("A", "A", "A", "B", "B", "B")));
+        assertThat(table.getColumnData(1), equalTo((Object) new ArrayDouble(1,2,3,1,2,3)));
+    }
+
+    @Test
+    public void join6() {
+        VTable table1 = newVTable(column("Rack", newVStringArray(Arrays.asList("B", "A", "A", "C"), alarmNone(), timeNow())),
+                                 column("Slot", newVDoubleArray(new ArrayDouble(1,1,Double.NaN,-0.0), alarmNone(), timeNow(), displayNone())));
+        VTable table2 = newVTable(column("Slot", newVDoubleArray(new ArrayDouble(1,Double.NaN,0.0,1), alarmNone(), timeNow(), displayNone())),
+                                 column("Price", newVDoubleArray(new ArrayDouble(10,20,30,40), alarmNone(), timeNow(), displayNone())));
+        VTable table3 = newVTable(column("Slot", newVDoubleArray(new ArrayDouble(0,1), alarmNone(), timeNow(), displayNone())),
+                                 column("Owner", newVStringArray(Arrays.asList("X", "Y"), alarmNone(), timeNow())));
+        VTable table = join(table1, table2, table3);
+        assertThat(table.getColumnCount(), equalTo(4));
+        assertThat(table.getRowCount(), equalTo(5));
+        assertThat(table.getColumnData(0), equalTo((Object) Arrays.asList("B", "B", "A", "A", "C")));
+        assertThat(table.getColumnData(1), equalTo((Object) new ArrayDouble(1,1,1,1,-0.0)));
+        assertThat(table.getColumnData(2), equalTo((Object) new ArrayDouble(10,40,10,40,30)));
+        assertThat(table.getColumnData(3), equalTo((Object) Arrays.asList("Y", "Y", "Y", "Y", "X")));
+    }
+
     @Test
     public void union1() {
         VTable table1 = newVTable(column("A", newVDoubleArray(new ArrayDouble(1.0,2.0,3.0), alarmNone(), timeNow(), displayNone())),